@@ -18,6 +18,7 @@
 package baritone.api;
 
 import baritone.api.utils.SettingsUtil;
+import net.minecraft.client.Minecraft;
 
 import java.util.Iterator;
 import java.util.ServiceLoader;
@@ -35,13 +36,21 @@ public final class BaritoneAPI {
 
     static {
         settings = new Settings();
-        SettingsUtil.readAndApply(settings, SettingsUtil.SETTINGS_DEFAULT_NAME);
-
-        ServiceLoader<IBaritoneProvider> baritoneLoader = ServiceLoader.load(IBaritoneProvider.class);
-        Iterator<IBaritoneProvider> instances = baritoneLoader.iterator();
-        provider = instances.next();
+        if (Minecraft.getMinecraft() == null) {
+            // headless, e.g. benchmarks, there's no game directory to read settings from and nothing to attach a Baritone to
+            provider = null;
+        } else {
+            SettingsUtil.readAndApply(settings, SettingsUtil.SETTINGS_DEFAULT_NAME);
+
+            ServiceLoader<IBaritoneProvider> baritoneLoader = ServiceLoader.load(IBaritoneProvider.class);
+            Iterator<IBaritoneProvider> instances = baritoneLoader.iterator();
+            provider = instances.next();
+        }
     }
 
+    /**
+     * @return The provider, or null when running without a Minecraft client
+     */
     public static IBaritoneProvider getProvider() {
         return BaritoneAPI.provider;
     }
@@ -516,6 +516,91 @@ public final class Settings {
      */
     public final Setting<Float> pathingMapLoadFactor = new Setting<>(0.75f);
 
+    /**
+     * Store pathfinding nodes in parallel primitive arrays instead of allocating one object per node
+     * <p>
+     * Long searches visit millions of nodes, this cuts down on garbage collection in the middle of pathing. The open
+     * set is always the binary heap with this on, {@link #pathingOpenSet} only applies to node objects.
+     */
+    public final Setting<Boolean> pathingNodePool = new Setting<>(false);
+
+    /**
+     * When the goal is a single block in a loaded or cached chunk, search from both ends at once
+     * <p>
+     * The two searches meet in the middle, which expands far fewer nodes on long trips to a known destination.
+     * <p>
+     * The backward search can't reverse parkour jumps, so where the cheapest route needs parkour (see {@link #allowParkour})
+     * the two searches can meet on a more expensive route instead
+     */
+    public final Setting<Boolean> pathingBidirectional = new Setting<>(false);
+
+    /**
+     * On long trips, plan a route a chunk at a time over the cache first, and have each segment follow it
+     * <p>
+     * Without this, every segment towards a far away goal just heads straight at it
+     */
+    public final Setting<Boolean> pathingCorridor = new Setting<>(false);
+
+    /**
+     * Only plan a corridor when the goal is at least this many blocks away horizontally
+     */
+    public final Setting<Integer> pathingCorridorMinDistance = new Setting<>(1000);
+
+    /**
+     * How long to spend planning a corridor before settling for the best one so far, in milliseconds
+     */
+    public final Setting<Long> pathingCorridorTimeoutMS = new Setting<>(100L);
+
+    /**
+     * How many extra threads to use for working out movement costs ahead of the search, 0 to do it all on the pathing thread
+     * <p>
+     * The resulting path is exactly the same either way. This only applies to the normal pathfinder, and not when a
+     * process like builder or mine customizes the costs
+     */
+    public final Setting<Integer> pathingExpansionThreads = new Setting<>(0);
+
+    /**
+     * How many blocks each search remembers whether it can walk through, walk on and mine, 0 to work it out every time
+     * <p>
+     * Neighbouring movements ask about the same blocks over and over. Once this many have been remembered, it forgets
+     * them all and starts over.
+     * <p>
+     * Off by default until it's shown to pay for itself over the per state precomputed data, try something like 65536
+     * and compare the nodes per second in the log (or the blockMemoSize parameter of the A* benchmark)
+     */
+    public final Setting<Integer> pathingBlockMemoSize = new Setting<>(0);
+
+    /**
+     * Copy the loaded chunks for path calculations on another thread, instead of reading the game's own chunks while the
+     * game is changing them
+     * <p>
+     * Copying takes a moment on the main thread each time a calculation starts. Blocks that change while the path is
+     * calculated or followed are copied again a section at a time.
+     */
+    public final Setting<Boolean> pathingChunkSnapshots = new Setting<>(false);
+
+    /**
+     * When something changes in the world that breaks the current path, only search again around the broken part and
+     * then pick the old path back up, instead of planning all the way to the goal from scratch
+     * <p>
+     * If the repair doesn't work out, it falls back to a normal replan
+     */
+    public final Setting<Boolean> incrementalReplanning = new Setting<>(false);
+
+    /**
+     * The open set the normal pathfinder uses: "binary" (binary heap), "pairing" (pairing heap) or "bucket" (bucket
+     * queue on rounded cost). They all come up with the same path, this is only about speed.
+     * <p>
+     * Ignored with {@link #pathingNodePool} on, or with {@link #pathingExpansionThreads}, which both need the binary heap
+     */
+    public final Setting<String> pathingOpenSet = new Setting<>("binary");
+
+    /**
+     * The node map and open set are kept and reused between path calculations, unless the last search grew them past
+     * this many nodes, in which case they're thrown away so that one huge search doesn't hog memory forever
+     */
+    public final Setting<Integer> pathingArenaMaxRetainedNodes = new Setting<>(500000);
+
     /**
      * How far are you allowed to fall onto solid ground (without a water bucket)?
      * 3 won't deal any damage. But if you just want to get down the mountain quickly and you have
@@ -548,7 +633,8 @@ public final class Settings {
     public final Setting<Boolean> simplifyUnloadedYCoord = new Setting<>(true);
 
     /**
-     * Whenever a block changes, repack the whole chunk that it's in
+     * Whenever a block changes, update the cached chunk that it's in. Only the changed blocks are repacked, unless the
+     * chunk isn't cached yet.
      */
     public final Setting<Boolean> repackOnAnyBlockChange = new Setting<>(true);
 
@@ -613,23 +699,51 @@ public final class Settings {
     public final Setting<Boolean> chunkCaching = new Setting<>(true);
 
     /**
-     * On save, delete from RAM any cached regions that are more than 1024 blocks away from the player
-     * <p>
-     * Temporarily disabled
+     * Delete cached regions from RAM once they take up more than {@link #cachedRegionMemoryBudgetMB}. Chunks that can be
+     * paged back in from their region file go first, then whole regions, least recently used first. Regions with unsaved
+     * changes are saved before they're deleted.
      * <p>
-     * Temporarily reenabled
+     * This used to delete every region more than 1024 blocks from the player, and was temporarily disabled (see the
+     * issue). Now it only kicks in over the budget.
      *
      * @see <a href="https://github.com/cabaletta/baritone/issues/248">Issue #248</a>
      */
     public final Setting<Boolean> pruneRegionsFromRAM = new Setting<>(true);
 
     /**
-     * The chunk packer queue can never grow to larger than this, if it does, the oldest chunks are discarded
-     * <p>
-     * The newest chunks are kept, so that if you're moving in a straight line quickly then stop, your immediate render distance is still included
+     * Roughly how many megabytes of RAM cached regions can take up in each world, see {@link #pruneRegionsFromRAM}
+     */
+    public final Setting<Integer> cachedRegionMemoryBudgetMB = new Setting<>(256);
+
+    /**
+     * How often, in seconds, to append the chunks that have changed since then to each region's journal. Region files
+     * are only rewritten every 10 minutes, so this is how much a crash can lose. 0 to not keep a journal at all.
+     */
+    public final Setting<Integer> cacheJournalIntervalSeconds = new Setting<>(5);
+
+    /**
+     * Start reading cached regions from disk before they're needed, in the direction you're looking and the direction
+     * the current path goes in. Otherwise a region is only read once something asks for it, and until it's read pathing
+     * treats it as not cached.
+     */
+    public final Setting<Boolean> prefetchCachedRegions = new Setting<>(true);
+
+    /**
+     * How far ahead to prefetch cached regions, in blocks
+     */
+    public final Setting<Integer> prefetchCachedRegionsDistance = new Setting<>(768);
+
+    /**
+     * Past this many chunks waiting to be packed, the ones that have already been garbage collected are cleared out of
+     * the queue. Chunks that can still be packed are never discarded, and there's only ever one entry per chunk.
      */
     public final Setting<Integer> chunkPackerQueueMaxSize = new Setting<>(2000);
 
+    /**
+     * How many threads pack chunks into the cache. Only takes effect when you next join a world.
+     */
+    public final Setting<Integer> chunkPackerThreads = new Setting<>(2);
+
     /**
      * Fill in blocks behind you
      */
@@ -33,12 +33,31 @@ public class GoalComposite implements Goal {
      */
     private final Goal[] goals;
 
+    /**
+     * Built the first time it's needed, only for composites with enough sub goals to be worth it
+     */
+    private volatile GoalCompositeIndex index;
+
     public GoalComposite(Goal... goals) {
         this.goals = goals;
     }
 
+    private GoalCompositeIndex index() {
+        GoalCompositeIndex index = this.index;
+        if (index == null && goals.length >= GoalCompositeIndex.MIN_GOALS) {
+            // if two threads get here at once they'll just both build an identical index, no harm done
+            index = new GoalCompositeIndex(goals);
+            this.index = index;
+        }
+        return index;
+    }
+
     @Override
     public boolean isInGoal(int x, int y, int z) {
+        GoalCompositeIndex index = index();
+        if (index != null) {
+            return index.isInGoal(x, y, z);
+        }
         for (Goal goal : goals) {
             if (goal.isInGoal(x, y, z)) {
                 return true;
@@ -49,6 +68,10 @@ public class GoalComposite implements Goal {
 
     @Override
     public double heuristic(int x, int y, int z) {
+        GoalCompositeIndex index = index();
+        if (index != null) {
+            return index.heuristic(x, y, z);
+        }
         double min = Double.MAX_VALUE;
         for (Goal g : goals) {
             // TODO technically this isn't admissible...?
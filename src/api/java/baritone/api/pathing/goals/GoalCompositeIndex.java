@@ -0,0 +1,280 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.api.pathing.goals;
+
+import baritone.api.utils.interfaces.IGoalRenderPos;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A spatial index over the block-ish members of a {@link GoalComposite}, so that {@link Goal#isInGoal} and
+ * {@link Goal#heuristic} don't have to iterate every single sub goal for every single node.
+ * <p>
+ * Sub goals that are exactly a {@link GoalBlock}, {@link GoalTwoBlocks} or {@link GoalGetToBlock}, or that opt in
+ * with {@link IBoundedGoal}, are bucketed into 16x16x16 cells by their goal position, which {@code isInGoal} looks up
+ * directly, and the cells are arranged in a bounding volume tree that {@code heuristic} walks closest first, skipping
+ * anything that can't beat the best so far. Anything else, other subclasses included, is kept in a plain array and
+ * checked linearly like before, since a subclass can override either method.
+ * <p>
+ * The results are exactly the same as the linear scan, because those goals keep to the rules in {@link IBoundedGoal}
+ * (the three plain ones with no heuristic offset, GoalTwoBlocks and GoalGetToBlock only use one block below).
+ */
+final class GoalCompositeIndex {
+
+    /**
+     * Composites with fewer sub goals than this aren't worth indexing
+     */
+    static final int MIN_GOALS = 32;
+
+    private static final int CELL_SHIFT = 4;
+
+    private static final int REACH = IBoundedGoal.REACH;
+
+    private final Goal[] unindexed;
+
+    private final Long2ObjectOpenHashMap<Cell> cells;
+
+    /**
+     * Bounding volume tree over the cells, for finding the minimum heuristic without looking at every cell
+     */
+    private final Node tree;
+
+    GoalCompositeIndex(Goal[] goals) {
+        List<Goal> unindexed = new ArrayList<>();
+        Long2ObjectOpenHashMap<List<Goal>> buckets = new Long2ObjectOpenHashMap<>();
+        for (Goal goal : goals) {
+            if (isIndexable(goal)) {
+                BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
+                long key = cellKey(pos.getX() >> CELL_SHIFT, pos.getY() >> CELL_SHIFT, pos.getZ() >> CELL_SHIFT);
+                List<Goal> bucket = buckets.get(key);
+                if (bucket == null) {
+                    bucket = new ArrayList<>();
+                    buckets.put(key, bucket);
+                }
+                bucket.add(goal);
+            } else {
+                unindexed.add(goal);
+            }
+        }
+        this.unindexed = unindexed.toArray(new Goal[0]);
+        this.cells = new Long2ObjectOpenHashMap<>(buckets.size());
+        List<Node> leaves = new ArrayList<>(buckets.size());
+        for (Long2ObjectOpenHashMap.Entry<List<Goal>> entry : buckets.long2ObjectEntrySet()) {
+            Cell cell = new Cell(entry.getValue().toArray(new Goal[0]));
+            cells.put(entry.getLongKey(), cell);
+            leaves.add(new Node(cell));
+        }
+        this.tree = leaves.isEmpty() ? null : Node.build(leaves);
+    }
+
+    private static boolean isIndexable(Goal goal) {
+        Class<?> type = goal.getClass();
+        return type == GoalBlock.class || type == GoalTwoBlocks.class || type == GoalGetToBlock.class || goal instanceof IBoundedGoal;
+    }
+
+    private static double heuristicOffset(Goal goal) {
+        return goal instanceof IBoundedGoal ? ((IBoundedGoal) goal).heuristicOffset() : 0;
+    }
+
+    private static long cellKey(int cellX, int cellY, int cellZ) {
+        return ((long) cellX & 0x3FFFFFFL) << 38 | ((long) cellY & 0xFFFL) << 26 | ((long) cellZ & 0x3FFFFFFL);
+    }
+
+    boolean isInGoal(int x, int y, int z) {
+        for (Goal goal : unindexed) {
+            if (goal.isInGoal(x, y, z)) {
+                return true;
+            }
+        }
+        for (int cellX = (x - REACH) >> CELL_SHIFT; cellX <= (x + REACH) >> CELL_SHIFT; cellX++) {
+            for (int cellY = (y - REACH) >> CELL_SHIFT; cellY <= (y + REACH) >> CELL_SHIFT; cellY++) {
+                for (int cellZ = (z - REACH) >> CELL_SHIFT; cellZ <= (z + REACH) >> CELL_SHIFT; cellZ++) {
+                    Cell cell = cells.get(cellKey(cellX, cellY, cellZ));
+                    if (cell != null && cell.isInGoal(x, y, z)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    double heuristic(int x, int y, int z) {
+        double min = Double.MAX_VALUE;
+        for (Goal goal : unindexed) {
+            min = Math.min(min, goal.heuristic(x, y, z));
+        }
+        if (tree != null) {
+            min = tree.heuristic(x, y, z, min);
+        }
+        return min;
+    }
+
+    /**
+     * An axis aligned box around some goal positions, where the y range already includes {@link #REACH} below the
+     * lowest one, and the smallest heuristic offset of any of them (see {@link IBoundedGoal#heuristicLowerBound})
+     */
+    private static class Box {
+
+        int minX = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        double offset = Double.POSITIVE_INFINITY;
+
+        void include(Box other) {
+            minX = Math.min(minX, other.minX);
+            maxX = Math.max(maxX, other.maxX);
+            minY = Math.min(minY, other.minY);
+            maxY = Math.max(maxY, other.maxY);
+            minZ = Math.min(minZ, other.minZ);
+            maxZ = Math.max(maxZ, other.maxZ);
+            offset = Math.min(offset, other.offset);
+        }
+
+        /**
+         * @return A lower bound on the heuristic of every goal in this box
+         */
+        double lowerBound(int x, int y, int z) {
+            int xDiff = Math.max(0, Math.max(minX - x, x - maxX));
+            int zDiff = Math.max(0, Math.max(minZ - z, z - maxZ));
+            // the y difference closest to zero, keeping its sign since ascending and descending cost differently
+            int yDiff = y > maxY ? y - maxY : y < minY ? y - minY : 0;
+            return GoalBlock.calculate(xDiff, yDiff, zDiff) + offset;
+        }
+    }
+
+    private static final class Cell extends Box {
+
+        private final Goal[] goals;
+
+        private Cell(Goal[] goals) {
+            this.goals = goals;
+            for (Goal goal : goals) {
+                BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
+                minX = Math.min(minX, pos.getX());
+                maxX = Math.max(maxX, pos.getX());
+                minY = Math.min(minY, pos.getY() - REACH);
+                maxY = Math.max(maxY, pos.getY());
+                minZ = Math.min(minZ, pos.getZ());
+                maxZ = Math.max(maxZ, pos.getZ());
+                offset = Math.min(offset, heuristicOffset(goal));
+            }
+        }
+
+        private boolean isInGoal(int x, int y, int z) {
+            for (Goal goal : goals) {
+                if (goal.isInGoal(x, y, z)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return The minimum of {@code min} and the heuristic of every goal in this cell
+         */
+        private double heuristic(int x, int y, int z, double min) {
+            for (Goal goal : goals) {
+                min = Math.min(min, goal.heuristic(x, y, z));
+            }
+            return min;
+        }
+    }
+
+    private static final class Node extends Box {
+
+        private final Cell cell;
+        private final Node left;
+        private final Node right;
+
+        private Node(Cell cell) {
+            this.cell = cell;
+            this.left = null;
+            this.right = null;
+            include(cell);
+        }
+
+        private Node(Node left, Node right) {
+            this.cell = null;
+            this.left = left;
+            this.right = right;
+            include(left);
+            include(right);
+        }
+
+        /**
+         * Split along whichever axis the boxes are most spread out on, at the median
+         */
+        private static Node build(List<Node> nodes) {
+            if (nodes.size() == 1) {
+                return nodes.get(0);
+            }
+            Box bounds = new Box();
+            for (Node node : nodes) {
+                bounds.include(node);
+            }
+            int spreadX = bounds.maxX - bounds.minX;
+            int spreadY = bounds.maxY - bounds.minY;
+            int spreadZ = bounds.maxZ - bounds.minZ;
+            if (spreadX >= spreadY && spreadX >= spreadZ) {
+                nodes.sort(Comparator.comparingInt(node -> node.minX + node.maxX));
+            } else if (spreadY >= spreadZ) {
+                nodes.sort(Comparator.comparingInt(node -> node.minY + node.maxY));
+            } else {
+                nodes.sort(Comparator.comparingInt(node -> node.minZ + node.maxZ));
+            }
+            int mid = nodes.size() / 2;
+            return new Node(build(new ArrayList<>(nodes.subList(0, mid))), build(new ArrayList<>(nodes.subList(mid, nodes.size()))));
+        }
+
+        /**
+         * @return The minimum of {@code min} and the heuristic of every goal under this node
+         */
+        private double heuristic(int x, int y, int z, double min) {
+            if (cell != null) {
+                return cell.heuristic(x, y, z, min);
+            }
+            // go down the closer side first, so that there's a better chance of skipping the other side entirely
+            double leftBound = left.lowerBound(x, y, z);
+            double rightBound = right.lowerBound(x, y, z);
+            if (leftBound <= rightBound) {
+                if (leftBound < min) {
+                    min = left.heuristic(x, y, z, min);
+                }
+                if (rightBound < min) {
+                    min = right.heuristic(x, y, z, min);
+                }
+            } else {
+                if (rightBound < min) {
+                    min = right.heuristic(x, y, z, min);
+                }
+                if (leftBound < min) {
+                    min = left.heuristic(x, y, z, min);
+                }
+            }
+            return min;
+        }
+    }
+}
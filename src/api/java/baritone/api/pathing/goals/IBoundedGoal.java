@@ -0,0 +1,59 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.api.pathing.goals;
+
+import baritone.api.utils.interfaces.IGoalRenderPos;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * A goal that stays close to one block position, which lets {@link GoalComposite} index it spatially instead of
+ * checking it for every single node.
+ * <p>
+ * {@link GoalBlock}, {@link GoalTwoBlocks} and {@link GoalGetToBlock} are indexed as they are, but not their
+ * subclasses, since those can override either method. A subclass that still keeps to the rules below can implement
+ * this to be indexed too:
+ * <ul>
+ * <li>{@link #isInGoal} is only ever true within {@link #REACH} blocks (on each axis) of {@link #getGoalPos}</li>
+ * <li>{@link #heuristic} is never less than {@link #heuristicLowerBound}</li>
+ * </ul>
+ */
+public interface IBoundedGoal extends Goal, IGoalRenderPos {
+
+    int REACH = 2;
+
+    /**
+     * @return An amount that {@link #heuristic} is always at least on top of the plain distance in
+     * {@link #heuristicLowerBound}, 0 unless the heuristic adds something of its own
+     */
+    default double heuristicOffset() {
+        return 0;
+    }
+
+    /**
+     * @return {@link GoalBlock#calculate} from the closest of {@link #getGoalPos} and the {@link #REACH} blocks below
+     * it, plus {@link #heuristicOffset}
+     */
+    default double heuristicLowerBound(int x, int y, int z) {
+        BlockPos pos = getGoalPos();
+        int top = pos.getY();
+        int bottom = top - REACH;
+        // the y difference closest to zero, keeping its sign since ascending and descending cost differently
+        int yDiff = y > top ? y - top : y < bottom ? y - bottom : 0;
+        return GoalBlock.calculate(x - pos.getX(), yDiff, z - pos.getZ()) + heuristicOffset();
+    }
+}
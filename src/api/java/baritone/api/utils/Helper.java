@@ -167,7 +167,10 @@ public interface Helper {
             component.appendSibling(new TextComponentString(" "));
         }
         Arrays.asList(components).forEach(component::appendSibling);
-        if (logAsToast) {
+        if (Minecraft.getMinecraft() == null) {
+            // headless, nowhere to show it but stdout
+            System.out.println(component.getUnformattedText());
+        } else if (logAsToast) {
             logToast(getPrefix(), component);
         } else {
             Minecraft.getMinecraft().addScheduledTask(() -> BaritoneAPI.getSettings().logger.value.accept(component));
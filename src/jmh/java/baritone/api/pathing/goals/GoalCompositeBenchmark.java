@@ -0,0 +1,137 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.api.pathing.goals;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GoalComposite#isInGoal(int, int, int)} and {@link GoalComposite#heuristic(int, int, int)} against checking every
+ * sub goal in turn, which is what composites below the indexing threshold still do. Mining and building hand the
+ * pathfinder composites of hundreds of positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GoalCompositeBenchmark {
+
+    private static final int COUNT = 1 << 14;
+
+    @Param({"10", "100", "1000"})
+    public int goals;
+
+    private Goal[] subGoals;
+    private GoalComposite composite;
+
+    private int[] xs;
+    private int[] ys;
+    private int[] zs;
+
+    @Setup
+    public void setup() {
+        Bootstrap.register(); // the heuristics read settings, which need the block registry
+        Random random = new Random(goals);
+        subGoals = new Goal[goals];
+        for (int i = 0; i < goals; i++) {
+            BlockPos pos = new BlockPos(random.nextInt(200) - 100, random.nextInt(40) + 5, random.nextInt(200) - 100);
+            switch (random.nextInt(3)) {
+                case 0:
+                    subGoals[i] = new GoalBlock(pos);
+                    break;
+                case 1:
+                    subGoals[i] = new GoalTwoBlocks(pos);
+                    break;
+                default:
+                    subGoals[i] = new GoalGetToBlock(pos);
+                    break;
+            }
+        }
+        composite = new GoalComposite(subGoals);
+        xs = new int[COUNT];
+        ys = new int[COUNT];
+        zs = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            xs[i] = random.nextInt(220) - 110;
+            ys[i] = random.nextInt(50);
+            zs[i] = random.nextInt(220) - 110;
+        }
+        composite.isInGoal(0, 0, 0); // build the index now, not during the first measurement
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int isInGoal() {
+        GoalComposite composite = this.composite;
+        int found = 0;
+        for (int i = 0; i < COUNT; i++) {
+            if (composite.isInGoal(xs[i], ys[i], zs[i])) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int isInGoalLinear() {
+        Goal[] subGoals = this.subGoals;
+        int found = 0;
+        for (int i = 0; i < COUNT; i++) {
+            for (Goal goal : subGoals) {
+                if (goal.isInGoal(xs[i], ys[i], zs[i])) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double heuristic() {
+        GoalComposite composite = this.composite;
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += composite.heuristic(xs[i], ys[i], zs[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double heuristicLinear() {
+        Goal[] subGoals = this.subGoals;
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            double min = Double.MAX_VALUE;
+            for (Goal goal : subGoals) {
+                min = Math.min(min, goal.heuristic(xs[i], ys[i], zs[i]));
+            }
+            sum += min;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.api.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BetterBlockPos#longHash(int, int, int)} is computed for every neighbor of every node the pathfinder expands,
+ * and it's also what decides how well the node map spreads out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BetterBlockPosBenchmark {
+
+    private static final int COUNT = 1 << 16;
+
+    private int[] xs;
+    private int[] ys;
+    private int[] zs;
+
+    private Long2ObjectOpenHashMap<Object> map;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(2134);
+        xs = new int[COUNT];
+        ys = new int[COUNT];
+        zs = new int[COUNT];
+        map = new Long2ObjectOpenHashMap<>();
+        // a blob around the origin, roughly what a search explores
+        for (int i = 0; i < COUNT; i++) {
+            xs[i] = random.nextInt(256) - 128;
+            ys[i] = random.nextInt(64) + 40;
+            zs[i] = random.nextInt(256) - 128;
+            if ((i & 1) == 0) {
+                map.put(BetterBlockPos.longHash(xs[i], ys[i], zs[i]), Boolean.TRUE);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public long longHash() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += BetterBlockPos.longHash(xs[i], ys[i], zs[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int mapLookup() {
+        int found = 0;
+        for (int i = 0; i < COUNT; i++) {
+            if (map.get(BetterBlockPos.longHash(xs[i], ys[i], zs[i])) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
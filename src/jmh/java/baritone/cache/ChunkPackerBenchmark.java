@@ -0,0 +1,119 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.utils.SyntheticWorld;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.BlockStateContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packing the sections of a chunk a block at a time, as {@link ChunkPacker} used to, against classifying each palette
+ * entry once. Uses chunks out of a {@link SyntheticWorld}, none of which have water, so no chunk is needed for context.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkPackerBenchmark {
+
+    private static final int CHUNKS = 16;
+
+    @Param({"FLAT", "CAVE", "NETHER"})
+    public String world;
+
+    private BlockStateContainer[][] containers;
+    private int[][][] storages;
+    private IBlockState[][][] palettes;
+
+    @Setup
+    public void setup() {
+        HeadlessWorld headless = SyntheticWorld.create(world).world;
+        containers = new BlockStateContainer[CHUNKS][16];
+        storages = new int[CHUNKS][16][];
+        palettes = new IBlockState[CHUNKS][16][];
+        for (int c = 0; c < CHUNKS; c++) {
+            char[][] sections = headless.getChunk(c, c);
+            for (int y0 = 0; y0 < 16; y0++) {
+                if (sections[y0] == null) {
+                    continue;
+                }
+                // the same section twice, once as the game has it and once as the palette accessors would see it
+                BlockStateContainer container = new BlockStateContainer();
+                int[] storage = new int[4096];
+                List<IBlockState> palette = new ArrayList<>();
+                Map<IBlockState, Integer> ids = new IdentityHashMap<>();
+                for (int i = 0; i < 4096; i++) {
+                    int x = i & 15;
+                    int y = y0 << 4 | i >> 8;
+                    int z = (i >> 4) & 15;
+                    IBlockState state = headless.get(sections, x, y, z);
+                    container.set(x, y & 15, z, state);
+                    storage[i] = ids.computeIfAbsent(state, s -> {
+                        palette.add(s);
+                        return palette.size() - 1;
+                    });
+                }
+                containers[c][y0] = container;
+                storages[c][y0] = storage;
+                palettes[c][y0] = palette.toArray(new IBlockState[0]);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNKS)
+    public long perBlock() {
+        long sum = 0;
+        for (int c = 0; c < CHUNKS; c++) {
+            long[] words = new long[CachedChunk.SIZE / 64];
+            Map<String, List<BlockPos>> special = new HashMap<>();
+            for (int y0 = 0; y0 < 16; y0++) {
+                if (containers[c][y0] != null) {
+                    ChunkPacker.packSectionPerBlock(y0, containers[c][y0], null, words, special);
+                }
+            }
+            sum += words[words.length / 2] + special.size();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNKS)
+    public long palette() {
+        long sum = 0;
+        for (int c = 0; c < CHUNKS; c++) {
+            long[] words = new long[CachedChunk.SIZE / 64];
+            Map<String, List<BlockPos>> special = new HashMap<>();
+            for (int y0 = 0; y0 < 16; y0++) {
+                IBlockState[] palette = palettes[c][y0];
+                if (palette != null) {
+                    ChunkPacker.packSection(y0, storages[c][y0], id -> palette[id], palette.length, null, words, special);
+                }
+            }
+            sum += words[words.length / 2] + special.size();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.utils.SyntheticWorld;
+import baritone.utils.pathing.PathingBlockType;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups into a cached chunk, {@link PackedChunkData} against the {@link BitSet} that {@link CachedChunk} used to keep.
+ * {@link #getBlock()} is the whole of what {@link baritone.utils.BlockStateInterface} does for a block that's only in
+ * the cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackedChunkDataBenchmark {
+
+    private static final int COUNT = 4096;
+
+    @Param({"FLAT", "CAVE", "NETHER"})
+    public String world;
+
+    private BitSet bitSet;
+    private PackedChunkData packed;
+    private CachedChunk chunk;
+    private int[] xs;
+    private int[] ys;
+    private int[] zs;
+
+    @Setup
+    public void setup() {
+        HeadlessWorld headless = SyntheticWorld.create(world).world;
+        char[][] sections = headless.getChunk(4, 4);
+        long[] words = new long[PackedChunkData.WORDS];
+        for (int y0 = 0; y0 < 16; y0++) {
+            if (sections[y0] == null) {
+                continue;
+            }
+            int[] storage = new int[4096];
+            List<IBlockState> palette = new ArrayList<>();
+            for (int i = 0; i < 4096; i++) {
+                IBlockState state = headless.get(sections, i & 15, y0 << 4 | i >> 8, (i >> 4) & 15);
+                int id = palette.indexOf(state);
+                if (id < 0) {
+                    id = palette.size();
+                    palette.add(state);
+                }
+                storage[i] = id;
+            }
+            ChunkPacker.packSection(y0, storage, palette::get, palette.size(), null, words, new HashMap<>());
+        }
+        bitSet = BitSet.valueOf(words);
+        packed = new PackedChunkData(words.clone());
+        IBlockState[] overview = new IBlockState[256];
+        Arrays.fill(overview, Blocks.STONE.getDefaultState());
+        chunk = new CachedChunk(4, 4, packed, overview, new HashMap<>(), 0);
+
+        Random random = new Random(COUNT);
+        xs = new int[COUNT];
+        ys = new int[COUNT];
+        zs = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            xs[i] = random.nextInt(16);
+            ys[i] = random.nextInt(128);
+            zs[i] = random.nextInt(16);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int bitSetType() {
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            int index = CachedChunk.getPositionIndex(xs[i], ys[i], zs[i]);
+            sum += PathingBlockType.fromBits(bitSet.get(index), bitSet.get(index + 1)).ordinal();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int packedType() {
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += packed.getType(PackedChunkData.position(xs[i], ys[i], zs[i])).ordinal();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int getBlock() {
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += System.identityHashCode(chunk.getBlock(xs[i], ys[i], zs[i], 0));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int[] bitSetHeightMap() {
+        int[] heightMap = new int[256];
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                for (int y = 255; y >= 0; y--) {
+                    int i = CachedChunk.getPositionIndex(x, y, z);
+                    if (bitSet.get(i) || bitSet.get(i + 1)) {
+                        heightMap[z << 4 | x] = y;
+                        break;
+                    }
+                }
+            }
+        }
+        return heightMap;
+    }
+
+    @Benchmark
+    public int[] packedHeightMap() {
+        int[] heightMap = new int[256];
+        packed.computeHeightMap(heightMap);
+        return heightMap;
+    }
+}
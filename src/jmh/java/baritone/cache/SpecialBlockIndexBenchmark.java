@@ -0,0 +1,93 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the nearest of a block in a well explored area, by going through every location in every chunk and sorting
+ * them as {@link CachedWorld#getLocationsOf} and then {@link baritone.process.MineProcess} used to, against asking
+ * {@link SpecialBlockIndex} which chunks to look in.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecialBlockIndexBenchmark {
+
+    private static final String BLOCK = "minecraft:diamond_ore";
+
+    @Param({"1", "16"})
+    public int perChunk;
+
+    @Param({"64"})
+    public int maximum;
+
+    private SpecialBlockIndex index;
+
+    /**
+     * Every chunk in the 3x3 regions around the center, and the x, z of each block in it
+     */
+    private Map<Long, List<int[]>> chunks;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(perChunk);
+        index = new SpecialBlockIndex();
+        chunks = new HashMap<>();
+        for (int chunkX = -32; chunkX < 64; chunkX++) {
+            for (int chunkZ = -32; chunkZ < 64; chunkZ++) {
+                List<int[]> blocks = new ArrayList<>();
+                for (int i = 0; i < perChunk; i++) {
+                    blocks.add(new int[]{chunkX << 4 | random.nextInt(16), chunkZ << 4 | random.nextInt(16)});
+                }
+                chunks.put(SpecialBlockIndex.key(chunkX, chunkZ), blocks);
+                index.update(chunkX, chunkZ, Collections.singletonMap(BLOCK, blocks));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<int[]> everyLocation() {
+        List<int[]> all = new ArrayList<>();
+        for (List<int[]> blocks : chunks.values()) {
+            for (int[] block : blocks) {
+                all.add(block.clone());
+            }
+        }
+        all.sort(Comparator.comparingInt(b -> (b[0] - 256) * (b[0] - 256) + (b[1] - 256) * (b[1] - 256)));
+        return all.subList(0, maximum);
+    }
+
+    @Benchmark
+    public List<int[]> indexed() {
+        List<int[]> found = new ArrayList<>();
+        for (long key : index.nearestChunks(BLOCK, maximum, 256, 256, 2)) {
+            for (int[] block : chunks.get(key)) {
+                found.add(block.clone());
+            }
+        }
+        found.sort(Comparator.comparingInt(b -> (b[0] - 256) * (b[0] - 256) + (b[1] - 256) * (b[1] - 256)));
+        return found.subList(0, maximum);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.utils.BlockUtils;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up the special blocks of a cached chunk by name, as {@link CachedChunk} used to, against the block states it
+ * now resolves once. Half the lookups are at special blocks and half are in the columns around them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecialBlocksBenchmark {
+
+    private static final int COUNT = 4096;
+
+    @Param({"16", "256"})
+    public int specials;
+
+    private Int2ObjectOpenHashMap<String> byName;
+    private CachedChunk chunk;
+    private int[] xs;
+    private int[] ys;
+    private int[] zs;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(specials);
+        String[] names = {"minecraft:chest", "minecraft:furnace", "minecraft:hopper", "minecraft:mob_spawner"};
+        Map<String, List<BlockPos>> locations = new HashMap<>();
+        List<BlockPos> all = new ArrayList<>();
+        byName = new Int2ObjectOpenHashMap<>();
+        for (int i = 0; i < specials; i++) {
+            BlockPos pos = new BlockPos(random.nextInt(16), 1 + random.nextInt(64), random.nextInt(16));
+            String name = names[random.nextInt(names.length)];
+            if (byName.putIfAbsent(CachedChunk.getPositionIndex(pos.getX(), pos.getY(), pos.getZ()), name) == null) {
+                locations.computeIfAbsent(name, n -> new ArrayList<>()).add(pos);
+                all.add(pos);
+            }
+        }
+        // all solid up to y 70, so that no lookup is answered by the overview
+        PackedChunkData data = new PackedChunkData();
+        for (int position = 0; position < 71 << 8; position++) {
+            data.setBits(position, 3);
+        }
+        IBlockState[] overview = new IBlockState[256];
+        Arrays.fill(overview, Blocks.STONE.getDefaultState());
+        chunk = new CachedChunk(0, 0, data, overview, locations, 0);
+
+        xs = new int[COUNT];
+        ys = new int[COUNT];
+        zs = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            BlockPos pos = all.get(random.nextInt(all.size()));
+            xs[i] = pos.getX();
+            ys[i] = (i & 1) == 0 ? pos.getY() : random.nextInt(70);
+            zs[i] = pos.getZ();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int byName() {
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            String name = byName.get(CachedChunk.getPositionIndex(xs[i], ys[i], zs[i]));
+            IBlockState state = name == null ? Blocks.STONE.getDefaultState() : BlockUtils.stringToBlockRequired(name).getDefaultState();
+            sum += System.identityHashCode(state);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int getBlock() {
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += System.identityHashCode(chunk.getBlock(xs[i], ys[i], zs[i], 0));
+        }
+        return sum;
+    }
+}
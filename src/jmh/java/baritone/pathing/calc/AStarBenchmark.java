@@ -0,0 +1,80 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.PathCalculationResult;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.HeadlessBlockStateInterface;
+import baritone.utils.SyntheticWorld;
+import baritone.utils.pathing.Favoring;
+import net.minecraft.item.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole search, corner to corner of a {@link SyntheticWorld}, with the default settings other than the size of the
+ * {@link baritone.pathing.precompute.BlockMemo}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AStarBenchmark {
+
+    private static final long TIMEOUT = 60000;
+
+    @Param({"FLAT", "CAVE", "NETHER", "PARKOUR"})
+    public String world;
+
+    @Param({"0", "65536"})
+    public int blockMemoSize;
+
+    private SyntheticWorld synthetic;
+    private CalculationContext context;
+    private PathfinderArena arena;
+
+    @Setup
+    public void setup() {
+        synthetic = SyntheticWorld.create(world);
+        Baritone.settings().allowParkour.value = synthetic.parkour;
+        Baritone.settings().pathingBlockMemoSize.value = blockMemoSize;
+        context = new CalculationContext(new HeadlessBlockStateInterface(synthetic.world), ItemStack.EMPTY, false);
+        arena = new PathfinderArena();
+        PathCalculationResult result = calculate();
+        if (result.getType() != PathCalculationResult.Type.SUCCESS_TO_GOAL) {
+            throw new IllegalStateException(world + " " + result.getType());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Baritone.settings().allowParkour.reset();
+        Baritone.settings().pathingBlockMemoSize.reset();
+    }
+
+    @Benchmark
+    public PathCalculationResult calculate() {
+        BetterBlockPos start = synthetic.start;
+        return new AStarPathFinder(start.x, start.y, start.z, synthetic.goal, new Favoring(null, context), context, arena).calculate(TIMEOUT, TIMEOUT);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.pathing.calc.PathNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the open set operations of a grid A* search with random costs, so that each implementation sees the same
+ * mix of inserts, decrease-keys and removals that a real search would give it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenSetBenchmark {
+
+    private static final byte INSERT = 0;
+    private static final byte UPDATE = 1;
+    private static final byte REMOVE = 2;
+
+    @Param({"binary", "pairing", "bucket"})
+    public String type;
+
+    @Param({"128", "512"})
+    public int side;
+
+    private byte[] ops;
+    private int[] ids;
+    private double[] costs;
+    private int numOps;
+    private PathNode[] nodes;
+
+    private IOpenSet set;
+
+    @Setup(Level.Trial)
+    public void record() {
+        Random random = new Random(side);
+        double[] cellCost = new double[side * side];
+        for (int i = 0; i < cellCost.length; i++) {
+            cellCost[i] = 1 + random.nextDouble() * 9;
+        }
+        nodes = new PathNode[side * side];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = node(i);
+        }
+        double[] cost = new double[side * side];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        ops = new byte[16];
+        ids = new int[16];
+        costs = new double[16];
+        BinaryHeapOpenSet openSet = new BinaryHeapOpenSet();
+        int goal = side * side - 1;
+        cost[0] = 0;
+        nodes[0].combinedCost = 2 * (side - 1);
+        openSet.insert(nodes[0]);
+        add(INSERT, 0, nodes[0].combinedCost);
+        while (!openSet.isEmpty()) {
+            PathNode current = openSet.removeLowest();
+            int id = current.x;
+            add(REMOVE, id, current.combinedCost);
+            if (id == goal) {
+                break;
+            }
+            int x = id % side;
+            int z = id / side;
+            for (int[] offset : new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}}) {
+                int nx = x + offset[0];
+                int nz = z + offset[1];
+                if (nx < 0 || nz < 0 || nx >= side || nz >= side) {
+                    continue;
+                }
+                int neighbor = nz * side + nx;
+                double tentative = cost[id] + cellCost[neighbor];
+                if (tentative >= cost[neighbor]) {
+                    continue;
+                }
+                cost[neighbor] = tentative;
+                nodes[neighbor].combinedCost = tentative + (side - 1 - nx) + (side - 1 - nz);
+                if (nodes[neighbor].isOpen()) {
+                    openSet.update(nodes[neighbor]);
+                    add(UPDATE, neighbor, nodes[neighbor].combinedCost);
+                } else {
+                    openSet.insert(nodes[neighbor]);
+                    add(INSERT, neighbor, nodes[neighbor].combinedCost);
+                }
+            }
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = node(i); // fresh ones, that aren't in any heap
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createSet() {
+        switch (type) {
+            case "pairing":
+                set = new PairingHeapOpenSet();
+                break;
+            case "bucket":
+                set = new BucketOpenSet();
+                break;
+            default:
+                set = new BinaryHeapOpenSet();
+                break;
+        }
+    }
+
+    @Benchmark
+    public double replay() {
+        IOpenSet set = this.set;
+        double sum = 0;
+        for (int i = 0; i < numOps; i++) {
+            if (ops[i] == REMOVE) {
+                sum += set.removeLowest().combinedCost;
+                continue;
+            }
+            PathNode node = nodes[ids[i]];
+            node.combinedCost = costs[i];
+            if (ops[i] == INSERT) {
+                set.insert(node);
+            } else {
+                set.update(node);
+            }
+        }
+        return sum;
+    }
+
+    private void add(byte op, int id, double cost) {
+        if (numOps == ops.length) {
+            ops = Arrays.copyOf(ops, numOps * 2);
+            ids = Arrays.copyOf(ids, numOps * 2);
+            costs = Arrays.copyOf(costs, numOps * 2);
+        }
+        ops[numOps] = op;
+        ids[numOps] = id;
+        costs[numOps] = cost;
+        numOps++;
+    }
+
+    private PathNode node(int id) {
+        // the real goals all read Baritone.settings() for their heuristic, so use a dummy one
+        // the node's x is its index in the grid, so the recording can find it again
+        return new PathNode(id, 0, 0, new Goal() {
+            @Override
+            public boolean isInGoal(int x, int y, int z) {
+                return false;
+            }
+
+            @Override
+            public double heuristic(int x, int y, int z) {
+                return 0;
+            }
+        });
+    }
+}
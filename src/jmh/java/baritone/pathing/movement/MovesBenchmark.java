@@ -0,0 +1,91 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.movement;
+
+import baritone.Baritone;
+import baritone.api.utils.BetterBlockPos;
+import baritone.utils.HeadlessBlockStateInterface;
+import baritone.utils.SyntheticWorld;
+import baritone.utils.pathing.MutableMoveResult;
+import net.minecraft.item.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost function of a single {@link Moves}, from places you could actually be standing in a {@link SyntheticWorld}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovesBenchmark {
+
+    private static final int COUNT = 4096;
+
+    @Param({"FLAT", "CAVE", "NETHER"})
+    public String world;
+
+    @Param({"TRAVERSE_NORTH", "ASCEND_NORTH", "DESCEND_NORTH", "DIAGONAL_NORTHEAST", "PILLAR", "DOWNWARD", "PARKOUR_NORTH"})
+    public Moves move;
+
+    private CalculationContext context;
+    private int[] xs;
+    private int[] ys;
+    private int[] zs;
+
+    private final MutableMoveResult result = new MutableMoveResult();
+
+    @Setup
+    public void setup() {
+        SyntheticWorld synthetic = SyntheticWorld.create(world);
+        Baritone.settings().allowParkour.value = true;
+        context = new CalculationContext(new HeadlessBlockStateInterface(synthetic.world), ItemStack.EMPTY, false);
+        List<BetterBlockPos> positions = synthetic.standingPositions(COUNT, new Random(4096));
+        xs = new int[COUNT];
+        ys = new int[COUNT];
+        zs = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            xs[i] = positions.get(i).x;
+            ys[i] = positions.get(i).y;
+            zs[i] = positions.get(i).z;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Baritone.settings().allowParkour.reset();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double cost() {
+        Moves move = this.move;
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            result.reset();
+            move.apply(context, xs[i], ys[i], zs[i], result);
+            sum += result.cost;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.path;
+
+import baritone.api.utils.BetterBlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What {@link PathExecutor} does every tick to find how far the player is from the path and whether they've been moved
+ * onto a different movement: going through every movement, as it used to, against {@link PathPositionIndex}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathPositionIndexBenchmark {
+
+    @Param({"100", "3000"})
+    public int length;
+
+    private List<Set<BetterBlockPos>> path;
+    private PathPositionIndex index;
+    private BetterBlockPos player;
+    private double playerX;
+    private double playerY;
+    private double playerZ;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(length);
+        path = new ArrayList<>();
+        int x = 0;
+        int y = 64;
+        int z = 0;
+        for (int i = 0; i < length; i++) {
+            Set<BetterBlockPos> valid = new HashSet<>();
+            valid.add(new BetterBlockPos(x, y, z));
+            if (random.nextInt(4) == 0) {
+                z++;
+            } else {
+                x++;
+            }
+            y += random.nextInt(3) - 1;
+            valid.add(new BetterBlockPos(x, y, z));
+            path.add(valid);
+        }
+        index = new PathPositionIndex(path);
+        // partway along, and just off the path
+        player = path.get(length / 2).iterator().next();
+        playerX = player.x + 0.7;
+        playerY = player.y;
+        playerZ = player.z + 1.2;
+    }
+
+    @Benchmark
+    public double scanClosest() {
+        double best = -1;
+        for (Set<BetterBlockPos> valid : path) {
+            for (BetterBlockPos pos : valid) {
+                double dx = pos.x + 0.5 - playerX;
+                double dy = pos.y + 0.5 - playerY;
+                double dz = pos.z + 0.5 - playerZ;
+                double dist = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                if (dist < best || best == -1) {
+                    best = dist;
+                }
+            }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public BetterBlockPos indexClosest() {
+        return index.closest(playerX, playerY, playerZ);
+    }
+
+    @Benchmark
+    public int scanMovement() {
+        for (int i = 0; i < path.size(); i++) {
+            if (path.get(i).contains(player)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public int indexMovement() {
+        return index.firstMovementAt(player, 0, path.size());
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.utils.BetterBlockPos;
+import baritone.cache.HeadlessWorld;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generated worlds for benchmarking, each {@link #SIZE} blocks square from 0, 0, with a route from one corner to the
+ * other. They're seeded, so every run sees the same blocks.
+ */
+public final class SyntheticWorld {
+
+    public static final int SIZE = 256;
+
+    public final HeadlessWorld world;
+    public final BetterBlockPos start;
+    public final Goal goal;
+
+    /**
+     * Whether this world needs {@link baritone.api.Settings#allowParkour} to get across
+     */
+    public final boolean parkour;
+
+    private SyntheticWorld(HeadlessWorld world, BetterBlockPos start, BlockPos goal, boolean parkour) {
+        this.world = world;
+        this.start = start;
+        this.goal = new GoalBlock(goal);
+        this.parkour = parkour;
+    }
+
+    /**
+     * @param type One of FLAT, CAVE, NETHER or PARKOUR
+     */
+    public static SyntheticWorld create(String type) {
+        HeadlessWorld world = new HeadlessWorld(type.equals("NETHER") ? -1 : 0);
+        for (int chunkX = 0; chunkX < SIZE >> 4; chunkX++) {
+            for (int chunkZ = 0; chunkZ < SIZE >> 4; chunkZ++) {
+                world.addChunk(chunkX, chunkZ);
+            }
+        }
+        Random random = new Random(type.hashCode());
+        switch (type) {
+            case "FLAT":
+                return flat(world, random);
+            case "CAVE":
+                return cave(world, random);
+            case "NETHER":
+                return nether(world, random);
+            case "PARKOUR":
+                return parkour(world, random);
+            default:
+                throw new IllegalArgumentException(type);
+        }
+    }
+
+    /**
+     * Grass at y=64, with tree trunks and short walls in the way
+     */
+    private static SyntheticWorld flat(HeadlessWorld world, Random random) {
+        world.fill(0, 0, 0, SIZE - 1, 0, SIZE - 1, Blocks.BEDROCK.getDefaultState());
+        world.fill(0, 1, 0, SIZE - 1, 60, SIZE - 1, Blocks.STONE.getDefaultState());
+        world.fill(0, 61, 0, SIZE - 1, 63, SIZE - 1, Blocks.DIRT.getDefaultState());
+        world.fill(0, 64, 0, SIZE - 1, 64, SIZE - 1, Blocks.GRASS.getDefaultState());
+        for (int i = 0; i < 800; i++) {
+            int x = 4 + random.nextInt(SIZE - 8);
+            int z = 4 + random.nextInt(SIZE - 8);
+            if (random.nextInt(4) == 0) {
+                // a short wall, two high so it has to be gone around or through
+                boolean alongX = random.nextBoolean();
+                int length = 3 + random.nextInt(8);
+                world.fill(x, 65, z, alongX ? Math.min(x + length, SIZE - 5) : x, 66, alongX ? z : Math.min(z + length, SIZE - 5), Blocks.COBBLESTONE.getDefaultState());
+            } else {
+                world.fill(x, 65, z, x, 65 + random.nextInt(5), z, Blocks.LOG.getDefaultState());
+            }
+        }
+        return new SyntheticWorld(world, new BetterBlockPos(2, 65, 2), new BlockPos(SIZE - 3, 65, SIZE - 3), false);
+    }
+
+    /**
+     * Solid stone with winding tunnels, one of which goes from one corner to the other
+     */
+    private static SyntheticWorld cave(HeadlessWorld world, Random random) {
+        world.fill(0, 0, 0, SIZE - 1, 0, SIZE - 1, Blocks.BEDROCK.getDefaultState());
+        world.fill(0, 1, 0, SIZE - 1, 100, SIZE - 1, Blocks.STONE.getDefaultState());
+        for (int i = 0; i < 60; i++) {
+            int x = random.nextInt(SIZE);
+            int z = random.nextInt(SIZE);
+            worm(world, random, x, 20 + random.nextInt(60), z, random.nextInt(SIZE), 20 + random.nextInt(60), random.nextInt(SIZE));
+        }
+        worm(world, random, 8, 40, 8, SIZE - 9, 40, SIZE - 9);
+        return new SyntheticWorld(world, floor(world, 8, 40, 8), floor(world, SIZE - 9, 40, SIZE - 9), false);
+    }
+
+    /**
+     * Rolling netherrack with lava in the low parts and a ceiling above
+     */
+    private static SyntheticWorld nether(HeadlessWorld world, Random random) {
+        IBlockState netherrack = Blocks.NETHERRACK.getDefaultState();
+        double phaseX = random.nextDouble() * 10;
+        double phaseZ = random.nextDouble() * 10;
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                int height = height(x, z, phaseX, phaseZ) + random.nextInt(2);
+                int ceiling = 100 + (int) (8 * Math.sin((x + z) / 23D + phaseZ));
+                world.set(x, 0, z, Blocks.BEDROCK.getDefaultState());
+                world.fill(x, 1, z, x, height, z, netherrack);
+                if (height < 31) {
+                    world.fill(x, height + 1, z, x, 31, z, Blocks.LAVA.getDefaultState());
+                }
+                world.fill(x, ceiling, z, x, 126, z, netherrack);
+                world.set(x, 127, z, Blocks.BEDROCK.getDefaultState());
+            }
+        }
+        // make sure the ends aren't in a lava lake
+        world.fill(7, 1, 7, 9, 40, 9, netherrack);
+        world.fill(SIZE - 10, 1, SIZE - 10, SIZE - 8, 40, SIZE - 8, netherrack);
+        BetterBlockPos start = new BetterBlockPos(8, surface(world, 8, 8), 8);
+        BlockPos goal = new BlockPos(SIZE - 9, surface(world, SIZE - 9, SIZE - 9), SIZE - 9);
+        return new SyntheticWorld(world, start, goal, false);
+    }
+
+    /**
+     * Single block platforms over the void, mostly two blocks apart, so that the only way across is parkour
+     */
+    private static SyntheticWorld parkour(HeadlessWorld world, Random random) {
+        world.fill(0, 0, 0, SIZE - 1, 0, SIZE - 1, Blocks.BEDROCK.getDefaultState());
+        for (int x = 1; x < SIZE - 1; x += 3) {
+            for (int z = 1; z < SIZE - 1; z += 3) {
+                if (random.nextInt(10) < 7) {
+                    world.set(x, 64, z, Blocks.STONE.getDefaultState());
+                }
+            }
+        }
+        world.set(1, 64, 1, Blocks.STONE.getDefaultState());
+        world.set(SIZE - 3, 64, SIZE - 3, Blocks.STONE.getDefaultState());
+        return new SyntheticWorld(world, new BetterBlockPos(1, 65, 1), new BlockPos(SIZE - 3, 65, SIZE - 3), true);
+    }
+
+    /**
+     * @return Positions in the world that can be stood at, i.e. air at feet and head with something solid below
+     */
+    public List<BetterBlockPos> standingPositions(int count, Random random) {
+        List<BetterBlockPos> result = new ArrayList<>();
+        List<Integer> column = new ArrayList<>();
+        while (result.size() < count) {
+            int x = random.nextInt(SIZE);
+            int z = random.nextInt(SIZE);
+            column.clear();
+            for (int y = 1; y < 255; y++) {
+                if (canStandAt(world, x, y, z)) {
+                    column.add(y);
+                }
+            }
+            if (!column.isEmpty()) {
+                result.add(new BetterBlockPos(x, column.get(random.nextInt(column.size())), z));
+            }
+        }
+        return result;
+    }
+
+    private static int height(int x, int z, double phaseX, double phaseZ) {
+        return 40 + (int) (12 * Math.sin(x / 17D + phaseX) + 8 * Math.cos(z / 13D + phaseZ) + 4 * Math.sin((x - z) / 7D));
+    }
+
+    /**
+     * Carve a tunnel, wandering but heading towards the end
+     */
+    private static void worm(HeadlessWorld world, Random random, int x, int y, int z, int endX, int endY, int endZ) {
+        double px = x;
+        double py = y;
+        double pz = z;
+        for (int steps = 0; steps < SIZE * 4; steps++) {
+            carve(world, (int) px, (int) py, (int) pz, 1 + random.nextInt(2));
+            double dx = endX - px;
+            double dy = endY - py;
+            double dz = endZ - pz;
+            double dist = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (dist < 1) {
+                break;
+            }
+            px += dx / dist + random.nextGaussian() * 0.7;
+            py += dy / dist + random.nextGaussian() * 0.3;
+            pz += dz / dist + random.nextGaussian() * 0.7;
+            py = Math.max(10, Math.min(90, py));
+        }
+        carve(world, endX, endY, endZ, 1);
+    }
+
+    private static void carve(HeadlessWorld world, int x, int y, int z, int radius) {
+        for (int cx = Math.max(0, x - radius); cx <= Math.min(SIZE - 1, x + radius); cx++) {
+            for (int cz = Math.max(0, z - radius); cz <= Math.min(SIZE - 1, z + radius); cz++) {
+                for (int cy = y - radius; cy <= y + radius; cy++) {
+                    world.set(cx, cy, cz, Blocks.AIR.getDefaultState());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The closest position at or below y to stand at, in a tunnel
+     */
+    private static BetterBlockPos floor(HeadlessWorld world, int x, int y, int z) {
+        for (int down = y; down > 1; down--) {
+            if (canStandAt(world, x, down, z)) {
+                return new BetterBlockPos(x, down, z);
+            }
+        }
+        throw new IllegalStateException("Nowhere to stand at " + x + "," + z);
+    }
+
+    private static int surface(HeadlessWorld world, int x, int z) {
+        for (int y = 1; y < 100; y++) {
+            if (canStandAt(world, x, y, z) && world.get(x, y - 1, z).getBlock() == Blocks.NETHERRACK) {
+                return y;
+            }
+        }
+        throw new IllegalStateException("No surface at " + x + "," + z);
+    }
+
+    private static boolean canStandAt(HeadlessWorld world, int x, int y, int z) {
+        return world.get(x, y, z).getBlock() == Blocks.AIR && world.get(x, y + 1, z).getBlock() == Blocks.AIR
+                && world.get(x, y - 1, z).getMaterial().isSolid();
+    }
+}
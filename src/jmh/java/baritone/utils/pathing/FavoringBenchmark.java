@@ -0,0 +1,117 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.pathing;
+
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.IMovement;
+import baritone.api.utils.BetterBlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every edge the pathfinder considers looks up its destination in the {@link Favoring}, almost always a miss.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FavoringBenchmark {
+
+    private static final int COUNT = 1 << 16;
+
+    /**
+     * Length of the previous path that's being favored
+     */
+    @Param({"0", "100", "2000"})
+    public int pathLength;
+
+    private Favoring favoring;
+    private long[] hashes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(pathLength);
+        List<BetterBlockPos> positions = new ArrayList<>();
+        int x = 0;
+        int y = 64;
+        int z = 0;
+        for (int i = 0; i < pathLength; i++) {
+            positions.add(new BetterBlockPos(x, y, z));
+            switch (random.nextInt(6)) {
+                case 0:
+                    y += random.nextBoolean() ? 1 : -1;
+                    break;
+                case 1:
+                case 2:
+                    z++;
+                    break;
+                default:
+                    x++;
+                    break;
+            }
+        }
+        favoring = new Favoring(new IPath() {
+            @Override
+            public List<IMovement> movements() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public List<BetterBlockPos> positions() {
+                return positions;
+            }
+
+            @Override
+            public Goal getGoal() {
+                return null;
+            }
+
+            @Override
+            public int getNumNodesConsidered() {
+                return 0;
+            }
+        }, 0.5);
+        hashes = new long[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            if (pathLength > 0 && random.nextInt(10) == 0) {
+                hashes[i] = BetterBlockPos.longHash(positions.get(random.nextInt(pathLength)));
+            } else {
+                hashes[i] = BetterBlockPos.longHash(random.nextInt(x + 16) - 8, y + random.nextInt(9) - 4, random.nextInt(z + 16) - 8);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double calculate() {
+        Favoring favoring = this.favoring;
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += favoring.calculate(hashes[i]);
+        }
+        return sum;
+    }
+}
@@ -20,23 +20,33 @@ package baritone.behavior;
 import baritone.Baritone;
 import baritone.api.behavior.IPathingBehavior;
 import baritone.api.event.events.*;
+import baritone.api.event.events.type.EventState;
 import baritone.api.pathing.calc.IPath;
 import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
 import baritone.api.pathing.goals.GoalXZ;
 import baritone.api.process.PathingCommand;
 import baritone.api.utils.BetterBlockPos;
 import baritone.api.utils.Helper;
+import baritone.api.utils.Pair;
 import baritone.api.utils.PathCalculationResult;
 import baritone.api.utils.interfaces.IGoalRenderPos;
+import baritone.cache.WorldData;
 import baritone.pathing.calc.AStarPathFinder;
 import baritone.pathing.calc.AbstractNodeCostSearch;
+import baritone.pathing.calc.CorridorPlanner;
+import baritone.pathing.calc.ParallelExpander;
+import baritone.pathing.calc.PathfinderArena;
 import baritone.pathing.movement.CalculationContext;
 import baritone.pathing.movement.MovementHelper;
 import baritone.pathing.path.PathExecutor;
+import baritone.pathing.path.PathRepair;
 import baritone.process.ElytraProcess;
+import baritone.utils.BlockStateInterface;
 import baritone.utils.PathRenderer;
 import baritone.utils.PathingCommandContext;
 import baritone.utils.pathing.Favoring;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
 
 import java.util.ArrayList;
@@ -53,6 +63,11 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
     private Goal goal;
     private CalculationContext context;
 
+    /**
+     * The chunk snapshots of the last search dispatched, if it took any, kept up to date with block and chunk events
+     */
+    private BlockStateInterface searchBsi;
+
     /*eta*/
     private int ticksElapsedSoFar;
     private BetterBlockPos startPosition;
@@ -67,10 +82,18 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
     private volatile AbstractNodeCostSearch inProgress;
     private final Object pathCalcLock = new Object();
 
+    /**
+     * Node map and open set buffers reused from one segment calculation to the next
+     */
+    private final PathfinderArena arena = new PathfinderArena();
+    private final CorridorPlanner corridorPlanner = new CorridorPlanner();
+
     private final Object pathPlanLock = new Object();
 
     private boolean lastAutoJump;
 
+    private int ticksSincePrefetch;
+
     private BetterBlockPos expectedSegmentStart;
 
     private final LinkedBlockingQueue<PathEvent> toDispatch = new LinkedBlockingQueue<>();
@@ -95,6 +118,9 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
     @Override
     public void onTick(TickEvent event) {
         dispatchEvents();
+        if (inProgress == null) {
+            searchBsi = null; // don't hang on to a copy of every loaded chunk once nothing's reading it
+        }
         if (event.getType() == TickEvent.Type.OUT) {
             secretInternalSegmentCancel();
             baritone.getPathingControlManager().cancelEverything();
@@ -104,10 +130,76 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
         expectedSegmentStart = pathStart();
         baritone.getPathingControlManager().preTick();
         tickPath();
+        prefetchRegions();
         ticksElapsedSoFar++;
         dispatchEvents();
     }
 
+    private void prefetchRegions() {
+        if (!Baritone.settings().prefetchCachedRegions.value || ++ticksSincePrefetch < 20) {
+            return;
+        }
+        ticksSincePrefetch = 0;
+        WorldData worldData = baritone.getWorldProvider().getCurrentWorld();
+        if (worldData == null || ctx.player() == null) {
+            return;
+        }
+        BetterBlockPos feet = ctx.playerFeet();
+        int distance = Baritone.settings().prefetchCachedRegionsDistance.value;
+        float yaw = ctx.player().rotationYaw * (float) Math.PI / 180;
+        worldData.cache.prefetch(feet.x, feet.z, -Math.sin(yaw), Math.cos(yaw), distance);
+        PathExecutor executor = current;
+        if (executor != null) {
+            BetterBlockPos dest = executor.getPath().getDest();
+            worldData.cache.prefetch(feet.x, feet.z, dest.x - feet.x, dest.z - feet.z, distance);
+        }
+    }
+
+    @Override
+    public void onBlockChange(BlockChangeEvent event) {
+        BlockStateInterface searchBsi = this.searchBsi;
+        if (searchBsi != null) {
+            int sections = 0;
+            for (Pair<BlockPos, IBlockState> change : event.getBlocks()) {
+                int y = change.first().getY();
+                if (y >= 0 && y < 256) {
+                    sections |= 1 << (y >> 4);
+                }
+            }
+            // before the executors get it, so that they see the new blocks when they check their movements again
+            searchBsi.refreshSnapshot(ctx.world().getChunk(event.getChunkPos().x, event.getChunkPos().z), sections);
+        }
+        // the next path is planned on another thread, so take both before looking at them
+        PathExecutor current = this.current;
+        PathExecutor next = this.next;
+        if (current != null) {
+            current.onBlockChange(event);
+        }
+        if (next != null) {
+            next.onBlockChange(event);
+        }
+    }
+
+    @Override
+    public void onChunkEvent(ChunkEvent event) {
+        BlockStateInterface searchBsi = this.searchBsi;
+        if (searchBsi != null) {
+            if (event.isPostPopulate()) {
+                searchBsi.refreshSnapshot(ctx.world().getChunk(event.getX(), event.getZ()), 0xFFFF);
+            } else if (event.getState() == EventState.PRE && event.getType() == ChunkEvent.Type.UNLOAD) {
+                searchBsi.unloadSnapshot(event.getX(), event.getZ());
+            }
+        }
+        PathExecutor current = this.current;
+        PathExecutor next = this.next;
+        if (current != null) {
+            current.onChunkEvent(event);
+        }
+        if (next != null) {
+            next.onChunkEvent(event);
+        }
+    }
+
     @Override
     public void onPlayerSprintState(SprintStateEvent event) {
         if (isPathing()) {
@@ -153,6 +245,7 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
             }
             safeToCancel = current.onTick();
             if (current.failed() || current.finished()) {
+                PathExecutor ended = current;
                 current = null;
                 if (goal == null || goal.isInGoal(ctx.playerFeet())) {
                     logDebug("All done. At " + goal);
@@ -190,7 +283,11 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
                     }
                     // we aren't calculating
                     queuePathEvent(PathEvent.CALC_STARTED);
-                    findPathInNewThread(expectedSegmentStart, true, context);
+                    PathRepair repair = null;
+                    if (Baritone.settings().incrementalReplanning.value && ended.failed()) {
+                        repair = PathRepair.of(ended, context).orElse(null);
+                    }
+                    findPathInNewThread(expectedSegmentStart, true, context, repair);
                 }
                 return;
             }
@@ -229,7 +326,7 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
                     // if we actually included current, it wouldn't start planning ahead until the last movement was done, if the last movement took more than 7.5 seconds on its own
                     logDebug("Path almost over. Planning ahead...");
                     queuePathEvent(PathEvent.NEXT_SEGMENT_CALC_STARTED);
-                    findPathInNewThread(current.getPath().getDest(), false, context);
+                    findPathInNewThread(current.getPath().getDest(), false, context, null);
                 }
             }
         }
@@ -278,7 +375,7 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
                     return false;
                 }
                 queuePathEvent(PathEvent.CALC_STARTED);
-                findPathInNewThread(expectedSegmentStart, true, context);
+                findPathInNewThread(expectedSegmentStart, true, context, null);
                 return true;
             }
         }
@@ -466,8 +563,9 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
      *
      * @param start
      * @param talkAboutIt
+     * @param repair      If not null, fix up the broken stretch of the path that just failed instead of searching all the way to the goal
      */
-    private void findPathInNewThread(final BlockPos start, final boolean talkAboutIt, CalculationContext context) {
+    private void findPathInNewThread(final BlockPos start, final boolean talkAboutIt, CalculationContext context, PathRepair repair) {
         // this must be called with synchronization on pathCalcLock!
         // actually, we can check this, muahaha
         if (!Thread.holdsLock(pathCalcLock)) {
@@ -485,6 +583,9 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
             logDebug("no goal"); // TODO should this be an exception too? definitely should be checked by caller
             return;
         }
+        // only now that there's definitely going to be a search, not every time a context is made
+        context.bsi.takeSnapshots();
+        searchBsi = context.bsi;
         long primaryTimeout;
         long failureTimeout;
         if (current == null) {
@@ -494,19 +595,37 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
             primaryTimeout = Baritone.settings().planAheadPrimaryTimeoutMS.value;
             failureTimeout = Baritone.settings().planAheadFailureTimeoutMS.value;
         }
-        AbstractNodeCostSearch pathfinder = createPathfinder(start, goal, current == null ? null : current.getPath(), context);
-        if (!Objects.equals(pathfinder.getGoal(), goal)) { // will return the exact same object if simplification didn't happen
-            logDebug("Simplifying " + goal.getClass() + " to GoalXZ due to distance");
+        AbstractNodeCostSearch pathfinder;
+        if (repair != null) {
+            logDebug("Repairing the broken part of the path instead of starting over");
+            pathfinder = repair.createPathfinder(BetterBlockPos.from(start), context, arena);
+        } else {
+            pathfinder = createPathfinder(start, goal, current == null ? null : current.getPath(), context, arena);
+        }
+        if (repair == null && !Objects.equals(pathfinder.getGoal(), goal)) { // will return the exact same object if simplification didn't happen
+            logDebug("Simplifying " + goal.getClass() + " to " + pathfinder.getGoal().getClass().getSimpleName() + " due to distance");
         }
         inProgress = pathfinder;
         Baritone.getExecutor().execute(() -> {
             if (talkAboutIt) {
                 logDebug("Starting to search for path from " + start + " to " + goal);
             }
+            if (repair == null && !(pathfinder instanceof AStarPathFinder && ((AStarPathFinder) pathfinder).isBidirectional())) {
+                // planning a corridor can take up to pathingCorridorTimeoutMS and page in cached regions, so not on the client thread
+                pathfinder.setGoal(corridorPlanner.guide(start, pathfinder.getGoal(), context));
+            }
 
             PathCalculationResult calcResult = pathfinder.calculate(primaryTimeout, failureTimeout);
             synchronized (pathPlanLock) {
-                Optional<PathExecutor> executor = calcResult.getPath().map(p -> new PathExecutor(PathingBehavior.this, p));
+                Optional<IPath> path = calcResult.getPath();
+                if (repair != null) {
+                    path = path.flatMap(repair::splice);
+                    if (!path.isPresent()) {
+                        // no harm done, with no current path and nothing calculating, the next tick will start over from scratch
+                        logDebug("Unable to repair the path");
+                    }
+                }
+                Optional<PathExecutor> executor = path.map(p -> new PathExecutor(PathingBehavior.this, p));
                 if (current == null) {
                     if (executor.isPresent()) {
                         if (executor.get().getPath().positions().contains(expectedSegmentStart)) {
@@ -517,7 +636,7 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
                             logDebug("Warning: discarding orphan path segment with incorrect start");
                         }
                     } else {
-                        if (calcResult.getType() != PathCalculationResult.Type.CANCELLATION && calcResult.getType() != PathCalculationResult.Type.EXCEPTION) {
+                        if (repair == null && calcResult.getType() != PathCalculationResult.Type.CANCELLATION && calcResult.getType() != PathCalculationResult.Type.EXCEPTION) {
                             // don't dispatch CALC_FAILED on cancellation
                             queuePathEvent(PathEvent.CALC_FAILED);
                         }
@@ -554,7 +673,7 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
         });
     }
 
-    private static AbstractNodeCostSearch createPathfinder(BlockPos start, Goal goal, IPath previous, CalculationContext context) {
+    private static AbstractNodeCostSearch createPathfinder(BlockPos start, Goal goal, IPath previous, CalculationContext context, PathfinderArena arena) {
         Goal transformed = goal;
         if (Baritone.settings().simplifyUnloadedYCoord.value && goal instanceof IGoalRenderPos) {
             BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
@@ -563,7 +682,12 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
             }
         }
         Favoring favoring = new Favoring(context.getBaritone().getPlayerContext(), previous, context);
-        return new AStarPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, context);
+        int expansionThreads = Baritone.settings().pathingExpansionThreads.value;
+        ParallelExpander expander = expansionThreads > 0 && ParallelExpander.canCopy(context) ? new ParallelExpander(context, expansionThreads) : null;
+        if (Baritone.settings().pathingBidirectional.value && AStarPathFinder.isBidirectionalApplicable(transformed, context)) {
+            return AStarPathFinder.bidirectional(start.getX(), start.getY(), start.getZ(), (GoalBlock) transformed, favoring, context, arena, expander);
+        }
+        return new AStarPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, context, arena, expander);
     }
 
     @Override
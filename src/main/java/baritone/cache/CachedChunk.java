@@ -20,16 +20,13 @@ package baritone.cache;
 import baritone.api.utils.BlockUtils;
 import baritone.utils.pathing.PathingBlockType;
 import com.google.common.collect.ImmutableSet;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.Chunk;
 
-import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * @author Brady
@@ -119,9 +116,12 @@ public final class CachedChunk {
      * <p>
      * Each block is expressed as 2 bits giving a total of 16 KiB
      */
-    private final BitSet data;
+    private final PackedChunkData data;
 
-    private final Int2ObjectOpenHashMap<String> special;
+    /**
+     * {@link #specialBlockLocations} by position, or null if there aren't any
+     */
+    private final SpecialBlocks special;
 
     /**
      * The block names of each surface level block for generating an overview
@@ -134,9 +134,9 @@ public final class CachedChunk {
 
     public final long cacheTimestamp;
 
-    CachedChunk(int x, int z, BitSet data, IBlockState[] overview, Map<String, List<BlockPos>> specialBlockLocations, long cacheTimestamp) {
-        validateSize(data);
+    private volatile ChunkPortals portals;
 
+    CachedChunk(int x, int z, PackedChunkData data, IBlockState[] overview, Map<String, List<BlockPos>> specialBlockLocations, long cacheTimestamp) {
         this.x = x;
         this.z = z;
         this.data = data;
@@ -144,20 +144,91 @@ public final class CachedChunk {
         this.heightMap = new int[256];
         this.specialBlockLocations = specialBlockLocations;
         this.cacheTimestamp = cacheTimestamp;
-        if (specialBlockLocations.isEmpty()) {
-            this.special = null;
-        } else {
-            this.special = new Int2ObjectOpenHashMap<>();
-            setSpecial();
-        }
-        calculateHeightMap();
+        this.special = SpecialBlocks.of(specialBlockLocations);
+        data.computeHeightMap(heightMap);
     }
 
-    private final void setSpecial() {
-        for (Map.Entry<String, List<BlockPos>> entry : specialBlockLocations.entrySet()) {
-            for (BlockPos pos : entry.getValue()) {
-                special.put(getPositionIndex(pos.getX(), pos.getY(), pos.getZ()), entry.getKey());
+    private CachedChunk(int x, int z, PackedChunkData data, IBlockState[] overview, int[] heightMap, Map<String, List<BlockPos>> specialBlockLocations, long cacheTimestamp) {
+        this.x = x;
+        this.z = z;
+        this.data = data;
+        this.overview = overview;
+        this.heightMap = heightMap;
+        this.specialBlockLocations = specialBlockLocations;
+        this.special = SpecialBlocks.of(specialBlockLocations);
+        this.cacheTimestamp = cacheTimestamp;
+    }
+
+    /**
+     * Applies block changes to a copy of this chunk, reclassifying only the changed positions and their neighbors
+     * rather than packing all 65536 positions again. This chunk is left as it is, since other threads may be reading it.
+     *
+     * @param chunk   The chunk the changes happened in, with them already applied
+     * @param changed The positions that changed, relative to the chunk
+     * @return The updated copy
+     */
+    final CachedChunk withChanges(Chunk chunk, Collection<BlockPos> changed) {
+        PackedChunkData data = this.data.copy();
+        IBlockState[] overview = this.overview.clone();
+        int[] heightMap = this.heightMap.clone();
+        Map<String, List<BlockPos>> specialBlockLocations = new HashMap<>();
+        for (Map.Entry<String, List<BlockPos>> entry : this.specialBlockLocations.entrySet()) {
+            specialBlockLocations.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        boolean[] columns = new boolean[256];
+        for (BlockPos pos : changed) {
+            int x = pos.getX();
+            int y = pos.getY();
+            int z = pos.getZ();
+
+            // whether water is flowing depends on its neighbors, so they might need to change too
+            reclassify(chunk, data, x, y, z, columns);
+            if (x != 0) {
+                reclassify(chunk, data, x - 1, y, z, columns);
+            }
+            if (x != 15) {
+                reclassify(chunk, data, x + 1, y, z, columns);
+            }
+            if (z != 0) {
+                reclassify(chunk, data, x, y, z - 1, columns);
+            }
+            if (z != 15) {
+                reclassify(chunk, data, x, y, z + 1, columns);
+            }
+            // the surface block can change without the pathing type changing, e.g. stone to dirt
+            columns[z << 4 | x] = true;
+
+            IBlockState previous = this.special == null ? null : this.special.get(x, y, z);
+            if (previous != null) {
+                String name = BlockUtils.blockToString(previous.getBlock());
+                List<BlockPos> locs = specialBlockLocations.get(name);
+                if (locs != null && locs.remove(pos) && locs.isEmpty()) {
+                    specialBlockLocations.remove(name);
+                }
             }
+            Block block = chunk.getBlockState(x, y, z).getBlock();
+            if (BLOCKS_TO_KEEP_TRACK_OF.contains(block)) {
+                specialBlockLocations.computeIfAbsent(BlockUtils.blockToString(block), b -> new ArrayList<>()).add(new BlockPos(x, y, z));
+            }
+        }
+        for (int column = 0; column < 256; column++) {
+            if (!columns[column]) {
+                continue;
+            }
+            int x = column & 15;
+            int z = column >> 4;
+            heightMap[column] = data.height(x, z);
+            overview[column] = data.isAir(PackedChunkData.position(x, heightMap[column], z)) ? Blocks.AIR.getDefaultState() : chunk.getBlockState(x, heightMap[column], z);
+        }
+        return new CachedChunk(this.x, this.z, data, overview, heightMap, specialBlockLocations, System.currentTimeMillis());
+    }
+
+    private static void reclassify(Chunk chunk, PackedChunkData data, int x, int y, int z, boolean[] columns) {
+        int position = PackedChunkData.position(x, y, z);
+        PathingBlockType type = ChunkPacker.getPathingBlockType(chunk.getBlockState(x, y, z), chunk, x, y, z);
+        if (data.getType(position) != type) {
+            data.setType(position, type);
+            columns[z << 4 | x] = true;
         }
     }
 
@@ -176,9 +247,9 @@ public final class CachedChunk {
             return overview[internalPos];
         }
         if (special != null) {
-            String str = special.get(index);
-            if (str != null) {
-                return BlockUtils.stringToBlockRequired(str).getDefaultState();
+            IBlockState state = special.get(x, y, z);
+            if (state != null) {
+                return state;
             }
         }
 
@@ -198,23 +269,20 @@ public final class CachedChunk {
     }
 
     private PathingBlockType getType(int index) {
-        return PathingBlockType.fromBits(data.get(index), data.get(index + 1));
+        return data.getType(index >> 1);
     }
 
-    private void calculateHeightMap() {
-        for (int z = 0; z < 16; z++) {
-            for (int x = 0; x < 16; x++) {
-                int index = z << 4 | x;
-                heightMap[index] = 0;
-                for (int y = 256; y >= 0; y--) {
-                    int i = getPositionIndex(x, y, z);
-                    if (data.get(i) || data.get(i + 1)) {
-                        heightMap[index] = y;
-                        break;
-                    }
-                }
-            }
+    /**
+     * @return The walkable components of this chunk and how they reach its borders, worked out on first use
+     */
+    public final ChunkPortals getPortals() {
+        ChunkPortals portals = this.portals;
+        if (portals == null) {
+            // racing threads can both compute it, which is harmless since they come up with the same thing
+            portals = ChunkPortals.compute(data);
+            this.portals = portals;
         }
+        return portals;
     }
 
     public final IBlockState[] getOverview() {
@@ -236,6 +304,18 @@ public final class CachedChunk {
         return res;
     }
 
+    /**
+     * @return Roughly how many bytes of heap this chunk takes up, for keeping the cache within its memory budget
+     */
+    public final int estimatedSize() {
+        // packed data, height map, overview, and a guess at the boxed positions and map entries of the special blocks
+        int size = SIZE_IN_BYTES + 256 * 4 + 256 * 4;
+        for (List<BlockPos> positions : specialBlockLocations.values()) {
+            size += 64 + positions.size() * 48;
+        }
+        return size;
+    }
+
     /**
      * @return Returns the raw packed chunk data as a byte array
      */
@@ -243,6 +323,13 @@ public final class CachedChunk {
         return this.data.toByteArray();
     }
 
+    /**
+     * @return The raw packed chunk data
+     */
+    public final PackedChunkData getData() {
+        return this.data;
+    }
+
     /**
      * Returns the raw bit index of the specified position
      *
@@ -256,16 +343,72 @@ public final class CachedChunk {
     }
 
     /**
-     * Validates the size of an input {@link BitSet} containing the raw
-     * packed chunk data. Sizes that exceed {@link CachedChunk#SIZE} are
-     * considered invalid, and thus, an exception will be thrown.
-     *
-     * @param data The raw data
-     * @throws IllegalArgumentException if the bitset size exceeds the maximum size
+     * The special blocks of a chunk, for looking up by position without going through their names. Their block states
+     * are resolved once, when the chunk is loaded or packed.
      */
-    private static void validateSize(BitSet data) {
-        if (data.size() > SIZE) {
-            throw new IllegalArgumentException("BitSet of invalid length provided");
+    private static final class SpecialBlocks {
+
+        /**
+         * One bit per column, set if it has any special blocks, so most lookups stop here
+         */
+        private final long[] columns = new long[4];
+
+        /**
+         * Sorted {@link PackedChunkData} positions
+         */
+        private final int[] positions;
+
+        /**
+         * The block at each of {@link #positions}
+         */
+        private final IBlockState[] states;
+
+        private SpecialBlocks(int[] positions, IBlockState[] states) {
+            this.positions = positions;
+            this.states = states;
+            for (int position : positions) {
+                int column = position & 255;
+                columns[column >> 6] |= 1L << column;
+            }
+        }
+
+        static SpecialBlocks of(Map<String, List<BlockPos>> specialBlockLocations) {
+            List<IBlockState> palette = new ArrayList<>();
+            int count = 0;
+            for (Map.Entry<String, List<BlockPos>> entry : specialBlockLocations.entrySet()) {
+                palette.add(BlockUtils.stringToBlockRequired(entry.getKey()).getDefaultState());
+                count += entry.getValue().size();
+            }
+            if (count == 0) {
+                return null;
+            }
+            // sort the positions and their palette indices together
+            long[] entries = new long[count];
+            int i = 0;
+            int id = 0;
+            for (List<BlockPos> locs : specialBlockLocations.values()) {
+                for (BlockPos pos : locs) {
+                    entries[i++] = (long) PackedChunkData.position(pos.getX(), pos.getY(), pos.getZ()) << 32 | id;
+                }
+                id++;
+            }
+            Arrays.sort(entries);
+            int[] positions = new int[count];
+            IBlockState[] states = new IBlockState[count];
+            for (i = 0; i < count; i++) {
+                positions[i] = (int) (entries[i] >>> 32);
+                states[i] = palette.get((int) entries[i]);
+            }
+            return new SpecialBlocks(positions, states);
+        }
+
+        IBlockState get(int x, int y, int z) {
+            int column = z << 4 | x;
+            if ((columns[column >> 6] & 1L << column) == 0) {
+                return null;
+            }
+            int i = Arrays.binarySearch(positions, PackedChunkData.position(x, y, z));
+            return i < 0 ? null : states[i];
         }
     }
 }
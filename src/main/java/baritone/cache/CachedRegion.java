@@ -28,8 +28,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * @author Brady
@@ -41,15 +41,57 @@ public final class CachedRegion implements ICachedRegion {
     private static final byte CHUNK_PRESENT = 1;
 
     /**
-     * Magic value to detect invalid cache files, or incompatible cache files saved in an old version of Baritone
+     * Magic value of the first, all gzip, version of the format. See {@link CachedRegionFile#MAGIC} for the current one.
      */
     private static final int CACHED_REGION_MAGIC = 456022910;
 
     /**
-     * All of the chunks in this region: A 32x32 array of them.
+     * All of the chunks in this region: A 32x32 array of them. Chunks that are still only in {@link #file} are null
+     * here until something asks for them.
      */
     private final CachedChunk[][] chunks = new CachedChunk[32][32];
 
+    /**
+     * The file this region was loaded from, for paging in chunks as they're needed. Null once there's nothing left in it
+     * that isn't already in {@link #chunks}.
+     */
+    private CachedRegionFile file;
+
+    /**
+     * Chunks that are in {@link #file} but shouldn't be paged in from it, because they expired or were replaced
+     */
+    private final boolean[][] stale = new boolean[32][32];
+
+    /**
+     * Chunks that have changed since they were last written to the region file or the journal
+     */
+    private final boolean[][] unjournaled = new boolean[32][32];
+
+    /**
+     * How big the journal has grown since the region file was last written
+     */
+    private long journalSize;
+
+    /**
+     * Which chunks have been used since {@link #evictChunks} last looked at them
+     */
+    private final boolean[][] referenced = new boolean[32][32];
+
+    /**
+     * Roughly how many bytes the chunks in {@link #chunks} take up
+     */
+    private long memoryUsage;
+
+    /**
+     * When this region was last handed out by {@link CachedWorld}, in {@link System#nanoTime()}
+     */
+    volatile long lastAccess;
+
+    /**
+     * Set once this region has been dropped from its world, after which it shouldn't take any more changes
+     */
+    private boolean evicted;
+
     /**
      * The region x coordinate
      */
@@ -72,11 +114,12 @@ public final class CachedRegion implements ICachedRegion {
         this.z = z;
         this.hasUnsavedChanges = false;
         this.dimension = dimension;
+        this.lastAccess = System.nanoTime();
     }
 
     @Override
     public final IBlockState getBlock(int x, int y, int z) {
-        CachedChunk chunk = chunks[x >> 4][z >> 4];
+        CachedChunk chunk = getChunk(x >> 4, z >> 4);
         if (chunk != null) {
             return chunk.getBlock(x & 15, y, z & 15, dimension);
         }
@@ -85,10 +128,119 @@ public final class CachedRegion implements ICachedRegion {
 
     @Override
     public final boolean isCached(int x, int z) {
-        return chunks[x >> 4][z >> 4] != null;
+        if (chunks[x >> 4][z >> 4] != null) {
+            return true;
+        }
+        synchronized (this) {
+            return inFile(x >> 4, z >> 4);
+        }
+    }
+
+    /**
+     * @param chunkX The chunk x coordinate, relative to this region
+     * @param chunkZ The chunk z coordinate, relative to this region
+     * @return The cached chunk, or null if it isn't cached
+     */
+    final CachedChunk getChunk(int chunkX, int chunkZ) {
+        if (!referenced[chunkX][chunkZ]) {
+            // read first, so that the hot path doesn't keep writing to a shared array
+            referenced[chunkX][chunkZ] = true;
+        }
+        CachedChunk chunk = chunks[chunkX][chunkZ];
+        if (chunk != null || file == null) {
+            return chunk;
+        }
+        return pageIn(chunkX, chunkZ);
+    }
+
+    private boolean inFile(int chunkX, int chunkZ) {
+        return file != null && !stale[chunkX][chunkZ] && file.isPresent(chunkX, chunkZ);
+    }
+
+    private synchronized CachedChunk pageIn(int chunkX, int chunkZ) {
+        if (chunks[chunkX][chunkZ] == null && inFile(chunkX, chunkZ)) {
+            try {
+                chunks[chunkX][chunkZ] = file.readChunk(chunkX, chunkZ, this.x, this.z);
+                memoryUsage += chunks[chunkX][chunkZ].estimatedSize();
+            } catch (Exception ex) {
+                System.out.println("Unable to read chunk " + (chunkX + 32 * this.x) + "," + (chunkZ + 32 * this.z) + " from disk");
+                ex.printStackTrace();
+                stale[chunkX][chunkZ] = true;
+            }
+        }
+        return chunks[chunkX][chunkZ];
+    }
+
+    /**
+     * Drops the chunks that haven't been used since the last call, as long as they can be paged back in from the file.
+     * The ones that have been used get another chance next time.
+     *
+     * @return How many chunks were dropped
+     */
+    final synchronized int evictChunks() {
+        int evicted = 0;
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                if (chunks[x][z] == null || !inFile(x, z)) {
+                    continue;
+                }
+                if (referenced[x][z]) {
+                    referenced[x][z] = false;
+                    continue;
+                }
+                memoryUsage -= chunks[x][z].estimatedSize();
+                chunks[x][z] = null;
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Marks this region as dropped from its world, unless it has changes that haven't been saved
+     *
+     * @param discardChanges Mark it anyway, if there's nowhere to save it to
+     * @return Whether it was marked
+     */
+    final synchronized boolean markEvicted(boolean discardChanges) {
+        if (hasUnsavedChanges && !discardChanges) {
+            return false;
+        }
+        evicted = true;
+        return true;
+    }
+
+    final synchronized long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    private synchronized void pageInAll() {
+        if (file == null) {
+            return;
+        }
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                pageIn(x, z);
+            }
+        }
+    }
+
+    /**
+     * Pages in every chunk of this region and hands each one that's cached to the action, while holding the lock
+     */
+    final synchronized void forEachChunk(Consumer<CachedChunk> action) {
+        pageInAll();
+        for (int chunkX = 0; chunkX < 32; chunkX++) {
+            for (int chunkZ = 0; chunkZ < 32; chunkZ++) {
+                if (chunks[chunkX][chunkZ] != null) {
+                    action.accept(chunks[chunkX][chunkZ]);
+                }
+            }
+        }
     }
 
     public final ArrayList<BlockPos> getLocationsOf(String block) {
+        pageInAll();
         ArrayList<BlockPos> res = new ArrayList<>();
         for (int chunkX = 0; chunkX < 32; chunkX++) {
             for (int chunkZ = 0; chunkZ < 32; chunkZ++) {
@@ -104,9 +256,58 @@ public final class CachedRegion implements ICachedRegion {
         return res;
     }
 
-    public final synchronized void updateCachedChunk(int chunkX, int chunkZ, CachedChunk chunk) {
+    /**
+     * @return False if this region has been evicted, in which case the chunk should go into the world's new copy of it
+     */
+    public final synchronized boolean updateCachedChunk(int chunkX, int chunkZ, CachedChunk chunk) {
+        if (evicted) {
+            return false;
+        }
+        if (this.chunks[chunkX][chunkZ] != null) {
+            memoryUsage -= this.chunks[chunkX][chunkZ].estimatedSize();
+        }
         this.chunks[chunkX][chunkZ] = chunk;
+        this.stale[chunkX][chunkZ] = true;
+        this.unjournaled[chunkX][chunkZ] = true;
+        memoryUsage += chunk.estimatedSize();
         hasUnsavedChanges = true;
+        return true;
+    }
+
+    /**
+     * Appends the chunks that have changed since the last save or journal to this region's journal, which is much
+     * cheaper than writing the whole region file again
+     *
+     * @return How big the journal is now, so it can be compacted into the region file once it's grown too big
+     */
+    public final synchronized long journal(String directory) {
+        if (!hasUnsavedChanges) {
+            return 0;
+        }
+        List<CachedChunk> changed = new ArrayList<>();
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                if (unjournaled[x][z] && chunks[x][z] != null) {
+                    changed.add(chunks[x][z]);
+                }
+            }
+        }
+        if (changed.isEmpty()) {
+            return journalSize;
+        }
+        try {
+            Path path = Paths.get(directory);
+            if (!Files.exists(path)) {
+                Files.createDirectories(path);
+            }
+            journalSize += CachedRegionJournal.append(getJournalFile(path, this.x, this.z), changed);
+            for (CachedChunk chunk : changed) {
+                unjournaled[chunk.x & 31][chunk.z & 31] = false;
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return journalSize;
     }
 
 
@@ -122,63 +323,18 @@ public final class CachedRegion implements ICachedRegion {
 
             }
             System.out.println("Saving region " + x + "," + z + " to disk " + path);
+            pageInAll();
             Path regionFile = getRegionFile(path, this.x, this.z);
-            if (!Files.exists(regionFile)) {
-                Files.createFile(regionFile);
-            }
-            try (
-                    FileOutputStream fileOut = new FileOutputStream(regionFile.toFile());
-                    GZIPOutputStream gzipOut = new GZIPOutputStream(fileOut, 16384);
-                    DataOutputStream out = new DataOutputStream(gzipOut)
-            ) {
-                out.writeInt(CACHED_REGION_MAGIC);
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        CachedChunk chunk = this.chunks[x][z];
-                        if (chunk == null) {
-                            out.write(CHUNK_NOT_PRESENT);
-                        } else {
-                            out.write(CHUNK_PRESENT);
-                            byte[] chunkBytes = chunk.toByteArray();
-                            out.write(chunkBytes);
-                            // Messy, but fills the empty 0s that should be trailing to fill up the space.
-                            out.write(new byte[CachedChunk.SIZE_IN_BYTES - chunkBytes.length]);
-                        }
-                    }
-                }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (chunks[x][z] != null) {
-                            for (int i = 0; i < 256; i++) {
-                                out.writeUTF(BlockUtils.blockToString(chunks[x][z].getOverview()[i].getBlock()));
-                            }
-                        }
-                    }
-                }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (chunks[x][z] != null) {
-                            Map<String, List<BlockPos>> locs = chunks[x][z].getRelativeBlocks();
-                            out.writeShort(locs.entrySet().size());
-                            for (Map.Entry<String, List<BlockPos>> entry : locs.entrySet()) {
-                                out.writeUTF(entry.getKey());
-                                out.writeShort(entry.getValue().size());
-                                for (BlockPos pos : entry.getValue()) {
-                                    out.writeByte((byte) (pos.getZ() << 4 | pos.getX()));
-                                    out.writeByte((byte) (pos.getY()));
-                                }
-                            }
-                        }
-                    }
-                }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (chunks[x][z] != null) {
-                            out.writeLong(chunks[x][z].cacheTimestamp);
-                        }
-                    }
-                }
+            CachedRegionFile.write(regionFile, chunks);
+            // everything in memory is now also in the file, so it can all be evicted and paged back in later
+            this.file = CachedRegionFile.open(regionFile);
+            for (int x = 0; x < 32; x++) {
+                Arrays.fill(this.stale[x], false);
+                Arrays.fill(this.unjournaled[x], false);
             }
+            // only now that the file is safely in place, since the journal has changes that weren't in the old one
+            Files.deleteIfExists(getJournalFile(path, this.x, this.z));
+            journalSize = 0;
             hasUnsavedChanges = false;
             System.out.println("Saved region successfully");
         } catch (Exception ex) {
@@ -195,113 +351,181 @@ public final class CachedRegion implements ICachedRegion {
 
             Path regionFile = getRegionFile(path, this.x, this.z);
             if (!Files.exists(regionFile)) {
+                recoverJournal(path);
                 return;
             }
 
             System.out.println("Loading region " + x + "," + z + " from disk " + path);
             long start = System.nanoTime() / 1000000L;
 
-            try (
-                    FileInputStream fileIn = new FileInputStream(regionFile.toFile());
-                    GZIPInputStream gzipIn = new GZIPInputStream(fileIn, 32768);
-                    DataInputStream in = new DataInputStream(gzipIn)
-            ) {
-                int magic = in.readInt();
-                if (magic != CACHED_REGION_MAGIC) {
-                    // in the future, if we change the format on disk
-                    // we can keep converters for the old format
-                    // by switching on the magic value, and either loading it normally, or loading through a converter.
-                    throw new IOException("Bad magic value " + magic);
-                }
-                boolean[][] present = new boolean[32][32];
-                BitSet[][] bitSets = new BitSet[32][32];
-                Map<String, List<BlockPos>>[][] location = new Map[32][32];
-                IBlockState[][][] overview = new IBlockState[32][32][];
-                long[][] cacheTimestamp = new long[32][32];
+            if (CachedRegionFile.isVersion2(regionFile)) {
+                CachedRegionFile opened = CachedRegionFile.open(regionFile);
                 for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        int isChunkPresent = in.read();
-                        switch (isChunkPresent) {
-                            case CHUNK_PRESENT:
-                                byte[] bytes = new byte[CachedChunk.SIZE_IN_BYTES];
-                                in.readFully(bytes);
-                                bitSets[x][z] = BitSet.valueOf(bytes);
-                                location[x][z] = new HashMap<>();
-                                overview[x][z] = new IBlockState[256];
-                                present[x][z] = true;
-                                break;
-                            case CHUNK_NOT_PRESENT:
-                                break;
-                            default:
-                                throw new IOException("Malformed stream");
-                        }
+                    Arrays.fill(this.chunks[x], null);
+                    Arrays.fill(this.stale[x], false);
+                }
+                this.file = opened;
+                this.memoryUsage = 0;
+                hasUnsavedChanges = false;
+                recoverJournal(path);
+                removeExpired();
+                long end = System.nanoTime() / 1000000L;
+                System.out.println("Opened region successfully in " + (end - start) + "ms");
+                return;
+            }
+            loadVersion1(regionFile);
+            recoverJournal(path);
+            // convert it now, so the next load can be lazy
+            hasUnsavedChanges = true;
+            save(directory);
+            long end = System.nanoTime() / 1000000L;
+            System.out.println("Loaded and converted region successfully in " + (end - start) + "ms");
+        } catch (Exception ex) { // corrupted files can cause NullPointerExceptions as well as IOExceptions
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Puts back the chunks from the journal that are newer than the region file, which will only be there if the game
+     * stopped without saving. They'll go into the region file the next time it's saved.
+     */
+    private void recoverJournal(Path directory) {
+        Path journal = getJournalFile(directory, this.x, this.z);
+        if (!Files.exists(journal)) {
+            return;
+        }
+        try {
+            CachedChunk[][] recovered = CachedRegionJournal.recover(journal, this.x, this.z);
+            int count = 0;
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    CachedChunk chunk = recovered[x][z];
+                    if (chunk == null) {
+                        continue;
+                    }
+                    CachedChunk current = getChunk(x, z);
+                    if (current != null && current.cacheTimestamp >= chunk.cacheTimestamp) {
+                        continue;
+                    }
+                    if (current != null) {
+                        memoryUsage -= current.estimatedSize();
                     }
+                    chunks[x][z] = chunk;
+                    stale[x][z] = true;
+                    memoryUsage += chunk.estimatedSize();
+                    hasUnsavedChanges = true;
+                    count++;
                 }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (present[x][z]) {
-                            for (int i = 0; i < 256; i++) {
-                                overview[x][z][i] = BlockUtils.stringToBlockRequired(in.readUTF()).getDefaultState();
-                            }
+            }
+            journalSize = Files.size(journal);
+            System.out.println("Recovered " + count + " chunks of region " + this.x + "," + this.z + " from its journal");
+        } catch (Exception ex) {
+            System.out.println("Unable to recover journal of region " + this.x + "," + this.z);
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads a region file in the first version of the format, the whole thing at once
+     */
+    private void loadVersion1(Path regionFile) throws IOException {
+        try (
+                FileInputStream fileIn = new FileInputStream(regionFile.toFile());
+                GZIPInputStream gzipIn = new GZIPInputStream(fileIn, 32768);
+                DataInputStream in = new DataInputStream(gzipIn)
+        ) {
+            int magic = in.readInt();
+            if (magic != CACHED_REGION_MAGIC) {
+                throw new IOException("Bad magic value " + magic);
+            }
+            boolean[][] present = new boolean[32][32];
+            PackedChunkData[][] packed = new PackedChunkData[32][32];
+            Map<String, List<BlockPos>>[][] location = new Map[32][32];
+            IBlockState[][][] overview = new IBlockState[32][32][];
+            long[][] cacheTimestamp = new long[32][32];
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    int isChunkPresent = in.read();
+                    switch (isChunkPresent) {
+                        case CHUNK_PRESENT:
+                            byte[] bytes = new byte[CachedChunk.SIZE_IN_BYTES];
+                            in.readFully(bytes);
+                            packed[x][z] = PackedChunkData.fromByteArray(bytes);
+                            location[x][z] = new HashMap<>();
+                            overview[x][z] = new IBlockState[256];
+                            present[x][z] = true;
+                            break;
+                        case CHUNK_NOT_PRESENT:
+                            break;
+                        default:
+                            throw new IOException("Malformed stream");
+                    }
+                }
+            }
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (present[x][z]) {
+                        for (int i = 0; i < 256; i++) {
+                            overview[x][z][i] = BlockUtils.stringToBlockRequired(in.readUTF()).getDefaultState();
                         }
                     }
                 }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (present[x][z]) {
-                            // 16 * 16 * 256 = 65536 so a short is enough
-                            // ^ haha jokes on leijurv, java doesn't have unsigned types so that isn't correct
-                            //   also why would you have more than 32767 special blocks in a chunk
-                            // haha double jokes on you now it works for 65535 not just 32767
-                            int numSpecialBlockTypes = in.readShort() & 0xffff;
-                            for (int i = 0; i < numSpecialBlockTypes; i++) {
-                                String blockName = in.readUTF();
-                                BlockUtils.stringToBlockRequired(blockName);
-                                List<BlockPos> locs = new ArrayList<>();
-                                location[x][z].put(blockName, locs);
-                                int numLocations = in.readShort() & 0xffff;
-                                if (numLocations == 0) {
-                                    // an entire chunk full of air can happen in the end
-                                    numLocations = 65536;
-                                }
-                                for (int j = 0; j < numLocations; j++) {
-                                    byte xz = in.readByte();
-                                    int X = xz & 0x0f;
-                                    int Z = (xz >>> 4) & 0x0f;
-                                    int Y = in.readByte() & 0xff;
-                                    locs.add(new BlockPos(X, Y, Z));
-                                }
+            }
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (present[x][z]) {
+                        // 16 * 16 * 256 = 65536 so a short is enough
+                        // ^ haha jokes on leijurv, java doesn't have unsigned types so that isn't correct
+                        //   also why would you have more than 32767 special blocks in a chunk
+                        // haha double jokes on you now it works for 65535 not just 32767
+                        int numSpecialBlockTypes = in.readShort() & 0xffff;
+                        for (int i = 0; i < numSpecialBlockTypes; i++) {
+                            String blockName = in.readUTF();
+                            BlockUtils.stringToBlockRequired(blockName);
+                            List<BlockPos> locs = new ArrayList<>();
+                            location[x][z].put(blockName, locs);
+                            int numLocations = in.readShort() & 0xffff;
+                            if (numLocations == 0) {
+                                // an entire chunk full of air can happen in the end
+                                numLocations = 65536;
+                            }
+                            for (int j = 0; j < numLocations; j++) {
+                                byte xz = in.readByte();
+                                int X = xz & 0x0f;
+                                int Z = (xz >>> 4) & 0x0f;
+                                int Y = in.readByte() & 0xff;
+                                locs.add(new BlockPos(X, Y, Z));
                             }
                         }
                     }
                 }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (present[x][z]) {
-                            cacheTimestamp[x][z] = in.readLong();
-                        }
+            }
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (present[x][z]) {
+                        cacheTimestamp[x][z] = in.readLong();
                     }
                 }
-                // only if the entire file was uncorrupted do we actually set the chunks
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (present[x][z]) {
-                            int regionX = this.x;
-                            int regionZ = this.z;
-                            int chunkX = x + 32 * regionX;
-                            int chunkZ = z + 32 * regionZ;
-                            this.chunks[x][z] = new CachedChunk(chunkX, chunkZ, bitSets[x][z], overview[x][z], location[x][z], cacheTimestamp[x][z]);
+            }
+            // only if the entire file was uncorrupted do we actually set the chunks
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (present[x][z]) {
+                        int regionX = this.x;
+                        int regionZ = this.z;
+                        int chunkX = x + 32 * regionX;
+                        int chunkZ = z + 32 * regionZ;
+                        if (this.chunks[x][z] != null) {
+                            memoryUsage -= this.chunks[x][z].estimatedSize();
                         }
+                        this.chunks[x][z] = new CachedChunk(chunkX, chunkZ, packed[x][z], overview[x][z], location[x][z], cacheTimestamp[x][z]);
+                        memoryUsage += this.chunks[x][z].estimatedSize();
                     }
                 }
             }
-            removeExpired();
-            hasUnsavedChanges = false;
-            long end = System.nanoTime() / 1000000L;
-            System.out.println("Loaded region successfully in " + (end - start) + "ms");
-        } catch (Exception ex) { // corrupted files can cause NullPointerExceptions as well as IOExceptions
-            ex.printStackTrace();
         }
+        this.file = null;
+        removeExpired();
     }
 
     public synchronized final void removeExpired() {
@@ -315,25 +539,40 @@ public final class CachedRegion implements ICachedRegion {
             for (int z = 0; z < 32; z++) {
                 if (this.chunks[x][z] != null && this.chunks[x][z].cacheTimestamp < oldestAcceptableAge) {
                     System.out.println("Removing chunk " + (x + 32 * this.x) + "," + (z + 32 * this.z) + " because it was cached " + (now - this.chunks[x][z].cacheTimestamp) / 1000L + " seconds ago, and max age is " + expiry);
+                    memoryUsage -= this.chunks[x][z].estimatedSize();
                     this.chunks[x][z] = null;
                 }
+                if (inFile(x, z) && file.getTimestamp(x, z) < oldestAcceptableAge) {
+                    // no need to page it in just to throw it away
+                    this.stale[x][z] = true;
+                    hasUnsavedChanges = true;
+                }
             }
         }
     }
 
     public synchronized final CachedChunk mostRecentlyModified() {
-        CachedChunk recent = null;
+        int recentX = -1;
+        int recentZ = -1;
+        long recentTimestamp = 0;
         for (int x = 0; x < 32; x++) {
             for (int z = 0; z < 32; z++) {
-                if (this.chunks[x][z] == null) {
+                long timestamp;
+                if (this.chunks[x][z] != null) {
+                    timestamp = this.chunks[x][z].cacheTimestamp;
+                } else if (inFile(x, z)) {
+                    timestamp = file.getTimestamp(x, z);
+                } else {
                     continue;
                 }
-                if (recent == null || this.chunks[x][z].cacheTimestamp > recent.cacheTimestamp) {
-                    recent = this.chunks[x][z];
+                if (recentX == -1 || timestamp > recentTimestamp) {
+                    recentX = x;
+                    recentZ = z;
+                    recentTimestamp = timestamp;
                 }
             }
         }
-        return recent;
+        return recentX == -1 ? null : getChunk(recentX, recentZ);
     }
 
     /**
@@ -355,4 +594,8 @@ public final class CachedRegion implements ICachedRegion {
     private static Path getRegionFile(Path cacheDir, int regionX, int regionZ) {
         return Paths.get(cacheDir.toString(), "r." + regionX + "." + regionZ + ".bcr");
     }
+
+    static Path getJournalFile(Path cacheDir, int regionX, int regionZ) {
+        return Paths.get(cacheDir.toString(), "r." + regionX + "." + regionZ + ".bcj");
+    }
 }
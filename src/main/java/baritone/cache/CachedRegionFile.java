@@ -0,0 +1,330 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.api.utils.BlockUtils;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The second version of the region file format. Unlike the first, which is one gzip stream, this one can have single
+ * chunks read out of it without touching the rest of the file.
+ * <p>
+ * Layout, all big endian:
+ * <ul>
+ * <li>int magic, {@link #MAGIC}</li>
+ * <li>for each of the 32x32 chunks, x major: int offset, int length, long cache timestamp. An offset of 0 means the
+ * chunk isn't present</li>
+ * <li>int palette size, then for each block name: unsigned short length, UTF-8 bytes</li>
+ * <li>the chunks, each deflated on its own: int packed data length, the {@link PackedChunkData} bytes, 256 overview
+ * palette indices as shorts, then the special blocks in the same shape as the first version except with palette indices
+ * instead of names</li>
+ * </ul>
+ *
+ * @see CachedRegion
+ */
+final class CachedRegionFile {
+
+    /**
+     * Magic value of this format. Files in the first format start with the gzip header instead.
+     */
+    static final int MAGIC = 456022911;
+
+    private static final int HEADER_SIZE = 4 + 32 * 32 * 16;
+
+    /**
+     * Only opened for as long as it takes to read a chunk. Holding it open, or mapped, would keep the next save from
+     * moving the new file over it on Windows.
+     */
+    private final Path file;
+
+    private final int[] offsets = new int[32 * 32];
+
+    private final int[] lengths = new int[32 * 32];
+
+    private final long[] timestamps = new long[32 * 32];
+
+    private final String[] palette;
+
+    /**
+     * The default state of each block in {@link #palette}, resolved once when the file is opened
+     */
+    private final IBlockState[] states;
+
+    private CachedRegionFile(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        long size = channel.size();
+        if (size < HEADER_SIZE + 4) {
+            throw new IOException("Not a version 2 region file");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        read(channel, 0, header);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a version 2 region file");
+        }
+        // the palette goes from the end of the header to the first chunk
+        long paletteEnd = size;
+        for (int i = 0; i < 32 * 32; i++) {
+            offsets[i] = header.getInt();
+            lengths[i] = header.getInt();
+            timestamps[i] = header.getLong();
+            if (offsets[i] != 0 && (offsets[i] < HEADER_SIZE + 4 || lengths[i] < 0 || (long) offsets[i] + lengths[i] > size)) {
+                throw new IOException("Chunk " + i + " out of bounds");
+            }
+            if (offsets[i] != 0) {
+                paletteEnd = Math.min(paletteEnd, offsets[i]);
+            }
+        }
+        ByteBuffer names = ByteBuffer.allocate((int) (paletteEnd - HEADER_SIZE));
+        read(channel, HEADER_SIZE, names);
+        palette = new String[names.getInt()];
+        states = new IBlockState[palette.length];
+        for (int i = 0; i < palette.length; i++) {
+            byte[] name = new byte[names.getShort() & 0xffff];
+            names.get(name);
+            palette[i] = new String(name, StandardCharsets.UTF_8);
+            states[i] = BlockUtils.stringToBlockRequired(palette[i]).getDefaultState();
+        }
+    }
+
+    /**
+     * @param file The region file
+     * @return Whether the file is in this format, as opposed to the first one
+     */
+    static boolean isVersion2(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the file's header, but none of the chunks. The file isn't kept open.
+     */
+    static CachedRegionFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new CachedRegionFile(file, channel);
+        }
+    }
+
+    /**
+     * Fills the buffer from the channel starting at the given position, and flips it
+     */
+    private static void read(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+    }
+
+    boolean isPresent(int chunkX, int chunkZ) {
+        return offsets[chunkX << 5 | chunkZ] != 0;
+    }
+
+    long getTimestamp(int chunkX, int chunkZ) {
+        return timestamps[chunkX << 5 | chunkZ];
+    }
+
+    /**
+     * Decompresses one chunk. Safe to call from several threads at once.
+     *
+     * @param chunkX The chunk x coordinate, relative to the region
+     * @param chunkZ The chunk z coordinate, relative to the region
+     * @param regionX The region x coordinate
+     * @param regionZ The region z coordinate
+     * @return The chunk, or null if it isn't present
+     */
+    CachedChunk readChunk(int chunkX, int chunkZ, int regionX, int regionZ) throws IOException {
+        int i = chunkX << 5 | chunkZ;
+        if (offsets[i] == 0) {
+            return null;
+        }
+        byte[] compressed = new byte[lengths[i]];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            read(channel, offsets[i], ByteBuffer.wrap(compressed));
+        }
+        return decompressChunk(compressed, chunkX + 32 * regionX, chunkZ + 32 * regionZ, timestamps[i], palette, states);
+    }
+
+    /**
+     * Reads a chunk written by {@link #compressChunk}
+     *
+     * @param palette The block names that the chunk's palette indices refer to
+     * @param states  The default state of each block in the palette
+     */
+    static CachedChunk decompressChunk(byte[] compressed, int chunkX, int chunkZ, long timestamp, String[] palette, IBlockState[] states) throws IOException {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            byte[] bits = new byte[in.readInt()];
+            if (bits.length > CachedChunk.SIZE_IN_BYTES) {
+                throw new IOException("Malformed chunk");
+            }
+            in.readFully(bits);
+            IBlockState[] overview = new IBlockState[256];
+            for (int j = 0; j < 256; j++) {
+                overview[j] = states[in.readShort() & 0xffff];
+            }
+            Map<String, List<BlockPos>> location = new HashMap<>();
+            int numSpecialBlockTypes = in.readShort() & 0xffff;
+            for (int j = 0; j < numSpecialBlockTypes; j++) {
+                List<BlockPos> locs = new ArrayList<>();
+                location.put(palette[in.readShort() & 0xffff], locs);
+                int numLocations = in.readShort() & 0xffff;
+                if (numLocations == 0) {
+                    numLocations = 65536;
+                }
+                for (int k = 0; k < numLocations; k++) {
+                    byte xz = in.readByte();
+                    int y = in.readByte() & 0xff;
+                    locs.add(new BlockPos(xz & 0x0f, y, (xz >>> 4) & 0x0f));
+                }
+            }
+            return new CachedChunk(chunkX, chunkZ, PackedChunkData.fromByteArray(bits), overview, location, timestamp);
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            throw new IOException("Malformed chunk", ex);
+        }
+    }
+
+    /**
+     * Writes the chunks next to the file and then moves them over it, so a crash partway through doesn't lose the
+     * previous save.
+     *
+     * @param file   The region file
+     * @param chunks The 32x32 chunks of the region, null where not present
+     */
+    static void write(Path file, CachedChunk[][] chunks) throws IOException {
+        Object2IntMap<String> palette = new Object2IntOpenHashMap<>();
+        List<String> names = new ArrayList<>();
+        byte[][] compressed = new byte[32 * 32][];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(CachedChunk.SIZE_IN_BYTES);
+        Deflater deflater = new Deflater();
+        try {
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    CachedChunk chunk = chunks[x][z];
+                    if (chunk == null) {
+                        continue;
+                    }
+                    compressed[x << 5 | z] = compressChunk(chunk, name -> paletteIndex(name, palette, names), deflater, bytes);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+
+        byte[][] encodedNames = new byte[names.size()][];
+        int offset = HEADER_SIZE + 4;
+        for (int i = 0; i < encodedNames.length; i++) {
+            encodedNames[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+            offset += 2 + encodedNames[i].length;
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 65536))) {
+            out.writeInt(MAGIC);
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    byte[] chunk = compressed[x << 5 | z];
+                    if (chunk == null) {
+                        out.writeInt(0);
+                        out.writeInt(0);
+                        out.writeLong(0);
+                    } else {
+                        out.writeInt(offset);
+                        out.writeInt(chunk.length);
+                        out.writeLong(chunks[x][z].cacheTimestamp);
+                        offset += chunk.length;
+                    }
+                }
+            }
+            out.writeInt(encodedNames.length);
+            for (byte[] name : encodedNames) {
+                out.writeShort(name.length);
+                out.write(name);
+            }
+            for (byte[] chunk : compressed) {
+                if (chunk != null) {
+                    out.write(chunk);
+                }
+            }
+        }
+        // get it onto the disk before it replaces the old file, or a crash could leave neither
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Deflates one chunk, in the layout described on this class
+     *
+     * @param paletteIndex Gives the palette index of a block name, adding it to the palette if it isn't there yet
+     * @param deflater     Reset and reused
+     * @param bytes        Reset and reused
+     */
+    static byte[] compressChunk(CachedChunk chunk, ToIntFunction<String> paletteIndex, Deflater deflater, ByteArrayOutputStream bytes) throws IOException {
+        bytes.reset();
+        deflater.reset();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 4096))) {
+            byte[] bits = chunk.toByteArray();
+            out.writeInt(bits.length);
+            out.write(bits);
+            for (IBlockState state : chunk.getOverview()) {
+                out.writeShort(paletteIndex.applyAsInt(BlockUtils.blockToString(state.getBlock())));
+            }
+            Map<String, List<BlockPos>> locs = chunk.getRelativeBlocks();
+            out.writeShort(locs.size());
+            for (Map.Entry<String, List<BlockPos>> entry : locs.entrySet()) {
+                out.writeShort(paletteIndex.applyAsInt(entry.getKey()));
+                out.writeShort(entry.getValue().size());
+                for (BlockPos pos : entry.getValue()) {
+                    out.writeByte((byte) (pos.getZ() << 4 | pos.getX()));
+                    out.writeByte((byte) (pos.getY()));
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static int paletteIndex(String name, Object2IntMap<String> palette, List<String> names) {
+        if (palette.containsKey(name)) {
+            return palette.getInt(name);
+        }
+        int index = names.size();
+        palette.put(name, index);
+        names.add(name);
+        return index;
+    }
+}
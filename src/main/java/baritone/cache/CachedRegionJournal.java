@@ -0,0 +1,152 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.api.utils.BlockUtils;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.block.state.IBlockState;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An append only log of the chunks of a region that have changed since its file was last written, so that a crash
+ * doesn't lose everything since the last save. Each region's goes next to its region file, and is deleted once the
+ * region file has been written again with everything in it.
+ * <p>
+ * Layout, all big endian, one record after another:
+ * <ul>
+ * <li>int length and int CRC32 of the rest of the record</li>
+ * <li>short chunk index, {@code x << 5 | z} relative to the region, and long cache timestamp</li>
+ * <li>short palette size, then each block name as {@link DataOutput#writeUTF}</li>
+ * <li>the chunk, as from {@link CachedRegionFile#compressChunk}, using that palette</li>
+ * </ul>
+ * A crash in the middle of appending leaves a partial record at the end, which is cut off when the journal is next read.
+ *
+ * @see CachedRegion
+ */
+final class CachedRegionJournal {
+
+    private CachedRegionJournal() {}
+
+    /**
+     * Appends chunks to the journal and waits for them to be on disk
+     *
+     * @param file   The journal file, created if it doesn't exist
+     * @param chunks The chunks to append
+     * @return How many bytes were appended
+     */
+    static int append(Path file, List<CachedChunk> chunks) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(CachedChunk.SIZE_IN_BYTES);
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater();
+        try {
+            for (CachedChunk chunk : chunks) {
+                Object2IntMap<String> palette = new Object2IntOpenHashMap<>();
+                List<String> names = new ArrayList<>();
+                byte[] compressed = CachedRegionFile.compressChunk(chunk, name -> CachedRegionFile.paletteIndex(name, palette, names), deflater, bytes);
+                record.reset();
+                DataOutputStream out = new DataOutputStream(record);
+                out.writeShort((chunk.x & 31) << 5 | (chunk.z & 31));
+                out.writeLong(chunk.cacheTimestamp);
+                out.writeShort(names.size());
+                for (String name : names) {
+                    out.writeUTF(name);
+                }
+                out.write(compressed);
+                CRC32 crc = new CRC32();
+                crc.update(record.toByteArray());
+                DataOutputStream header = new DataOutputStream(records);
+                header.writeInt(record.size());
+                header.writeInt((int) crc.getValue());
+                record.writeTo(records);
+            }
+        } finally {
+            deflater.end();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            return buffer.capacity();
+        }
+    }
+
+    /**
+     * Reads back everything in the journal, cutting off a partial record at the end if the last append didn't finish
+     *
+     * @param file    The journal file
+     * @param regionX The region x coordinate
+     * @param regionZ The region z coordinate
+     * @return The latest journaled copy of each chunk, 32x32, null where there isn't one
+     */
+    static CachedChunk[][] recover(Path file, int regionX, int regionZ) throws IOException {
+        CachedChunk[][] chunks = new CachedChunk[32][32];
+        byte[] journal = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(journal);
+        int valid = 0;
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length < 12 || length > buffer.remaining()) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(journal, buffer.position(), length);
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(journal, buffer.position(), length))) {
+                int index = in.readShort() & 0x3ff;
+                long timestamp = in.readLong();
+                String[] palette = new String[in.readShort() & 0xffff];
+                IBlockState[] states = new IBlockState[palette.length];
+                for (int i = 0; i < palette.length; i++) {
+                    palette[i] = in.readUTF();
+                    states[i] = BlockUtils.stringToBlockRequired(palette[i]).getDefaultState();
+                }
+                byte[] compressed = new byte[in.available()];
+                in.readFully(compressed);
+                int x = index >> 5;
+                int z = index & 31;
+                chunks[x][z] = CachedRegionFile.decompressChunk(compressed, x + 32 * regionX, z + 32 * regionZ, timestamp, palette, states);
+            }
+            buffer.position(buffer.position() + length);
+            valid = buffer.position();
+        }
+        if (valid < journal.length) {
+            System.out.println("Cutting off " + (journal.length - valid) + " bytes of incomplete journal " + file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        return chunks;
+    }
+}
@@ -23,20 +23,25 @@ import baritone.api.IBaritone;
 import baritone.api.cache.ICachedWorld;
 import baritone.api.cache.IWorldData;
 import baritone.api.utils.Helper;
-import com.google.common.cache.CacheBuilder;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.chunk.Chunk;
 
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Brady
@@ -49,27 +54,75 @@ public final class CachedWorld implements ICachedWorld, Helper {
      */
     private static final int REGION_MAX = 30_000_000 / 512 + 1;
 
+    /**
+     * How big a region's journal can get before it's compacted into the region file, rather than waiting for the next save
+     */
+    private static final long JOURNAL_COMPACT_SIZE = 4L * 1024 * 1024;
+
     /**
      * A map of all of the cached regions.
      */
     private Long2ObjectMap<CachedRegion> cachedRegions = new Long2ObjectOpenHashMap<>();
 
+    /**
+     * Regions that are being read from disk, see {@link #loadRegion}
+     */
+    private final Long2ObjectMap<CompletableFuture<CachedRegion>> loadingRegions = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Whether some thread is already in {@link #enforceMemoryBudget}
+     */
+    private final AtomicBoolean enforcingBudget = new AtomicBoolean();
+
+    /**
+     * How many chunks have been packed since the memory budget was last checked
+     */
+    private final AtomicInteger packedSinceBudgetCheck = new AtomicInteger();
+
+    /*
+     * Statistics for the chunk packers, see packerStats
+     */
+    private final LongAdder chunksPacked = new LongAdder();
+    private final LongAdder chunksRepacked = new LongAdder();
+    private final LongAdder packNanos = new LongAdder();
+    private final AtomicLong maxPackNanos = new AtomicLong();
+
+    /*
+     * Statistics for the region cache, see cacheStats
+     */
+    private long regionHits;
+    private long regionMisses;
+    private long regionLoads;
+    private long regionEvictions;
+    private long chunkEvictions;
+
     /**
      * The directory that the cached region files are saved to
      */
     private final String directory;
 
     /**
-     * Queue of positions to pack. Refers to the toPackMap, in that every element of this queue will be a
-     * key in that map.
+     * What's waiting to be packed, one queue per packer thread. All the chunks of a region go to the same queue, so that
+     * they're packed in the order they came in.
+     */
+    private final PackerQueue[] toPackQueues;
+
+    /**
+     * Bumped every time the packer and save threads are stopped, so that the ones from before know to exit
+     */
+    private volatile int generation;
+
+    /**
+     * Whether the packer and save threads of the current generation are running
      */
-    private final LinkedBlockingQueue<ChunkPos> toPackQueue = new LinkedBlockingQueue<>();
+    private boolean running;
 
     /**
-     * All chunk positions pending packing. This map will be updated in-place if a new update to the chunk occurs
-     * while waiting in the queue for the packer thread to get to it.
+     * What the save thread waits on between saves, so that it can be woken up to exit
      */
-    private final Map<ChunkPos, Chunk> toPackMap = CacheBuilder.newBuilder().softValues().<ChunkPos, Chunk>build().asMap();
+    private final Object saveLock = new Object();
+
+    private final SpecialBlockIndex specialBlockIndex = new SpecialBlockIndex();
 
     private final int dimension;
 
@@ -83,16 +136,48 @@ public final class CachedWorld implements ICachedWorld, Helper {
         this.directory = directory.toString();
         this.dimension = dimension;
         System.out.println("Cached world directory: " + directory);
-        Baritone.getExecutor().execute(new PackerThread());
+        specialBlockIndex.load(directory);
+        int packers = Math.max(1, Baritone.settings().chunkPackerThreads.value);
+        int capacity = Math.max(1, Baritone.settings().chunkPackerQueueMaxSize.value / packers);
+        this.toPackQueues = new PackerQueue[packers];
+        for (int i = 0; i < packers; i++) {
+            toPackQueues[i] = new PackerQueue(capacity);
+        }
+        start();
+    }
+
+    /**
+     * Starts the packer and save threads, if they aren't already running. They're stopped by {@link #close()}, and
+     * started again when the world is joined again.
+     */
+    public final synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        int generation = this.generation;
+        for (PackerQueue queue : toPackQueues) {
+            Baritone.getExecutor().execute(new PackerThread(queue, generation));
+        }
         Baritone.getExecutor().execute(() -> {
             try {
-                Thread.sleep(30000);
-                while (true) {
+                waitForSave(generation, 30000);
+                long nextSave = System.currentTimeMillis();
+                while (this.generation == generation) {
                     // since a region only saves if it's been modified since its last save
                     // saving every 10 minutes means that once it's time to exit
                     // we'll only have a couple regions to save
-                    save();
-                    Thread.sleep(600000);
+                    // in between, the journals keep a crash from losing all of those 10 minutes
+                    long now = System.currentTimeMillis();
+                    if (now >= nextSave) {
+                        save();
+                        nextSave = now + 600000;
+                    } else {
+                        journal();
+                    }
+                    long interval = Baritone.settings().cacheJournalIntervalSeconds.value * 1000L;
+                    long untilSave = Math.max(0, nextSave - System.currentTimeMillis());
+                    waitForSave(generation, interval > 0 ? Math.min(interval, untilSave) : untilSave);
                 }
             } catch (InterruptedException e) {
                 e.printStackTrace();
@@ -100,13 +185,91 @@ public final class CachedWorld implements ICachedWorld, Helper {
         });
     }
 
+    /**
+     * Stops the packer and save threads once they're done with what they're in the middle of. Chunks still waiting to
+     * be packed stay queued for when {@link #start()} is called again. Doesn't save, see {@link #save()}.
+     */
+    public final void close() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            generation++;
+        }
+        for (PackerQueue queue : toPackQueues) {
+            synchronized (queue) {
+                queue.notifyAll();
+            }
+        }
+        synchronized (saveLock) {
+            saveLock.notifyAll();
+        }
+    }
+
+    private void waitForSave(int generation, long millis) throws InterruptedException {
+        if (millis <= 0) {
+            return;
+        }
+        synchronized (saveLock) {
+            if (this.generation == generation) {
+                saveLock.wait(millis);
+            }
+        }
+    }
+
     @Override
     public final void queueForPacking(Chunk chunk) {
-        if (toPackMap.put(chunk.getPos(), chunk) == null) {
-            toPackQueue.add(chunk.getPos());
+        ChunkPos pos = chunk.getPos();
+        PackerQueue queue = queueFor(pos);
+        synchronized (queue) {
+            Pending pending = queue.pending.get(pos);
+            if (pending == null) {
+                pending = new Pending();
+                queue.add(pos, pending);
+            }
+            // a full pack picks up any block changes that were waiting too
+            pending.chunk = new SoftReference<>(chunk);
+            pending.changed = null;
         }
     }
 
+    /**
+     * Updates the cached copy of a chunk with some changed blocks, without packing the whole thing again. If the chunk
+     * isn't cached yet, it's packed in full instead.
+     *
+     * @param chunk   The chunk, with the changes already applied
+     * @param changed The positions that changed
+     */
+    public final void queueBlockChanges(Chunk chunk, Collection<BlockPos> changed) {
+        ChunkPos pos = chunk.getPos();
+        CachedRegion region = getRegion(pos.x >> 5, pos.z >> 5);
+        if (region == null || !region.isCached((pos.x & 31) << 4, (pos.z & 31) << 4)) {
+            queueForPacking(chunk);
+            return;
+        }
+        PackerQueue queue = queueFor(pos);
+        synchronized (queue) {
+            Pending pending = queue.pending.get(pos);
+            if (pending == null) {
+                pending = new Pending();
+                pending.chunk = new SoftReference<>(chunk);
+                pending.changed = new HashSet<>();
+                queue.add(pos, pending);
+            } else if (pending.changed == null) {
+                // it's about to be packed in full anyway, which will pick these up
+                return;
+            }
+            for (BlockPos block : changed) {
+                pending.changed.add(new BlockPos(block.getX() & 15, block.getY(), block.getZ() & 15));
+            }
+        }
+    }
+
+    private PackerQueue queueFor(ChunkPos pos) {
+        return toPackQueues[Math.floorMod(31 * (pos.x >> 5) + (pos.z >> 5), toPackQueues.length)];
+    }
+
     @Override
     public final boolean isCached(int blockX, int blockZ) {
         CachedRegion region = getRegion(blockX >> 9, blockZ >> 9);
@@ -120,40 +283,97 @@ public final class CachedWorld implements ICachedWorld, Helper {
         return getRegion(blockX >> 9, blockZ >> 9) != null;
     }
 
+    /**
+     * Finds the nearest of a block using {@link SpecialBlockIndex}, so only the chunks that could have the nearest ones
+     * are looked in. Regions that haven't been indexed yet are read in and indexed first, in rings around the center
+     * (by squared region distance), stopping once the rings so far have at least {@code maximum} of the block.
+     */
     @Override
     public final ArrayList<BlockPos> getLocationsOf(String block, int maximum, int centerX, int centerZ, int maxRegionDistanceSq) {
-        ArrayList<BlockPos> res = new ArrayList<>();
         int centerRegionX = centerX >> 9;
         int centerRegionZ = centerZ >> 9;
-
-        int searchRadius = 0;
-        while (searchRadius <= maxRegionDistanceSq) {
-            for (int xoff = -searchRadius; xoff <= searchRadius; xoff++) {
-                for (int zoff = -searchRadius; zoff <= searchRadius; zoff++) {
-                    int distance = xoff * xoff + zoff * zoff;
-                    if (distance != searchRadius) {
+        int radius = (int) Math.sqrt(maxRegionDistanceSq);
+        int found = 0;
+        for (int distanceSq = 0; distanceSq <= maxRegionDistanceSq && found < maximum; distanceSq++) {
+            // start reading the whole ring from disk at once, rather than one at a time
+            List<CompletableFuture<CachedRegion>> unindexed = new ArrayList<>();
+            for (int xoff = -radius; xoff <= radius; xoff++) {
+                for (int zoff = -radius; zoff <= radius; zoff++) {
+                    if (xoff * xoff + zoff * zoff != distanceSq) {
                         continue;
                     }
-                    int regionX = xoff + centerRegionX;
-                    int regionZ = zoff + centerRegionZ;
-                    CachedRegion region = getOrCreateRegion(regionX, regionZ);
-                    if (region != null) {
-                        // TODO: 100% verify if this or addAll is faster.
-                        res.addAll(region.getLocationsOf(block));
+                    int regionX = centerRegionX + xoff;
+                    int regionZ = centerRegionZ + zoff;
+                    if (specialBlockIndex.isIndexed(regionX, regionZ)) {
+                        found += specialBlockIndex.count(block, regionX, regionZ);
+                    } else {
+                        unindexed.add(loadRegion(regionX, regionZ));
                     }
                 }
             }
-            if (res.size() >= maximum) {
-                return res;
+            for (CompletableFuture<CachedRegion> future : unindexed) {
+                CachedRegion region = future.join();
+                region.forEachChunk(chunk -> specialBlockIndex.update(chunk.x, chunk.z, chunk.getRelativeBlocks()));
+                specialBlockIndex.markIndexed(region.getX(), region.getZ());
+                found += specialBlockIndex.count(block, region.getX(), region.getZ());
+            }
+        }
+
+        long[] chunks = specialBlockIndex.nearestChunks(block, maximum, centerX, centerZ, maxRegionDistanceSq);
+        List<CompletableFuture<CachedRegion>> regions = new ArrayList<>(chunks.length);
+        for (long key : chunks) {
+            regions.add(loadRegion((int) key >> 5, (int) (key >> 32) >> 5));
+        }
+        ArrayList<BlockPos> res = new ArrayList<>();
+        for (int i = 0; i < chunks.length; i++) {
+            int chunkX = (int) chunks[i];
+            int chunkZ = (int) (chunks[i] >> 32);
+            CachedChunk chunk = regions.get(i).join().getChunk(chunkX & 31, chunkZ & 31);
+            ArrayList<BlockPos> locs = chunk == null ? null : chunk.getAbsoluteBlocks(block);
+            if (locs == null) {
+                // it's expired or changed since it was indexed
+                if (chunk == null) {
+                    specialBlockIndex.remove(chunkX, chunkZ);
+                } else {
+                    specialBlockIndex.update(chunkX, chunkZ, chunk.getRelativeBlocks());
+                }
+                continue;
             }
-            searchRadius++;
+            res.addAll(locs);
         }
         return res;
     }
 
+    /**
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return The walkable components of that chunk, or null if the chunk isn't cached in a loaded region
+     */
+    public final ChunkPortals getPortals(int chunkX, int chunkZ) {
+        CachedRegion region = getRegion(chunkX >> 5, chunkZ >> 5);
+        if (region == null) {
+            return null;
+        }
+        CachedChunk chunk = region.getChunk(chunkX & 31, chunkZ & 31);
+        if (chunk == null) {
+            return null;
+        }
+        return chunk.getPortals();
+    }
+
     private void updateCachedChunk(CachedChunk chunk) {
-        CachedRegion region = getOrCreateRegion(chunk.x >> 5, chunk.z >> 5);
-        region.updateCachedChunk(chunk.x & 31, chunk.z & 31, chunk);
+        while (!getOrCreateRegion(chunk.x >> 5, chunk.z >> 5).updateCachedChunk(chunk.x & 31, chunk.z & 31, chunk)) {
+            // the region was evicted in between getting it and updating it, the next get will read it back in
+        }
+        specialBlockIndex.update(chunk.x, chunk.z, chunk.getRelativeBlocks());
+        if (Baritone.settings().pathingCorridor.value) {
+            // do this now on the packer thread, rather than in the middle of planning a route
+            chunk.getPortals();
+        }
+        if (packedSinceBudgetCheck.incrementAndGet() >= 64) {
+            packedSinceBudgetCheck.set(0);
+            enforceMemoryBudget();
+        }
     }
 
     @Override
@@ -165,7 +385,7 @@ public final class CachedWorld implements ICachedWorld, Helper {
                     region.removeExpired();
                 }
             }); // even if we aren't saving to disk, still delete expired old chunks from RAM
-            prune();
+            enforceMemoryBudget();
             return;
         }
         long start = System.nanoTime() / 1000000L;
@@ -174,33 +394,124 @@ public final class CachedWorld implements ICachedWorld, Helper {
                 region.save(this.directory);
             }
         });
+        specialBlockIndex.save(Paths.get(this.directory));
         long now = System.nanoTime() / 1000000L;
         System.out.println("World save took " + (now - start) + "ms");
-        prune();
+        System.out.println(cacheStats());
+        System.out.println(packerStats());
+        enforceMemoryBudget();
     }
 
     /**
-     * Delete regions that are too far from the player
+     * Appends the chunks that have changed since last time to their regions' journals, and compacts the journals that
+     * have grown too big into their region files
      */
-    private synchronized void prune() {
-        if (!Baritone.settings().pruneRegionsFromRAM.value) {
+    private void journal() {
+        if (!Baritone.settings().chunkCaching.value || Baritone.settings().cacheJournalIntervalSeconds.value <= 0) {
             return;
         }
-        BlockPos pruneCenter = guessPosition();
         for (CachedRegion region : allRegions()) {
-            if (region == null) {
-                continue;
+            if (region.journal(this.directory) > JOURNAL_COMPACT_SIZE) {
+                region.save(this.directory);
+            }
+        }
+    }
+
+    /**
+     * Delete regions from RAM until they fit in {@link baritone.api.Settings#cachedRegionMemoryBudgetMB}. First drops
+     * chunks that can be paged back in from their region file, CLOCK style so that chunks in use get a second chance.
+     * Then drops whole regions, least recently used first, saving them before they go.
+     */
+    private void enforceMemoryBudget() {
+        if (!Baritone.settings().pruneRegionsFromRAM.value || !enforcingBudget.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long budget = Baritone.settings().cachedRegionMemoryBudgetMB.value * 1024L * 1024L;
+            List<CachedRegion> regions = allRegions();
+            long usage = 0;
+            for (CachedRegion region : regions) {
+                usage += region.getMemoryUsage();
+            }
+            if (usage <= budget) {
+                return;
+            }
+            // snapshot the access times, so that they can't change in the middle of sorting
+            Reference2LongMap<CachedRegion> lastAccess = new Reference2LongOpenHashMap<>();
+            for (CachedRegion region : regions) {
+                lastAccess.put(region, region.lastAccess);
             }
-            int distX = ((region.getX() << 9) + 256) - pruneCenter.getX();
-            int distZ = ((region.getZ() << 9) + 256) - pruneCenter.getZ();
-            double dist = Math.sqrt(distX * distX + distZ * distZ);
-            if (dist > 1024) {
-                if (!Baritone.settings().censorCoordinates.value) {
-                    logDebug("Deleting cached region " + region.getX() + "," + region.getZ() + " from ram");
+            regions.sort(Comparator.comparingLong(lastAccess::getLong));
+            for (CachedRegion region : regions) {
+                if (usage <= budget) {
+                    return;
                 }
-                cachedRegions.remove(getRegionID(region.getX(), region.getZ()));
+                long before = region.getMemoryUsage();
+                int evicted = region.evictChunks();
+                usage -= before - region.getMemoryUsage();
+                synchronized (this) {
+                    chunkEvictions += evicted;
+                }
+            }
+            boolean canSave = Baritone.settings().chunkCaching.value;
+            BlockPos center = guessPosition();
+            for (CachedRegion region : regions) {
+                if (usage <= budget) {
+                    return;
+                }
+                if (region.getX() == center.getX() >> 9 && region.getZ() == center.getZ() >> 9) {
+                    continue;
+                }
+                if (canSave) {
+                    region.save(this.directory);
+                }
+                long size = region.getMemoryUsage();
+                if (evictRegion(region, !canSave)) {
+                    usage -= size;
+                }
+            }
+        } finally {
+            enforcingBudget.set(false);
+        }
+    }
+
+    private synchronized boolean evictRegion(CachedRegion region, boolean discardChanges) {
+        long id = getRegionID(region.getX(), region.getZ());
+        // if it was changed since it was saved, leave it for next time
+        if (cachedRegions.get(id) != region || !region.markEvicted(discardChanges)) {
+            return false;
+        }
+        cachedRegions.remove(id);
+        regionEvictions++;
+        if (!Baritone.settings().censorCoordinates.value) {
+            logDebug("Deleting cached region " + region.getX() + "," + region.getZ() + " from ram");
+        }
+        return true;
+    }
+
+    /**
+     * @return How far behind the chunk packers are and how long they take, for the log
+     */
+    public final String packerStats() {
+        int depth = 0;
+        for (PackerQueue queue : toPackQueues) {
+            synchronized (queue) {
+                depth += queue.pending.size();
             }
         }
+        long packed = chunksPacked.sum();
+        return "Chunk packers: " + toPackQueues.length + " threads, " + depth + " queued, " + packed + " packed ("
+                + chunksRepacked.sum() + " from block changes), " + (packed == 0 ? 0 : packNanos.sum() / packed / 1000) + "us average, "
+                + maxPackNanos.get() / 1000 + "us max";
+    }
+
+    /**
+     * @return How well the region cache has been doing, for the log
+     */
+    public final synchronized String cacheStats() {
+        long lookups = regionHits + regionMisses;
+        return "Region cache: " + cachedRegions.size() + " regions, " + regionHits + "/" + lookups + " lookups hit, "
+                + regionLoads + " loaded, " + regionEvictions + " regions and " + chunkEvictions + " chunks evicted";
     }
 
     /**
@@ -250,27 +561,99 @@ public final class CachedWorld implements ICachedWorld, Helper {
 
     @Override
     public final synchronized CachedRegion getRegion(int regionX, int regionZ) {
-        return cachedRegions.get(getRegionID(regionX, regionZ));
+        CachedRegion region = cachedRegions.get(getRegionID(regionX, regionZ));
+        if (region == null) {
+            regionMisses++;
+            return null;
+        }
+        regionHits++;
+        region.lastAccess = System.nanoTime();
+        return region;
     }
 
     /**
      * Returns the region at the specified region coordinates. If a
-     * region is not found, then a new one is created.
+     * region is not found, then a new one is created. Blocks until
+     * it's been read from disk, but only the calling thread.
      *
      * @param regionX The region X coordinate
      * @param regionZ The region Z coordinate
      * @return The region located at the specified coordinates
      */
-    private synchronized CachedRegion getOrCreateRegion(int regionX, int regionZ) {
-        return cachedRegions.computeIfAbsent(getRegionID(regionX, regionZ), id -> {
-            CachedRegion newRegion = new CachedRegion(regionX, regionZ, dimension);
-            newRegion.load(this.directory);
-            return newRegion;
-        });
+    private CachedRegion getOrCreateRegion(int regionX, int regionZ) {
+        return loadRegion(regionX, regionZ).join();
+    }
+
+    /**
+     * Starts reading a region from disk on another thread, unless it's already in memory or being read. Until it's
+     * done, {@link #getRegion} gives null for it and {@link #isRegionLoading} gives true.
+     *
+     * @param regionX The region X coordinate
+     * @param regionZ The region Z coordinate
+     * @return The region once it's loaded
+     */
+    public final synchronized CompletableFuture<CachedRegion> loadRegion(int regionX, int regionZ) {
+        long id = getRegionID(regionX, regionZ);
+        CachedRegion region = cachedRegions.get(id);
+        if (region != null) {
+            return CompletableFuture.completedFuture(region);
+        }
+        CompletableFuture<CachedRegion> loading = loadingRegions.get(id);
+        if (loading == null) {
+            loading = CompletableFuture.supplyAsync(() -> {
+                CachedRegion newRegion = new CachedRegion(regionX, regionZ, dimension);
+                try {
+                    newRegion.load(this.directory);
+                } finally {
+                    // this can't happen before the put below, since that's done while holding the lock
+                    synchronized (this) {
+                        loadingRegions.remove(id);
+                        cachedRegions.put(id, newRegion);
+                    }
+                }
+                enforceMemoryBudget();
+                return newRegion;
+            }, Baritone.getExecutor());
+            loadingRegions.put(id, loading);
+            regionLoads++;
+        }
+        return loading;
+    }
+
+    /**
+     * @param regionX The region X coordinate
+     * @param regionZ The region Z coordinate
+     * @return Whether the region is being read from disk right now
+     */
+    public final synchronized boolean isRegionLoading(int regionX, int regionZ) {
+        return loadingRegions.containsKey(getRegionID(regionX, regionZ));
+    }
+
+    /**
+     * Starts loading the regions ahead of a position, so that they're already in memory by the time pathing gets there.
+     *
+     * @param blockX   Where to look ahead from
+     * @param blockZ   Where to look ahead from
+     * @param dirX     The direction to look in, doesn't have to be normalized
+     * @param dirZ     The direction to look in, doesn't have to be normalized
+     * @param distance How far to look, in blocks
+     */
+    public final void prefetch(int blockX, int blockZ, double dirX, double dirZ, int distance) {
+        loadRegion(blockX >> 9, blockZ >> 9);
+        double length = Math.sqrt(dirX * dirX + dirZ * dirZ);
+        if (length < 0.001) {
+            return;
+        }
+        // step by less than a region so that clipping a corner isn't missed
+        for (int step = 128; step <= distance; step += 128) {
+            int x = blockX + (int) (dirX / length * step);
+            int z = blockZ + (int) (dirZ / length * step);
+            loadRegion(x >> 9, z >> 9);
+        }
     }
 
     public void tryLoadFromDisk(int regionX, int regionZ) {
-        getOrCreateRegion(regionX, regionZ);
+        loadRegion(regionX, regionZ);
     }
 
     /**
@@ -300,24 +683,111 @@ public final class CachedWorld implements ICachedWorld, Helper {
         return regionX <= REGION_MAX && regionX >= -REGION_MAX && regionZ <= REGION_MAX && regionZ >= -REGION_MAX;
     }
 
+    /**
+     * What's waiting for one packer thread, at most one entry per chunk and oldest first
+     */
+    private final class PackerQueue {
+
+        private final LinkedHashMap<ChunkPos, Pending> pending = new LinkedHashMap<>();
+
+        private final int capacity;
+
+        /**
+         * How big {@link #pending} can get before the next sweep, so that a queue of live chunks over capacity isn't
+         * swept on every add
+         */
+        private int sweepAt;
+
+        private PackerQueue(int capacity) {
+            this.capacity = capacity;
+            this.sweepAt = capacity;
+        }
+
+        /**
+         * Adds a chunk that isn't waiting yet. Nothing that can still be packed is ever dropped, since that would leave
+         * a hole in the cache, and there's already at most one entry per chunk. Past the capacity, the entries whose
+         * chunk has already been garbage collected are cleared out. Has to hold the lock.
+         */
+        private void add(ChunkPos pos, Pending entry) {
+            pending.put(pos, entry);
+            if (pending.size() > sweepAt) {
+                pending.values().removeIf(waiting -> waiting.chunk.get() == null);
+                sweepAt = Math.max(capacity, pending.size() * 2);
+            } else if (pending.size() <= capacity) {
+                sweepAt = capacity;
+            }
+            notify();
+        }
+    }
+
+    private static final class Pending {
+
+        private SoftReference<Chunk> chunk;
+
+        /**
+         * The changed positions within the chunk, or null to pack the whole thing
+         */
+        private Set<BlockPos> changed;
+    }
+
     private class PackerThread implements Runnable {
 
+        private final PackerQueue queue;
+
+        private final int generation;
+
+        private PackerThread(PackerQueue queue, int generation) {
+            this.queue = queue;
+            this.generation = generation;
+        }
+
         public void run() {
             while (true) {
                 try {
-                    ChunkPos pos = toPackQueue.take();
-                    Chunk chunk = toPackMap.remove(pos);
-                    if (toPackQueue.size() > Baritone.settings().chunkPackerQueueMaxSize.value) {
+                    ChunkPos pos;
+                    Pending pending;
+                    synchronized (queue) {
+                        while (queue.pending.isEmpty() && CachedWorld.this.generation == generation) {
+                            queue.wait();
+                        }
+                        if (CachedWorld.this.generation != generation) {
+                            return;
+                        }
+                        Iterator<Map.Entry<ChunkPos, Pending>> it = queue.pending.entrySet().iterator();
+                        Map.Entry<ChunkPos, Pending> next = it.next();
+                        it.remove();
+                        pos = next.getKey();
+                        pending = next.getValue();
+                    }
+                    Chunk chunk = pending.chunk.get();
+                    if (chunk == null) {
+                        // the soft reference was cleared before we got to it
                         continue;
                     }
-                    CachedChunk cached = ChunkPacker.pack(chunk);
-                    CachedWorld.this.updateCachedChunk(cached);
+                    long start = System.nanoTime();
+                    if (pending.changed == null) {
+                        CachedWorld.this.updateCachedChunk(ChunkPacker.pack(chunk));
+                    } else {
+                        CachedRegion region = getRegion(pos.x >> 5, pos.z >> 5);
+                        CachedChunk previous = region == null ? null : region.getChunk(pos.x & 31, pos.z & 31);
+                        if (previous == null) {
+                            // expired or evicted since the changes were queued
+                            CachedWorld.this.updateCachedChunk(ChunkPacker.pack(chunk));
+                        } else {
+                            CachedWorld.this.updateCachedChunk(previous.withChanges(chunk, pending.changed));
+                            chunksRepacked.increment();
+                        }
+                    }
+                    long took = System.nanoTime() - start;
+                    chunksPacked.increment();
+                    packNanos.add(took);
+                    maxPackNanos.accumulateAndGet(took, Math::max);
                     //System.out.println("Processed chunk at " + chunk.x + "," + chunk.z);
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                     break;
                 } catch (Throwable th) {
-                    // in the case of an exception, keep consuming from the queue so as not to leak memory
+                    // in the case of an exception, keep going with the rest of the queue
                     th.printStackTrace();
                 }
             }
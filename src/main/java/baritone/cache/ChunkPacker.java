@@ -19,6 +19,8 @@ package baritone.cache;
 
 import baritone.api.utils.BlockUtils;
 import baritone.pathing.movement.MovementHelper;
+import baritone.utils.accessor.IBitArray;
+import baritone.utils.accessor.IBlockStateContainer;
 import baritone.utils.pathing.PathingBlockType;
 import net.minecraft.block.*;
 import net.minecraft.block.state.IBlockState;
@@ -29,6 +31,7 @@ import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
 
 import java.util.*;
+import java.util.function.IntFunction;
 
 /**
  * @author Brady
@@ -38,11 +41,26 @@ public final class ChunkPacker {
 
     private ChunkPacker() {}
 
+    /**
+     * Classified palette entries are stored plus one, so that a zeroed array means nothing is classified yet
+     */
+    private static final ThreadLocal<int[]> PALETTE_TYPES = ThreadLocal.withInitial(() -> new int[256]);
+
+    /**
+     * Set on a classified palette entry that's in {@link CachedChunk#BLOCKS_TO_KEEP_TRACK_OF}
+     */
+    private static final int SPECIAL = 1 << 2;
+
+    /**
+     * Set on a classified palette entry whose type depends on its neighbors, so it has to be classified per position
+     */
+    private static final int CONTEXTUAL = 1 << 3;
+
     public static CachedChunk pack(Chunk chunk) {
         //long start = System.nanoTime() / 1000000L;
 
         Map<String, List<BlockPos>> specialBlocks = new HashMap<>();
-        BitSet bitSet = new BitSet(CachedChunk.SIZE);
+        long[] words = new long[CachedChunk.SIZE / 64];
         try {
             ExtendedBlockStorage[] chunkInternalStorageArray = chunk.getBlockStorageArray();
             for (int y0 = 0; y0 < 16; y0++) {
@@ -59,30 +77,18 @@ public final class ChunkPacker {
                     continue;
                 }
                 BlockStateContainer bsc = extendedblockstorage.getData();
-                int yReal = y0 << 4;
-                // the mapping of BlockStateContainer.getIndex from xyz to index is y << 8 | z << 4 | x;
-                // for better cache locality, iterate in that order
-                for (int y1 = 0; y1 < 16; y1++) {
-                    int y = y1 | yReal;
-                    for (int z = 0; z < 16; z++) {
-                        for (int x = 0; x < 16; x++) {
-                            int index = CachedChunk.getPositionIndex(x, y, z);
-                            IBlockState state = bsc.get(x, y1, z);
-                            boolean[] bits = getPathingBlockType(state, chunk, x, y, z).getBits();
-                            bitSet.set(index, bits[0]);
-                            bitSet.set(index + 1, bits[1]);
-                            Block block = state.getBlock();
-                            if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(block)) {
-                                String name = BlockUtils.blockToString(block);
-                                specialBlocks.computeIfAbsent(name, b -> new ArrayList<>()).add(new BlockPos(x, y, z));
-                            }
-                        }
-                    }
+                if (bsc instanceof IBlockStateContainer) {
+                    IBlockStateContainer access = (IBlockStateContainer) bsc;
+                    int paletteSize = (int) ((IBitArray) access.getStorage()).getMaxEntryValue() + 1;
+                    packSection(y0, access.storageArray(), access::getAtPalette, paletteSize, chunk, words, specialBlocks);
+                } else {
+                    packSectionPerBlock(y0, bsc, chunk, words, specialBlocks);
                 }
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
+        PackedChunkData data = new PackedChunkData(words);
         //long end = System.nanoTime() / 1000000L;
         //System.out.println("Chunk packing took " + (end - start) + "ms for " + chunk.x + "," + chunk.z);
         IBlockState[] blocks = new IBlockState[256];
@@ -92,8 +98,7 @@ public final class ChunkPacker {
             https://www.ibm.com/developerworks/library/j-perry-writing-good-java-code/index.html
             for (int x = 0; x < 16; x++) {
                 for (int y = 255; y >= 0; y--) {
-                    int index = CachedChunk.getPositionIndex(x, y, z);
-                    if (bitSet.get(index) || bitSet.get(index + 1)) {
+                    if (!data.isAir(PackedChunkData.position(x, y, z))) {
                         blocks[z << 4 | x] = chunk.getBlockState(x, y, z);
                         continue https;
                     }
@@ -102,11 +107,113 @@ public final class ChunkPacker {
             }
         }
         // @formatter:on
-        return new CachedChunk(chunk.x, chunk.z, bitSet, blocks, specialBlocks, System.currentTimeMillis());
+        return new CachedChunk(chunk.x, chunk.z, data, blocks, specialBlocks, System.currentTimeMillis());
+    }
+
+
+    /**
+     * Packs one 16x16x16 section, given as palette indices in {@link BlockStateContainer} order, into the chunk's packed
+     * data. Each palette entry is classified the first time it's seen instead of once per block, and the packed data is
+     * written a whole word at a time.
+     *
+     * @param sectionY      Which section of the chunk this is, 0 to 15
+     * @param storage       The 4096 palette indices of the section, in {@code y << 8 | z << 4 | x} order
+     * @param palette       Looks up a palette index
+     * @param paletteSize   One more than the highest palette index that can appear
+     * @param chunk         The chunk, for the blocks that depend on their neighbors
+     * @param words         The packed data of the whole chunk, as {@link PackedChunkData} words
+     * @param specialBlocks Where to add the positions of blocks that are kept track of
+     */
+    static void packSection(int sectionY, int[] storage, IntFunction<IBlockState> palette, int paletteSize, Chunk chunk, long[] words, Map<String, List<BlockPos>> specialBlocks) {
+        int[] types = PALETTE_TYPES.get();
+        if (types.length < paletteSize) {
+            types = new int[paletteSize];
+            PALETTE_TYPES.set(types);
+        } else {
+            Arrays.fill(types, 0, paletteSize, 0);
+        }
+        int base = sectionY << 12;
+        long word = 0;
+        for (int i = 0; i < 4096; i++) {
+            int id = storage[i];
+            int type = types[id] - 1;
+            if (type < 0) {
+                type = classify(palette.apply(id));
+                types[id] = type + 1;
+            }
+            int bits = type & 3;
+            if ((type & (SPECIAL | CONTEXTUAL)) != 0) {
+                int x = i & 15;
+                int y = sectionY << 4 | i >> 8;
+                int z = (i >> 4) & 15;
+                IBlockState state = palette.apply(id);
+                if ((type & CONTEXTUAL) != 0) {
+                    bits = toBits(getPathingBlockType(state, chunk, x, y, z));
+                }
+                if ((type & SPECIAL) != 0) {
+                    specialBlocks.computeIfAbsent(BlockUtils.blockToString(state.getBlock()), b -> new ArrayList<>()).add(new BlockPos(x, y, z));
+                }
+            }
+            // bits 2 * i and 2 * i + 1 of the packed data are bits[0] and bits[1], and 32 positions fit in a word
+            word |= (long) bits << ((i & 31) << 1);
+            if ((i & 31) == 31) {
+                words[(base | i) >> 5] = word;
+                word = 0;
+            }
+        }
     }
 
+    /**
+     * Packs one section a block at a time, for when the palette can't be read directly
+     *
+     * @see #packSection
+     */
+    static void packSectionPerBlock(int sectionY, BlockStateContainer bsc, Chunk chunk, long[] words, Map<String, List<BlockPos>> specialBlocks) {
+        int yReal = sectionY << 4;
+        // the mapping of BlockStateContainer.getIndex from xyz to index is y << 8 | z << 4 | x;
+        // for better cache locality, iterate in that order
+        for (int y1 = 0; y1 < 16; y1++) {
+            int y = y1 | yReal;
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    int position = y << 8 | z << 4 | x;
+                    IBlockState state = bsc.get(x, y1, z);
+                    words[position >> 5] |= (long) toBits(getPathingBlockType(state, chunk, x, y, z)) << ((position & 31) << 1);
+                    Block block = state.getBlock();
+                    if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(block)) {
+                        String name = BlockUtils.blockToString(block);
+                        specialBlocks.computeIfAbsent(name, b -> new ArrayList<>()).add(new BlockPos(x, y, z));
+                    }
+                }
+            }
+        }
+    }
+
+    private static int classify(IBlockState state) {
+        Block block = state.getBlock();
+        int type;
+        if (block == Blocks.WATER || block == Blocks.FLOWING_WATER) {
+            // flowing water is AVOID no matter what, still water depends on whether its neighbors are flowing
+            type = MovementHelper.possiblyFlowing(state) ? toBits(PathingBlockType.AVOID) : CONTEXTUAL;
+        } else {
+            // nothing else looks at the chunk, so any position will do
+            type = toBits(getPathingBlockType(state, null, 0, 0, 0));
+        }
+        if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(block)) {
+            type |= SPECIAL;
+        }
+        return type;
+    }
+
+    /**
+     * @return The type as the two bits it takes up in the packed data, lowest first
+     */
+    private static int toBits(PathingBlockType type) {
+        boolean[] bits = type.getBits();
+        return (bits[0] ? 1 : 0) | (bits[1] ? 2 : 0);
+    }
 
-    private static PathingBlockType getPathingBlockType(IBlockState state, Chunk chunk, int x, int y, int z) {
+    static PathingBlockType getPathingBlockType(IBlockState state, Chunk chunk, int x, int y, int z) {
         Block block = state.getBlock();
         if (block == Blocks.WATER || block == Blocks.FLOWING_WATER) {
             // only water source blocks are plausibly usable, flowing water should be avoid
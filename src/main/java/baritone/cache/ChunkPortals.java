@@ -0,0 +1,185 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * A coarse summary of where you can walk in a cached chunk, for planning long routes a chunk at a time.
+ * <p>
+ * Every standable position in the chunk (solid below, air at feet and head) is grouped into components, where two
+ * positions are in the same component if you can walk between them without leaving the chunk, stepping up or down at
+ * most one block at a time. For each component we keep its center, and for each of the four chunk borders we keep
+ * which standable positions on that border belong to which component, so that components can be joined up with the
+ * components of the neighboring chunk.
+ */
+public final class ChunkPortals {
+
+    public static final int NORTH = 0;
+    public static final int SOUTH = 1;
+    public static final int WEST = 2;
+    public static final int EAST = 3;
+
+    /**
+     * Components past this are not recorded, it would take a ridiculous cave system to hit this
+     */
+    private static final int MAX_COMPONENTS = 1 << 16;
+
+    private static final int VOLUME = 16 * 16 * 256;
+
+    private static final ThreadLocal<int[]> LABELS = ThreadLocal.withInitial(() -> new int[VOLUME]);
+    private static final ThreadLocal<int[]> QUEUE = ThreadLocal.withInitial(() -> new int[VOLUME]);
+
+    /**
+     * The center of each component, packed as {@code y << 8 | z << 4 | x} in chunk relative coordinates
+     */
+    private final int[] centers;
+
+    /**
+     * For each side, the standable positions along that border, packed as {@code along << 24 | y << 16 | component}.
+     * Sorted by along and then by y.
+     */
+    private final int[][] borders;
+
+    private ChunkPortals(int[] centers, int[][] borders) {
+        this.centers = centers;
+        this.borders = borders;
+    }
+
+    public int numComponents() {
+        return centers.length;
+    }
+
+    public int centerX(int component) {
+        return centers[component] & 15;
+    }
+
+    public int centerY(int component) {
+        return centers[component] >>> 8;
+    }
+
+    public int centerZ(int component) {
+        return (centers[component] >>> 4) & 15;
+    }
+
+    /**
+     * @param side One of {@link #NORTH}, {@link #SOUTH}, {@link #WEST} or {@link #EAST}
+     * @return The packed standable positions along that border, see {@link #along}, {@link #y} and {@link #component}
+     */
+    public int[] border(int side) {
+        return borders[side];
+    }
+
+    /**
+     * @return The x coordinate for the north and south borders, or the z coordinate for the west and east borders
+     */
+    public static int along(int entry) {
+        return entry >>> 24;
+    }
+
+    public static int y(int entry) {
+        return (entry >>> 16) & 0xFF;
+    }
+
+    public static int component(int entry) {
+        return entry & 0xFFFF;
+    }
+
+    public static int opposite(int side) {
+        return side ^ 1;
+    }
+
+    public static int offsetX(int side) {
+        return side == WEST ? -1 : side == EAST ? 1 : 0;
+    }
+
+    public static int offsetZ(int side) {
+        return side == NORTH ? -1 : side == SOUTH ? 1 : 0;
+    }
+
+    static ChunkPortals compute(PackedChunkData data) {
+        int[] labels = LABELS.get();
+        int[] queue = QUEUE.get();
+        Arrays.fill(labels, 0);
+        IntArrayList centers = new IntArrayList();
+        for (int start = 0; start < VOLUME && centers.size() < MAX_COMPONENTS; start++) {
+            if (labels[start] != 0 || !standable(data, start)) {
+                continue;
+            }
+            int label = centers.size() + 1;
+            labels[start] = label;
+            queue[0] = start;
+            int head = 0;
+            int tail = 1;
+            long sumX = 0;
+            long sumY = 0;
+            long sumZ = 0;
+            while (head < tail) {
+                int index = queue[head++];
+                int x = index & 15;
+                int z = (index >>> 4) & 15;
+                int y = index >>> 8;
+                sumX += x;
+                sumY += y;
+                sumZ += z;
+                for (int side = 0; side < 4; side++) {
+                    int nx = x + offsetX(side);
+                    int nz = z + offsetZ(side);
+                    if (nx < 0 || nx > 15 || nz < 0 || nz > 15) {
+                        continue;
+                    }
+                    for (int ny = Math.max(y - 1, 1); ny <= Math.min(y + 1, 255); ny++) {
+                        int neighbor = ny << 8 | nz << 4 | nx;
+                        if (labels[neighbor] == 0 && standable(data, neighbor)) {
+                            labels[neighbor] = label;
+                            queue[tail++] = neighbor;
+                        }
+                    }
+                }
+            }
+            centers.add((int) (sumY / tail) << 8 | (int) (sumZ / tail) << 4 | (int) (sumX / tail));
+        }
+        int[][] borders = new int[4][];
+        for (int side = 0; side < 4; side++) {
+            IntArrayList entries = new IntArrayList();
+            for (int along = 0; along < 16; along++) {
+                int x = side == WEST ? 0 : side == EAST ? 15 : along;
+                int z = side == NORTH ? 0 : side == SOUTH ? 15 : along;
+                for (int y = 1; y < 256; y++) {
+                    int label = labels[y << 8 | z << 4 | x];
+                    if (label != 0) {
+                        entries.add(along << 24 | y << 16 | (label - 1));
+                    }
+                }
+            }
+            borders[side] = entries.toIntArray();
+        }
+        return new ChunkPortals(centers.toIntArray(), borders);
+    }
+
+    private static boolean standable(PackedChunkData data, int index) {
+        int y = index >>> 8;
+        if (y < 1) {
+            return false;
+        }
+        // positions here are the same as in the packed data, one y level is 256 apart
+        return data.isSolid(index - 256) && data.isAir(index) && (y == 255 || data.isAir(index + 256));
+    }
+}
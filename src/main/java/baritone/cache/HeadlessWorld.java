@@ -0,0 +1,275 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.api.cache.ICachedWorld;
+import baritone.api.utils.BlockUtils;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.Chunk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A world that exists without a Minecraft client, so that pathing can be run (and benchmarked, and tested) on a plain
+ * JVM. Blocks are either set directly, in which case they're stored in full like a real chunk, or come from cached
+ * regions loaded off disk, in which case you get what {@link CachedRegion#getBlock} gives you, like when pathing
+ * through cached chunks in game.
+ * <p>
+ * Pathing uses it through a {@link baritone.utils.HeadlessBlockStateInterface}, and mining searches through it as an
+ * {@link ICachedWorld}. Build the world first, then read it from as many threads as you like; it isn't safe to modify
+ * while something is reading it.
+ *
+ * @see baritone.pathing.movement.CalculationContext#CalculationContext(baritone.utils.BlockStateInterface, net.minecraft.item.ItemStack, boolean)
+ */
+public final class HeadlessWorld implements ICachedWorld {
+
+    static {
+        // blocks, items and settings all need the registries, and there's no client to have set them up
+        Bootstrap.register();
+    }
+
+    private static final Pattern REGION_FILE = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.bcr");
+
+    /**
+     * Chunk position to its 16 sections of 4096 palette indices, a null section is all air
+     */
+    private final Long2ObjectOpenHashMap<char[][]> chunks = new Long2ObjectOpenHashMap<>();
+
+    private final Long2ObjectOpenHashMap<CachedRegion> regions = new Long2ObjectOpenHashMap<>();
+
+    private final List<IBlockState> palette = new ArrayList<>();
+    private final Reference2IntOpenHashMap<IBlockState> paletteIndex = new Reference2IntOpenHashMap<>();
+
+    /**
+     * The dimension, only matters for what cached regions give for their solid blocks
+     */
+    public final int dimension;
+
+    public HeadlessWorld(int dimension) {
+        this.dimension = dimension;
+        paletteIndex.defaultReturnValue(-1);
+        paletteIndex.put(Blocks.AIR.getDefaultState(), 0);
+        palette.add(Blocks.AIR.getDefaultState());
+    }
+
+    /**
+     * @param directory The cache directory to read, e.g. {@code baritone/<server>/DIM0/cache}
+     * @param dimension The dimension of that directory
+     * @return A world of every cached region in the directory
+     */
+    public static HeadlessWorld fromCache(Path directory, int dimension) throws IOException {
+        HeadlessWorld world = new HeadlessWorld(dimension);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = REGION_FILE.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                int regionX = Integer.parseInt(matcher.group(1));
+                int regionZ = Integer.parseInt(matcher.group(2));
+                CachedRegion region = new CachedRegion(regionX, regionZ, dimension);
+                region.load(directory.toString());
+                world.regions.put(ChunkPos.asLong(regionX, regionZ), region);
+            }
+        }
+        return world;
+    }
+
+    /**
+     * Creates the chunk if it doesn't exist, as all air. Only chunks that exist are loaded as far as pathing is
+     * concerned, so this is how to make room to walk around in.
+     */
+    public void addChunk(int chunkX, int chunkZ) {
+        getOrAddChunk(chunkX, chunkZ);
+    }
+
+    private char[][] getOrAddChunk(int chunkX, int chunkZ) {
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        char[][] sections = chunks.get(key);
+        if (sections == null) {
+            sections = new char[16][];
+            chunks.put(key, sections);
+        }
+        return sections;
+    }
+
+    public void set(int x, int y, int z, IBlockState state) {
+        if (y < 0 || y >= 256) {
+            throw new IllegalArgumentException("y " + y);
+        }
+        char[][] sections = getOrAddChunk(x >> 4, z >> 4);
+        int id = paletteIndex.getInt(state);
+        if (id == -1) {
+            id = palette.size();
+            if (id > Character.MAX_VALUE) {
+                throw new IllegalStateException("Too many block states");
+            }
+            palette.add(state);
+            paletteIndex.put(state, id);
+        }
+        char[] section = sections[y >> 4];
+        if (section == null) {
+            if (id == 0) {
+                return;
+            }
+            section = new char[4096];
+            sections[y >> 4] = section;
+        }
+        section[index(x, y, z)] = (char) id;
+    }
+
+    /**
+     * Sets every block in the box, corners inclusive
+     */
+    public void fill(int x1, int y1, int z1, int x2, int y2, int z2, IBlockState state) {
+        for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
+            for (int z = Math.min(z1, z2); z <= Math.max(z1, z2); z++) {
+                for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
+                    set(x, y, z, state);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The sections of the chunk, see {@link #get(char[][], int, int, int)}, or null if it doesn't exist
+     */
+    public char[][] getChunk(int chunkX, int chunkZ) {
+        return chunks.get(ChunkPos.asLong(chunkX, chunkZ));
+    }
+
+    /**
+     * @param sections A chunk from {@link #getChunk(int, int)}
+     */
+    public IBlockState get(char[][] sections, int x, int y, int z) {
+        char[] section = sections[y >> 4];
+        if (section == null) {
+            return palette.get(0);
+        }
+        return palette.get(section[index(x, y, z)]);
+    }
+
+    /**
+     * @return The block, or null if it's neither in a chunk nor in a cached region
+     */
+    public IBlockState get(int x, int y, int z) {
+        char[][] sections = getChunk(x >> 4, z >> 4);
+        if (sections != null) {
+            return get(sections, x, y, z);
+        }
+        CachedRegion region = getRegion(x >> 9, z >> 9);
+        if (region == null) {
+            return null;
+        }
+        return region.getBlock(x & 511, y, z & 511);
+    }
+
+    public boolean isLoaded(int blockX, int blockZ) {
+        return chunks.containsKey(ChunkPos.asLong(blockX >> 4, blockZ >> 4));
+    }
+
+    private static int index(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+
+    @Override
+    public CachedRegion getRegion(int regionX, int regionZ) {
+        return regions.get(ChunkPos.asLong(regionX, regionZ));
+    }
+
+    @Override
+    public void queueForPacking(Chunk chunk) {
+        throw new UnsupportedOperationException("Headless worlds are set up directly");
+    }
+
+    @Override
+    public boolean isCached(int blockX, int blockZ) {
+        if (isLoaded(blockX, blockZ)) {
+            return true;
+        }
+        CachedRegion region = getRegion(blockX >> 9, blockZ >> 9);
+        return region != null && region.isCached(blockX & 511, blockZ & 511);
+    }
+
+    @Override
+    public ArrayList<BlockPos> getLocationsOf(String block, int maximum, int centerX, int centerZ, int maxRegionDistanceSq) {
+        ArrayList<BlockPos> res = new ArrayList<>();
+        Block target = BlockUtils.stringToBlockNullable(block);
+        if (target == null) {
+            return res;
+        }
+        int centerRegionX = centerX >> 9;
+        int centerRegionZ = centerZ >> 9;
+        for (Long2ObjectMap.Entry<char[][]> entry : chunks.long2ObjectEntrySet()) {
+            int chunkX = (int) entry.getLongKey();
+            int chunkZ = (int) (entry.getLongKey() >> 32);
+            int regionX = (chunkX >> 5) - centerRegionX;
+            int regionZ = (chunkZ >> 5) - centerRegionZ;
+            if (regionX * regionX + regionZ * regionZ > maxRegionDistanceSq) {
+                continue;
+            }
+            char[][] sections = entry.getValue();
+            for (int y = 0; y < 256; y++) {
+                if (sections[y >> 4] == null) {
+                    y |= 15;
+                    continue;
+                }
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        if (get(sections, x, y, z).getBlock() == target) {
+                            res.add(new BlockPos(chunkX << 4 | x, y, chunkZ << 4 | z));
+                        }
+                    }
+                }
+            }
+        }
+        for (CachedRegion region : regions.values()) {
+            int regionX = region.getX() - centerRegionX;
+            int regionZ = region.getZ() - centerRegionZ;
+            if (regionX * regionX + regionZ * regionZ <= maxRegionDistanceSq) {
+                res.addAll(region.getLocationsOf(block));
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public void reloadAllFromDisk() {
+        // everything is already in memory, and nothing else writes to the directory it came from
+    }
+
+    @Override
+    public void save() {
+        // cached regions are only ever read, and the rest isn't in the cache format to begin with
+    }
+}
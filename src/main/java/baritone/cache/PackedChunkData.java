@@ -0,0 +1,192 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.utils.pathing.PathingBlockType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The {@link PathingBlockType} of every block in a chunk, two bits each, packed into longs.
+ * <p>
+ * Positions are {@code y << 8 | z << 4 | x}, and position {@code p} is bits {@code 2p} and {@code 2p + 1}, so 32
+ * positions fit in each word and one y level is 8 words. This is the same layout, and the same bytes on disk, as the
+ * {@link java.util.BitSet} this used to be.
+ */
+public final class PackedChunkData {
+
+    /**
+     * How many longs it takes to hold a whole chunk
+     */
+    public static final int WORDS = CachedChunk.SIZE / 64;
+
+    /**
+     * Every other bit set, the low bit of each position
+     */
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    /**
+     * Indexed by the two bits of a position
+     */
+    private static final PathingBlockType[] TYPES = new PathingBlockType[4];
+
+    static {
+        for (int bits = 0; bits < 4; bits++) {
+            TYPES[bits] = PathingBlockType.fromBits((bits & 1) != 0, (bits & 2) != 0);
+        }
+    }
+
+    private final long[] words;
+
+    /**
+     * @param words The packed data, which this takes ownership of
+     */
+    public PackedChunkData(long[] words) {
+        if (words.length != WORDS) {
+            throw new IllegalArgumentException("Packed chunk data of invalid length provided");
+        }
+        this.words = words;
+    }
+
+    public PackedChunkData() {
+        this(new long[WORDS]);
+    }
+
+    /**
+     * @param bytes Little endian, as from {@link #toByteArray()} or {@link java.util.BitSet#toByteArray()}, and
+     *              possibly missing trailing zeros
+     */
+    public static PackedChunkData fromByteArray(byte[] bytes) {
+        if (bytes.length > WORDS * 8) {
+            throw new IllegalArgumentException("Packed chunk data of invalid length provided");
+        }
+        long[] words = new long[WORDS];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int full = bytes.length / 8;
+        buffer.asLongBuffer().get(words, 0, full);
+        for (int i = full * 8; i < bytes.length; i++) {
+            words[full] |= (bytes[i] & 0xffL) << ((i & 7) << 3);
+        }
+        return new PackedChunkData(words);
+    }
+
+    /**
+     * @return The data as little endian bytes, without trailing zeros
+     */
+    public byte[] toByteArray() {
+        int last = WORDS - 1;
+        while (last >= 0 && words[last] == 0) {
+            last--;
+        }
+        if (last < 0) {
+            return new byte[0];
+        }
+        int length = last * 8 + 8 - Long.numberOfLeadingZeros(words[last]) / 8;
+        ByteBuffer buffer = ByteBuffer.allocate((last + 1) * 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asLongBuffer().put(words, 0, last + 1);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public static int position(int x, int y, int z) {
+        return y << 8 | z << 4 | x;
+    }
+
+    /**
+     * @return The two bits at the position, as {@code bits[0] | bits[1] << 1} of {@link PathingBlockType#getBits()}
+     */
+    public int getBits(int position) {
+        return (int) (words[position >> 5] >>> ((position & 31) << 1)) & 3;
+    }
+
+    public PathingBlockType getType(int position) {
+        return TYPES[getBits(position)];
+    }
+
+    public void setBits(int position, int bits) {
+        int shift = (position & 31) << 1;
+        words[position >> 5] = words[position >> 5] & ~(3L << shift) | (long) bits << shift;
+    }
+
+    public void setType(int position, PathingBlockType type) {
+        boolean[] bits = type.getBits();
+        setBits(position, (bits[0] ? 1 : 0) | (bits[1] ? 2 : 0));
+    }
+
+    public boolean isAir(int position) {
+        return getBits(position) == 0;
+    }
+
+    public boolean isSolid(int position) {
+        return getBits(position) == 3;
+    }
+
+    /**
+     * Finds the highest block that isn't air in every column at once, a y level at a time from the top, which is only 8
+     * words per level.
+     *
+     * @param heightMap Where to put them, indexed by {@code z << 4 | x}, 0 for a column that's all air
+     */
+    public void computeHeightMap(int[] heightMap) {
+        long[] found = new long[8];
+        int remaining = 256;
+        for (int y = 255; y >= 0 && remaining > 0; y--) {
+            for (int k = 0; k < 8; k++) {
+                long word = words[y << 3 | k];
+                // one bit per position that isn't air, in the low bit of its pair
+                long columns = (word | word >>> 1) & LOW_BITS & ~found[k];
+                if (columns == 0) {
+                    continue;
+                }
+                found[k] |= columns;
+                while (columns != 0) {
+                    heightMap[k << 5 | Long.numberOfTrailingZeros(columns) >> 1] = y;
+                    columns &= columns - 1;
+                    remaining--;
+                }
+            }
+        }
+        for (int k = 0; k < 8; k++) {
+            long missing = ~found[k] & LOW_BITS;
+            while (missing != 0) {
+                heightMap[k << 5 | Long.numberOfTrailingZeros(missing) >> 1] = 0;
+                missing &= missing - 1;
+            }
+        }
+    }
+
+    /**
+     * @return The highest block that isn't air in one column, or 0 if it's all air
+     */
+    public int height(int x, int z) {
+        int column = z << 4 | x;
+        int shift = (column & 31) << 1;
+        for (int y = 255; y >= 0; y--) {
+            if ((words[y << 3 | column >> 5] >>> shift & 3) != 0) {
+                return y;
+            }
+        }
+        return 0;
+    }
+
+    public PackedChunkData copy() {
+        return new PackedChunkData(words.clone());
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Which chunks of a dimension have each kind of special block, and how many, so that finding the nearest ones only has
+ * to look inside those chunks rather than every chunk of every region around. Saved next to the region files.
+ * <p>
+ * A region only counts as indexed once all of its chunks have been added, see {@link #isIndexed}. Until then, the
+ * index can't say that the region has none of a block. Chunks that have gone from the cache since they were added are
+ * left in until a lookup finds them missing and calls {@link #remove}.
+ */
+final class SpecialBlockIndex {
+
+    private static final int MAGIC = 0x5b10c1d;
+
+    private static final String FILE_NAME = "special_blocks";
+
+    /**
+     * Block name to chunk to how many of that block are in it
+     */
+    private final Map<String, Long2IntOpenHashMap> chunksByBlock = new HashMap<>();
+
+    /**
+     * Chunk to the names of the blocks in it, so that its entries can be replaced when it changes
+     */
+    private final Long2ObjectOpenHashMap<String[]> blocksByChunk = new Long2ObjectOpenHashMap<>();
+
+    private final LongOpenHashSet indexedRegions = new LongOpenHashSet();
+
+    private boolean hasUnsavedChanges;
+
+    /**
+     * Sets how many of each block a chunk has, replacing whatever it had before
+     *
+     * @param locations Block name to the locations of that block in the chunk, only the sizes matter
+     */
+    synchronized void update(int chunkX, int chunkZ, Map<String, ? extends Collection<?>> locations) {
+        long key = key(chunkX, chunkZ);
+        removeChunk(key);
+        List<String> names = new ArrayList<>(locations.size());
+        for (Map.Entry<String, ? extends Collection<?>> entry : locations.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            chunksByBlock.computeIfAbsent(entry.getKey(), name -> new Long2IntOpenHashMap()).put(key, entry.getValue().size());
+            names.add(entry.getKey());
+        }
+        if (!names.isEmpty()) {
+            blocksByChunk.put(key, names.toArray(new String[0]));
+        }
+        hasUnsavedChanges = true;
+    }
+
+    synchronized void remove(int chunkX, int chunkZ) {
+        removeChunk(key(chunkX, chunkZ));
+        hasUnsavedChanges = true;
+    }
+
+    private void removeChunk(long key) {
+        String[] names = blocksByChunk.remove(key);
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            Long2IntOpenHashMap chunks = chunksByBlock.get(name);
+            chunks.remove(key);
+            if (chunks.isEmpty()) {
+                chunksByBlock.remove(name);
+            }
+        }
+    }
+
+    synchronized boolean isIndexed(int regionX, int regionZ) {
+        return indexedRegions.contains(key(regionX, regionZ));
+    }
+
+    synchronized void markIndexed(int regionX, int regionZ) {
+        indexedRegions.add(key(regionX, regionZ));
+        hasUnsavedChanges = true;
+    }
+
+    /**
+     * @return How many of a block the index has in the chunks of a region
+     */
+    synchronized int count(String block, int regionX, int regionZ) {
+        Long2IntOpenHashMap chunks = chunksByBlock.get(block);
+        if (chunks == null) {
+            return 0;
+        }
+        int count = 0;
+        if (chunks.size() < 32 * 32) {
+            for (Long2IntMap.Entry entry : chunks.long2IntEntrySet()) {
+                long key = entry.getLongKey();
+                if ((int) key >> 5 == regionX && (int) (key >> 32) >> 5 == regionZ) {
+                    count += entry.getIntValue();
+                }
+            }
+        } else {
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    count += chunks.get(key(regionX << 5 | x, regionZ << 5 | z));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the chunks that the nearest of a block are in, horizontally, without looking at any locations. That's the
+     * chunks nearest to the center until they add up to {@code maximum} blocks, and then any others that could have
+     * one closer than the furthest of those.
+     *
+     * @param block               The block name
+     * @param maximum             How many blocks to find
+     * @param centerX             The x coordinate to search around
+     * @param centerZ             The z coordinate to search around
+     * @param maxRegionDistanceSq How far out to look, in squared regions from the center's region
+     * @return The chunks, as from {@link #key}, nearest first
+     */
+    synchronized long[] nearestChunks(String block, int maximum, int centerX, int centerZ, int maxRegionDistanceSq) {
+        Long2IntOpenHashMap chunks = chunksByBlock.get(block);
+        if (chunks == null || maximum <= 0) {
+            return new long[0];
+        }
+        int centerChunkX = centerX >> 4;
+        int centerChunkZ = centerZ >> 4;
+        // how many chunks out from the center's chunk there could be one in a region that's in range
+        int maxRing = ((int) Math.sqrt(maxRegionDistanceSq) + 1) * 32;
+        LongArrayList candidates = new LongArrayList();
+        if (chunks.size() < (long) (2 * maxRing + 1) * (2 * maxRing + 1) / 16) {
+            // few enough that it's faster to go through them all than to look around the center for them
+            for (long key : chunks.keySet()) {
+                if (inRange(key, centerX, centerZ, maxRegionDistanceSq)) {
+                    candidates.add(key);
+                }
+            }
+        } else {
+            // look in rings of chunks around the center until there are enough, and no further ring could be closer
+            int count = 0;
+            long bound = Long.MAX_VALUE;
+            for (int ring = 0; ring <= maxRing; ring++) {
+                if (count >= maximum) {
+                    if (bound == Long.MAX_VALUE) {
+                        bound = furthest(candidates.elements(), candidates.size(), centerX, centerZ);
+                    }
+                    long nearest = Math.max(0, ring - 1) * 16L;
+                    if (nearest * nearest > bound) {
+                        break;
+                    }
+                }
+                for (int offset = -ring; offset <= ring; offset++) {
+                    count += consider(chunks, centerChunkX + offset, centerChunkZ - ring, centerX, centerZ, maxRegionDistanceSq, candidates);
+                    if (ring != 0) {
+                        count += consider(chunks, centerChunkX + offset, centerChunkZ + ring, centerX, centerZ, maxRegionDistanceSq, candidates);
+                    }
+                    if (offset != -ring && offset != ring) {
+                        count += consider(chunks, centerChunkX - ring, centerChunkZ + offset, centerX, centerZ, maxRegionDistanceSq, candidates);
+                        count += consider(chunks, centerChunkX + ring, centerChunkZ + offset, centerX, centerZ, maxRegionDistanceSq, candidates);
+                    }
+                }
+            }
+        }
+
+        int n = candidates.size();
+        long[] keys = candidates.elements();
+        long[] minDistances = new long[n];
+        for (int i = 0; i < n; i++) {
+            minDistances[i] = minDistanceSq((int) keys[i], (int) (keys[i] >> 32), centerX, centerZ);
+        }
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        IntArrays.quickSort(order, 0, n, new AbstractIntComparator() {
+            @Override
+            public int compare(int a, int b) {
+                return Long.compare(minDistances[a], minDistances[b]);
+            }
+        });
+        long[] result = new long[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = keys[order[i]];
+        }
+        long bound = Long.MAX_VALUE;
+        int count = 0;
+        int taken = 0;
+        for (; taken < n; taken++) {
+            int i = order[taken];
+            if (count >= maximum) {
+                if (bound == Long.MAX_VALUE) {
+                    bound = furthest(result, taken, centerX, centerZ);
+                }
+                if (minDistances[i] > bound) {
+                    break;
+                }
+            }
+            count += chunks.get(keys[i]);
+        }
+        return Arrays.copyOf(result, taken);
+    }
+
+    private static int consider(Long2IntOpenHashMap chunks, int chunkX, int chunkZ, int centerX, int centerZ, int maxRegionDistanceSq, LongArrayList candidates) {
+        long key = key(chunkX, chunkZ);
+        int count = chunks.get(key);
+        if (count != 0 && inRange(key, centerX, centerZ, maxRegionDistanceSq)) {
+            candidates.add(key);
+            return count;
+        }
+        return 0;
+    }
+
+    private static boolean inRange(long key, int centerX, int centerZ, int maxRegionDistanceSq) {
+        int regionX = ((int) key >> 5) - (centerX >> 9);
+        int regionZ = ((int) (key >> 32) >> 5) - (centerZ >> 9);
+        return regionX * regionX + regionZ * regionZ <= maxRegionDistanceSq;
+    }
+
+    /**
+     * Every block in the first {@code n} chunks is at most this far away, so anything further can't be one of the
+     * nearest once they add up to enough
+     */
+    private static long furthest(long[] chunks, int n, int centerX, int centerZ) {
+        long furthest = 0;
+        for (int i = 0; i < n; i++) {
+            long key = chunks[i];
+            furthest = Math.max(furthest, maxDistanceSq((int) key, (int) (key >> 32), centerX, centerZ));
+        }
+        return furthest;
+    }
+
+    private static long minDistanceSq(int chunkX, int chunkZ, int x, int z) {
+        long dx = Math.max(0, Math.max((chunkX << 4) - x, x - (chunkX << 4) - 15));
+        long dz = Math.max(0, Math.max((chunkZ << 4) - z, z - (chunkZ << 4) - 15));
+        return dx * dx + dz * dz;
+    }
+
+    private static long maxDistanceSq(int chunkX, int chunkZ, int x, int z) {
+        long dx = Math.max(Math.abs((chunkX << 4) - x), Math.abs((chunkX << 4) + 15 - x));
+        long dz = Math.max(Math.abs((chunkZ << 4) - z), Math.abs((chunkZ << 4) + 15 - z));
+        return dx * dx + dz * dz;
+    }
+
+    static long key(int x, int z) {
+        return (long) x & 0xFFFFFFFFL | (long) z << 32;
+    }
+
+    /**
+     * Reads the index saved in a directory, leaving it empty if there isn't one or it can't be read. Regions whose
+     * files were written after the index was saved, or that have a journal left over from a crash, aren't counted as
+     * indexed, since their chunks could have changed.
+     */
+    synchronized void load(Path directory) {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Bad magic value");
+            }
+            long savedAt = in.readLong();
+            int regions = in.readInt();
+            for (int i = 0; i < regions; i++) {
+                long region = in.readLong();
+                String name = "r." + (int) region + "." + (int) (region >> 32);
+                Path regionFile = directory.resolve(name + ".bcr");
+                boolean changed = Files.exists(regionFile) && Files.getLastModifiedTime(regionFile).toMillis() > savedAt;
+                // a journal left over means there are chunks that haven't made it into the region file or the index yet
+                if (!changed && !Files.exists(directory.resolve(name + ".bcj"))) {
+                    indexedRegions.add(region);
+                }
+            }
+            Long2ObjectOpenHashMap<List<String>> names = new Long2ObjectOpenHashMap<>();
+            int blocks = in.readInt();
+            for (int i = 0; i < blocks; i++) {
+                String name = in.readUTF();
+                int size = in.readInt();
+                Long2IntOpenHashMap chunks = new Long2IntOpenHashMap(size);
+                for (int j = 0; j < size; j++) {
+                    long key = in.readLong();
+                    chunks.put(key, in.readInt());
+                    List<String> list = names.get(key);
+                    if (list == null) {
+                        names.put(key, list = new ArrayList<>(1));
+                    }
+                    list.add(name);
+                }
+                chunksByBlock.put(name, chunks);
+            }
+            for (Long2ObjectMap.Entry<List<String>> entry : names.long2ObjectEntrySet()) {
+                blocksByChunk.put(entry.getLongKey(), entry.getValue().toArray(new String[0]));
+            }
+        } catch (IOException ex) {
+            System.out.println("Unable to read special block index, rebuilding it");
+            ex.printStackTrace();
+            chunksByBlock.clear();
+            blocksByChunk.clear();
+            indexedRegions.clear();
+        }
+    }
+
+    synchronized void save(Path directory) {
+        if (!hasUnsavedChanges) {
+            return;
+        }
+        Path file = directory.resolve(FILE_NAME);
+        Path tmp = directory.resolve(FILE_NAME + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(MAGIC);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(indexedRegions.size());
+                for (long region : indexedRegions) {
+                    out.writeLong(region);
+                }
+                out.writeInt(chunksByBlock.size());
+                for (Map.Entry<String, Long2IntOpenHashMap> entry : chunksByBlock.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (Long2IntMap.Entry chunk : entry.getValue().long2IntEntrySet()) {
+                        out.writeLong(chunk.getLongKey());
+                        out.writeInt(chunk.getIntValue());
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            hasUnsavedChanges = false;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -45,6 +45,9 @@ public class WorldData implements IWorldData {
     }
 
     public void onClose() {
+        // stopped right away rather than in the save thread, so that rejoining this world can't start them before
+        // they're stopped
+        cache.close();
         Baritone.getExecutor().execute(() -> {
             System.out.println("Started saving the world in a new thread");
             cache.save();
@@ -96,6 +96,8 @@ public class WorldProvider implements IWorldProvider {
                 final int dimension = world.provider.getDimensionType().getId();
                 this.currentWorld = worldCache.computeIfAbsent(worldDataDir, d -> new WorldData(d, dimension));
             }
+            // no-op if it was just created, otherwise picks up where the last close left off
+            this.currentWorld.cache.start();
             this.mcWorld = ctx.world();
         });
     }
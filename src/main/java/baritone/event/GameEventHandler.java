@@ -24,16 +24,16 @@ import baritone.api.event.listener.IEventBus;
 import baritone.api.event.listener.IGameEventListener;
 import baritone.api.utils.Helper;
 import baritone.api.utils.Pair;
-import baritone.cache.CachedChunk;
+import baritone.cache.WorldData;
 import baritone.cache.WorldProvider;
 import baritone.utils.BlockStateInterface;
-import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 /**
  * @author Brady
@@ -111,16 +111,14 @@ public final class GameEventHandler implements IEventBus, Helper {
     @Override
     public void onBlockChange(BlockChangeEvent event) {
         if (Baritone.settings().repackOnAnyBlockChange.value) {
-            final boolean keepingTrackOf = event.getBlocks().stream()
-                    .map(Pair::second).map(IBlockState::getBlock)
-                    .anyMatch(CachedChunk.BLOCKS_TO_KEEP_TRACK_OF::contains);
-
-            if (keepingTrackOf) {
-                baritone.getWorldProvider().ifWorldLoaded(worldData -> {
-                    final World world = baritone.getPlayerContext().world();
-                    ChunkPos pos = event.getChunkPos();
-                    worldData.getCachedWorld().queueForPacking(world.getChunk(pos.x, pos.z));
-                });
+            final WorldData worldData = baritone.getWorldProvider().getCurrentWorld();
+            if (worldData != null) {
+                final World world = baritone.getPlayerContext().world();
+                ChunkPos pos = event.getChunkPos();
+                // only the changed blocks are repacked, so there's no need to be picky about which changes to act on
+                worldData.cache.queueBlockChanges(world.getChunk(pos.x, pos.z), event.getBlocks().stream()
+                        .map(Pair::first)
+                        .collect(Collectors.toList()));
             }
         }
 
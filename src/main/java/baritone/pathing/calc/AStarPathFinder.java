@@ -20,48 +20,329 @@ package baritone.pathing.calc;
 import baritone.Baritone;
 import baritone.api.pathing.calc.IPath;
 import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
 import baritone.api.pathing.movement.ActionCosts;
 import baritone.api.utils.BetterBlockPos;
-import baritone.pathing.calc.openset.BinaryHeapOpenSet;
 import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.calc.openset.IOpenSet;
 import baritone.pathing.movement.Moves;
 import baritone.utils.pathing.BetterWorldBorder;
 import baritone.utils.pathing.Favoring;
 import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 
+import java.util.Arrays;
 import java.util.Optional;
 
 /**
  * The actual A* pathfinding
+ * <p>
+ * The plain search works on {@link PathNode} objects directly. With {@link baritone.api.Settings#pathingNodePool}, an
+ * expander or a bidirectional search, nodes are kept in a {@link NodeStore} instead, either {@link PathNode} objects
+ * or a {@link NodePool}, which those need.
+ * <p>
+ * A bidirectional search also grows a {@link BackwardSearch} tree from the goal, taking turns with the forward one, and
+ * ends once the two trees touch and no cheaper meeting point is possible. If they never touch, this falls back to the
+ * best forward segment, like normal.
  *
  * @author leijurv
  */
 public final class AStarPathFinder extends AbstractNodeCostSearch {
 
+    /**
+     * How often the best path so far and the path to the most recent node are copied out for other threads
+     */
+    private static final long SNAPSHOT_INTERVAL_MS = 50;
+
     private final Favoring favoring;
     private final CalculationContext calcContext;
 
+    /**
+     * Works out movement costs for nodes near the top of the open set on other threads, or null to do it all here
+     */
+    private final ParallelExpander expander;
+
+    /**
+     * The goal to also search backwards from, or null for a normal one way search
+     */
+    private final GoalBlock bidirectionalGoal;
+
+    /**
+     * Only touched by the search thread, and handed back to the arena once the search is done
+     */
+    private NodeStore nodes;
+
+    private int start = NodeStore.NONE;
+    private int mostRecent = NodeStore.NONE;
+    private final int[] best = new int[COEFFICIENTS.length];
+
+    /**
+     * The same as {@link #start}, {@link #mostRecent} and {@link #best}, for the plain search, which doesn't use
+     * {@link #nodes}
+     */
+    private PathNode startPathNode;
+    private PathNode mostRecentPathNode;
+    private final PathNode[] bestPathNodes = new PathNode[COEFFICIENTS.length];
+
+    /**
+     * Copies of {@link #bestSoFar} and the path to {@link #mostRecent}, for the render thread and for checking whether
+     * this is still the right search. Those can't read the nodes themselves, since a {@link NodePool} grows its arrays
+     * in the middle of the search and is reused by the next one straight after.
+     */
+    private volatile IPath bestSnapshot;
+    private volatile IPath mostRecentSnapshot;
+
     public AStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context) {
-        super(startX, startY, startZ, goal, context);
+        this(startX, startY, startZ, goal, favoring, context, null);
+    }
+
+    public AStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context, PathfinderArena arena) {
+        this(startX, startY, startZ, goal, favoring, context, arena, null);
+    }
+
+    public AStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context, PathfinderArena arena, ParallelExpander expander) {
+        this(startX, startY, startZ, goal, favoring, context, arena, expander, null);
+    }
+
+    private AStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context, PathfinderArena arena, ParallelExpander expander, GoalBlock bidirectionalGoal) {
+        super(startX, startY, startZ, goal, context, arena);
         this.favoring = favoring;
         this.calcContext = context;
+        this.expander = expander;
+        this.bidirectionalGoal = bidirectionalGoal;
+        Arrays.fill(best, NodeStore.NONE);
+    }
+
+    /**
+     * A search from both ends at once, for when the goal is a single known block (e.g. #goto x y z into cached chunks)
+     *
+     * @param expander The expander for the forward tree, may be null
+     * @see #isBidirectionalApplicable(Goal, CalculationContext)
+     */
+    public static AStarPathFinder bidirectional(int startX, int startY, int startZ, GoalBlock goal, Favoring favoring, CalculationContext context, PathfinderArena arena, ParallelExpander expander) {
+        return new AStarPathFinder(startX, startY, startZ, goal, favoring, context, arena, expander, goal);
+    }
+
+    /**
+     * @return Whether a bidirectional search makes sense for this goal, i.e. it's a plain {@link GoalBlock} in a loaded
+     * or cached chunk, so there's actually something to search backwards from
+     */
+    public static boolean isBidirectionalApplicable(Goal goal, CalculationContext context) {
+        return BackwardSearch.isApplicable(goal, context);
+    }
+
+    public boolean isBidirectional() {
+        return bidirectionalGoal != null;
     }
 
     @Override
     protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
-        startNode = getNodeAtPosition(startX, startY, startZ, BetterBlockPos.longHash(startX, startY, startZ));
-        startNode.cost = 0;
-        startNode.combinedCost = startNode.estimatedCostToGoal;
-        BinaryHeapOpenSet openSet = new BinaryHeapOpenSet();
-        openSet.insert(startNode);
-        double[] bestHeuristicSoFar = new double[COEFFICIENTS.length];//keep track of the best node by the metric of (estimatedCostToGoal + cost / COEFFICIENTS[i])
+        boolean pooled = Baritone.settings().pathingNodePool.value;
+        if (!pooled && expander == null && bidirectionalGoal == null) {
+            return calculatePlain(primaryTimeout, failureTimeout);
+        }
+        if (expander == null) {
+            return calculateWithNodeStore(pooled, primaryTimeout, failureTimeout);
+        }
+        expander.begin(arena);
+        try {
+            return calculateWithNodeStore(pooled, primaryTimeout, failureTimeout);
+        } finally {
+            expander.finish();
+        }
+    }
+
+    /**
+     * The search through a {@link NodeStore}, for a node pool, an expander or a bidirectional search
+     */
+    private Optional<IPath> calculateWithNodeStore(boolean pooled, long primaryTimeout, long failureTimeout) {
+        // the expander looks further down the heap than just the top and the backward search peeks at the top, so those need the binary heap
+        String openSet = expander == null && bidirectionalGoal == null ? Baritone.settings().pathingOpenSet.value : "binary";
+        if (pooled && !openSet.equalsIgnoreCase("binary")) {
+            logDebug("The node pool only has a binary heap open set, so pathingOpenSet " + openSet + " doesn't apply");
+        }
+        NodeStore nodes = arena.nodes(pooled, openSet);
+        this.nodes = nodes;
+        start = nodes.getOrCreate(startX, startY, startZ, BetterBlockPos.longHash(startX, startY, startZ), goal);
+        nodes.setCost(start, 0);
+        nodes.setCombinedCost(start, nodes.estimatedCostToGoal(start));
+        nodes.insert(start);
+        double[] bestHeuristicSoFar = arena.bestHeuristicSoFar();//keep track of the best node by the metric of (estimatedCostToGoal + cost / COEFFICIENTS[i])
         for (int i = 0; i < bestHeuristicSoFar.length; i++) {
-            bestHeuristicSoFar[i] = startNode.estimatedCostToGoal;
-            bestSoFar[i] = startNode;
+            bestHeuristicSoFar[i] = nodes.estimatedCostToGoal(start);
+            best[i] = start;
         }
-        MutableMoveResult res = new MutableMoveResult();
-        BetterWorldBorder worldBorder = new BetterWorldBorder(calcContext.world.getWorldBorder());
+        MutableMoveResult res = arena.moveResult();
+        BetterWorldBorder worldBorder = calcContext.worldBorder;
         long startTime = System.currentTimeMillis();
+        long lastSnapshot = startTime;
+        boolean slowPath = Baritone.settings().slowPath.value;
+        if (slowPath) {
+            logDebug("slowPath is on, path timeout will be " + Baritone.settings().slowPathTimeoutMS.value + "ms instead of " + primaryTimeout + "ms");
+        }
+        long primaryTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : primaryTimeout);
+        long failureTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : failureTimeout);
+        boolean failing = true;
+        int numNodes = 0;
+        int numMovementsConsidered = 0;
+        int numEmptyChunk = 0;
+        boolean isFavoring = !favoring.isEmpty();
+        int timeCheckInterval = 1 << 6;
+        int pathingMaxChunkBorderFetch = Baritone.settings().pathingMaxChunkBorderFetch.value; // grab all settings beforehand so that changing settings during pathing doesn't cause a crash or unpredictable behavior
+        double minimumImprovement = Baritone.settings().minimumImprovementRepropagation.value ? MIN_IMPROVEMENT : 0;
+        BackwardSearch backward = bidirectionalGoal == null ? null : new BackwardSearch(startX, startY, startZ, bidirectionalGoal, favoring, calcContext, arena.backwardNodes(), minimumImprovement);
+        int numBackwardNodes = 0;
+        Moves[] allMoves = Moves.values();
+        while (!nodes.isOpenSetEmpty() && numEmptyChunk < pathingMaxChunkBorderFetch && !cancelRequested) {
+            if (((numNodes + numBackwardNodes) & (timeCheckInterval - 1)) == 0) { // only call this once every 64 nodes (about half a millisecond)
+                long now = System.currentTimeMillis(); // since nanoTime is slow on windows (takes many microseconds)
+                if (now - failureTimeoutTime >= 0 || (!failing && now - primaryTimeoutTime >= 0)) {
+                    break;
+                }
+                if (now - lastSnapshot >= SNAPSHOT_INTERVAL_MS) {
+                    lastSnapshot = now;
+                    snapshot();
+                }
+            }
+            if (slowPath) {
+                try {
+                    Thread.sleep(Baritone.settings().slowPathTimeDelayMS.value);
+                } catch (InterruptedException ignored) {}
+                snapshot(); // so that it can be watched node by node
+            }
+            if (backward != null) {
+                if (backward.isDone(nodes)) {
+                    break;
+                }
+                if (backward.shouldExpand(nodes)) {
+                    numMovementsConsidered += backward.expand(nodes, res);
+                    numBackwardNodes++;
+                    continue;
+                }
+            }
+            int currentNode = nodes.removeLowest();
+            mostRecent = currentNode;
+            numNodes++;
+            int currentX = nodes.x(currentNode);
+            int currentY = nodes.y(currentNode);
+            int currentZ = nodes.z(currentNode);
+            double currentCost = nodes.cost(currentNode);
+            if (goal.isInGoal(currentX, currentY, currentZ)) {
+                logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
+                return Optional.of(new Path(nodes, start, currentNode, numNodes, goal, calcContext));
+            }
+            ParallelExpander.Expansion expansion = expander == null ? null : expander.expand(currentX, currentY, currentZ);
+            for (int m = 0; m < allMoves.length; m++) {
+                Moves moves = allMoves[m];
+                int newX = currentX + moves.xOffset;
+                int newZ = currentZ + moves.zOffset;
+                if (expansion != null) {
+                    // the same checks and cost calculation as below, just done ahead of time and possibly on another thread
+                    byte outcome = expansion.outcome(m);
+                    if (outcome != ParallelExpander.COMPUTED) {
+                        if (outcome == ParallelExpander.EMPTY_CHUNK) {
+                            numEmptyChunk++;
+                        }
+                        continue;
+                    }
+                    expansion.copyTo(m, res);
+                } else {
+                    if ((newX >> 4 != currentX >> 4 || newZ >> 4 != currentZ >> 4) && !calcContext.isLoaded(newX, newZ)) {
+                        // only need to check if the destination is a loaded chunk if it's in a different chunk than the start of the movement
+                        if (!moves.dynamicXZ) { // only increment the counter if the movement would have gone out of bounds guaranteed
+                            numEmptyChunk++;
+                        }
+                        continue;
+                    }
+                    if (!moves.dynamicXZ && !worldBorder.entirelyContains(newX, newZ)) {
+                        continue;
+                    }
+                    if (currentY + moves.yOffset > 256 || currentY + moves.yOffset < 0) {
+                        continue;
+                    }
+                    res.reset();
+                    moves.apply(calcContext, currentX, currentY, currentZ, res);
+                }
+                numMovementsConsidered++;
+                if (!isUsable(moves, res, newX, currentY, newZ, worldBorder)) {
+                    continue;
+                }
+                double actionCost = res.cost;
+                long hashCode = BetterBlockPos.longHash(res.x, res.y, res.z);
+                if (isFavoring) {
+                    // see issue #18
+                    actionCost *= favoring.calculate(hashCode);
+                }
+                int neighbor = nodes.getOrCreate(res.x, res.y, res.z, hashCode, goal);
+                double tentativeCost = currentCost + actionCost;
+                if (nodes.cost(neighbor) - tentativeCost > minimumImprovement) {
+                    double estimatedCostToGoal = nodes.estimatedCostToGoal(neighbor);
+                    nodes.setPrevious(neighbor, currentNode);
+                    nodes.setCost(neighbor, tentativeCost);
+                    nodes.setCombinedCost(neighbor, tentativeCost + estimatedCostToGoal);
+                    if (nodes.isOpen(neighbor)) {
+                        nodes.update(neighbor);
+                    } else {
+                        nodes.insert(neighbor);//dont double count, dont insert into open set if it's already there
+                    }
+                    if (backward != null) {
+                        backward.forwardImproved(nodes, neighbor, hashCode);
+                    }
+                    for (int i = 0; i < COEFFICIENTS.length; i++) {
+                        double heuristic = estimatedCostToGoal + tentativeCost / COEFFICIENTS[i];
+                        if (bestHeuristicSoFar[i] - heuristic > minimumImprovement) {
+                            bestHeuristicSoFar[i] = heuristic;
+                            best[i] = neighbor;
+                            if (failing && getDistFromStartSq(res.x, res.y, res.z) > MIN_DIST_PATH * MIN_DIST_PATH) {
+                                failing = false;
+                            }
+                        }
+                    }
+                }
+            }
+            if (expander != null) {
+                expander.speculate(nodes);
+            }
+        }
+        if (cancelRequested) {
+            return Optional.empty();
+        }
+        logStats(numMovementsConsidered, nodes.openSetSize(), nodes.size());
+        if (backward != null) {
+            System.out.println("Bidirectional: " + numNodes + " forward nodes, " + numBackwardNodes + " backward nodes, backward node count: " + backward.size());
+        }
+        System.out.println((int) ((numNodes + numBackwardNodes) * 1.0 / ((System.currentTimeMillis() - startTime) / 1000F)) + " nodes per second");
+        if (backward != null && backward.hasMet()) {
+            logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered, searches met at " + backward.meetingPoint(nodes));
+            return Optional.of(backward.join(nodes, numNodes + numBackwardNodes, goal));
+        }
+        Optional<IPath> result = bestSoFar(true, numNodes);
+        if (result.isPresent()) {
+            logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
+        }
+        return result;
+    }
+
+    /**
+     * The plain one way search, without going through {@link NodeStore} handles
+     */
+    private Optional<IPath> calculatePlain(long primaryTimeout, long failureTimeout) {
+        Long2ObjectOpenHashMap<PathNode> map = arena.map();
+        IOpenSet openSet = arena.openSet(Baritone.settings().pathingOpenSet.value);
+        startPathNode = new PathNode(startX, startY, startZ, goal);
+        startPathNode.cost = 0;
+        startPathNode.combinedCost = startPathNode.estimatedCostToGoal;
+        map.put(BetterBlockPos.longHash(startX, startY, startZ), startPathNode);
+        openSet.insert(startPathNode);
+        double[] bestHeuristicSoFar = arena.bestHeuristicSoFar();//keep track of the best node by the metric of (estimatedCostToGoal + cost / COEFFICIENTS[i])
+        for (int i = 0; i < bestHeuristicSoFar.length; i++) {
+            bestHeuristicSoFar[i] = startPathNode.estimatedCostToGoal;
+            bestPathNodes[i] = startPathNode;
+        }
+        MutableMoveResult res = arena.moveResult();
+        BetterWorldBorder worldBorder = calcContext.worldBorder;
+        long startTime = System.currentTimeMillis();
+        long lastSnapshot = startTime;
         boolean slowPath = Baritone.settings().slowPath.value;
         if (slowPath) {
             logDebug("slowPath is on, path timeout will be " + Baritone.settings().slowPathTimeoutMS.value + "ms instead of " + primaryTimeout + "ms");
@@ -83,18 +364,23 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
                 if (now - failureTimeoutTime >= 0 || (!failing && now - primaryTimeoutTime >= 0)) {
                     break;
                 }
+                if (now - lastSnapshot >= SNAPSHOT_INTERVAL_MS) {
+                    lastSnapshot = now;
+                    snapshot();
+                }
             }
             if (slowPath) {
                 try {
                     Thread.sleep(Baritone.settings().slowPathTimeDelayMS.value);
                 } catch (InterruptedException ignored) {}
+                snapshot(); // so that it can be watched node by node
             }
             PathNode currentNode = openSet.removeLowest();
-            mostRecentConsidered = currentNode;
+            mostRecentPathNode = currentNode;
             numNodes++;
             if (goal.isInGoal(currentNode.x, currentNode.y, currentNode.z)) {
                 logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
-                return Optional.of(new Path(startNode, currentNode, numNodes, goal, calcContext));
+                return Optional.of(new Path(startPathNode, currentNode, numNodes, goal, calcContext));
             }
             for (Moves moves : allMoves) {
                 int newX = currentNode.x + moves.xOffset;
@@ -115,29 +401,20 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
                 res.reset();
                 moves.apply(calcContext, currentNode.x, currentNode.y, currentNode.z, res);
                 numMovementsConsidered++;
-                double actionCost = res.cost;
-                if (actionCost >= ActionCosts.COST_INF) {
+                if (!isUsable(moves, res, newX, currentNode.y, newZ, worldBorder)) {
                     continue;
                 }
-                if (actionCost <= 0 || Double.isNaN(actionCost)) {
-                    throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
-                }
-                // check destination after verifying it's not COST_INF -- some movements return a static IMPOSSIBLE object with COST_INF and destination being 0,0,0 to avoid allocating a new result for every failed calculation
-                if (moves.dynamicXZ && !worldBorder.entirelyContains(res.x, res.z)) { // see issue #218
-                    continue;
-                }
-                if (!moves.dynamicXZ && (res.x != newX || res.z != newZ)) {
-                    throw new IllegalStateException(moves + " " + res.x + " " + newX + " " + res.z + " " + newZ);
-                }
-                if (!moves.dynamicY && res.y != currentNode.y + moves.yOffset) {
-                    throw new IllegalStateException(moves + " " + res.y + " " + (currentNode.y + moves.yOffset));
-                }
+                double actionCost = res.cost;
                 long hashCode = BetterBlockPos.longHash(res.x, res.y, res.z);
                 if (isFavoring) {
                     // see issue #18
                     actionCost *= favoring.calculate(hashCode);
                 }
-                PathNode neighbor = getNodeAtPosition(res.x, res.y, res.z, hashCode);
+                PathNode neighbor = map.get(hashCode);
+                if (neighbor == null) {
+                    neighbor = new PathNode(res.x, res.y, res.z, goal);
+                    map.put(hashCode, neighbor);
+                }
                 double tentativeCost = currentNode.cost + actionCost;
                 if (neighbor.cost - tentativeCost > minimumImprovement) {
                     neighbor.previous = currentNode;
@@ -149,11 +426,11 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
                         openSet.insert(neighbor);//dont double count, dont insert into open set if it's already there
                     }
                     for (int i = 0; i < COEFFICIENTS.length; i++) {
-                        double heuristic = neighbor.estimatedCostToGoal + neighbor.cost / COEFFICIENTS[i];
+                        double heuristic = neighbor.estimatedCostToGoal + tentativeCost / COEFFICIENTS[i];
                         if (bestHeuristicSoFar[i] - heuristic > minimumImprovement) {
                             bestHeuristicSoFar[i] = heuristic;
-                            bestSoFar[i] = neighbor;
-                            if (failing && getDistFromStartSq(neighbor) > MIN_DIST_PATH * MIN_DIST_PATH) {
+                            bestPathNodes[i] = neighbor;
+                            if (failing && getDistFromStartSq(res.x, res.y, res.z) > MIN_DIST_PATH * MIN_DIST_PATH) {
                                 failing = false;
                             }
                         }
@@ -164,9 +441,7 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
         if (cancelRequested) {
             return Optional.empty();
         }
-        System.out.println(numMovementsConsidered + " movements considered");
-        System.out.println("Open set size: " + openSet.size());
-        System.out.println("PathNode map size: " + mapSize());
+        logStats(numMovementsConsidered, openSet.size(), map.size());
         System.out.println((int) (numNodes * 1.0 / ((System.currentTimeMillis() - startTime) / 1000F)) + " nodes per second");
         Optional<IPath> result = bestSoFar(true, numNodes);
         if (result.isPresent()) {
@@ -174,4 +449,97 @@ public final class AStarPathFinder extends AbstractNodeCostSearch {
         }
         return result;
     }
+
+    /**
+     * Checks the result of a movement that was just calculated
+     *
+     * @return Whether it's possible and inside the world border
+     * @throws IllegalStateException If the cost or destination makes no sense for that movement
+     */
+    private static boolean isUsable(Moves moves, MutableMoveResult res, int newX, int currentY, int newZ, BetterWorldBorder worldBorder) {
+        double actionCost = res.cost;
+        if (actionCost >= ActionCosts.COST_INF) {
+            return false;
+        }
+        if (actionCost <= 0 || Double.isNaN(actionCost)) {
+            throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
+        }
+        // check destination after verifying it's not COST_INF -- some movements return a static IMPOSSIBLE object with COST_INF and destination being 0,0,0 to avoid allocating a new result for every failed calculation
+        if (moves.dynamicXZ && !worldBorder.entirelyContains(res.x, res.z)) { // see issue #218
+            return false;
+        }
+        if (!moves.dynamicXZ && (res.x != newX || res.z != newZ)) {
+            throw new IllegalStateException(moves + " " + res.x + " " + newX + " " + res.z + " " + newZ);
+        }
+        if (!moves.dynamicY && res.y != currentY + moves.yOffset) {
+            throw new IllegalStateException(moves + " " + res.y + " " + (currentY + moves.yOffset));
+        }
+        return true;
+    }
+
+    private static void logStats(int numMovementsConsidered, int openSetSize, int nodeCount) {
+        System.out.println(numMovementsConsidered + " movements considered");
+        System.out.println("Open set size: " + openSetSize);
+        System.out.println("Node count: " + nodeCount);
+    }
+
+    /**
+     * Copies out the paths that other threads can ask for while the search is running. Search thread only.
+     */
+    private void snapshot() {
+        if (nodes == null) {
+            mostRecentSnapshot = mostRecentPathNode == null ? null : new Path(startPathNode, mostRecentPathNode, 0, goal, calcContext);
+        } else {
+            mostRecentSnapshot = mostRecent == NodeStore.NONE ? null : new Path(nodes, start, mostRecent, 0, goal, calcContext);
+        }
+        bestSnapshot = bestSoFar(false, 0).orElse(null);
+    }
+
+    @Override
+    public Optional<IPath> pathToMostRecentNodeConsidered() {
+        return Optional.ofNullable(mostRecentSnapshot);
+    }
+
+    @Override
+    public Optional<IPath> bestPathSoFar() {
+        return Optional.ofNullable(bestSnapshot);
+    }
+
+    private Optional<IPath> bestSoFar(boolean logInfo, int numNodes) {
+        if (start == NodeStore.NONE && startPathNode == null) {
+            return Optional.empty();
+        }
+        double bestDist = 0;
+        for (int i = 0; i < COEFFICIENTS.length; i++) {
+            double dist;
+            if (nodes == null) {
+                PathNode node = bestPathNodes[i];
+                if (node == null) {
+                    continue;
+                }
+                dist = getDistFromStartSq(node.x, node.y, node.z);
+            } else {
+                int node = best[i];
+                if (node == NodeStore.NONE) {
+                    continue;
+                }
+                dist = getDistFromStartSq(nodes.x(node), nodes.y(node), nodes.z(node));
+            }
+            if (dist > bestDist) {
+                bestDist = dist;
+            }
+            if (dist > MIN_DIST_PATH * MIN_DIST_PATH) { // square the comparison since distFromStartSq is squared
+                if (logInfo) {
+                    logBestSoFarChosen(i, dist);
+                }
+                return Optional.of(nodes == null ? new Path(startPathNode, bestPathNodes[i], numNodes, goal, calcContext) : new Path(nodes, start, best[i], numNodes, goal, calcContext));
+            }
+        }
+        // instead of returning bestSoFar[0], be less misleading
+        // if it actually won't find any path, don't make them think it will by rendering a dark blue that will never actually happen
+        if (logInfo) {
+            logNoPathFound(bestDist);
+        }
+        return Optional.empty();
+    }
 }
@@ -17,7 +17,6 @@
 
 package baritone.pathing.calc;
 
-import baritone.Baritone;
 import baritone.api.pathing.calc.IPath;
 import baritone.api.pathing.calc.IPathFinder;
 import baritone.api.pathing.goals.Goal;
@@ -25,7 +24,7 @@ import baritone.api.utils.BetterBlockPos;
 import baritone.api.utils.Helper;
 import baritone.api.utils.PathCalculationResult;
 import baritone.pathing.movement.CalculationContext;
-import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import baritone.pathing.precompute.BlockMemo;
 
 import java.util.Optional;
 
@@ -40,20 +39,22 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
     protected final int startY;
     protected final int startZ;
 
-    protected final Goal goal;
+    /**
+     * Only changes before the search starts, see {@link #setGoal}
+     */
+    protected Goal goal;
 
     private final CalculationContext context;
 
     /**
-     * @see <a href="https://github.com/cabaletta/baritone/issues/107">Issue #107</a>
+     * The arena to borrow buffers from, shared between consecutive searches. May be null.
      */
-    private final Long2ObjectOpenHashMap<PathNode> map;
-
-    protected PathNode startNode;
+    private final PathfinderArena sharedArena;
 
-    protected PathNode mostRecentConsidered;
-
-    protected final PathNode[] bestSoFar = new PathNode[COEFFICIENTS.length];
+    /**
+     * The arena this search is actually using, only set while it's running
+     */
+    protected PathfinderArena arena;
 
     private volatile boolean isFinished;
 
@@ -81,25 +82,40 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
      */
     protected static final double MIN_IMPROVEMENT = 0.01;
 
-    AbstractNodeCostSearch(int startX, int startY, int startZ, Goal goal, CalculationContext context) {
+    AbstractNodeCostSearch(int startX, int startY, int startZ, Goal goal, CalculationContext context, PathfinderArena arena) {
         this.startX = startX;
         this.startY = startY;
         this.startZ = startZ;
         this.goal = goal;
         this.context = context;
-        this.map = new Long2ObjectOpenHashMap<>(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+        this.sharedArena = arena;
     }
 
     public void cancel() {
         cancelRequested = true;
     }
 
+    /**
+     * Swaps in a different goal before the search starts, for when working it out is too slow to do before the search
+     * is handed off to its own thread
+     *
+     * @param goal The goal to search for instead
+     */
+    public synchronized void setGoal(Goal goal) {
+        if (isFinished) {
+            throw new IllegalStateException("Path finder cannot be reused!");
+        }
+        this.goal = goal;
+    }
+
     @Override
     public synchronized PathCalculationResult calculate(long primaryTimeout, long failureTimeout) {
         if (isFinished) {
             throw new IllegalStateException("Path finder cannot be reused!");
         }
         cancelRequested = false;
+        arena = PathfinderArena.acquire(sharedArena);
+        BlockMemo memo = context.blockMemo != null && context.blockMemo.begin() ? context.blockMemo : null;
         try {
             IPath path = calculate0(primaryTimeout, failureTimeout).map(IPath::postProcess).orElse(null);
             if (cancelRequested) {
@@ -133,92 +149,47 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
         } finally {
             // this is run regardless of what exception may or may not be raised by calculate0
             isFinished = true;
+            arena.release();
+            if (memo != null) {
+                long total = memo.hits() + memo.misses();
+                if (total > 0) {
+                    Helper.HELPER.logDebug("Block memo: " + memo.hits() * 100 / total + "% of " + total + " lookups hit, " + memo.resets() + " resets");
+                }
+                memo.end();
+            }
         }
     }
 
     protected abstract Optional<IPath> calculate0(long primaryTimeout, long failureTimeout);
 
     /**
-     * Determines the distance squared from the specified node to the start
+     * Determines the distance squared from the specified position to the start
      * node. Intended for use in distance comparison, rather than anything that
      * considers the real distance value, hence the "sq".
      *
-     * @param n A node
      * @return The distance, squared
      */
-    protected double getDistFromStartSq(PathNode n) {
-        int xDiff = n.x - startX;
-        int yDiff = n.y - startY;
-        int zDiff = n.z - startZ;
+    protected double getDistFromStartSq(int x, int y, int z) {
+        int xDiff = x - startX;
+        int yDiff = y - startY;
+        int zDiff = z - startZ;
         return xDiff * xDiff + yDiff * yDiff + zDiff * zDiff;
     }
 
-    /**
-     * Attempts to search the block position hashCode long to {@link PathNode} map
-     * for the node mapped to the specified pos. If no node is found,
-     * a new node is created.
-     *
-     * @param x        The x position of the node
-     * @param y        The y position of the node
-     * @param z        The z position of the node
-     * @param hashCode The hash code of the node, provided by {@link BetterBlockPos#longHash(int, int, int)}
-     * @return The associated node
-     * @see <a href="https://github.com/cabaletta/baritone/issues/107">Issue #107</a>
-     */
-
-    protected PathNode getNodeAtPosition(int x, int y, int z, long hashCode) {
-        PathNode node = map.get(hashCode);
-        if (node == null) {
-            node = new PathNode(x, y, z, goal);
-            map.put(hashCode, node);
+    protected void logBestSoFarChosen(int coefficientIndex, double distSq) {
+        if (COEFFICIENTS[coefficientIndex] >= 3) {
+            System.out.println("Warning: cost coefficient is greater than three! Probably means that");
+            System.out.println("the path I found is pretty terrible (like sneak-bridging for dozens of blocks)");
+            System.out.println("But I'm going to do it anyway, because yolo");
         }
-        return node;
-    }
-
-    @Override
-    public Optional<IPath> pathToMostRecentNodeConsidered() {
-        return Optional.ofNullable(mostRecentConsidered).map(node -> new Path(startNode, node, 0, goal, context));
-    }
-
-    @Override
-    public Optional<IPath> bestPathSoFar() {
-        return bestSoFar(false, 0);
+        System.out.println("Path goes for " + Math.sqrt(distSq) + " blocks");
+        logDebug("A* cost coefficient " + COEFFICIENTS[coefficientIndex]);
     }
 
-    protected Optional<IPath> bestSoFar(boolean logInfo, int numNodes) {
-        if (startNode == null) {
-            return Optional.empty();
-        }
-        double bestDist = 0;
-        for (int i = 0; i < COEFFICIENTS.length; i++) {
-            if (bestSoFar[i] == null) {
-                continue;
-            }
-            double dist = getDistFromStartSq(bestSoFar[i]);
-            if (dist > bestDist) {
-                bestDist = dist;
-            }
-            if (dist > MIN_DIST_PATH * MIN_DIST_PATH) { // square the comparison since distFromStartSq is squared
-                if (logInfo) {
-                    if (COEFFICIENTS[i] >= 3) {
-                        System.out.println("Warning: cost coefficient is greater than three! Probably means that");
-                        System.out.println("the path I found is pretty terrible (like sneak-bridging for dozens of blocks)");
-                        System.out.println("But I'm going to do it anyway, because yolo");
-                    }
-                    System.out.println("Path goes for " + Math.sqrt(dist) + " blocks");
-                    logDebug("A* cost coefficient " + COEFFICIENTS[i]);
-                }
-                return Optional.of(new Path(startNode, bestSoFar[i], numNodes, goal, context));
-            }
-        }
-        // instead of returning bestSoFar[0], be less misleading
-        // if it actually won't find any path, don't make them think it will by rendering a dark blue that will never actually happen
-        if (logInfo) {
-            logDebug("Even with a cost coefficient of " + COEFFICIENTS[COEFFICIENTS.length - 1] + ", I couldn't get more than " + Math.sqrt(bestDist) + " blocks");
-            logDebug("No path found =(");
-            logNotification("No path found =(", true);
-        }
-        return Optional.empty();
+    protected void logNoPathFound(double bestDistSq) {
+        logDebug("Even with a cost coefficient of " + COEFFICIENTS[COEFFICIENTS.length - 1] + ", I couldn't get more than " + Math.sqrt(bestDistSq) + " blocks");
+        logDebug("No path found =(");
+        logNotification("No path found =(", true);
     }
 
     @Override
@@ -234,8 +205,4 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
     public BetterBlockPos getStart() {
         return new BetterBlockPos(startX, startY, startZ);
     }
-
-    protected int mapSize() {
-        return map.size();
-    }
 }
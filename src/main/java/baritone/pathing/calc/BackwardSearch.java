@@ -0,0 +1,253 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.utils.pathing.BetterWorldBorder;
+import baritone.utils.pathing.Favoring;
+import baritone.utils.pathing.MutableMoveResult;
+
+import java.util.Arrays;
+
+/**
+ * The backward half of a bidirectional {@link AStarPathFinder}, a second tree grown from a {@link GoalBlock} towards
+ * the start.
+ * <p>
+ * The edges into a node are found by trying every movement from every position that could plausibly end up there, and
+ * keeping the ones that actually do. So every backward edge is a real forward movement with its real cost. There's no
+ * reversing parkour though (too many possible sources), so the backward tree is less complete than the forward one, and
+ * a meeting can cost more than the path the forward search alone would have found.
+ */
+final class BackwardSearch {
+
+    private final Favoring favoring;
+    private final CalculationContext context;
+    private final NodeStore nodes;
+
+    /**
+     * The heuristic for the backward tree, an estimate of the cost from the start to a node
+     */
+    private final Goal towardsStart;
+
+    private final double minimumImprovement;
+    private final int maxFall;
+    private final Moves[] allMoves = Moves.values();
+
+    private int meetForward = NodeStore.NONE;
+    private int meetBackward = NodeStore.NONE;
+    private double meetCost = ActionCosts.COST_INF;
+
+    /**
+     * @param nodes An empty store with a binary heap open set, for the backward tree
+     */
+    BackwardSearch(int startX, int startY, int startZ, GoalBlock goal, Favoring favoring, CalculationContext context, NodeStore nodes, double minimumImprovement) {
+        this.favoring = favoring;
+        this.context = context;
+        this.nodes = nodes;
+        this.minimumImprovement = minimumImprovement;
+        this.maxFall = Math.max(context.maxFallHeightNoWater, context.hasWaterBucket ? context.maxFallHeightBucket : 0);
+        this.towardsStart = new Goal() {
+            @Override
+            public boolean isInGoal(int x, int y, int z) {
+                return x == startX && y == startY && z == startZ;
+            }
+
+            @Override
+            public double heuristic(int x, int y, int z) {
+                // as if we were at the start and the goal was here, so that ascending and descending are the right way around
+                return GoalBlock.calculate(startX - x, startY - y, startZ - z);
+            }
+        };
+        int goalNode = nodes.getOrCreate(goal.x, goal.y, goal.z, BetterBlockPos.longHash(goal.x, goal.y, goal.z), towardsStart);
+        nodes.setCost(goalNode, 0);
+        nodes.setCombinedCost(goalNode, nodes.estimatedCostToGoal(goalNode));
+        nodes.insert(goalNode);
+    }
+
+    /**
+     * @return Whether a bidirectional search makes sense for this goal, i.e. it's a plain {@link GoalBlock} in a loaded
+     * or cached chunk, so there's actually something to search backwards from
+     */
+    static boolean isApplicable(Goal goal, CalculationContext context) {
+        if (goal == null || goal.getClass() != GoalBlock.class) {
+            return false;
+        }
+        GoalBlock block = (GoalBlock) goal;
+        return context.isLoaded(block.x, block.z);
+    }
+
+    /**
+     * @param forward The forward tree, with a binary heap open set that isn't empty
+     * @return Whether the trees have met and nothing left in either open set can be part of a cheaper meeting
+     */
+    boolean isDone(NodeStore forward) {
+        if (meetForward == NodeStore.NONE) {
+            return false;
+        }
+        double bound = forward.combinedCost(forward.peekAt(1));
+        if (!nodes.isOpenSetEmpty()) {
+            bound = Math.max(bound, nodes.combinedCost(nodes.peekAt(1)));
+        }
+        return meetCost <= bound;
+    }
+
+    /**
+     * @return Whether the next node should come from the backward tree, which keeps the two frontiers about the same size
+     */
+    boolean shouldExpand(NodeStore forward) {
+        return !nodes.isOpenSetEmpty() && nodes.openSetSize() < forward.openSetSize();
+    }
+
+    /**
+     * Expands the lowest node of the backward tree
+     *
+     * @return How many movements were considered
+     */
+    int expand(NodeStore forward, MutableMoveResult res) {
+        int currentNode = nodes.removeLowest();
+        int currentX = nodes.x(currentNode);
+        int currentY = nodes.y(currentNode);
+        int currentZ = nodes.z(currentNode);
+        double currentCost = nodes.cost(currentNode);
+        BetterWorldBorder worldBorder = context.worldBorder;
+        int numMovementsConsidered = 0;
+        for (Moves moves : allMoves) {
+            if (moves.dynamicXZ) {
+                continue;
+            }
+            int srcX = currentX - moves.xOffset;
+            int srcZ = currentZ - moves.zOffset;
+            if ((srcX >> 4 != currentX >> 4 || srcZ >> 4 != currentZ >> 4) && !context.isLoaded(srcX, srcZ)) {
+                continue;
+            }
+            if (!worldBorder.entirelyContains(srcX, srcZ)) {
+                continue;
+            }
+            int minY;
+            int maxY;
+            if (!moves.dynamicY) {
+                minY = maxY = currentY - moves.yOffset;
+            } else if (moves.yOffset == 0) { // diagonals can go up or down one
+                minY = currentY - 1;
+                maxY = currentY + 1;
+            } else { // descends can turn into falls
+                minY = currentY + 1;
+                maxY = currentY + maxFall;
+            }
+            for (int srcY = Math.max(minY, 0); srcY <= Math.min(maxY, 255); srcY++) {
+                res.reset();
+                moves.apply(context, srcX, srcY, srcZ, res);
+                numMovementsConsidered++;
+                double actionCost = res.cost;
+                if (actionCost >= ActionCosts.COST_INF) {
+                    continue;
+                }
+                if (actionCost <= 0 || Double.isNaN(actionCost)) {
+                    throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
+                }
+                if (res.x != currentX || res.y != currentY || res.z != currentZ) {
+                    continue; // this movement from there doesn't end up here
+                }
+                if (!favoring.isEmpty()) {
+                    // same as forward, the favoring is looked up at the destination of the movement
+                    actionCost *= favoring.calculate(BetterBlockPos.longHash(currentX, currentY, currentZ));
+                }
+                long hashCode = BetterBlockPos.longHash(srcX, srcY, srcZ);
+                int neighbor = nodes.getOrCreate(srcX, srcY, srcZ, hashCode, towardsStart);
+                double tentativeCost = currentCost + actionCost;
+                if (nodes.cost(neighbor) - tentativeCost > minimumImprovement) {
+                    nodes.setPrevious(neighbor, currentNode); // in the backward tree, the previous node is the next step towards the goal
+                    nodes.setCost(neighbor, tentativeCost);
+                    nodes.setCombinedCost(neighbor, tentativeCost + nodes.estimatedCostToGoal(neighbor));
+                    if (nodes.isOpen(neighbor)) {
+                        nodes.update(neighbor);
+                    } else {
+                        nodes.insert(neighbor);
+                    }
+                    checkMeeting(forward, forward.get(hashCode), neighbor);
+                }
+            }
+        }
+        return numMovementsConsidered;
+    }
+
+    /**
+     * The forward search found a cheaper way to a node, check whether that's a cheaper meeting
+     */
+    void forwardImproved(NodeStore forward, int forwardNode, long hashCode) {
+        checkMeeting(forward, forwardNode, nodes.get(hashCode));
+    }
+
+    private void checkMeeting(NodeStore forward, int forwardNode, int backwardNode) {
+        if (forwardNode == NodeStore.NONE || backwardNode == NodeStore.NONE) {
+            return;
+        }
+        double cost = forward.cost(forwardNode) + nodes.cost(backwardNode);
+        if (cost < meetCost) {
+            meetCost = cost;
+            meetForward = forwardNode;
+            meetBackward = backwardNode;
+        }
+    }
+
+    boolean hasMet() {
+        return meetForward != NodeStore.NONE;
+    }
+
+    BetterBlockPos meetingPoint(NodeStore forward) {
+        return new BetterBlockPos(forward.x(meetForward), forward.y(meetForward), forward.z(meetForward));
+    }
+
+    /**
+     * @return The forward path from the start to the meeting point, followed by the backward path from there to the goal
+     */
+    Path join(NodeStore forward, int numNodes, Goal goal) {
+        int forwardLength = 0;
+        for (int current = meetForward; current != NodeStore.NONE; current = forward.previous(current)) {
+            forwardLength++;
+        }
+        int length = forwardLength;
+        for (int current = nodes.previous(meetBackward); current != NodeStore.NONE; current = nodes.previous(current)) {
+            length++;
+        }
+        BetterBlockPos[] positions = new BetterBlockPos[length];
+        double[] costs = new double[length];
+        int i = forwardLength - 1;
+        for (int current = meetForward; current != NodeStore.NONE; current = forward.previous(current), i--) {
+            positions[i] = new BetterBlockPos(forward.x(current), forward.y(current), forward.z(current));
+            costs[i] = forward.cost(current);
+        }
+        // backward costs count down to zero at the goal, turn them into costs from the start
+        double meetingCost = forward.cost(meetForward) + nodes.cost(meetBackward);
+        i = forwardLength;
+        for (int current = nodes.previous(meetBackward); current != NodeStore.NONE; current = nodes.previous(current), i++) {
+            positions[i] = new BetterBlockPos(nodes.x(current), nodes.y(current), nodes.z(current));
+            costs[i] = meetingCost - nodes.cost(current);
+        }
+        return new Path(Arrays.asList(positions), costs, numNodes, goal, context);
+    }
+
+    int size() {
+        return nodes.size();
+    }
+}
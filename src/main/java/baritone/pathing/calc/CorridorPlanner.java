@@ -0,0 +1,253 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.goals.GoalXZ;
+import baritone.api.utils.Helper;
+import baritone.api.utils.interfaces.IGoalRenderPos;
+import baritone.cache.CachedWorld;
+import baritone.cache.ChunkPortals;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.CorridorGoal;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Plans very long routes a chunk at a time over the cache, before the block by block search.
+ * <p>
+ * The nodes are the walkable components of each cached chunk ({@link ChunkPortals}), joined wherever a standable
+ * position on one side of a chunk border is next to one on the other side at about the same height. A* over that is
+ * tiny compared to A* over blocks, and the resulting route is handed to the real pathfinder as a {@link CorridorGoal}
+ * so each segment heads down the planned route instead of straight at the goal.
+ * <p>
+ * The last corridor is kept and reused for following segments, as long as they start on it. Searches call this from
+ * their own threads, so {@link #guide} is synchronized, and a search that needs the same corridor as one that's still
+ * being planned waits for it and reuses it instead of planning it again.
+ */
+public final class CorridorPlanner {
+
+    private CorridorGoal previous;
+
+    /**
+     * @param start     Where the search will start
+     * @param goal      The goal, after any simplification
+     * @param context   The context the search will use
+     * @return A {@link CorridorGoal} steering towards {@code goal}, or {@code goal} itself if it's close, not in a
+     * direction we know anything about, or planning failed
+     */
+    public synchronized Goal guide(BlockPos start, Goal goal, CalculationContext context) {
+        if (!Baritone.settings().pathingCorridor.value || context.worldData == null) {
+            previous = null;
+            return goal;
+        }
+        int goalX;
+        int goalZ;
+        if (goal instanceof IGoalRenderPos) {
+            BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
+            goalX = pos.getX();
+            goalZ = pos.getZ();
+        } else if (goal instanceof GoalXZ) {
+            goalX = ((GoalXZ) goal).getX();
+            goalZ = ((GoalXZ) goal).getZ();
+        } else {
+            return goal;
+        }
+        double dx = goalX - start.getX();
+        double dz = goalZ - start.getZ();
+        int minDistance = Baritone.settings().pathingCorridorMinDistance.value;
+        if (dx * dx + dz * dz < (double) minDistance * minDistance) {
+            return goal;
+        }
+        if (previous != null && previous.getGoal().equals(goal) && previous.isStillUseful(start.getX(), start.getZ())) {
+            return previous;
+        }
+        previous = plan(context.worldData.cache, start.getX(), start.getY(), start.getZ(), goal, goalX >> 4, goalZ >> 4, Baritone.settings().pathingCorridorTimeoutMS.value);
+        return previous == null ? goal : previous;
+    }
+
+    static CorridorGoal plan(CachedWorld cache, int startX, int startY, int startZ, Goal goal, int goalChunkX, int goalChunkZ, long timeout) {
+        long startTime = System.currentTimeMillis();
+        ChunkPortals startPortals = cache.getPortals(startX >> 4, startZ >> 4);
+        if (startPortals == null || startPortals.numComponents() == 0) {
+            return null;
+        }
+        Long2ObjectOpenHashMap<ChunkPortals> portals = new Long2ObjectOpenHashMap<>();
+        Long2ObjectOpenHashMap<Node> nodes = new Long2ObjectOpenHashMap<>();
+        PriorityQueue<Entry> openSet = new PriorityQueue<>();
+        for (int component = 0; component < startPortals.numComponents(); component++) {
+            Node node = getNode(nodes, startX >> 4, startZ >> 4, component, startPortals, goal);
+            node.cost = GoalBlock.calculate(node.x - startX, node.y - startY, node.z - startZ);
+            openSet.add(new Entry(node));
+        }
+        double startHeuristic = goal.heuristic(startX, startY, startZ);
+        Node best = null;
+        Node reached = null;
+        int numNodes = 0;
+        while (!openSet.isEmpty()) {
+            if ((numNodes & 255) == 0 && System.currentTimeMillis() - startTime > timeout) {
+                break;
+            }
+            Entry entry = openSet.poll();
+            Node current = entry.node;
+            if (current.closed || entry.combinedCost > current.cost + current.estimatedCostToGoal) {
+                continue; // stale entry, this node was improved and queued again since
+            }
+            current.closed = true;
+            numNodes++;
+            if (current.chunkX == goalChunkX && current.chunkZ == goalChunkZ) {
+                reached = current;
+                break;
+            }
+            if (best == null || current.estimatedCostToGoal < best.estimatedCostToGoal) {
+                best = current;
+            }
+            ChunkPortals here = portals(portals, cache, current.chunkX, current.chunkZ);
+            for (int side = 0; side < 4; side++) {
+                int neighborX = current.chunkX + ChunkPortals.offsetX(side);
+                int neighborZ = current.chunkZ + ChunkPortals.offsetZ(side);
+                ChunkPortals there = portals(portals, cache, neighborX, neighborZ);
+                if (there == null) {
+                    continue;
+                }
+                int[] ours = here.border(side);
+                int[] theirs = there.border(ChunkPortals.opposite(side));
+                int j = 0;
+                for (int ourEntry : ours) {
+                    if (ChunkPortals.component(ourEntry) != current.component) {
+                        continue;
+                    }
+                    int along = ChunkPortals.along(ourEntry);
+                    while (j < theirs.length && ChunkPortals.along(theirs[j]) < along) {
+                        j++;
+                    }
+                    for (int k = j; k < theirs.length && ChunkPortals.along(theirs[k]) == along; k++) {
+                        if (Math.abs(ChunkPortals.y(theirs[k]) - ChunkPortals.y(ourEntry)) > 1) {
+                            continue;
+                        }
+                        Node neighbor = getNode(nodes, neighborX, neighborZ, ChunkPortals.component(theirs[k]), there, goal);
+                        if (neighbor.closed) {
+                            continue;
+                        }
+                        double tentativeCost = current.cost + GoalBlock.calculate(neighbor.x - current.x, neighbor.y - current.y, neighbor.z - current.z);
+                        if (tentativeCost < neighbor.cost) {
+                            neighbor.cost = tentativeCost;
+                            neighbor.previous = current;
+                            openSet.add(new Entry(neighbor));
+                        }
+                    }
+                }
+            }
+        }
+        Node end = reached != null ? reached : best;
+        long took = System.currentTimeMillis() - startTime;
+        if (end == null || (reached == null && end.estimatedCostToGoal >= startHeuristic)) {
+            Helper.HELPER.logDebug("No corridor towards goal after " + numNodes + " chunk components in " + took + "ms");
+            return null;
+        }
+        List<Node> route = new ArrayList<>();
+        for (Node node = end; node != null; node = node.previous) {
+            route.add(node);
+        }
+        int[] waypointX = new int[route.size()];
+        int[] waypointY = new int[route.size()];
+        int[] waypointZ = new int[route.size()];
+        for (int i = 0; i < route.size(); i++) {
+            Node node = route.get(route.size() - 1 - i);
+            waypointX[i] = node.x;
+            waypointY[i] = node.y;
+            waypointZ[i] = node.z;
+        }
+        Helper.HELPER.logDebug("Planned corridor through " + route.size() + " chunks" + (reached == null ? " (as far as the cache goes)" : "") + ", " + numNodes + " chunk components considered in " + took + "ms");
+        return new CorridorGoal(goal, waypointX, waypointY, waypointZ, reached != null);
+    }
+
+    private static ChunkPortals portals(Long2ObjectOpenHashMap<ChunkPortals> portals, CachedWorld cache, int chunkX, int chunkZ) {
+        long key = (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+        if (portals.containsKey(key)) {
+            return portals.get(key);
+        }
+        ChunkPortals result = cache.getPortals(chunkX, chunkZ);
+        portals.put(key, result);
+        return result;
+    }
+
+    private static Node getNode(Long2ObjectOpenHashMap<Node> nodes, int chunkX, int chunkZ, int component, ChunkPortals portals, Goal goal) {
+        long key = ((long) chunkX & 0x3FFFFF) << 38 | ((long) chunkZ & 0x3FFFFF) << 16 | component;
+        Node node = nodes.get(key);
+        if (node == null) {
+            node = new Node(chunkX, chunkZ, component, portals, goal);
+            nodes.put(key, node);
+        }
+        return node;
+    }
+
+    private static final class Node {
+
+        final int chunkX;
+        final int chunkZ;
+        final int component;
+
+        /**
+         * The center of the component, in world coordinates
+         */
+        final int x;
+        final int y;
+        final int z;
+
+        final double estimatedCostToGoal;
+        double cost = Double.POSITIVE_INFINITY;
+        Node previous;
+        boolean closed;
+
+        Node(int chunkX, int chunkZ, int component, ChunkPortals portals, Goal goal) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.component = component;
+            this.x = chunkX << 4 | portals.centerX(component);
+            this.y = portals.centerY(component);
+            this.z = chunkZ << 4 | portals.centerZ(component);
+            this.estimatedCostToGoal = goal.heuristic(x, y, z);
+        }
+    }
+
+    /**
+     * The priority a node had when it was queued, since the same node can be queued again later with a better one
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        final Node node;
+        final double combinedCost;
+
+        Entry(Node node) {
+            this.node = node;
+            this.combinedCost = node.cost + node.estimatedCostToGoal;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Double.compare(combinedCost, other.combinedCost);
+        }
+    }
+}
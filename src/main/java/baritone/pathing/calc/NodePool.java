@@ -0,0 +1,243 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.pathing.calc.openset.NodePoolBinaryHeapOpenSet;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage for A* nodes. Instead of allocating a {@link PathNode} per visited position, a node is
+ * just an int index into a handful of parallel primitive arrays, which only ever grow by doubling.
+ * <p>
+ * A long search visits millions of positions, and with one object per position that's millions of short lived
+ * objects and a young gen GC or two in the middle of pathing. This way it's a few large arrays instead.
+ * <p>
+ * The open set is always a {@link NodePoolBinaryHeapOpenSet}, whatever {@link baritone.api.Settings#pathingOpenSet}
+ * says, since the other open sets are built around {@link PathNode}.
+ */
+public final class NodePool implements NodeStore {
+
+    /**
+     * Block position long hash to node index
+     *
+     * @see baritone.api.utils.BetterBlockPos#longHash(int, int, int)
+     */
+    private final Long2IntOpenHashMap indices;
+
+    private int[] x;
+    private int[] y;
+    private int[] z;
+
+    /**
+     * Cached, should always be equal to goal.heuristic(pos)
+     */
+    private double[] estimatedCostToGoal;
+
+    /**
+     * Total cost of getting from start to here
+     */
+    private double[] cost;
+
+    /**
+     * Should always be equal to estimatedCostToGoal + cost
+     */
+    private double[] combinedCost;
+
+    /**
+     * In the graph search, what previous node contributed to the cost, or {@link #NONE}
+     */
+    private int[] previous;
+
+    /**
+     * Where is this node in the array flattenization of the binary heap, or -1 if it isn't in the open set
+     */
+    private int[] heapPosition;
+
+    private int size;
+
+    private final NodePoolBinaryHeapOpenSet openSet;
+
+    public NodePool(int initialCapacity, float loadFactor) {
+        this.indices = new Long2IntOpenHashMap(initialCapacity, loadFactor);
+        this.indices.defaultReturnValue(NONE);
+        this.x = new int[initialCapacity];
+        this.y = new int[initialCapacity];
+        this.z = new int[initialCapacity];
+        this.estimatedCostToGoal = new double[initialCapacity];
+        this.cost = new double[initialCapacity];
+        this.combinedCost = new double[initialCapacity];
+        this.previous = new int[initialCapacity];
+        this.heapPosition = new int[initialCapacity];
+        this.openSet = new NodePoolBinaryHeapOpenSet(this);
+    }
+
+    @Override
+    public int getOrCreate(int x, int y, int z, long hashCode, Goal goal) {
+        int index = indices.get(hashCode);
+        if (index != NONE) {
+            return index;
+        }
+        double heuristic = goal.heuristic(x, y, z);
+        if (Double.isNaN(heuristic)) {
+            throw new IllegalStateException(goal + " calculated implausible heuristic");
+        }
+        if (size == this.x.length) {
+            grow();
+        }
+        index = size++;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.z[index] = z;
+        this.estimatedCostToGoal[index] = heuristic;
+        this.cost[index] = ActionCosts.COST_INF;
+        this.combinedCost[index] = 0;
+        this.previous[index] = NONE;
+        this.heapPosition[index] = -1;
+        indices.put(hashCode, index);
+        return index;
+    }
+
+    @Override
+    public int get(long hashCode) {
+        return indices.get(hashCode);
+    }
+
+    private void grow() {
+        int newLength = Math.max(16, x.length << 1);
+        x = Arrays.copyOf(x, newLength);
+        y = Arrays.copyOf(y, newLength);
+        z = Arrays.copyOf(z, newLength);
+        estimatedCostToGoal = Arrays.copyOf(estimatedCostToGoal, newLength);
+        cost = Arrays.copyOf(cost, newLength);
+        combinedCost = Arrays.copyOf(combinedCost, newLength);
+        previous = Arrays.copyOf(previous, newLength);
+        heapPosition = Arrays.copyOf(heapPosition, newLength);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Forget every node and empty the open set, keeping the arrays and the index table at their current capacity so
+     * the next search doesn't have to grow them all over again
+     */
+    public void clear() {
+        indices.clear();
+        size = 0;
+        openSet.clear();
+    }
+
+    @Override
+    public int x(int node) {
+        return x[node];
+    }
+
+    @Override
+    public int y(int node) {
+        return y[node];
+    }
+
+    @Override
+    public int z(int node) {
+        return z[node];
+    }
+
+    @Override
+    public double estimatedCostToGoal(int node) {
+        return estimatedCostToGoal[node];
+    }
+
+    @Override
+    public double cost(int node) {
+        return cost[node];
+    }
+
+    @Override
+    public void setCost(int node, double cost) {
+        this.cost[node] = cost;
+    }
+
+    @Override
+    public double combinedCost(int node) {
+        return combinedCost[node];
+    }
+
+    @Override
+    public void setCombinedCost(int node, double combinedCost) {
+        this.combinedCost[node] = combinedCost;
+    }
+
+    @Override
+    public int previous(int node) {
+        return previous[node];
+    }
+
+    @Override
+    public void setPrevious(int node, int previous) {
+        this.previous[node] = previous;
+    }
+
+    public int heapPosition(int node) {
+        return heapPosition[node];
+    }
+
+    public void setHeapPosition(int node, int heapPosition) {
+        this.heapPosition[node] = heapPosition;
+    }
+
+    @Override
+    public boolean isOpen(int node) {
+        return heapPosition[node] != -1;
+    }
+
+    @Override
+    public void insert(int node) {
+        openSet.insert(node);
+    }
+
+    @Override
+    public void update(int node) {
+        openSet.update(node);
+    }
+
+    @Override
+    public int removeLowest() {
+        return openSet.removeLowest();
+    }
+
+    @Override
+    public boolean isOpenSetEmpty() {
+        return openSet.isEmpty();
+    }
+
+    @Override
+    public int openSetSize() {
+        return openSet.size();
+    }
+
+    @Override
+    public int peekAt(int index) {
+        return openSet.peekAt(index);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+
+/**
+ * Where {@link AStarPathFinder} keeps its nodes and its open set. A node is an int handle rather than an object, so
+ * that the nodes can either be {@link PathNode}s ({@link PathNodeStore}) or just an index into some parallel arrays
+ * ({@link NodePool}), with the same search loop on top of both.
+ */
+interface NodeStore {
+
+    /**
+     * Handle used in place of a null node, e.g. for the previous node of the start
+     */
+    int NONE = -1;
+
+    /**
+     * Returns the node at this position, creating it if it doesn't exist yet
+     *
+     * @param x        The x position of the node
+     * @param y        The y position of the node
+     * @param z        The z position of the node
+     * @param hashCode The hash code of the node, provided by {@link baritone.api.utils.BetterBlockPos#longHash(int, int, int)}
+     * @param goal     The goal, used to calculate the heuristic of a new node
+     * @return The node
+     */
+    int getOrCreate(int x, int y, int z, long hashCode, Goal goal);
+
+    /**
+     * @param hashCode The hash code of the node, provided by {@link baritone.api.utils.BetterBlockPos#longHash(int, int, int)}
+     * @return The node at this position, or {@link #NONE} if there isn't one
+     */
+    int get(long hashCode);
+
+    /**
+     * @return How many nodes there are
+     */
+    int size();
+
+    int x(int node);
+
+    int y(int node);
+
+    int z(int node);
+
+    double estimatedCostToGoal(int node);
+
+    double cost(int node);
+
+    void setCost(int node, double cost);
+
+    double combinedCost(int node);
+
+    void setCombinedCost(int node, double combinedCost);
+
+    int previous(int node);
+
+    void setPrevious(int node, int previous);
+
+    /**
+     * @return Whether the node is in the open set
+     */
+    boolean isOpen(int node);
+
+    /**
+     * Adds a node to the open set, at its current combined cost
+     */
+    void insert(int node);
+
+    /**
+     * The combined cost of a node in the open set has gone down
+     */
+    void update(int node);
+
+    /**
+     * Removes the node with the lowest combined cost from the open set
+     */
+    int removeLowest();
+
+    boolean isOpenSetEmpty();
+
+    int openSetSize();
+
+    /**
+     * Only for stores whose open set is a binary heap
+     *
+     * @param index A 1 based position in the heap, at most {@link #openSetSize()}
+     * @return The node there. The first few are among the lowest few nodes, but not in any particular order.
+     */
+    int peekAt(int index);
+}
@@ -0,0 +1,299 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.utils.pathing.BetterWorldBorder;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Works out the movement costs out of nodes that are about to come off the top of the open set, on other threads,
+ * while the search thread is busy with the current node.
+ * <p>
+ * The search itself stays single threaded and pops nodes in exactly the same order, it just finds the costs already
+ * calculated when it gets there. Costs only depend on the position and the context, so the path comes out identical.
+ * <p>
+ * Each worker gets its own copy of the {@link CalculationContext}, with its own {@link baritone.utils.BlockStateInterface}
+ * (they cache the last chunk and region looked up, so they can't be shared). The copies have to be made on the main
+ * thread at the same time as the original, so that they see the same loaded chunks.
+ * <p>
+ * The buffers the workers write into come from the search's {@link PathfinderArena}, and go back to it once both the
+ * search thread and the worker are done with them.
+ */
+public final class ParallelExpander {
+
+    public static final byte SKIPPED = 0;
+    public static final byte EMPTY_CHUNK = 1;
+    public static final byte COMPUTED = 2;
+
+    /**
+     * Past this many expansions that were calculated but never used, throw them all away
+     */
+    private static final int MAX_SPECULATED = 1 << 12;
+
+    private static final Moves[] ALL_MOVES = Moves.values();
+
+    private final CalculationContext context;
+    private final BetterWorldBorder worldBorder;
+    private final BlockingQueue<Worker> workers;
+    private final int threads;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Long2ObjectOpenHashMap<Speculation> speculated = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Reused for the expansions done on the search thread, since they're used straight away
+     */
+    private final Expansion inline = new Expansion();
+    private final MutableMoveResult inlineResult = new MutableMoveResult();
+
+    /**
+     * Where to get the buffers for expansions done on other threads from, and hand them back to
+     */
+    private BlockingQueue<Expansion> pool;
+
+    /**
+     * The speculation whose expansion {@link #expand} last returned (or that it gave up waiting for), which the search
+     * thread is still holding on to
+     */
+    private Speculation current;
+
+    /**
+     * Must be called on the main thread
+     *
+     * @param context The context the search uses
+     * @param threads How many other threads to use
+     */
+    public ParallelExpander(CalculationContext context, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.context = context;
+        this.worldBorder = context.worldBorder;
+        this.threads = threads;
+        this.workers = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Worker(new CalculationContext(context)));
+        }
+    }
+
+    /**
+     * @return Whether the search with this context would come out the same if costs were calculated on a copy of it
+     */
+    public static boolean canCopy(CalculationContext context) {
+        // subclasses override the costs, and a copy would lose that
+        // and a headless context has no player to make the copy's block state interface and tool set from
+        return context.getClass() == CalculationContext.class && context.getBaritone() != null;
+    }
+
+    /**
+     * Called from the search thread before the search starts
+     *
+     * @param arena The arena the search is using
+     */
+    void begin(PathfinderArena arena) {
+        this.pool = arena.expansions();
+    }
+
+    /**
+     * Called from the search thread once the search is over, however it ended, so that nothing is left running for
+     * results that nobody is going to ask for
+     */
+    void finish() {
+        releaseCurrent();
+        discardSpeculated();
+    }
+
+    /**
+     * Called from the search thread when it pops a node
+     *
+     * @return The outcome of every movement out of that position, only valid until the next call
+     */
+    Expansion expand(int x, int y, int z) {
+        releaseCurrent();
+        Speculation task = speculated.remove(BetterBlockPos.longHash(x, y, z));
+        if (task != null) {
+            current = task;
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                // whoever interrupted us is going to want to know, but this node still needs expanding either way
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ignored) {
+                // do it again here, if something is going to throw it should throw on the search thread like normal
+            }
+        }
+        compute(context, inlineResult, x, y, z, inline);
+        return inline;
+    }
+
+    private void releaseCurrent() {
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+    }
+
+    private void discardSpeculated() {
+        for (Speculation task : speculated.values()) {
+            task.cancel(false);
+            task.release();
+        }
+        speculated.clear();
+    }
+
+    /**
+     * Called from the search thread after it's done with a node, to get started on the ones likely to be popped next
+     */
+    void speculate(NodeStore nodes) {
+        if (speculated.size() > MAX_SPECULATED) {
+            // these were calculated for nodes that then got pushed down the open set, and we'll probably never get to them
+            discardSpeculated();
+        }
+        // skip the very top, the search thread is going to pop that next and would just have to wait for it
+        int end = Math.min(nodes.openSetSize(), 1 + threads * 2);
+        for (int i = 2; i <= end && inFlight.get() < threads; i++) {
+            int node = nodes.peekAt(i);
+            int x = nodes.x(node);
+            int y = nodes.y(node);
+            int z = nodes.z(node);
+            long hashCode = BetterBlockPos.longHash(x, y, z);
+            if (speculated.containsKey(hashCode)) {
+                continue;
+            }
+            Expansion expansion = pool.poll();
+            Speculation task = new Speculation(x, y, z, expansion == null ? new Expansion() : expansion);
+            inFlight.incrementAndGet();
+            speculated.put(hashCode, task);
+            Baritone.getExecutor().execute(task);
+        }
+    }
+
+    /**
+     * Exactly the checks and calculations that {@link AStarPathFinder} does for each movement out of a node
+     */
+    private void compute(CalculationContext context, MutableMoveResult res, int x, int y, int z, Expansion out) {
+        for (int i = 0; i < ALL_MOVES.length; i++) {
+            Moves moves = ALL_MOVES[i];
+            int newX = x + moves.xOffset;
+            int newZ = z + moves.zOffset;
+            if ((newX >> 4 != x >> 4 || newZ >> 4 != z >> 4) && !context.isLoaded(newX, newZ)) {
+                out.outcome[i] = moves.dynamicXZ ? SKIPPED : EMPTY_CHUNK;
+                continue;
+            }
+            if (!moves.dynamicXZ && !worldBorder.entirelyContains(newX, newZ)) {
+                out.outcome[i] = SKIPPED;
+                continue;
+            }
+            if (y + moves.yOffset > 256 || y + moves.yOffset < 0) {
+                out.outcome[i] = SKIPPED;
+                continue;
+            }
+            res.reset();
+            moves.apply(context, x, y, z, res);
+            out.outcome[i] = COMPUTED;
+            out.x[i] = res.x;
+            out.y[i] = res.y;
+            out.z[i] = res.z;
+            out.cost[i] = res.cost;
+        }
+    }
+
+    /**
+     * What happened with each movement out of one position, indexed by {@link Moves#ordinal()}
+     */
+    static final class Expansion {
+
+        private final byte[] outcome = new byte[ALL_MOVES.length];
+        private final int[] x = new int[ALL_MOVES.length];
+        private final int[] y = new int[ALL_MOVES.length];
+        private final int[] z = new int[ALL_MOVES.length];
+        private final double[] cost = new double[ALL_MOVES.length];
+
+        byte outcome(int move) {
+            return outcome[move];
+        }
+
+        void copyTo(int move, MutableMoveResult res) {
+            res.x = x[move];
+            res.y = y[move];
+            res.z = z[move];
+            res.cost = cost[move];
+        }
+    }
+
+    /**
+     * The expansion of one node on another thread. The search thread and the worker each let go of the buffer once,
+     * and whichever of them is last hands it back to the pool.
+     */
+    private final class Speculation extends FutureTask<Expansion> {
+
+        private final Expansion expansion;
+        private final AtomicInteger holders = new AtomicInteger(2);
+
+        private Speculation(int x, int y, int z, Expansion expansion) {
+            super(() -> {
+                Worker worker = workers.take();
+                try {
+                    compute(worker.context, worker.result, x, y, z, expansion);
+                    return expansion;
+                } finally {
+                    workers.add(worker);
+                }
+            });
+            this.expansion = expansion;
+        }
+
+        @Override
+        public void run() {
+            // if it was cancelled before it started, this returns straight away, otherwise once the buffer is filled in
+            super.run();
+            release();
+        }
+
+        @Override
+        protected void done() { // also called if it's cancelled before it even started
+            inFlight.decrementAndGet();
+        }
+
+        private void release() {
+            if (holders.decrementAndGet() == 0) {
+                pool.offer(expansion);
+            }
+        }
+    }
+
+    private static final class Worker {
+
+        private final CalculationContext context;
+        private final MutableMoveResult result = new MutableMoveResult();
+
+        private Worker(CalculationContext context) {
+            this.context = context;
+        }
+    }
+}
@@ -29,8 +29,8 @@ import baritone.pathing.path.CutoffPath;
 import baritone.utils.pathing.PathBase;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -58,7 +58,10 @@ class Path extends PathBase {
 
     private final List<Movement> movements;
 
-    private final List<PathNode> nodes;
+    /**
+     * The cost from the start to each of the blocks on the path, parallel to {@link #path}
+     */
+    private final double[] costs;
 
     private final Goal goal;
 
@@ -75,21 +78,65 @@ class Path extends PathBase {
         this.movements = new ArrayList<>();
         this.goal = goal;
         this.context = context;
+        // count the length first and fill in from the back, rather than going through a linked list
+        int length = 0;
+        for (PathNode current = end; current != null; current = current.previous) {
+            length++;
+        }
+        BetterBlockPos[] positions = new BetterBlockPos[length];
+        this.costs = new double[length];
         PathNode current = end;
-        LinkedList<BetterBlockPos> tempPath = new LinkedList<>();
-        LinkedList<PathNode> tempNodes = new LinkedList<>();
-        // Repeatedly inserting to the beginning of an arraylist is O(n^2)
-        // Instead, do it into a linked list, then convert at the end
-        while (current != null) {
-            tempNodes.addFirst(current);
-            tempPath.addFirst(new BetterBlockPos(current.x, current.y, current.z));
+        for (int i = length - 1; i >= 0; i--) {
+            positions[i] = new BetterBlockPos(current.x, current.y, current.z);
+            costs[i] = current.cost;
             current = current.previous;
         }
-        // Can't directly convert from the PathNode pseudo linked list to an array because we don't know how long it is
-        // inserting into a LinkedList<E> keeps track of length, then when we addall (which calls .toArray) it's able
-        // to performantly do that conversion since it knows the length.
-        this.path = new ArrayList<>(tempPath);
-        this.nodes = new ArrayList<>(tempNodes);
+        this.path = new ArrayList<>(Arrays.asList(positions));
+    }
+
+    Path(NodeStore nodes, int start, int end, int numNodes, Goal goal, CalculationContext context) {
+        this.start = new BetterBlockPos(nodes.x(start), nodes.y(start), nodes.z(start));
+        this.end = new BetterBlockPos(nodes.x(end), nodes.y(end), nodes.z(end));
+        this.numNodes = numNodes;
+        this.movements = new ArrayList<>();
+        this.goal = goal;
+        this.context = context;
+        // count the length first and fill in from the back, rather than going through a linked list
+        int length = 0;
+        for (int current = end; current != NodeStore.NONE; current = nodes.previous(current)) {
+            if (++length > nodes.size()) {
+                throw new IllegalStateException("Cycle in previous node chain");
+            }
+        }
+        BetterBlockPos[] positions = new BetterBlockPos[length];
+        this.costs = new double[length];
+        int current = end;
+        for (int i = length - 1; i >= 0; i--) {
+            positions[i] = new BetterBlockPos(nodes.x(current), nodes.y(current), nodes.z(current));
+            costs[i] = nodes.cost(current);
+            current = nodes.previous(current);
+        }
+        this.path = new ArrayList<>(Arrays.asList(positions));
+    }
+
+    /**
+     * For searches that don't end up with a single previous chain from start to end, e.g. bidirectional
+     *
+     * @param positions The blocks on the path, from start to end
+     * @param costs     The cost from the start to each of those blocks
+     */
+    Path(List<BetterBlockPos> positions, double[] costs, int numNodes, Goal goal, CalculationContext context) {
+        if (positions.isEmpty() || positions.size() != costs.length) {
+            throw new IllegalStateException();
+        }
+        this.start = positions.get(0);
+        this.end = positions.get(positions.size() - 1);
+        this.numNodes = numNodes;
+        this.movements = new ArrayList<>();
+        this.goal = goal;
+        this.context = context;
+        this.path = new ArrayList<>(positions);
+        this.costs = costs;
     }
 
     @Override
@@ -102,7 +149,7 @@ class Path extends PathBase {
             throw new IllegalStateException();
         }
         for (int i = 0; i < path.size() - 1; i++) {
-            double cost = nodes.get(i + 1).cost - nodes.get(i).cost;
+            double cost = costs[i + 1] - costs[i];
             Movement move = runBackwards(path.get(i), path.get(i + 1), cost);
             if (move == null) {
                 return true;
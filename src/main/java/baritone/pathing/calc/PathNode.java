@@ -63,6 +63,11 @@ public final class PathNode {
      */
     public int heapPosition;
 
+    /**
+     * The handle of this node in its {@link PathNodeStore}, if it's in one
+     */
+    public int index = -1;
+
     public PathNode(int x, int y, int z, Goal goal) {
         this.previous = null;
         this.cost = ActionCosts.COST_INF;
@@ -0,0 +1,186 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.calc.openset.IOpenSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * A {@link NodeStore} of {@link PathNode} objects, in a map by position, with any {@link IOpenSet}. The handle of a
+ * node is {@link PathNode#index}.
+ * <p>
+ * Only the expander and the bidirectional search go through this, the plain search uses the nodes directly and skips
+ * the extra lookup by handle.
+ */
+final class PathNodeStore implements NodeStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * @see <a href="https://github.com/cabaletta/baritone/issues/107">Issue #107</a>
+     */
+    private final Long2ObjectOpenHashMap<PathNode> map;
+
+    /**
+     * Every node, by handle
+     */
+    private PathNode[] nodes = new PathNode[INITIAL_CAPACITY];
+
+    private int size;
+
+    private IOpenSet openSet;
+
+    PathNodeStore(Long2ObjectOpenHashMap<PathNode> map) {
+        this.map = map;
+    }
+
+    /**
+     * Forget every node. The map and the open set are cleared by whoever owns them.
+     */
+    void clear() {
+        Arrays.fill(nodes, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * @param openSet The open set to use from now on, empty
+     */
+    void setOpenSet(IOpenSet openSet) {
+        this.openSet = openSet;
+    }
+
+    PathNode node(int node) {
+        return nodes[node];
+    }
+
+    @Override
+    public int getOrCreate(int x, int y, int z, long hashCode, Goal goal) {
+        PathNode node = map.get(hashCode);
+        if (node == null) {
+            node = new PathNode(x, y, z, goal);
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length << 1);
+            }
+            node.index = size;
+            nodes[size++] = node;
+            map.put(hashCode, node);
+        }
+        return node.index;
+    }
+
+    @Override
+    public int get(long hashCode) {
+        PathNode node = map.get(hashCode);
+        return node == null ? NONE : node.index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int x(int node) {
+        return nodes[node].x;
+    }
+
+    @Override
+    public int y(int node) {
+        return nodes[node].y;
+    }
+
+    @Override
+    public int z(int node) {
+        return nodes[node].z;
+    }
+
+    @Override
+    public double estimatedCostToGoal(int node) {
+        return nodes[node].estimatedCostToGoal;
+    }
+
+    @Override
+    public double cost(int node) {
+        return nodes[node].cost;
+    }
+
+    @Override
+    public void setCost(int node, double cost) {
+        nodes[node].cost = cost;
+    }
+
+    @Override
+    public double combinedCost(int node) {
+        return nodes[node].combinedCost;
+    }
+
+    @Override
+    public void setCombinedCost(int node, double combinedCost) {
+        nodes[node].combinedCost = combinedCost;
+    }
+
+    @Override
+    public int previous(int node) {
+        PathNode previous = nodes[node].previous;
+        return previous == null ? NONE : previous.index;
+    }
+
+    @Override
+    public void setPrevious(int node, int previous) {
+        nodes[node].previous = previous == NONE ? null : nodes[previous];
+    }
+
+    @Override
+    public boolean isOpen(int node) {
+        return nodes[node].isOpen();
+    }
+
+    @Override
+    public void insert(int node) {
+        openSet.insert(nodes[node]);
+    }
+
+    @Override
+    public void update(int node) {
+        openSet.update(nodes[node]);
+    }
+
+    @Override
+    public int removeLowest() {
+        return openSet.removeLowest().index;
+    }
+
+    @Override
+    public boolean isOpenSetEmpty() {
+        return openSet.isEmpty();
+    }
+
+    @Override
+    public int openSetSize() {
+        return openSet.size();
+    }
+
+    @Override
+    public int peekAt(int index) {
+        return ((BinaryHeapOpenSet) openSet).peekAt(index).index;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.calc.openset.BucketOpenSet;
+import baritone.pathing.calc.openset.IOpenSet;
+import baritone.pathing.calc.openset.PairingHeapOpenSet;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The big per-search buffers (node maps, open sets, node pool), kept around and cleared between consecutive path
+ * calculations instead of being thrown away and grown from scratch for every segment.
+ * <p>
+ * Only one search can use an arena at a time. {@link #acquire(PathfinderArena)} hands out the shared arena if it's
+ * free, and a throwaway one otherwise (e.g. a cancelled search that hasn't noticed yet is still holding it).
+ */
+public final class PathfinderArena {
+
+    private final AtomicBoolean inUse = new AtomicBoolean();
+
+    private final boolean shared;
+
+    private Long2ObjectOpenHashMap<PathNode> map;
+    private PathNodeStore pathNodes;
+    private BinaryHeapOpenSet openSet;
+    private PairingHeapOpenSet pairingOpenSet;
+    private BucketOpenSet bucketOpenSet;
+
+    private NodePool pool;
+
+    /**
+     * The backward tree of a bidirectional search
+     */
+    private Long2ObjectOpenHashMap<PathNode> backwardMap;
+    private PathNodeStore backwardNodes;
+    private BinaryHeapOpenSet backwardOpenSet;
+
+    /**
+     * Buffers for {@link ParallelExpander} to calculate into on other threads. Workers from a search that was cancelled
+     * can still be handing theirs back while the next search is taking them out, hence the blocking queue.
+     */
+    private final BlockingQueue<ParallelExpander.Expansion> expansions = new ArrayBlockingQueue<>(1 << 8);
+
+    private final MutableMoveResult moveResult = new MutableMoveResult();
+
+    private final double[] bestHeuristicSoFar = new double[AbstractNodeCostSearch.COEFFICIENTS.length];
+
+    public PathfinderArena() {
+        this(true);
+    }
+
+    private PathfinderArena(boolean shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * @param arena The shared arena, may be null
+     * @return The shared arena, cleared and marked in use, or a new throwaway arena if it's null or already taken
+     */
+    static PathfinderArena acquire(PathfinderArena arena) {
+        if (arena == null || !arena.inUse.compareAndSet(false, true)) {
+            return new PathfinderArena(false);
+        }
+        arena.reset();
+        return arena;
+    }
+
+    void release() {
+        if (shared) {
+            inUse.set(false);
+        }
+    }
+
+    private void reset() {
+        int maxRetained = Baritone.settings().pathingArenaMaxRetainedNodes.value;
+        if (map != null) {
+            if (map.size() > maxRetained) {
+                // don't hang on to a huge table forever because of one giant search
+                map = null;
+                pathNodes = null;
+                openSet = null;
+                pairingOpenSet = null;
+                bucketOpenSet = null;
+            } else {
+                map.clear();
+                pathNodes.clear();
+                openSet.clear();
+                if (pairingOpenSet != null) {
+                    pairingOpenSet.clear();
+                }
+                if (bucketOpenSet != null) {
+                    bucketOpenSet.clear();
+                }
+            }
+        }
+        if (backwardMap != null) {
+            if (backwardMap.size() > maxRetained) {
+                backwardMap = null;
+                backwardNodes = null;
+                backwardOpenSet = null;
+            } else {
+                backwardMap.clear();
+                backwardNodes.clear();
+                backwardOpenSet.clear();
+            }
+        }
+        if (pool != null) {
+            if (pool.size() > maxRetained) {
+                pool = null;
+            } else {
+                pool.clear();
+            }
+        }
+        moveResult.reset();
+    }
+
+    Long2ObjectOpenHashMap<PathNode> map() {
+        if (map == null) {
+            map = new Long2ObjectOpenHashMap<>(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+            pathNodes = new PathNodeStore(map);
+            openSet = new BinaryHeapOpenSet();
+        }
+        return map;
+    }
+
+    BinaryHeapOpenSet openSet() {
+        map();
+        return openSet;
+    }
+
+    /**
+     * @param type The open set to use, see {@link baritone.api.Settings#pathingOpenSet}
+     */
+    IOpenSet openSet(String type) {
+        switch (type.toLowerCase()) {
+            case "pairing":
+                map();
+                if (pairingOpenSet == null) {
+                    pairingOpenSet = new PairingHeapOpenSet();
+                }
+                return pairingOpenSet;
+            case "bucket":
+                map();
+                if (bucketOpenSet == null) {
+                    bucketOpenSet = new BucketOpenSet();
+                }
+                return bucketOpenSet;
+            default:
+                return openSet();
+        }
+    }
+
+    NodePool pool() {
+        if (pool == null) {
+            pool = new NodePool(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+        }
+        return pool;
+    }
+
+    /**
+     * @param pooled  Whether to use a {@link NodePool}, see {@link baritone.api.Settings#pathingNodePool}
+     * @param openSet The open set to use otherwise, see {@link #openSet(String)}
+     * @return The nodes for {@link AStarPathFinder}, with an empty open set
+     */
+    NodeStore nodes(boolean pooled, String openSet) {
+        if (pooled) {
+            return pool();
+        }
+        IOpenSet set = openSet(openSet);
+        pathNodes.setOpenSet(set);
+        return pathNodes;
+    }
+
+    /**
+     * @return The nodes for the backward tree of a bidirectional search, with an empty binary heap open set
+     */
+    NodeStore backwardNodes() {
+        if (backwardMap == null) {
+            backwardMap = new Long2ObjectOpenHashMap<>(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+            backwardNodes = new PathNodeStore(backwardMap);
+            backwardOpenSet = new BinaryHeapOpenSet();
+            backwardNodes.setOpenSet(backwardOpenSet);
+        }
+        return backwardNodes;
+    }
+
+    BlockingQueue<ParallelExpander.Expansion> expansions() {
+        return expansions;
+    }
+
+    MutableMoveResult moveResult() {
+        return moveResult;
+    }
+
+    double[] bestHeuristicSoFar() {
+        return bestHeuristicSoFar;
+    }
+}
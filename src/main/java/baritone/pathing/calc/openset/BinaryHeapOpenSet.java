@@ -52,10 +52,19 @@ public final class BinaryHeapOpenSet implements IOpenSet {
         this.array = new PathNode[size];
     }
 
+    @Override
     public int size() {
         return size;
     }
 
+    /**
+     * Empty the heap, keeping the backing array at its current capacity
+     */
+    public void clear() {
+        Arrays.fill(array, 1, size + 1, null);
+        size = 0;
+    }
+
     @Override
     public final void insert(PathNode value) {
         if (size >= array.length - 1) {
@@ -84,6 +93,27 @@ public final class BinaryHeapOpenSet implements IOpenSet {
         }
     }
 
+    /**
+     * @return The minimum element in the heap, without removing it
+     */
+    public PathNode peekLowest() {
+        if (size == 0) {
+            throw new IllegalStateException();
+        }
+        return array[1];
+    }
+
+    /**
+     * @param index A 1 based position in the heap, at most {@link #size()}
+     * @return The node there. The first few are among the lowest few nodes, but not in any particular order.
+     */
+    public PathNode peekAt(int index) {
+        if (index < 1 || index > size) {
+            throw new IllegalStateException();
+        }
+        return array[index];
+    }
+
     @Override
     public final boolean isEmpty() {
         return size == 0;
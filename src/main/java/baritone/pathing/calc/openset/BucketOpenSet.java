@@ -0,0 +1,323 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import baritone.pathing.calc.PathNode;
+
+import java.util.Arrays;
+
+/**
+ * A bucket queue implementation of an open set, keyed on combinedCost rounded down to a multiple of {@link #WIDTH}.
+ * <p>
+ * Nodes well above the current minimum just get appended to the list for their bucket, without any comparisons. Only
+ * the lowest bucket is kept in a (small) binary heap, so that nodes still come out in exactly the same order as they
+ * would from {@link BinaryHeapOpenSet}. Nodes that come in below the lowest bucket (the heuristic isn't always
+ * consistent, and favoring makes some movements cheaper than it assumes) go straight into that heap too.
+ * <p>
+ * The buckets cover a window of {@link #BUCKETS} widths, anything above that waits in an overflow list until the window
+ * is used up and moves up to the lowest overflow node.
+ * <p>
+ * {@link PathNode#heapPosition} is the position in the heap (1 or more) for nodes in the heap, and -2 minus the slot
+ * for nodes in a bucket.
+ */
+public final class BucketOpenSet implements IOpenSet {
+
+    /**
+     * The width of a bucket, in ticks. A* pops nodes in steps much smaller than a tick, so each bucket is a decent batch.
+     */
+    private static final double WIDTH = 1;
+
+    private static final int BUCKETS = 1024;
+
+    private static final int OVERFLOW = BUCKETS;
+
+    private static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The binary heap of everything below {@link #threshold}, 1 indexed like {@link BinaryHeapOpenSet}
+     */
+    private PathNode[] heap;
+    private int heapSize;
+
+    /**
+     * The first slot in each bucket, and the first slot in the overflow list at the end
+     */
+    private final int[] heads = new int[BUCKETS + 1];
+
+    private PathNode[] slotNodes;
+    private int[] slotBucket;
+
+    /**
+     * The next slot in the same bucket, or the next free slot for slots that aren't in use
+     */
+    private int[] next;
+    private int[] prev;
+
+    private int freeSlot = NONE;
+    private int highestSlot;
+    private int bucketed;
+
+    /**
+     * The bucket number of the first bucket in the window
+     */
+    private long windowStart;
+
+    /**
+     * Every bucket number below this has been moved into the heap
+     */
+    private long threshold;
+
+    public BucketOpenSet() {
+        heap = new PathNode[INITIAL_CAPACITY];
+        slotNodes = new PathNode[INITIAL_CAPACITY];
+        slotBucket = new int[INITIAL_CAPACITY];
+        next = new int[INITIAL_CAPACITY];
+        prev = new int[INITIAL_CAPACITY];
+        clear();
+    }
+
+    @Override
+    public int size() {
+        return heapSize + bucketed;
+    }
+
+    /**
+     * Empty the open set, keeping the backing arrays at their current capacity
+     */
+    public void clear() {
+        Arrays.fill(heap, 1, heapSize + 1, null);
+        Arrays.fill(slotNodes, 0, highestSlot, null);
+        Arrays.fill(heads, NONE);
+        heapSize = 0;
+        freeSlot = NONE;
+        highestSlot = 0;
+        bucketed = 0;
+        // the first insert decides where the window starts
+        windowStart = Long.MIN_VALUE;
+        threshold = Long.MIN_VALUE;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return heapSize == 0 && bucketed == 0;
+    }
+
+    @Override
+    public void insert(PathNode node) {
+        long bucket = bucketOf(node.combinedCost);
+        if (windowStart == Long.MIN_VALUE) {
+            windowStart = bucket;
+            threshold = bucket;
+        }
+        if (bucket < threshold) {
+            heapInsert(node);
+            return;
+        }
+        link(node, bucket - windowStart < BUCKETS ? (int) (bucket - windowStart) : OVERFLOW);
+    }
+
+    @Override
+    public void update(PathNode node) {
+        if (node.heapPosition > 0) {
+            heapUpdate(node);
+            return;
+        }
+        // it got cheaper, it might belong in a lower bucket now, or even the heap
+        unlink(-2 - node.heapPosition);
+        insert(node);
+    }
+
+    @Override
+    public PathNode removeLowest() {
+        if (heapSize == 0) {
+            refill();
+        }
+        return heapRemoveLowest();
+    }
+
+    /**
+     * Move the lowest nonempty bucket into the heap
+     */
+    private void refill() {
+        if (bucketed == 0) {
+            throw new IllegalStateException();
+        }
+        while (true) {
+            for (long bucket = threshold; bucket - windowStart < BUCKETS; bucket++) {
+                int index = (int) (bucket - windowStart);
+                if (heads[index] != NONE) {
+                    threshold = bucket + 1;
+                    drainInto(index);
+                    return;
+                }
+            }
+            // the whole window is empty, so everything left is in overflow. start the window at the lowest of those
+            long lowest = Long.MAX_VALUE;
+            for (int slot = heads[OVERFLOW]; slot != NONE; slot = next[slot]) {
+                lowest = Math.min(lowest, bucketOf(slotNodes[slot].combinedCost));
+            }
+            windowStart = lowest;
+            threshold = lowest;
+            int slot = heads[OVERFLOW];
+            heads[OVERFLOW] = NONE;
+            while (slot != NONE) {
+                int following = next[slot];
+                PathNode node = slotNodes[slot];
+                free(slot);
+                bucketed--;
+                insert(node);
+                slot = following;
+            }
+        }
+    }
+
+    private void drainInto(int index) {
+        int slot = heads[index];
+        heads[index] = NONE;
+        while (slot != NONE) {
+            int following = next[slot];
+            PathNode node = slotNodes[slot];
+            free(slot);
+            bucketed--;
+            heapInsert(node);
+            slot = following;
+        }
+    }
+
+    private static long bucketOf(double cost) {
+        return (long) Math.floor(cost / WIDTH);
+    }
+
+    private void link(PathNode node, int index) {
+        int slot = allocate();
+        slotNodes[slot] = node;
+        slotBucket[slot] = index;
+        int head = heads[index];
+        next[slot] = head;
+        prev[slot] = NONE;
+        if (head != NONE) {
+            prev[head] = slot;
+        }
+        heads[index] = slot;
+        node.heapPosition = -2 - slot;
+        bucketed++;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NONE) {
+            heads[slotBucket[slot]] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+        free(slot);
+        bucketed--;
+    }
+
+    private int allocate() {
+        if (freeSlot != NONE) {
+            int slot = freeSlot;
+            freeSlot = next[slot];
+            return slot;
+        }
+        if (highestSlot == slotNodes.length) {
+            int capacity = slotNodes.length << 1;
+            slotNodes = Arrays.copyOf(slotNodes, capacity);
+            slotBucket = Arrays.copyOf(slotBucket, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+        }
+        return highestSlot++;
+    }
+
+    private void free(int slot) {
+        slotNodes[slot] = null;
+        next[slot] = freeSlot;
+        freeSlot = slot;
+    }
+
+    private void heapInsert(PathNode value) {
+        if (heapSize >= heap.length - 1) {
+            heap = Arrays.copyOf(heap, heap.length << 1);
+        }
+        heapSize++;
+        value.heapPosition = heapSize;
+        heap[heapSize] = value;
+        heapUpdate(value);
+    }
+
+    private void heapUpdate(PathNode val) {
+        int index = val.heapPosition;
+        int parentInd = index >>> 1;
+        double cost = val.combinedCost;
+        PathNode parentNode = heap[parentInd];
+        while (index > 1 && parentNode.combinedCost > cost) {
+            heap[index] = parentNode;
+            heap[parentInd] = val;
+            val.heapPosition = parentInd;
+            parentNode.heapPosition = index;
+            index = parentInd;
+            parentInd = index >>> 1;
+            parentNode = heap[parentInd];
+        }
+    }
+
+    private PathNode heapRemoveLowest() {
+        PathNode result = heap[1];
+        PathNode val = heap[heapSize];
+        heap[1] = val;
+        val.heapPosition = 1;
+        heap[heapSize] = null;
+        heapSize--;
+        result.heapPosition = -1;
+        if (heapSize < 2) {
+            return result;
+        }
+        int index = 1;
+        int smallerChild = 2;
+        double cost = val.combinedCost;
+        do {
+            PathNode smallerChildNode = heap[smallerChild];
+            double smallerChildCost = smallerChildNode.combinedCost;
+            if (smallerChild < heapSize) {
+                PathNode rightChildNode = heap[smallerChild + 1];
+                double rightChildCost = rightChildNode.combinedCost;
+                if (smallerChildCost > rightChildCost) {
+                    smallerChild++;
+                    smallerChildCost = rightChildCost;
+                    smallerChildNode = rightChildNode;
+                }
+            }
+            if (cost <= smallerChildCost) {
+                break;
+            }
+            heap[index] = smallerChildNode;
+            heap[smallerChild] = val;
+            val.heapPosition = smallerChild;
+            smallerChildNode.heapPosition = index;
+            index = smallerChild;
+        } while ((smallerChild <<= 1) <= heapSize);
+        return result;
+    }
+}
@@ -38,6 +38,11 @@ public interface IOpenSet {
      */
     boolean isEmpty();
 
+    /**
+     * @return The number of elements in the heap
+     */
+    int size();
+
     /**
      * Removes and returns the minimum element in the heap.
      *
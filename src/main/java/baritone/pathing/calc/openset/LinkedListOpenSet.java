@@ -30,17 +30,25 @@ class LinkedListOpenSet implements IOpenSet {
 
     private Node first = null;
 
+    private int size = 0;
+
     @Override
     public boolean isEmpty() {
         return first == null;
     }
 
+    @Override
+    public int size() {
+        return size;
+    }
+
     @Override
     public void insert(PathNode pathNode) {
         Node node = new Node();
         node.val = pathNode;
         node.nextOpen = first;
         first = node;
+        size++;
     }
 
     @Override
@@ -53,6 +61,7 @@ class LinkedListOpenSet implements IOpenSet {
         if (first == null) {
             return null;
         }
+        size--;
         Node current = first.nextOpen;
         if (current == null) {
             Node n = first;
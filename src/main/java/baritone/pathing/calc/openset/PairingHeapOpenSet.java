@@ -0,0 +1,210 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import baritone.pathing.calc.PathNode;
+
+import java.util.Arrays;
+
+/**
+ * A pairing heap implementation of an open set. Insert and decrease-key are O(1), all the work is deferred to
+ * removeLowest.
+ * <p>
+ * The tree is kept in parallel int arrays indexed by slot, and {@link PathNode#heapPosition} is the node's slot, so
+ * there's no extra object per node.
+ */
+public final class PairingHeapOpenSet implements IOpenSet {
+
+    private static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private PathNode[] nodes;
+
+    /**
+     * The leftmost child of each slot
+     */
+    private int[] child;
+
+    /**
+     * The next sibling to the right of each slot, or the next free slot for slots that aren't in use
+     */
+    private int[] sibling;
+
+    /**
+     * The parent if this is the leftmost child, otherwise the sibling to the left
+     */
+    private int[] prev;
+
+    /**
+     * Scratch space for the two pass merge in removeLowest
+     */
+    private int[] pairs;
+
+    private int root = NONE;
+    private int freeSlot = NONE;
+    private int highestSlot;
+    private int size;
+
+    public PairingHeapOpenSet() {
+        nodes = new PathNode[INITIAL_CAPACITY];
+        child = new int[INITIAL_CAPACITY];
+        sibling = new int[INITIAL_CAPACITY];
+        prev = new int[INITIAL_CAPACITY];
+        pairs = new int[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Empty the heap, keeping the backing arrays at their current capacity
+     */
+    public void clear() {
+        Arrays.fill(nodes, 0, highestSlot, null);
+        root = NONE;
+        freeSlot = NONE;
+        highestSlot = 0;
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void insert(PathNode node) {
+        int slot = allocate();
+        nodes[slot] = node;
+        child[slot] = NONE;
+        sibling[slot] = NONE;
+        prev[slot] = NONE;
+        node.heapPosition = slot;
+        root = root == NONE ? slot : meld(root, slot);
+        size++;
+    }
+
+    @Override
+    public void update(PathNode node) {
+        int slot = node.heapPosition;
+        if (slot == root) {
+            return;
+        }
+        // cut it out, with its subtree, and put it back in at the top
+        int before = prev[slot];
+        int after = sibling[slot];
+        if (child[before] == slot) {
+            child[before] = after;
+        } else {
+            sibling[before] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+        sibling[slot] = NONE;
+        prev[slot] = NONE;
+        root = meld(root, slot);
+    }
+
+    @Override
+    public PathNode removeLowest() {
+        if (size == 0) {
+            throw new IllegalStateException();
+        }
+        int oldRoot = root;
+        PathNode result = nodes[oldRoot];
+        root = mergePairs(child[oldRoot]);
+        nodes[oldRoot] = null;
+        sibling[oldRoot] = freeSlot;
+        freeSlot = oldRoot;
+        size--;
+        result.heapPosition = -1;
+        return result;
+    }
+
+    /**
+     * @param a The root of a tree
+     * @param b The root of another tree
+     * @return The root of the two trees combined
+     */
+    private int meld(int a, int b) {
+        if (nodes[b].combinedCost < nodes[a].combinedCost) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        int first = child[a];
+        sibling[b] = first;
+        if (first != NONE) {
+            prev[first] = b;
+        }
+        prev[b] = a;
+        child[a] = b;
+        return a;
+    }
+
+    /**
+     * The standard two pass merge: meld the children in pairs from left to right, then meld those from right to left
+     */
+    private int mergePairs(int first) {
+        if (first == NONE) {
+            return NONE;
+        }
+        int count = 0;
+        int current = first;
+        while (current != NONE) {
+            int a = current;
+            int b = sibling[a];
+            sibling[a] = NONE;
+            prev[a] = NONE;
+            if (b == NONE) {
+                pairs[count++] = a;
+                break;
+            }
+            current = sibling[b];
+            sibling[b] = NONE;
+            prev[b] = NONE;
+            pairs[count++] = meld(a, b);
+        }
+        int result = pairs[--count];
+        while (count > 0) {
+            result = meld(pairs[--count], result);
+        }
+        return result;
+    }
+
+    private int allocate() {
+        if (freeSlot != NONE) {
+            int slot = freeSlot;
+            freeSlot = sibling[slot];
+            return slot;
+        }
+        if (highestSlot == nodes.length) {
+            int capacity = nodes.length << 1;
+            nodes = Arrays.copyOf(nodes, capacity);
+            child = Arrays.copyOf(child, capacity);
+            sibling = Arrays.copyOf(sibling, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            pairs = new int[capacity];
+        }
+        return highestSlot++;
+    }
+}
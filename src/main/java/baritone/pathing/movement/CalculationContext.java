@@ -21,6 +21,7 @@ import baritone.Baritone;
 import baritone.api.IBaritone;
 import baritone.api.pathing.movement.ActionCosts;
 import baritone.cache.WorldData;
+import baritone.pathing.precompute.BlockMemo;
 import baritone.pathing.precompute.PrecomputedData;
 import baritone.utils.BlockStateInterface;
 import baritone.utils.ToolSet;
@@ -83,12 +84,17 @@ public class CalculationContext {
 
     public final PrecomputedData precomputedData;
 
+    /**
+     * Null if {@link baritone.api.Settings#pathingBlockMemoSize} is 0. Use {@link #blockMemo()} rather than this.
+     */
+    public final BlockMemo blockMemo;
+
     public CalculationContext(IBaritone baritone) {
         this(baritone, false);
     }
 
     public CalculationContext(IBaritone baritone, boolean forUseOnAnotherThread) {
-        this.precomputedData = new PrecomputedData();
+        this.blockMemo = newBlockMemo();
         this.safeForThreadedUse = forUseOnAnotherThread;
         this.baritone = baritone;
         EntityPlayerSP player = baritone.getPlayerContext().player();
@@ -96,6 +102,7 @@ public class CalculationContext {
         this.worldData = (WorldData) baritone.getPlayerContext().worldData();
         this.bsi = new BlockStateInterface(baritone.getPlayerContext(), forUseOnAnotherThread);
         this.toolSet = new ToolSet(player);
+        this.precomputedData = new PrecomputedData(toolSet);
         this.hasThrowaway = Baritone.settings().allowPlace.value && ((Baritone) baritone).getInventoryBehavior().hasGenericThrowaway();
         this.hasWaterBucket = Baritone.settings().allowWaterBucketFall.value && InventoryPlayer.isHotbar(player.inventory.getSlotFor(STACK_BUCKET_WATER)) && !world.provider.isNether();
         this.canSprint = Baritone.settings().allowSprint.value && player.getFoodStats().getFoodLevel() > 6;
@@ -131,6 +138,108 @@ public class CalculationContext {
         this.worldBorder = new BetterWorldBorder(world.getWorldBorder());
     }
 
+    /**
+     * A context with no client and no player, to path through a {@link baritone.cache.HeadlessWorld}. Settings are read
+     * as usual, but as far as inventory goes there's just the one tool and maybe some throwaway blocks, no water bucket
+     * and no enchantments.
+     *
+     * @param bsi          Where to read blocks from, e.g. a {@link baritone.utils.HeadlessBlockStateInterface}
+     * @param tool         What to break blocks with, {@link ItemStack#EMPTY} for bare hands
+     * @param hasThrowaway Whether there are blocks to place, if {@link baritone.api.Settings#allowPlace} is on
+     */
+    public CalculationContext(BlockStateInterface bsi, ItemStack tool, boolean hasThrowaway) {
+        this.blockMemo = newBlockMemo();
+        this.safeForThreadedUse = true;
+        this.baritone = null;
+        this.world = null;
+        this.worldData = null;
+        this.bsi = bsi;
+        this.toolSet = new ToolSet(tool);
+        this.precomputedData = new PrecomputedData(toolSet);
+        this.hasThrowaway = Baritone.settings().allowPlace.value && hasThrowaway;
+        this.hasWaterBucket = false;
+        this.canSprint = Baritone.settings().allowSprint.value;
+        this.placeBlockCost = Baritone.settings().blockPlacementPenalty.value;
+        this.allowBreak = Baritone.settings().allowBreak.value;
+        this.allowBreakAnyway = new ArrayList<>(Baritone.settings().allowBreakAnyway.value);
+        this.allowParkour = Baritone.settings().allowParkour.value;
+        this.allowParkourPlace = Baritone.settings().allowParkourPlace.value;
+        this.allowJumpAt256 = Baritone.settings().allowJumpAt256.value;
+        this.allowParkourAscend = Baritone.settings().allowParkourAscend.value;
+        this.assumeWalkOnWater = Baritone.settings().assumeWalkOnWater.value;
+        this.allowFallIntoLava = false;
+        this.frostWalker = 0;
+        this.allowDiagonalDescend = Baritone.settings().allowDiagonalDescend.value;
+        this.allowDiagonalAscend = Baritone.settings().allowDiagonalAscend.value;
+        this.allowDownward = Baritone.settings().allowDownward.value;
+        this.minFallHeight = 3;
+        this.maxFallHeightNoWater = Baritone.settings().maxFallHeightNoWater.value;
+        this.maxFallHeightBucket = Baritone.settings().maxFallHeightBucket.value;
+        this.waterWalkSpeed = ActionCosts.WALK_ONE_IN_WATER_COST;
+        this.breakBlockAdditionalCost = Baritone.settings().blockBreakAdditionalPenalty.value;
+        this.backtrackCostFavoringCoefficient = Baritone.settings().backtrackCostFavoringCoefficient.value;
+        this.jumpPenalty = Baritone.settings().jumpPenalty.value;
+        this.walkOnWaterOnePenalty = Baritone.settings().walkOnWaterOnePenalty.value;
+        this.worldBorder = bsi.worldBorder;
+    }
+
+    /**
+     * A copy of another context, with its own {@link BlockStateInterface} so that both can be used at the same time from
+     * different threads. If the other one reads from chunk snapshots, this one reads from the same ones. Like the other
+     * constructors, this has to be called on the main thread.
+     *
+     * @param other The context to copy
+     */
+    public CalculationContext(CalculationContext other) {
+        this.blockMemo = newBlockMemo();
+        this.safeForThreadedUse = true;
+        this.baritone = other.baritone;
+        this.world = other.world;
+        this.worldData = other.worldData;
+        this.bsi = new BlockStateInterface(baritone.getPlayerContext(), other.bsi);
+        this.toolSet = new ToolSet(baritone.getPlayerContext().player());
+        this.precomputedData = new PrecomputedData(toolSet);
+        this.hasThrowaway = other.hasThrowaway;
+        this.hasWaterBucket = other.hasWaterBucket;
+        this.canSprint = other.canSprint;
+        this.placeBlockCost = other.placeBlockCost;
+        this.allowBreak = other.allowBreak;
+        this.allowBreakAnyway = other.allowBreakAnyway;
+        this.allowParkour = other.allowParkour;
+        this.allowParkourPlace = other.allowParkourPlace;
+        this.allowJumpAt256 = other.allowJumpAt256;
+        this.allowParkourAscend = other.allowParkourAscend;
+        this.assumeWalkOnWater = other.assumeWalkOnWater;
+        this.allowFallIntoLava = other.allowFallIntoLava;
+        this.frostWalker = other.frostWalker;
+        this.allowDiagonalDescend = other.allowDiagonalDescend;
+        this.allowDiagonalAscend = other.allowDiagonalAscend;
+        this.allowDownward = other.allowDownward;
+        this.minFallHeight = other.minFallHeight;
+        this.maxFallHeightNoWater = other.maxFallHeightNoWater;
+        this.maxFallHeightBucket = other.maxFallHeightBucket;
+        this.waterWalkSpeed = other.waterWalkSpeed;
+        this.breakBlockAdditionalCost = other.breakBlockAdditionalCost;
+        this.backtrackCostFavoringCoefficient = other.backtrackCostFavoringCoefficient;
+        this.jumpPenalty = other.jumpPenalty;
+        this.walkOnWaterOnePenalty = other.walkOnWaterOnePenalty;
+        this.worldBorder = other.worldBorder;
+    }
+
+    private static BlockMemo newBlockMemo() {
+        int size = Baritone.settings().pathingBlockMemoSize.value;
+        return size > 0 ? new BlockMemo(size) : null;
+    }
+
+    /**
+     * @return The memo of the search running on this thread, or null if there isn't one, such as when the path executor
+     * checks costs on the main thread while the next segment is being calculated with this same context
+     */
+    public BlockMemo blockMemo() {
+        BlockMemo memo = blockMemo;
+        return memo != null && memo.isHeldByCurrentThread() ? memo : null;
+    }
+
     public final IBaritone getBaritone() {
         return baritone;
     }
@@ -68,7 +68,7 @@ public abstract class Movement implements IMovement, MovementHelper {
 
     protected Movement(IBaritone baritone, BetterBlockPos src, BetterBlockPos dest, BetterBlockPos[] toBreak, BetterBlockPos toPlace) {
         this.baritone = baritone;
-        this.ctx = baritone.getPlayerContext();
+        this.ctx = baritone == null ? null : baritone.getPlayerContext(); // no player when headless, can be costed but not executed
         this.src = src;
         this.dest = dest;
         this.positionsToBreak = toBreak;
@@ -295,4 +295,11 @@ public abstract class Movement implements IMovement, MovementHelper {
     public BlockPos[] toBreakAll() {
         return positionsToBreak;
     }
+
+    /**
+     * @return The position this movement might need to place a block at, or null if it never places one
+     */
+    public BetterBlockPos getPositionToPlace() {
+        return positionToPlace;
+    }
 }
@@ -25,6 +25,7 @@ import baritone.api.pathing.movement.MovementStatus;
 import baritone.api.utils.*;
 import baritone.api.utils.input.Input;
 import baritone.pathing.movement.MovementState.MovementTarget;
+import baritone.pathing.precompute.BlockMemo;
 import baritone.pathing.precompute.Ternary;
 import baritone.utils.BlockStateInterface;
 import baritone.utils.ToolSet;
@@ -54,12 +55,28 @@ public interface MovementHelper extends ActionCosts, Helper {
         if (!bsi.worldBorder.canPlaceAt(x, z)) {
             return true;
         }
+        return avoidBreakingBlockState(state) || avoidBreakingAdjacent(bsi, x, y, z);
+    }
+
+    static boolean avoidBreaking(CalculationContext context, int x, int y, int z, IBlockState state) {
+        return context.precomputedData.avoidBreaking(context.bsi, x, y, z, state);
+    }
+
+    /**
+     * The part of {@link #avoidBreaking} that only depends on the state
+     * <p>
+     * If changing something in this function remember to also change it in precomputed data
+     */
+    static boolean avoidBreakingBlockState(IBlockState state) {
         Block b = state.getBlock();
         return Baritone.settings().blocksToDisallowBreaking.value.contains(b)
                 || b == Blocks.ICE // ice becomes water, and water can mess up the path
-                || b instanceof BlockSilverfish // obvious reasons
-                // call context.get directly with x,y,z. no need to make 5 new BlockPos for no reason
-                || avoidAdjacentBreaking(bsi, x, y + 1, z, true)
+                || b instanceof BlockSilverfish; // obvious reasons
+    }
+
+    static boolean avoidBreakingAdjacent(BlockStateInterface bsi, int x, int y, int z) {
+        // call context.get directly with x,y,z. no need to make 5 new BlockPos for no reason
+        return avoidAdjacentBreaking(bsi, x, y + 1, z, true)
                 || avoidAdjacentBreaking(bsi, x + 1, y, z, false)
                 || avoidAdjacentBreaking(bsi, x - 1, y, z, false)
                 || avoidAdjacentBreaking(bsi, x, y, z + 1, false)
@@ -102,11 +119,21 @@ public interface MovementHelper extends ActionCosts, Helper {
     }
 
     static boolean canWalkThrough(CalculationContext context, int x, int y, int z, IBlockState state) {
-        return context.precomputedData.canWalkThrough(context.bsi, x, y, z, state);
+        BlockMemo memo = context.blockMemo();
+        if (memo == null) {
+            return context.precomputedData.canWalkThrough(context.bsi, x, y, z, state);
+        }
+        int known = memo.canWalkThrough(x, y, z, state);
+        if (known >= 0) {
+            return known != 0;
+        }
+        boolean canWalkThrough = context.precomputedData.canWalkThrough(context.bsi, x, y, z, state);
+        memo.putCanWalkThrough(x, y, z, state, canWalkThrough);
+        return canWalkThrough;
     }
 
     static boolean canWalkThrough(CalculationContext context, int x, int y, int z) {
-        return context.precomputedData.canWalkThrough(context.bsi, x, y, z, context.get(x, y, z));
+        return canWalkThrough(context, x, y, z, context.get(x, y, z));
     }
 
     static boolean canWalkThrough(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
@@ -274,6 +301,21 @@ public interface MovementHelper extends ActionCosts, Helper {
     }
 
     static boolean isReplaceable(int x, int y, int z, IBlockState state, BlockStateInterface bsi) {
+        Ternary replaceable = isReplaceableBlockState(state);
+        if (replaceable == YES) {
+            return true;
+        }
+        if (replaceable == NO) {
+            return false;
+        }
+        return isReplaceablePosition(bsi, x, y, z, state);
+    }
+
+    static boolean isReplaceable(CalculationContext context, int x, int y, int z, IBlockState state) {
+        return context.precomputedData.isReplaceable(context.bsi, x, y, z, state);
+    }
+
+    static Ternary isReplaceableBlockState(IBlockState state) {
         // for MovementTraverse and MovementAscend
         // block double plant defaults to true when the block doesn't match, so don't need to check that case
         // all other overrides just return true or false
@@ -287,20 +329,26 @@ public interface MovementHelper extends ActionCosts, Helper {
         Block block = state.getBlock();
         if (block == Blocks.AIR || isWater(block)) {
             // early return for common cases hehe
-            return true;
+            return YES;
         }
         if (block instanceof BlockSnow) {
-            // as before, default to true (mostly because it would otherwise make long distance pathing through snowy biomes impossible)
-            if (!bsi.worldContainsLoadedChunk(x, z)) {
-                return true;
-            }
-            return state.getValue(BlockSnow.LAYERS) == 1;
+            // deeper snow is only replaceable where the chunk isn't loaded, see isReplaceablePosition
+            return state.getValue(BlockSnow.LAYERS) == 1 ? YES : MAYBE;
         }
         if (block instanceof BlockDoublePlant) {
             BlockDoublePlant.EnumPlantType kek = state.getValue(BlockDoublePlant.VARIANT);
-            return kek == BlockDoublePlant.EnumPlantType.FERN || kek == BlockDoublePlant.EnumPlantType.GRASS;
+            return kek == BlockDoublePlant.EnumPlantType.FERN || kek == BlockDoublePlant.EnumPlantType.GRASS ? YES : NO;
+        }
+        return state.getMaterial().isReplaceable() ? YES : NO;
+    }
+
+    static boolean isReplaceablePosition(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
+        // only snow gets here
+        // as before, default to true (mostly because it would otherwise make long distance pathing through snowy biomes impossible)
+        if (!bsi.worldContainsLoadedChunk(x, z)) {
+            return true;
         }
-        return state.getMaterial().isReplaceable();
+        return state.getValue(BlockSnow.LAYERS) == 1;
     }
 
     @Deprecated
@@ -363,6 +411,10 @@ public interface MovementHelper extends ActionCosts, Helper {
                 || block == Blocks.WEB;
     }
 
+    static boolean avoidWalkingInto(CalculationContext context, IBlockState state) {
+        return context.precomputedData.avoidWalkingInto(state);
+    }
+
     /**
      * Can I walk on this block without anything weird happening like me falling
      * through? Includes water because we know that we automatically jump on
@@ -455,7 +507,17 @@ public interface MovementHelper extends ActionCosts, Helper {
     }
 
     static boolean canWalkOn(CalculationContext context, int x, int y, int z, IBlockState state) {
-        return context.precomputedData.canWalkOn(context.bsi, x, y, z, state);
+        BlockMemo memo = context.blockMemo();
+        if (memo == null) {
+            return context.precomputedData.canWalkOn(context.bsi, x, y, z, state);
+        }
+        int known = memo.canWalkOn(x, y, z, state);
+        if (known >= 0) {
+            return known != 0;
+        }
+        boolean canWalkOn = context.precomputedData.canWalkOn(context.bsi, x, y, z, state);
+        memo.putCanWalkOn(x, y, z, state, canWalkOn);
+        return canWalkOn;
     }
 
     static boolean canWalkOn(CalculationContext context, int x, int y, int z) {
@@ -527,6 +589,14 @@ public interface MovementHelper extends ActionCosts, Helper {
         if (!bsi.worldBorder.canPlaceAt(x, z)) {
             return false;
         }
+        return canPlaceAgainstBlockState(state);
+    }
+
+    static boolean canPlaceAgainst(CalculationContext context, int x, int y, int z) {
+        return context.precomputedData.canPlaceAgainst(context.bsi, x, y, z, context.get(x, y, z));
+    }
+
+    static boolean canPlaceAgainstBlockState(IBlockState state) {
         // can we look at the center of a side face of this block and likely be able to place?
         // (thats how this check is used)
         // therefore dont include weird things that we technically could place against (like carpet) but practically can't
@@ -538,6 +608,31 @@ public interface MovementHelper extends ActionCosts, Helper {
     }
 
     static double getMiningDurationTicks(CalculationContext context, int x, int y, int z, IBlockState state, boolean includeFalling) {
+        double result;
+        BlockMemo memo = context.blockMemo();
+        if (memo == null) {
+            result = getMiningDurationTicksOf(context, x, y, z, state);
+        } else {
+            result = memo.miningTicks(x, y, z, state);
+            if (Double.isNaN(result)) {
+                result = getMiningDurationTicksOf(context, x, y, z, state);
+                memo.putMiningTicks(x, y, z, state, result);
+            }
+        }
+        // 0 means we won't actually mine it, so don't check fallings above
+        if (includeFalling && result > 0 && result < COST_INF) {
+            IBlockState above = context.get(x, y + 1, z);
+            if (above.getBlock() instanceof BlockFalling) {
+                result += getMiningDurationTicks(context, x, y + 1, z, above, true);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The ticks to mine just this one block, without any falling blocks above it
+     */
+    static double getMiningDurationTicksOf(CalculationContext context, int x, int y, int z, IBlockState state) {
         Block block = state.getBlock();
         if (!canWalkThrough(context, x, y, z, state)) {
             if (block instanceof BlockLiquid) {
@@ -547,25 +642,19 @@ public interface MovementHelper extends ActionCosts, Helper {
             if (mult >= COST_INF) {
                 return COST_INF;
             }
-            if (avoidBreaking(context.bsi, x, y, z, state)) {
+            if (avoidBreaking(context, x, y, z, state)) {
                 return COST_INF;
             }
-            double strVsBlock = context.toolSet.getStrVsBlock(state);
+            double strVsBlock = context.precomputedData.getStrVsBlock(state);
             if (strVsBlock <= 0) {
                 return COST_INF;
             }
             double result = 1 / strVsBlock;
             result += context.breakBlockAdditionalCost;
             result *= mult;
-            if (includeFalling) {
-                IBlockState above = context.get(x, y + 1, z);
-                if (above.getBlock() instanceof BlockFalling) {
-                    result += getMiningDurationTicks(context, x, y + 1, z, above, true);
-                }
-            }
             return result;
         }
-        return 0; // we won't actually mine it, so don't check fallings above
+        return 0;
     }
 
     static boolean isBottomSlab(IBlockState state) {
@@ -79,7 +79,7 @@ public class MovementParkour extends Movement {
             // second most common case -- we could just traverse not parkour
             return;
         }
-        if (MovementHelper.avoidWalkingInto(adj.getBlock()) && adj.getBlock() != Blocks.WATER && adj.getBlock() != Blocks.FLOWING_WATER) { // magma sucks
+        if (MovementHelper.avoidWalkingInto(context, adj) && adj.getBlock() != Blocks.WATER && adj.getBlock() != Blocks.FLOWING_WATER) { // magma sucks
             return;
         }
         if (!MovementHelper.fullyPassable(context, x + xDiff, y + 1, z + zDiff)) {
@@ -130,7 +130,7 @@ public class MovementParkour extends Movement {
             // check for ascend landing position
             IBlockState destInto = context.bsi.get0(destX, y, destZ);
             if (!MovementHelper.fullyPassable(context, destX, y, destZ, destInto)) {
-                if (i <= 3 && context.allowParkourAscend && context.canSprint && MovementHelper.canWalkOn(context, destX, y, destZ, destInto) && checkOvershootSafety(context.bsi, destX + xDiff, y + 1, destZ + zDiff)) {
+                if (i <= 3 && context.allowParkourAscend && context.canSprint && MovementHelper.canWalkOn(context, destX, y, destZ, destInto) && checkOvershootSafety(context, destX + xDiff, y + 1, destZ + zDiff)) {
                     res.x = destX;
                     res.y = y + 1;
                     res.z = destZ;
@@ -147,7 +147,7 @@ public class MovementParkour extends Movement {
             if ((landingOn.getBlock() != Blocks.FARMLAND && MovementHelper.canWalkOn(context, destX, y - 1, destZ, landingOn))
                     || (Math.min(16, context.frostWalker + 2) >= i && MovementHelper.canUseFrostWalker(context, landingOn))
             ) {
-                if (checkOvershootSafety(context.bsi, destX + xDiff, y, destZ + zDiff)) {
+                if (checkOvershootSafety(context, destX + xDiff, y, destZ + zDiff)) {
                     res.x = destX;
                     res.y = y;
                     res.z = destZ;
@@ -177,10 +177,10 @@ public class MovementParkour extends Movement {
             if (placeCost >= COST_INF) {
                 continue;
             }
-            if (!MovementHelper.isReplaceable(destX, y - 1, destZ, toReplace, context.bsi)) {
+            if (!MovementHelper.isReplaceable(context, destX, y - 1, destZ, toReplace)) {
                 continue;
             }
-            if (!checkOvershootSafety(context.bsi, destX + xDiff, y, destZ + zDiff)) {
+            if (!checkOvershootSafety(context, destX + xDiff, y, destZ + zDiff)) {
                 continue;
             }
             for (int j = 0; j < 5; j++) {
@@ -190,7 +190,7 @@ public class MovementParkour extends Movement {
                 if (againstX == destX - xDiff && againstZ == destZ - zDiff) { // we can't turn around that fast
                     continue;
                 }
-                if (MovementHelper.canPlaceAgainst(context.bsi, againstX, againstY, againstZ)) {
+                if (MovementHelper.canPlaceAgainst(context, againstX, againstY, againstZ)) {
                     res.x = destX;
                     res.y = y;
                     res.z = destZ;
@@ -201,9 +201,9 @@ public class MovementParkour extends Movement {
         }
     }
 
-    private static boolean checkOvershootSafety(BlockStateInterface bsi, int x, int y, int z) {
+    private static boolean checkOvershootSafety(CalculationContext context, int x, int y, int z) {
         // we're going to walk into these two blocks after the landing of the parkour anyway, so make sure they aren't avoidWalkingInto
-        return !MovementHelper.avoidWalkingInto(bsi.get0(x, y, z).getBlock()) && !MovementHelper.avoidWalkingInto(bsi.get0(x, y + 1, z).getBlock());
+        return !MovementHelper.avoidWalkingInto(context, context.get(x, y, z)) && !MovementHelper.avoidWalkingInto(context, context.get(x, y + 1, z));
     }
 
     private static double costFromJumpDistance(int dist) {
@@ -0,0 +1,135 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.path;
+
+import baritone.api.utils.BetterBlockPos;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.BitSet;
+
+/**
+ * Which movements of a path each block matters to, so that {@link PathExecutor} only looks at a movement again when
+ * one of its blocks changes, rather than looking at every movement near the player every tick.
+ * <p>
+ * A movement is {@link #nextDirty dirty} when its toBreak, toPlace and toWalkInto need working out again, and
+ * {@link #nextCostDirty cost dirty} when its cost needs checking again. Every movement starts out dirty, so it gets
+ * looked at once when the player gets near it.
+ */
+final class MovementChanges {
+
+    /**
+     * The movements that each block position matters to, by {@link BetterBlockPos#longHash}, and the same by chunk
+     */
+    private final Long2ObjectOpenHashMap<IntArrayList> movementsByBlock = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<IntArrayList> movementsByChunk = new Long2ObjectOpenHashMap<>();
+
+    private final BitSet dirty = new BitSet();
+    private final BitSet costDirty = new BitSet();
+
+    MovementChanges(int numMovements) {
+        dirty.set(0, numMovements);
+    }
+
+    /**
+     * Movements have to be added in path order
+     *
+     * @param pos A block that the movement depends on
+     */
+    void add(int movement, BlockPos pos) {
+        add(movementsByBlock, BetterBlockPos.longHash(pos.getX(), pos.getY(), pos.getZ()), movement);
+        add(movementsByChunk, ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4), movement);
+    }
+
+    private static void add(Long2ObjectOpenHashMap<IntArrayList> index, long key, int movement) {
+        IntArrayList movements = index.get(key);
+        if (movements == null) {
+            movements = new IntArrayList(2);
+            index.put(key, movements);
+        }
+        if (movements.isEmpty() || movements.getInt(movements.size() - 1) != movement) {
+            movements.add(movement);
+        }
+    }
+
+    private void mark(Long2ObjectOpenHashMap<IntArrayList> index, long key) {
+        IntArrayList movements = index.get(key);
+        if (movements != null) {
+            for (int i = 0; i < movements.size(); i++) {
+                dirty.set(movements.getInt(i));
+                costDirty.set(movements.getInt(i));
+            }
+        }
+    }
+
+    /**
+     * Marks the movements that use a changed block, or one next to it, since whether a block can be walked through can
+     * depend on its neighbors (like flowing water)
+     */
+    void blockChanged(int x, int y, int z) {
+        mark(movementsByBlock, BetterBlockPos.longHash(x, y, z));
+        mark(movementsByBlock, BetterBlockPos.longHash(x + 1, y, z));
+        mark(movementsByBlock, BetterBlockPos.longHash(x - 1, y, z));
+        mark(movementsByBlock, BetterBlockPos.longHash(x, y + 1, z));
+        mark(movementsByBlock, BetterBlockPos.longHash(x, y - 1, z));
+        mark(movementsByBlock, BetterBlockPos.longHash(x, y, z + 1));
+        mark(movementsByBlock, BetterBlockPos.longHash(x, y, z - 1));
+    }
+
+    /**
+     * Marks the movements with blocks in a chunk that was loaded or unloaded, since they were either coming from the
+     * cache before or will be now
+     */
+    void chunkChanged(int chunkX, int chunkZ) {
+        mark(movementsByChunk, ChunkPos.asLong(chunkX, chunkZ));
+    }
+
+    void setDirty(int movement) {
+        dirty.set(movement);
+    }
+
+    /**
+     * @return The first dirty movement from {@code from} up to but not including {@code to}, or -1
+     */
+    int nextDirty(int from, int to) {
+        int next = dirty.nextSetBit(from);
+        return next < to ? next : -1;
+    }
+
+    void clearDirty(int from, int to) {
+        if (from < to) {
+            dirty.clear(from, to);
+        }
+    }
+
+    /**
+     * @return The first cost dirty movement from {@code from} up to but not including {@code to}, or -1
+     */
+    int nextCostDirty(int from, int to) {
+        int next = costDirty.nextSetBit(from);
+        return next < to ? next : -1;
+    }
+
+    void clearCostDirty(int from, int to) {
+        if (from < to) {
+            costDirty.clear(from, to);
+        }
+    }
+}
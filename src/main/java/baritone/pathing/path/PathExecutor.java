@@ -18,6 +18,9 @@
 package baritone.pathing.path;
 
 import baritone.Baritone;
+import baritone.api.event.events.BlockChangeEvent;
+import baritone.api.event.events.ChunkEvent;
+import baritone.api.event.events.type.EventState;
 import baritone.api.pathing.calc.IPath;
 import baritone.api.pathing.movement.ActionCosts;
 import baritone.api.pathing.movement.IMovement;
@@ -33,6 +36,7 @@ import baritone.pathing.movement.MovementHelper;
 import baritone.pathing.movement.movements.*;
 import baritone.utils.BlockStateInterface;
 import net.minecraft.block.BlockLiquid;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.Tuple;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
@@ -62,17 +66,33 @@ public class PathExecutor implements IPathExecutor, Helper {
     private static final double MAX_TICKS_AWAY = 200;
 
     private final IPath path;
+
+    /**
+     * Where the valid positions of {@link #path} are, see {@link #closestPathPos}
+     */
+    private final PathPositionIndex positions;
+
     private int pathPosition;
     private int ticksAway;
     private int ticksOnCurrent;
     private Double currentMovementOriginalCostEstimate;
     private Integer costEstimateIndex;
     private boolean failed;
+
+    /**
+     * The path position we were at when something changed in the world that made the rest of the path impossible, or -1
+     */
+    private int worldChangedAt = -1;
     private boolean recalcBP = true;
     private HashSet<BlockPos> toBreak = new HashSet<>();
     private HashSet<BlockPos> toPlace = new HashSet<>();
     private HashSet<BlockPos> toWalkInto = new HashSet<>();
 
+    /**
+     * Which movements need looking at again because their blocks changed
+     */
+    private final MovementChanges changes;
+
     private final PathingBehavior behavior;
     private final IPlayerContext ctx;
 
@@ -83,6 +103,47 @@ public class PathExecutor implements IPathExecutor, Helper {
         this.ctx = behavior.ctx;
         this.path = path;
         this.pathPosition = 0;
+        List<IMovement> movements = path.movements();
+        List<Set<BetterBlockPos>> validPositions = new ArrayList<>(movements.size());
+        for (IMovement movement : movements) {
+            validPositions.add(((Movement) movement).getValidPositions());
+        }
+        this.positions = new PathPositionIndex(validPositions);
+        this.changes = new MovementChanges(movements.size());
+        for (int i = 0; i < movements.size(); i++) {
+            Movement movement = (Movement) movements.get(i);
+            // toWalkInto is always some of toBreakAll, so that's covered too
+            for (BlockPos pos : movement.toBreakAll()) {
+                changes.add(i, pos);
+            }
+            if (movement.getPositionToPlace() != null) {
+                changes.add(i, movement.getPositionToPlace());
+            }
+            // and everywhere the player can be during the movement, plus the floor under it, which the cost depends on
+            for (BetterBlockPos pos : movement.getValidPositions()) {
+                changes.add(i, pos);
+                changes.add(i, pos.down());
+            }
+        }
+    }
+
+    /**
+     * @see MovementChanges#blockChanged(int, int, int)
+     */
+    public void onBlockChange(BlockChangeEvent event) {
+        for (Pair<BlockPos, IBlockState> change : event.getBlocks()) {
+            BlockPos pos = change.first();
+            changes.blockChanged(pos.getX(), pos.getY(), pos.getZ());
+        }
+    }
+
+    /**
+     * @see MovementChanges#chunkChanged(int, int)
+     */
+    public void onChunkEvent(ChunkEvent event) {
+        if (event.getState() == EventState.POST) {
+            changes.chunkChanged(event.getX(), event.getZ());
+        }
     }
 
     /**
@@ -101,33 +162,33 @@ public class PathExecutor implements IPathExecutor, Helper {
         Movement movement = (Movement) path.movements().get(pathPosition);
         BetterBlockPos whereAmI = ctx.playerFeet();
         if (!movement.getValidPositions().contains(whereAmI)) {
-            for (int i = 0; i < pathPosition && i < path.length(); i++) {//this happens for example when you lag out and get teleported back a couple blocks
-                if (((Movement) path.movements().get(i)).getValidPositions().contains(whereAmI)) {
-                    int previousPos = pathPosition;
-                    pathPosition = i;
-                    for (int j = pathPosition; j <= previousPos; j++) {
-                        path.movements().get(j).reset();
-                    }
-                    onChangeInPathPosition();
-                    onTick();
-                    return false;
+            //this happens for example when you lag out and get teleported back a couple blocks
+            int back = positions.firstMovementAt(whereAmI, 0, Math.min(pathPosition, path.length()));
+            if (back != -1) {
+                int previousPos = pathPosition;
+                pathPosition = back;
+                for (int j = pathPosition; j <= previousPos; j++) {
+                    path.movements().get(j).reset();
                 }
+                onChangeInPathPosition();
+                onTick();
+                return false;
             }
-            for (int i = pathPosition + 3; i < path.length() - 1; i++) { //dont check pathPosition+1. the movement tells us when it's done (e.g. sneak placing)
-                // also don't check pathPosition+2 because reasons
-                if (((Movement) path.movements().get(i)).getValidPositions().contains(whereAmI)) {
-                    if (i - pathPosition > 2) {
-                        logDebug("Skipping forward " + (i - pathPosition) + " steps, to " + i);
-                    }
-                    //System.out.println("Double skip sundae");
-                    pathPosition = i - 1;
-                    onChangeInPathPosition();
-                    onTick();
-                    return false;
+            //dont check pathPosition+1. the movement tells us when it's done (e.g. sneak placing)
+            // also don't check pathPosition+2 because reasons
+            int ahead = positions.firstMovementAt(whereAmI, pathPosition + 3, path.length() - 1);
+            if (ahead != -1) {
+                if (ahead - pathPosition > 2) {
+                    logDebug("Skipping forward " + (ahead - pathPosition) + " steps, to " + ahead);
                 }
+                //System.out.println("Double skip sundae");
+                pathPosition = ahead - 1;
+                onChangeInPathPosition();
+                onTick();
+                return false;
             }
         }
-        Tuple<Double, BlockPos> status = closestPathPos(path);
+        Tuple<Double, BlockPos> status = closestPathPos();
         if (possiblyOffPath(status, MAX_DIST_FROM_PATH)) {
             ticksAway++;
             System.out.println("FAR AWAY FROM PATH FOR " + ticksAway + " TICKS. Current distance: " + status.getFirst() + ". Threshold: " + MAX_DIST_FROM_PATH);
@@ -146,10 +207,12 @@ public class PathExecutor implements IPathExecutor, Helper {
         }
         //long start = System.nanoTime() / 1000000L;
         BlockStateInterface bsi = new BlockStateInterface(ctx);
-        for (int i = pathPosition - 10; i < pathPosition + 10; i++) {
-            if (i < 0 || i >= path.movements().size()) {
-                continue;
-            }
+        // the player is changing the current movement's blocks, so don't rely only on events for that one
+        changes.setDirty(pathPosition);
+        // only the movements around the player, the rest are looked at once they get close
+        int windowStart = Math.max(0, pathPosition - 10);
+        int windowEnd = Math.min(pathPosition + 10, path.movements().size());
+        for (int i = changes.nextDirty(windowStart, windowEnd); i >= 0; i = changes.nextDirty(i + 1, windowEnd)) {
             Movement m = (Movement) path.movements().get(i);
             List<BlockPos> prevBreak = m.toBreak(bsi);
             List<BlockPos> prevPlace = m.toPlace(bsi);
@@ -165,6 +228,8 @@ public class PathExecutor implements IPathExecutor, Helper {
                 recalcBP = true;
             }
         }
+        // nothing behind the window matters any more
+        changes.clearDirty(0, windowEnd);
         if (recalcBP) {
             HashSet<BlockPos> newBreak = new HashSet<>();
             HashSet<BlockPos> newPlace = new HashSet<>();
@@ -193,14 +258,29 @@ public class PathExecutor implements IPathExecutor, Helper {
             }
         }
         boolean canCancel = movement.safeToCancel();
+        changes.clearCostDirty(0, pathPosition + 1);
         if (costEstimateIndex == null || costEstimateIndex != pathPosition) {
             costEstimateIndex = pathPosition;
+            // this checks all of them, so the ones that changed don't need checking again below
+            changes.clearCostDirty(pathPosition + 1, pathPosition + Math.max(1, Baritone.settings().costVerificationLookahead.value));
             // do this only once, when the movement starts, and deliberately get the cost as cached when this path was calculated, not the cost as it is right now
             currentMovementOriginalCostEstimate = movement.getCost();
             for (int i = 1; i < Baritone.settings().costVerificationLookahead.value && pathPosition + i < path.length() - 1; i++) {
                 if (((Movement) path.movements().get(pathPosition + i)).calculateCost(behavior.secretInternalGetCalculationContext()) >= ActionCosts.COST_INF && canCancel) {
                     logDebug("Something has changed in the world and a future movement has become impossible. Cancelling.");
-                    cancel();
+                    cancelFromWorldChange();
+                    return true;
+                }
+            }
+        }
+        if (canCancel) {
+            // future movements within the lookahead whose blocks have changed since they were last checked
+            int lookahead = Math.min(pathPosition + Baritone.settings().costVerificationLookahead.value, path.length() - 1);
+            for (int i = changes.nextCostDirty(pathPosition + 1, lookahead); i >= 0; i = changes.nextCostDirty(i + 1, lookahead)) {
+                changes.clearCostDirty(i, i + 1);
+                if (((Movement) path.movements().get(i)).calculateCost(behavior.secretInternalGetCalculationContext()) >= ActionCosts.COST_INF) {
+                    logDebug("Something has changed in the world and a future movement has become impossible. Cancelling.");
+                    cancelFromWorldChange();
                     return true;
                 }
             }
@@ -208,14 +288,14 @@ public class PathExecutor implements IPathExecutor, Helper {
         double currentCost = movement.recalculateCost(behavior.secretInternalGetCalculationContext());
         if (currentCost >= ActionCosts.COST_INF && canCancel) {
             logDebug("Something has changed in the world and this movement has become impossible. Cancelling.");
-            cancel();
+            cancelFromWorldChange();
             return true;
         }
         if (!movement.calculatedWhileLoaded() && currentCost - currentMovementOriginalCostEstimate > Baritone.settings().maxCostIncrease.value && canCancel) {
             // don't do this if the movement was calculated while loaded
             // that means that this isn't a cache error, it's just part of the path interfering with a later part
             logDebug("Original cost " + currentMovementOriginalCostEstimate + " current cost " + currentCost + ". Cancelling.");
-            cancel();
+            cancelFromWorldChange();
             return true;
         }
         if (shouldPause()) {
@@ -254,19 +334,12 @@ public class PathExecutor implements IPathExecutor, Helper {
         return canCancel; // movement is in progress, but if it reports cancellable, PathingBehavior is good to cut onto the next path
     }
 
-    private Tuple<Double, BlockPos> closestPathPos(IPath path) {
-        double best = -1;
-        BlockPos bestPos = null;
-        for (IMovement movement : path.movements()) {
-            for (BlockPos pos : ((Movement) movement).getValidPositions()) {
-                double dist = VecUtils.entityDistanceToCenter(ctx.player(), pos);
-                if (dist < best || best == -1) {
-                    best = dist;
-                    bestPos = pos;
-                }
-            }
+    private Tuple<Double, BlockPos> closestPathPos() {
+        BlockPos bestPos = positions.closest(ctx.player().posX, ctx.player().posY, ctx.player().posZ);
+        if (bestPos == null) {
+            return new Tuple<>(-1D, null);
         }
-        return new Tuple<>(best, bestPos);
+        return new Tuple<>(VecUtils.entityDistanceToCenter(ctx.player(), bestPos), bestPos);
     }
 
     private boolean shouldPause() {
@@ -594,6 +667,20 @@ public class PathExecutor implements IPathExecutor, Helper {
         failed = true;
     }
 
+    private void cancelFromWorldChange() {
+        int position = pathPosition;
+        cancel();
+        worldChangedAt = position;
+    }
+
+    /**
+     * @return The path position at which this failed because something changed in the world, or -1 if it didn't
+     * @see PathRepair
+     */
+    public int worldChangedAt() {
+        return worldChangedAt;
+    }
+
     @Override
     public int getPosition() {
         return pathPosition;
@@ -0,0 +1,216 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.path;
+
+import baritone.api.utils.BetterBlockPos;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Where the valid positions of each movement of a path are, so that {@link PathExecutor} can find which movement the
+ * player is in, and how far they are from the path, without going through every movement every tick.
+ * <p>
+ * Finding the closest position uses a tree of bounding boxes over the positions in path order, since consecutive
+ * positions are next to each other. A subtree is skipped whenever its box is further away than the closest position
+ * found so far, which is nearly all of them.
+ */
+final class PathPositionIndex {
+
+    private static final int LEAF_SIZE = 8;
+
+    /**
+     * Position, see {@link #key}, to the movements it's valid for, in order
+     */
+    private final Long2ObjectOpenHashMap<IntArrayList> movementsAt = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Every valid position, in path order. A position valid for two movements is in here twice, which doesn't matter.
+     */
+    private final BetterBlockPos[] positions;
+
+    /**
+     * Bounds of each node of the tree. Node 1 is the root, node {@code n} has children {@code 2n} and {@code 2n + 1},
+     * and leaf {@code l} is node {@code leaves + l}, covering positions {@code l * LEAF_SIZE} up to the next leaf.
+     */
+    private final int[] minX;
+    private final int[] minY;
+    private final int[] minZ;
+    private final int[] maxX;
+    private final int[] maxY;
+    private final int[] maxZ;
+
+    private final int leaves;
+
+    /**
+     * @param validPositions The valid positions of each movement, in path order
+     */
+    PathPositionIndex(List<? extends Collection<BetterBlockPos>> validPositions) {
+        List<BetterBlockPos> all = new ArrayList<>();
+        for (int i = 0; i < validPositions.size(); i++) {
+            for (BetterBlockPos pos : validPositions.get(i)) {
+                IntArrayList movements = movementsAt.get(key(pos));
+                if (movements == null) {
+                    movements = new IntArrayList(2);
+                    movementsAt.put(key(pos), movements);
+                }
+                movements.add(i);
+                all.add(pos);
+            }
+        }
+        positions = all.toArray(new BetterBlockPos[0]);
+
+        int leaves = 1;
+        while (leaves * LEAF_SIZE < positions.length) {
+            leaves <<= 1;
+        }
+        this.leaves = leaves;
+        minX = new int[2 * leaves];
+        minY = new int[2 * leaves];
+        minZ = new int[2 * leaves];
+        maxX = new int[2 * leaves];
+        maxY = new int[2 * leaves];
+        maxZ = new int[2 * leaves];
+        for (int node = 1; node < 2 * leaves; node++) {
+            // empty until something is put in it
+            minX[node] = minY[node] = minZ[node] = Integer.MAX_VALUE;
+            maxX[node] = maxY[node] = maxZ[node] = Integer.MIN_VALUE;
+        }
+        for (int i = 0; i < positions.length; i++) {
+            int node = leaves + i / LEAF_SIZE;
+            BetterBlockPos pos = positions[i];
+            minX[node] = Math.min(minX[node], pos.x);
+            minY[node] = Math.min(minY[node], pos.y);
+            minZ[node] = Math.min(minZ[node], pos.z);
+            maxX[node] = Math.max(maxX[node], pos.x);
+            maxY[node] = Math.max(maxY[node], pos.y);
+            maxZ[node] = Math.max(maxZ[node], pos.z);
+        }
+        for (int node = leaves - 1; node >= 1; node--) {
+            minX[node] = Math.min(minX[2 * node], minX[2 * node + 1]);
+            minY[node] = Math.min(minY[2 * node], minY[2 * node + 1]);
+            minZ[node] = Math.min(minZ[2 * node], minZ[2 * node + 1]);
+            maxX[node] = Math.max(maxX[2 * node], maxX[2 * node + 1]);
+            maxY[node] = Math.max(maxY[2 * node], maxY[2 * node + 1]);
+            maxZ[node] = Math.max(maxZ[2 * node], maxZ[2 * node + 1]);
+        }
+    }
+
+    /**
+     * @param pos  The position
+     * @param from The first movement to look at
+     * @param to   The movement to stop before
+     * @return The first movement in that range that the position is valid for, or -1 if there isn't one
+     */
+    int firstMovementAt(BetterBlockPos pos, int from, int to) {
+        IntArrayList movements = movementsAt.get(key(pos));
+        if (movements == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = movements.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (movements.getInt(mid) < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low < movements.size() && movements.getInt(low) < to) {
+            return movements.getInt(low);
+        }
+        return -1;
+    }
+
+    /**
+     * @return The valid position whose center is closest to the point, the first in path order if there's a tie, or
+     * null if the path has none
+     */
+    BetterBlockPos closest(double x, double y, double z) {
+        if (positions.length == 0) {
+            return null;
+        }
+        int[] best = {-1};
+        double[] bestDistance = {Double.MAX_VALUE};
+        closest(1, x - 0.5, y - 0.5, z - 0.5, best, bestDistance);
+        return positions[best[0]];
+    }
+
+    private void closest(int node, double x, double y, double z, int[] best, double[] bestDistance) {
+        if (minX[node] > maxX[node]) {
+            return;
+        }
+        if (node >= leaves) {
+            int start = (node - leaves) * LEAF_SIZE;
+            int end = Math.min(start + LEAF_SIZE, positions.length);
+            for (int i = start; i < end; i++) {
+                double dx = positions[i].x - x;
+                double dy = positions[i].y - y;
+                double dz = positions[i].z - z;
+                double distance = dx * dx + dy * dy + dz * dz;
+                if (distance < bestDistance[0] || (distance == bestDistance[0] && i < best[0])) {
+                    bestDistance[0] = distance;
+                    best[0] = i;
+                }
+            }
+            return;
+        }
+        int first = 2 * node;
+        int second = 2 * node + 1;
+        double firstDistance = boxDistance(first, x, y, z);
+        double secondDistance = boxDistance(second, x, y, z);
+        // the nearer one first, so that there's a good bound to skip the other with
+        if (secondDistance < firstDistance) {
+            int swap = first;
+            first = second;
+            second = swap;
+            double swapDistance = firstDistance;
+            firstDistance = secondDistance;
+            secondDistance = swapDistance;
+        }
+        // <= rather than <, so that an earlier position at the same distance can still win the tie
+        if (firstDistance <= bestDistance[0]) {
+            closest(first, x, y, z, best, bestDistance);
+        }
+        if (secondDistance <= bestDistance[0]) {
+            closest(second, x, y, z, best, bestDistance);
+        }
+    }
+
+    private double boxDistance(int node, double x, double y, double z) {
+        if (minX[node] > maxX[node]) {
+            return Double.MAX_VALUE;
+        }
+        double dx = Math.max(0, Math.max(minX[node] - x, x - maxX[node]));
+        double dy = Math.max(0, Math.max(minY[node] - y, y - maxY[node]));
+        double dz = Math.max(0, Math.max(minZ[node] - z, z - maxZ[node]));
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * The same packing as {@link net.minecraft.util.math.BlockPos#toLong()}, so that no two positions in the world share
+     * a key
+     */
+    private static long key(BetterBlockPos pos) {
+        return ((long) pos.x & 0x3FFFFFF) << 38 | ((long) pos.y & 0xFFF) << 26 | (long) pos.z & 0x3FFFFFF;
+    }
+}
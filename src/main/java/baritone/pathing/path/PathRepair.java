@@ -0,0 +1,174 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.path;
+
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.pathing.movement.IMovement;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.calc.AStarPathFinder;
+import baritone.pathing.calc.AbstractNodeCostSearch;
+import baritone.pathing.calc.PathfinderArena;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Movement;
+import baritone.utils.pathing.Favoring;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fixes up a path that something in the world broke, instead of throwing it away and planning from scratch.
+ * <p>
+ * Only the broken stretch is searched again: from where we are, to any of the positions on the old path just past the
+ * last movement that's no longer possible. The old path is then picked back up from wherever the repair joined it.
+ * The rest of the old path (and so its destination, and any segment already planned after it) is kept as is.
+ */
+public final class PathRepair {
+
+    /**
+     * How many positions past the damage the repair is allowed to join back up at
+     */
+    private static final int REJOIN_WINDOW = 20;
+
+    private final IPath path;
+    private final RejoinGoal rejoin;
+
+    private PathRepair(IPath path, RejoinGoal rejoin) {
+        this.path = path;
+        this.rejoin = rejoin;
+    }
+
+    /**
+     * @param failed  The executor that just failed
+     * @param context The context to check the rest of the path with
+     * @return A repair for that path, if it failed because something in the world changed and there's still enough of
+     * it left to join back up with
+     */
+    public static Optional<PathRepair> of(PathExecutor failed, CalculationContext context) {
+        int from = failed.worldChangedAt();
+        if (from < 0) {
+            return Optional.empty();
+        }
+        IPath path = failed.getPath();
+        List<IMovement> movements = path.movements();
+        int scanTo = Math.min(movements.size(), from + Baritone.settings().costVerificationLookahead.value + REJOIN_WINDOW);
+        int lastDamaged = -1;
+        for (int i = from; i < scanTo; i++) {
+            Movement movement = (Movement) movements.get(i);
+            double cost = movement.calculateCost(context);
+            if (cost >= ActionCosts.COST_INF || (!movement.calculatedWhileLoaded() && cost - movement.getCost() > Baritone.settings().maxCostIncrease.value)) {
+                lastDamaged = i;
+            }
+        }
+        if (lastDamaged < 0) {
+            // it failed for some other reason by the time we got here, or the damage was fixed already
+            return Optional.empty();
+        }
+        // positions are one ahead of movements, so movement lastDamaged ends at position lastDamaged + 1
+        int firstCandidate = lastDamaged + 1;
+        int lastCandidate = Math.min(firstCandidate + REJOIN_WINDOW, scanTo);
+        if (firstCandidate >= path.length() - 1 && !path.getGoal().isInGoal(path.getDest())) {
+            // the damage goes right up to the end of the path, nothing to rejoin that a normal replan wouldn't find
+            return Optional.empty();
+        }
+        lastCandidate = Math.min(lastCandidate, path.length() - 1);
+        return Optional.of(new PathRepair(path, new RejoinGoal(path, firstCandidate, lastCandidate)));
+    }
+
+    /**
+     * Must be called on the main thread, like creating any other pathfinder
+     */
+    public AbstractNodeCostSearch createPathfinder(BetterBlockPos start, CalculationContext context, PathfinderArena arena) {
+        // favor the old path, it was probably fine around the damage too
+        Favoring favoring = new Favoring(context.getBaritone().getPlayerContext(), path, context);
+        return new AStarPathFinder(start.x, start.y, start.z, rejoin, favoring, context, arena);
+    }
+
+    /**
+     * @param repaired The result of the search from {@link #createPathfinder}
+     * @return The repaired path followed by the rest of the old path, with the old path's goal, if the repair made it
+     */
+    public Optional<IPath> splice(IPath repaired) {
+        int index = rejoin.indexOf(repaired.getDest());
+        if (index < 0) {
+            return Optional.empty();
+        }
+        IPath rest = new CutoffPath(path, index, path.length() - 1);
+        return SplicedPath.trySplice(repaired, rest, true, path.getGoal()).map(spliced -> spliced);
+    }
+
+    /**
+     * Any of a range of positions on the old path, with the heuristic including the cost of the old path from there
+     * to the end of the range, so that joining further along is worth a longer repair
+     */
+    private static final class RejoinGoal implements Goal {
+
+        private final Long2IntOpenHashMap indices;
+        private final int first;
+        private final int[] x;
+        private final int[] y;
+        private final int[] z;
+        private final double[] remaining;
+
+        private RejoinGoal(IPath path, int first, int last) {
+            this.first = first;
+            int count = last - first + 1;
+            this.x = new int[count];
+            this.y = new int[count];
+            this.z = new int[count];
+            this.remaining = new double[count];
+            this.indices = new Long2IntOpenHashMap();
+            indices.defaultReturnValue(-1);
+            for (int i = count - 1; i >= 0; i--) {
+                BetterBlockPos pos = path.positions().get(first + i);
+                x[i] = pos.x;
+                y[i] = pos.y;
+                z[i] = pos.z;
+                remaining[i] = i == count - 1 ? 0 : remaining[i + 1] + ((Movement) path.movements().get(first + i)).getCost();
+                indices.putIfAbsent(BetterBlockPos.longHash(pos), first + i);
+            }
+        }
+
+        private int indexOf(BetterBlockPos pos) {
+            return indices.get(BetterBlockPos.longHash(pos));
+        }
+
+        @Override
+        public boolean isInGoal(int x, int y, int z) {
+            return indices.containsKey(BetterBlockPos.longHash(x, y, z));
+        }
+
+        @Override
+        public double heuristic(int x, int y, int z) {
+            double best = Double.MAX_VALUE;
+            for (int i = 0; i < this.x.length; i++) {
+                best = Math.min(best, GoalBlock.calculate(x - this.x[i], y - this.y[i], z - this.z[i]) + remaining[i]);
+            }
+            return best;
+        }
+
+        @Override
+        public String toString() {
+            return "RejoinGoal{positions " + first + " to " + (first + x.length - 1) + "}";
+        }
+    }
+}
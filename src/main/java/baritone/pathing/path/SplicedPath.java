@@ -69,6 +69,16 @@ public class SplicedPath extends PathBase {
     }
 
     public static Optional<SplicedPath> trySplice(IPath first, IPath second, boolean allowOverlapCutoff) {
+        if (first == null) {
+            return Optional.empty();
+        }
+        return trySplice(first, second, allowOverlapCutoff, first.getGoal());
+    }
+
+    /**
+     * @param goal The goal of the spliced path, for when it isn't the goal of the first path
+     */
+    public static Optional<SplicedPath> trySplice(IPath first, IPath second, boolean allowOverlapCutoff, Goal goal) {
         if (second == null || first == null) {
             return Optional.empty();
         }
@@ -101,6 +111,6 @@ public class SplicedPath extends PathBase {
 
         positions.addAll(second.positions().subList(positionInSecond + 1, second.length()));
         movements.addAll(second.movements().subList(positionInSecond, second.length() - 1));
-        return Optional.of(new SplicedPath(positions, movements, first.getNumNodesConsidered() + second.getNumNodesConsidered(), first.getGoal()));
+        return Optional.of(new SplicedPath(positions, movements, first.getNumNodesConsidered() + second.getNumNodesConsidered(), goal));
     }
 }
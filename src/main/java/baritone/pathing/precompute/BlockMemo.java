@@ -0,0 +1,243 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.precompute;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.block.state.IBlockState;
+
+import java.util.Arrays;
+
+/**
+ * What the movements of one search have already worked out about each block: whether it can be walked through, whether
+ * it can be walked on, and how long it takes to mine with the context's tools.
+ * <p>
+ * Neighbouring movements keep asking about the same few blocks, and {@link PrecomputedData} can only answer for the
+ * state, not the position. Water and lava depend on what's around them, and mining has to check the neighbours for
+ * {@code avoidBreaking} and look up the tool, so those get done over and over. This remembers the answers by position,
+ * in an open addressing table of primitive arrays.
+ * <p>
+ * Each entry also keeps the state it was worked out for, and is only used for that same state, so it doesn't matter if
+ * a movement asks about a block as it would be rather than as it is. When the table fills up it's emptied and starts
+ * over, so it never holds more than the size it was made with.
+ * <p>
+ * Only the thread between {@link #begin()} and {@link #end()} may use it, everything else goes around it, see
+ * {@link baritone.pathing.movement.CalculationContext#blockMemo()}.
+ */
+public final class BlockMemo {
+
+    private static final int WALK_THROUGH_KNOWN = 1;
+    private static final int WALK_THROUGH = 1 << 1;
+    private static final int WALK_ON_KNOWN = 1 << 2;
+    private static final int WALK_ON = 1 << 3;
+    private static final int MINING_TICKS_KNOWN = 1 << 4;
+
+    private final int maxSize;
+
+    /**
+     * Allocated the first time a search begins, since most contexts are made and thrown away without ever searching
+     */
+    private long[] keys;
+    private IBlockState[] states; // null for an empty slot
+    private byte[] flags;
+    private double[] miningTicks;
+    private int mask;
+    private int size;
+
+    private Thread owner;
+
+    private long hits;
+    private long misses;
+    private int resets;
+
+    /**
+     * @param maxSize How many blocks to remember before starting over
+     */
+    public BlockMemo(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Block memo size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Empties the memo and hands it to the current thread, for a new search
+     *
+     * @return Whether the current thread has it now, false if another search is still using it
+     */
+    public synchronized boolean begin() {
+        if (owner != null) {
+            return false;
+        }
+        if (keys == null) {
+            int capacity = HashCommon.arraySize(maxSize, 0.75f);
+            keys = new long[capacity];
+            states = new IBlockState[capacity];
+            flags = new byte[capacity];
+            miningTicks = new double[capacity];
+            mask = capacity - 1;
+        } else {
+            clear();
+        }
+        hits = 0;
+        misses = 0;
+        resets = 0;
+        owner = Thread.currentThread();
+        return true;
+    }
+
+    public synchronized void end() {
+        owner = null;
+    }
+
+    /**
+     * @return Whether the current thread is the one that began the search using this
+     */
+    public boolean isHeldByCurrentThread() {
+        return owner == Thread.currentThread();
+    }
+
+    /**
+     * @return 1 if the block can be walked through, 0 if it can't, -1 if that isn't known yet
+     */
+    public int canWalkThrough(int x, int y, int z, IBlockState state) {
+        return lookup(x, y, z, state, WALK_THROUGH_KNOWN, WALK_THROUGH);
+    }
+
+    public void putCanWalkThrough(int x, int y, int z, IBlockState state, boolean canWalkThrough) {
+        int slot = insert(x, y, z, state);
+        flags[slot] |= WALK_THROUGH_KNOWN | (canWalkThrough ? WALK_THROUGH : 0);
+    }
+
+    /**
+     * @return 1 if the block can be walked on, 0 if it can't, -1 if that isn't known yet
+     */
+    public int canWalkOn(int x, int y, int z, IBlockState state) {
+        return lookup(x, y, z, state, WALK_ON_KNOWN, WALK_ON);
+    }
+
+    public void putCanWalkOn(int x, int y, int z, IBlockState state, boolean canWalkOn) {
+        int slot = insert(x, y, z, state);
+        flags[slot] |= WALK_ON_KNOWN | (canWalkOn ? WALK_ON : 0);
+    }
+
+    /**
+     * @return The ticks to mine the block, not counting falling blocks above it, or {@link Double#NaN} if that isn't
+     * known yet
+     */
+    public double miningTicks(int x, int y, int z, IBlockState state) {
+        int slot = find(x, y, z, state);
+        if (slot >= 0 && (flags[slot] & MINING_TICKS_KNOWN) != 0) {
+            hits++;
+            return miningTicks[slot];
+        }
+        misses++;
+        return Double.NaN;
+    }
+
+    public void putMiningTicks(int x, int y, int z, IBlockState state, double ticks) {
+        int slot = insert(x, y, z, state);
+        flags[slot] |= MINING_TICKS_KNOWN;
+        miningTicks[slot] = ticks;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * @return How many times the table filled up and was emptied during this search
+     */
+    public int resets() {
+        return resets;
+    }
+
+    private int lookup(int x, int y, int z, IBlockState state, int known, int value) {
+        int slot = find(x, y, z, state);
+        if (slot >= 0 && (flags[slot] & known) != 0) {
+            hits++;
+            return (flags[slot] & value) != 0 ? 1 : 0;
+        }
+        misses++;
+        return -1;
+    }
+
+    /**
+     * @return The slot of the block, or -1 if it isn't in the table, or was put in for some other state
+     */
+    private int find(int x, int y, int z, IBlockState state) {
+        long key = key(x, y, z);
+        int slot = slot(key);
+        IBlockState current;
+        while ((current = states[slot]) != null) {
+            if (keys[slot] == key) {
+                return current == state ? slot : -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The slot of the block, taken for this state and with nothing known if it wasn't already
+     */
+    private int insert(int x, int y, int z, IBlockState state) {
+        long key = key(x, y, z);
+        int slot = slot(key);
+        IBlockState current;
+        while ((current = states[slot]) != null) {
+            if (keys[slot] == key) {
+                if (current != state) {
+                    states[slot] = state;
+                    flags[slot] = 0;
+                }
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size >= maxSize) {
+            clear();
+            resets++;
+            slot = slot(key);
+        }
+        keys[slot] = key;
+        states[slot] = state;
+        flags[slot] = 0;
+        size++;
+        return slot;
+    }
+
+    private void clear() {
+        Arrays.fill(states, null);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        return (int) HashCommon.mix(key) & mask;
+    }
+
+    /**
+     * The same packing as {@link net.minecraft.util.math.BlockPos#toLong()}, 26 bits of x and z and 12 of y
+     */
+    private static long key(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) y & 0xFFF) << 26 | ((long) z & 0x3FFFFFF);
+    }
+}
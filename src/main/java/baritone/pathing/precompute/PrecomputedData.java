@@ -19,9 +19,12 @@ package baritone.pathing.precompute;
 
 import baritone.pathing.movement.MovementHelper;
 import baritone.utils.BlockStateInterface;
+import baritone.utils.ToolSet;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 
+import java.util.concurrent.atomic.AtomicLongArray;
+
 import static baritone.pathing.precompute.Ternary.MAYBE;
 import static baritone.pathing.precompute.Ternary.YES;
 
@@ -29,6 +32,22 @@ public class PrecomputedData {
 
     private final int[] data = new int[Block.BLOCK_STATE_IDS.size()];
 
+    /**
+     * {@link ToolSet#getStrVsBlock} of each state, stored as the complement of its bits so that 0 can mean it hasn't
+     * been worked out yet. Shared with every other instance made for the same tool set (see {@link ToolSet#sameAs}),
+     * rather than starting from scratch for each new context, so it's an {@link AtomicLongArray}: a plain long write
+     * isn't guaranteed to be atomic, and another thread could otherwise see half of one.
+     */
+    private final AtomicLongArray strVsBlock;
+
+    private final ToolSet toolSet;
+
+    /**
+     * The tool set that {@link #lastStrVsBlock} was worked out for
+     */
+    private static ToolSet lastToolSet;
+    private static AtomicLongArray lastStrVsBlock;
+
     private static final int COMPLETED_MASK = 1 << 0;
     private static final int CAN_WALK_ON_MASK = 1 << 1;
     private static final int CAN_WALK_ON_SPECIAL_MASK = 1 << 2;
@@ -36,6 +55,25 @@ public class PrecomputedData {
     private static final int CAN_WALK_THROUGH_SPECIAL_MASK = 1 << 4;
     private static final int FULLY_PASSABLE_MASK = 1 << 5;
     private static final int FULLY_PASSABLE_SPECIAL_MASK = 1 << 6;
+    private static final int AVOID_BREAKING_MASK = 1 << 7;
+    private static final int AVOID_WALKING_INTO_MASK = 1 << 8;
+    private static final int CAN_PLACE_AGAINST_MASK = 1 << 9;
+    private static final int REPLACEABLE_MASK = 1 << 10;
+    private static final int REPLACEABLE_SPECIAL_MASK = 1 << 11;
+
+    /**
+     * @param toolSet What to work out break times with
+     */
+    public PrecomputedData(ToolSet toolSet) {
+        this.toolSet = toolSet;
+        synchronized (PrecomputedData.class) {
+            if (lastToolSet == null || !lastToolSet.sameAs(toolSet)) {
+                lastStrVsBlock = new AtomicLongArray(Block.BLOCK_STATE_IDS.size());
+                lastToolSet = toolSet;
+            }
+            this.strVsBlock = lastStrVsBlock;
+        }
+    }
 
     private int fillData(int id, IBlockState state) {
         int blockData = 0;
@@ -64,19 +102,44 @@ public class PrecomputedData {
             blockData |= FULLY_PASSABLE_SPECIAL_MASK;
         }
 
+        if (MovementHelper.avoidBreakingBlockState(state)) {
+            blockData |= AVOID_BREAKING_MASK;
+        }
+
+        if (MovementHelper.avoidWalkingInto(state.getBlock())) {
+            blockData |= AVOID_WALKING_INTO_MASK;
+        }
+
+        if (MovementHelper.canPlaceAgainstBlockState(state)) {
+            blockData |= CAN_PLACE_AGAINST_MASK;
+        }
+
+        Ternary replaceableState = MovementHelper.isReplaceableBlockState(state);
+        if (replaceableState == YES) {
+            blockData |= REPLACEABLE_MASK;
+        }
+        if (replaceableState == MAYBE) {
+            blockData |= REPLACEABLE_SPECIAL_MASK;
+        }
+
         blockData |= COMPLETED_MASK;
 
         data[id] = blockData; // in theory, this is thread "safe" because every thread should compute the exact same int to write?
         return blockData;
     }
 
-    public boolean canWalkOn(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
+    private int getData(IBlockState state) {
         int id = Block.BLOCK_STATE_IDS.get(state);
         int blockData = data[id];
 
         if ((blockData & COMPLETED_MASK) == 0) { // we need to fill in the data
             blockData = fillData(id, state);
         }
+        return blockData;
+    }
+
+    public boolean canWalkOn(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
+        int blockData = getData(state);
 
         if ((blockData & CAN_WALK_ON_SPECIAL_MASK) != 0) {
             return MovementHelper.canWalkOnPosition(bsi, x, y, z, state);
@@ -86,12 +149,7 @@ public class PrecomputedData {
     }
 
     public boolean canWalkThrough(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
-        int id = Block.BLOCK_STATE_IDS.get(state);
-        int blockData = data[id];
-
-        if ((blockData & COMPLETED_MASK) == 0) { // we need to fill in the data
-            blockData = fillData(id, state);
-        }
+        int blockData = getData(state);
 
         if ((blockData & CAN_WALK_THROUGH_SPECIAL_MASK) != 0) {
             return MovementHelper.canWalkThroughPosition(bsi, x, y, z, state);
@@ -101,12 +159,7 @@ public class PrecomputedData {
     }
 
     public boolean fullyPassable(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
-        int id = Block.BLOCK_STATE_IDS.get(state);
-        int blockData = data[id];
-
-        if ((blockData & COMPLETED_MASK) == 0) { // we need to fill in the data
-            blockData = fillData(id, state);
-        }
+        int blockData = getData(state);
 
         if ((blockData & FULLY_PASSABLE_SPECIAL_MASK) != 0) {
             return MovementHelper.fullyPassablePosition(bsi, x, y, z, state);
@@ -114,4 +167,47 @@ public class PrecomputedData {
             return (blockData & FULLY_PASSABLE_MASK) != 0;
         }
     }
+
+    public boolean avoidBreaking(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
+        if (!bsi.worldBorder.canPlaceAt(x, z)) {
+            return true;
+        }
+        if ((getData(state) & AVOID_BREAKING_MASK) != 0) {
+            return true;
+        }
+        // whether the neighbours are liquid or unsupported falling blocks still has to be looked at every time
+        return MovementHelper.avoidBreakingAdjacent(bsi, x, y, z);
+    }
+
+    public boolean avoidWalkingInto(IBlockState state) {
+        return (getData(state) & AVOID_WALKING_INTO_MASK) != 0;
+    }
+
+    public boolean canPlaceAgainst(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
+        return bsi.worldBorder.canPlaceAt(x, z) && (getData(state) & CAN_PLACE_AGAINST_MASK) != 0;
+    }
+
+    public boolean isReplaceable(BlockStateInterface bsi, int x, int y, int z, IBlockState state) {
+        int blockData = getData(state);
+
+        if ((blockData & REPLACEABLE_SPECIAL_MASK) != 0) {
+            return MovementHelper.isReplaceablePosition(bsi, x, y, z, state);
+        } else {
+            return (blockData & REPLACEABLE_MASK) != 0;
+        }
+    }
+
+    /**
+     * @return {@link ToolSet#getStrVsBlock} for the tool set this was made with
+     */
+    public double getStrVsBlock(IBlockState state) {
+        int id = Block.BLOCK_STATE_IDS.get(state);
+        long bits = strVsBlock.get(id);
+        if (bits == 0) {
+            double strength = toolSet.getStrVsBlock(state);
+            strVsBlock.set(id, ~Double.doubleToRawLongBits(strength));
+            return strength;
+        }
+        return Double.longBitsToDouble(~bits);
+    }
 }
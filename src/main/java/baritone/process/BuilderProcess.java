@@ -22,6 +22,7 @@ import baritone.api.pathing.goals.Goal;
 import baritone.api.pathing.goals.GoalBlock;
 import baritone.api.pathing.goals.GoalComposite;
 import baritone.api.pathing.goals.GoalGetToBlock;
+import baritone.api.pathing.goals.IBoundedGoal;
 import baritone.api.process.IBuilderProcess;
 import baritone.api.process.PathingCommand;
 import baritone.api.process.PathingCommandType;
@@ -790,7 +791,7 @@ public final class BuilderProcess extends BaritoneProcessHelper implements IBuil
         }
     }
 
-    public static class GoalBreak extends GoalGetToBlock {
+    public static class GoalBreak extends GoalGetToBlock implements IBoundedGoal {
 
         public GoalBreak(BlockPos pos) {
             super(pos);
@@ -852,7 +853,7 @@ public final class BuilderProcess extends BaritoneProcessHelper implements IBuil
         return new GoalBreak(pos);
     }
 
-    public static class GoalAdjacent extends GoalGetToBlock {
+    public static class GoalAdjacent extends GoalGetToBlock implements IBoundedGoal {
 
         private boolean allowSameLevel;
         private BlockPos no;
@@ -886,6 +887,11 @@ public final class BuilderProcess extends BaritoneProcessHelper implements IBuil
             return this.y * 100 + super.heuristic(x, y, z);
         }
 
+        @Override
+        public double heuristicOffset() {
+            return this.y * 100;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (!super.equals(o)) {
@@ -917,7 +923,7 @@ public final class BuilderProcess extends BaritoneProcessHelper implements IBuil
         }
     }
 
-    public static class GoalPlace extends GoalBlock {
+    public static class GoalPlace extends GoalBlock implements IBoundedGoal {
 
         public GoalPlace(BlockPos placeAt) {
             super(placeAt.up());
@@ -929,6 +935,11 @@ public final class BuilderProcess extends BaritoneProcessHelper implements IBuil
             return this.y * 100 + super.heuristic(x, y, z);
         }
 
+        @Override
+        public double heuristicOffset() {
+            return this.y * 100;
+        }
+
         @Override
         public int hashCode() {
             return super.hashCode() * 1910811835;
@@ -47,7 +47,20 @@ public class BlockStateInterface {
     public final IBlockAccess access;
     public final BetterWorldBorder worldBorder;
 
+    /**
+     * Copies of the loaded chunks once {@link #takeSnapshots()} has been called, null until then. Only ever read once
+     * made, the snapshots swap in refreshed sections and mark themselves unloaded on their own. Like
+     * {@link #loadedChunks}, chunks that load after this was made aren't in here, so those are read from the cache.
+     */
+    private Long2ObjectMap<ChunkSnapshot> snapshots;
+
+    /**
+     * Whether {@link #loadedChunks} is a copy for another thread
+     */
+    private final boolean copiedLoadedChunks;
+
     private Chunk prev = null;
+    private ChunkSnapshot prevSnapshot = null;
     private CachedRegion prevCached = null;
 
     private final boolean useTheRealWorld;
@@ -59,23 +72,105 @@ public class BlockStateInterface {
     }
 
     public BlockStateInterface(IPlayerContext ctx, boolean copyLoadedChunks) {
+        this(ctx, copyLoadedChunks, null);
+    }
+
+    /**
+     * For another thread to read the same world as {@code other}, sharing its chunk snapshots if it has them instead of
+     * copying all the chunks again. Still has to be called on the main thread.
+     */
+    public BlockStateInterface(IPlayerContext ctx, BlockStateInterface other) {
+        this(ctx, true, other);
+    }
+
+    private BlockStateInterface(IPlayerContext ctx, boolean copyLoadedChunks, BlockStateInterface other) {
         final World world = ctx.world();
         this.worldBorder = new BetterWorldBorder(world.getWorldBorder());
         this.worldData = (WorldData) ctx.worldData();
-        Long2ObjectMap<Chunk> worldLoaded = ((IChunkProviderClient) world.getChunkProvider()).loadedChunks();
-        if (copyLoadedChunks) {
-            this.loadedChunks = new Long2ObjectOpenHashMap<>(worldLoaded); // make a copy that we can safely access from another thread
-        } else {
-            this.loadedChunks = worldLoaded; // this will only be used on the main thread
-        }
         this.useTheRealWorld = !Baritone.settings().pathThroughCachedOnly.value;
         if (!ctx.minecraft().isCallingFromMinecraftThread()) {
             throw new IllegalStateException();
         }
+        this.copiedLoadedChunks = copyLoadedChunks;
+        if (other != null && other.snapshots != null) {
+            this.loadedChunks = other.loadedChunks;
+            this.snapshots = other.snapshots;
+        } else {
+            Long2ObjectMap<Chunk> worldLoaded = ((IChunkProviderClient) world.getChunkProvider()).loadedChunks();
+            if (copyLoadedChunks) {
+                this.loadedChunks = new Long2ObjectOpenHashMap<>(worldLoaded); // make a copy that we can safely access from another thread
+            } else {
+                this.loadedChunks = worldLoaded; // this will only be used on the main thread
+            }
+        }
         this.isPassableBlockPos = new BlockPos.MutableBlockPos();
         this.access = new BlockStateInterfaceAccessWrapper(this, world);
     }
 
+    /**
+     * For subclasses that don't read from a client world, and override {@link #get0(int, int, int)},
+     * {@link #isLoaded(int, int)} and {@link #worldContainsLoadedChunk(int, int)} to read from somewhere else
+     */
+    protected BlockStateInterface(BetterWorldBorder worldBorder) {
+        this.worldBorder = worldBorder;
+        this.worldData = null;
+        this.loadedChunks = new Long2ObjectOpenHashMap<>();
+        this.copiedLoadedChunks = false;
+        this.useTheRealWorld = false;
+        this.isPassableBlockPos = new BlockPos.MutableBlockPos();
+        this.access = new BlockStateInterfaceAccessWrapper(this, null);
+    }
+
+    /**
+     * Copies every loaded chunk, for a path calculation that's about to start on another thread, if
+     * {@link baritone.api.Settings#pathingChunkSnapshots} is on. Copying takes a while, so this is only done once a
+     * search is actually dispatched, not every time a context is made. Has to be called on the main thread, before
+     * handing this to another thread.
+     */
+    public void takeSnapshots() {
+        if (snapshots != null || !copiedLoadedChunks || !useTheRealWorld || !Baritone.settings().pathingChunkSnapshots.value) {
+            return;
+        }
+        Long2ObjectMap<ChunkSnapshot> snapshots = new Long2ObjectOpenHashMap<>(loadedChunks.size());
+        for (Chunk chunk : loadedChunks.values()) {
+            if (chunk.isLoaded()) {
+                snapshots.put(ChunkPos.asLong(chunk.x, chunk.z), ChunkSnapshot.of(chunk));
+            }
+        }
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Copies the changed sections of a chunk into the snapshot again, if this reads from snapshots and has one of the
+     * chunk. Has to be called on the main thread.
+     *
+     * @param chunk    The chunk as it is now
+     * @param sections A bit for each section that changed, {@code 1 << (y >> 4)}
+     */
+    public void refreshSnapshot(Chunk chunk, int sections) {
+        if (snapshots == null) {
+            return;
+        }
+        ChunkSnapshot snapshot = snapshots.get(ChunkPos.asLong(chunk.x, chunk.z));
+        if (snapshot != null && chunk.isLoaded()) {
+            snapshot.refresh(chunk, sections);
+        }
+    }
+
+    /**
+     * Stops reading from the snapshot of a chunk that's about to unload, until it's refreshed after loading again. Has
+     * to be called on the main thread.
+     */
+    public void unloadSnapshot(int chunkX, int chunkZ) {
+        if (snapshots == null) {
+            return;
+        }
+        ChunkSnapshot snapshot = snapshots.get(ChunkPos.asLong(chunkX, chunkZ));
+        if (snapshot != null) {
+            snapshot.unload();
+        }
+    }
+
     public boolean worldContainsLoadedChunk(int blockX, int blockZ) {
         return loadedChunks.containsKey(ChunkPos.asLong(blockX >> 4, blockZ >> 4));
     }
@@ -101,7 +196,16 @@ public class BlockStateInterface {
             return AIR;
         }
 
-        if (useTheRealWorld) {
+        if (snapshots != null) { // only made if useTheRealWorld
+            ChunkSnapshot snapshot = prevSnapshot;
+            if (snapshot == null || snapshot.x != x >> 4 || snapshot.z != z >> 4) {
+                snapshot = snapshots.get(ChunkPos.asLong(x >> 4, z >> 4));
+            }
+            if (snapshot != null && !snapshot.isUnloaded()) {
+                prevSnapshot = snapshot;
+                return snapshot.get(x & 15, y, z & 15);
+            }
+        } else if (useTheRealWorld) {
             Chunk cached = prev;
             // there's great cache locality in block state lookups
             // generally it's within each movement
@@ -141,14 +245,26 @@ public class BlockStateInterface {
     }
 
     public boolean isLoaded(int x, int z) {
-        Chunk prevChunk = prev;
-        if (prevChunk != null && prevChunk.x == x >> 4 && prevChunk.z == z >> 4) {
-            return true;
-        }
-        prevChunk = loadedChunks.get(ChunkPos.asLong(x >> 4, z >> 4));
-        if (prevChunk != null && prevChunk.isLoaded()) {
-            prev = prevChunk;
-            return true;
+        if (snapshots != null) {
+            ChunkSnapshot prevSnapshot = this.prevSnapshot;
+            if (prevSnapshot != null && prevSnapshot.x == x >> 4 && prevSnapshot.z == z >> 4 && !prevSnapshot.isUnloaded()) {
+                return true;
+            }
+            prevSnapshot = snapshots.get(ChunkPos.asLong(x >> 4, z >> 4));
+            if (prevSnapshot != null && !prevSnapshot.isUnloaded()) {
+                this.prevSnapshot = prevSnapshot;
+                return true;
+            }
+        } else {
+            Chunk prevChunk = prev;
+            if (prevChunk != null && prevChunk.x == x >> 4 && prevChunk.z == z >> 4) {
+                return true;
+            }
+            prevChunk = loadedChunks.get(ChunkPos.asLong(x >> 4, z >> 4));
+            if (prevChunk != null && prevChunk.isLoaded()) {
+                prev = prevChunk;
+                return true;
+            }
         }
         CachedRegion prevRegion = prevCached;
         if (prevRegion != null && prevRegion.getX() == x >> 9 && prevRegion.getZ() == z >> 9) {
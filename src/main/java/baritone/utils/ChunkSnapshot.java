@@ -0,0 +1,208 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils;
+
+import baritone.utils.accessor.IBitArray;
+import baritone.utils.accessor.IBlockStateContainer;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.BitArray;
+import net.minecraft.world.chunk.BlockStatePaletteRegistry;
+import net.minecraft.world.chunk.BlockStateContainer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A copy of the blocks of a loaded chunk that the pathing thread can read without racing the client thread
+ * <p>
+ * Each 16x16x16 section is copied as the game stores it, the packed palette indices and the palette, resolved to block
+ * states up front, so a lookup is a few shifts and two array reads. Sections never change once copied. When blocks
+ * change, {@link #refresh} copies just their sections again and swaps them in, and whoever is reading keeps going with
+ * whichever copy it got.
+ * <p>
+ * Once the chunk unloads the snapshot {@link #isUnloaded() says so}, rather than being taken out of the map that other
+ * threads are reading, and a refresh after the chunk loads again brings it back.
+ */
+final class ChunkSnapshot {
+
+    private static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+    final int x;
+    final int z;
+
+    /**
+     * Null for a section that's all air. Elements are replaced as a whole, never changed.
+     */
+    private final Section[] sections = new Section[16];
+
+    private volatile boolean unloaded;
+
+    private ChunkSnapshot(int x, int z) {
+        this.x = x;
+        this.z = z;
+    }
+
+    /**
+     * Only on the client thread
+     */
+    static ChunkSnapshot of(Chunk chunk) {
+        ChunkSnapshot snapshot = new ChunkSnapshot(chunk.x, chunk.z);
+        snapshot.refresh(chunk, 0xFFFF);
+        return snapshot;
+    }
+
+    /**
+     * Copies some sections of the chunk again. Only on the client thread.
+     *
+     * @param sections A bit for each section to copy, {@code 1 << (y >> 4)}
+     */
+    void refresh(Chunk chunk, int sections) {
+        ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+        for (int y0 = 0; y0 < 16; y0++) {
+            if ((sections & 1 << y0) != 0) {
+                this.sections[y0] = Section.of(storage[y0]);
+            }
+        }
+        unloaded = false;
+    }
+
+    /**
+     * The chunk is about to unload, so this isn't the loaded world any more. Only on the client thread.
+     */
+    void unload() {
+        unloaded = true;
+    }
+
+    boolean isUnloaded() {
+        return unloaded;
+    }
+
+    /**
+     * @param x The x within the chunk, 0 to 15
+     * @param y The y, 0 to 255
+     * @param z The z within the chunk, 0 to 15
+     */
+    IBlockState get(int x, int y, int z) {
+        Section section = sections[y >> 4];
+        if (section == null) {
+            return AIR;
+        }
+        return section.get((y & 15) << 8 | z << 4 | x);
+    }
+
+    private static final class Section {
+
+        /**
+         * The game's own palette for sections with too many different states for a small one, by state id
+         */
+        private static IBlockState[] registry;
+
+        private final long[] words;
+        private final int bitsPerEntry;
+        private final long mask;
+        private final IBlockState[] palette;
+
+        private Section(long[] words, int bitsPerEntry, IBlockState[] palette) {
+            this.words = words;
+            this.bitsPerEntry = bitsPerEntry;
+            this.mask = (1L << bitsPerEntry) - 1;
+            this.palette = palette;
+        }
+
+        static Section of(ExtendedBlockStorage storage) {
+            if (storage == null || storage.isEmpty()) {
+                return null;
+            }
+            BlockStateContainer data = storage.getData();
+            if (data instanceof IBlockStateContainer) {
+                IBlockStateContainer access = (IBlockStateContainer) data;
+                BitArray array = access.getStorage();
+                if (array != null) {
+                    int bitsPerEntry = ((IBitArray) array).getBitsPerEntry();
+                    IBlockState[] palette;
+                    if (access.getPalette() instanceof BlockStatePaletteRegistry) {
+                        palette = registry();
+                    } else {
+                        palette = new IBlockState[1 << bitsPerEntry];
+                        for (int i = 0; i < palette.length; i++) {
+                            palette[i] = access.getAtPalette(i);
+                        }
+                    }
+                    return new Section(array.getBackingLongArray().clone(), bitsPerEntry, palette);
+                }
+            }
+            // no way at the packed data, so read it a block at a time and pack it ourselves
+            List<IBlockState> palette = new ArrayList<>();
+            Map<IBlockState, Integer> ids = new IdentityHashMap<>();
+            int[] indices = new int[4096];
+            for (int i = 0; i < 4096; i++) {
+                indices[i] = ids.computeIfAbsent(storage.get(i & 15, i >> 8, (i >> 4) & 15), state -> {
+                    palette.add(state);
+                    return palette.size() - 1;
+                });
+            }
+            int bitsPerEntry = Math.max(4, 32 - Integer.numberOfLeadingZeros(palette.size() - 1));
+            long[] words = new long[(4096 * bitsPerEntry + 63) / 64];
+            for (int i = 0; i < 4096; i++) {
+                int bit = i * bitsPerEntry;
+                words[bit >> 6] |= (long) indices[i] << (bit & 63);
+                int spill = (bit & 63) + bitsPerEntry - 64;
+                if (spill > 0) {
+                    words[(bit >> 6) + 1] |= (long) indices[i] >>> (bitsPerEntry - spill);
+                }
+            }
+            return new Section(words, bitsPerEntry, palette.toArray(new IBlockState[0]));
+        }
+
+        IBlockState get(int index) {
+            // same as BitArray#getAt
+            int bit = index * bitsPerEntry;
+            int word = bit >> 6;
+            int shift = bit & 63;
+            long value = words[word] >>> shift;
+            if (shift + bitsPerEntry > 64) {
+                value |= words[word + 1] << (64 - shift);
+            }
+            int id = (int) (value & mask);
+            IBlockState state = id < palette.length ? palette[id] : null;
+            return state == null ? AIR : state;
+        }
+
+        private static IBlockState[] registry() {
+            IBlockState[] states = registry;
+            if (states == null) {
+                int size = 0;
+                for (IBlockState state : Block.BLOCK_STATE_IDS) {
+                    size = Math.max(size, Block.BLOCK_STATE_IDS.get(state) + 1);
+                }
+                states = new IBlockState[size];
+                for (IBlockState state : Block.BLOCK_STATE_IDS) {
+                    states[Block.BLOCK_STATE_IDS.get(state)] = state;
+                }
+                registry = states;
+            }
+            return states;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils;
+
+import baritone.cache.CachedRegion;
+import baritone.cache.HeadlessWorld;
+import baritone.utils.pathing.BetterWorldBorder;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.world.border.WorldBorder;
+
+/**
+ * Reads a {@link HeadlessWorld} instead of the client's world. Set chunks count as loaded, cached regions only as
+ * cached, same as in game. Like any other {@link BlockStateInterface}, use one per thread.
+ */
+public final class HeadlessBlockStateInterface extends BlockStateInterface {
+
+    private static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+    public final HeadlessWorld world;
+
+    private char[][] prev;
+    private int prevX;
+    private int prevZ;
+    private CachedRegion prevCached;
+
+    public HeadlessBlockStateInterface(HeadlessWorld world) {
+        this(world, new BetterWorldBorder(new WorldBorder()));
+    }
+
+    public HeadlessBlockStateInterface(HeadlessWorld world, BetterWorldBorder worldBorder) {
+        super(worldBorder);
+        this.world = world;
+    }
+
+    @Override
+    public boolean worldContainsLoadedChunk(int blockX, int blockZ) {
+        return world.isLoaded(blockX, blockZ);
+    }
+
+    @Override
+    public IBlockState get0(int x, int y, int z) {
+        if (y < 0 || y >= 256) {
+            return AIR;
+        }
+        char[][] chunk = prev;
+        if (chunk != null && prevX == x >> 4 && prevZ == z >> 4) {
+            return world.get(chunk, x, y, z);
+        }
+        chunk = world.getChunk(x >> 4, z >> 4);
+        if (chunk != null) {
+            prev = chunk;
+            prevX = x >> 4;
+            prevZ = z >> 4;
+            return world.get(chunk, x, y, z);
+        }
+        CachedRegion cached = prevCached;
+        if (cached == null || cached.getX() != x >> 9 || cached.getZ() != z >> 9) {
+            cached = world.getRegion(x >> 9, z >> 9);
+            if (cached == null) {
+                return AIR;
+            }
+            prevCached = cached;
+        }
+        IBlockState type = cached.getBlock(x & 511, y, z & 511);
+        if (type == null) {
+            return AIR;
+        }
+        return type;
+    }
+
+    @Override
+    public boolean isLoaded(int x, int z) {
+        return world.isCached(x, z);
+    }
+}
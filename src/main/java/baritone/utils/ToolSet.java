@@ -29,7 +29,9 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.item.ItemSword;
 import net.minecraft.item.ItemTool;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -53,17 +55,64 @@ public class ToolSet {
 
     private final EntityPlayerSP player;
 
+    /**
+     * Everything {@link #getStrVsBlock} depends on, see {@link #sameAs}
+     */
+    private final List<Object> key = new ArrayList<>();
+
     public ToolSet(EntityPlayerSP player) {
         breakStrengthCache = new HashMap<>();
         this.player = player;
 
+        double amplifier = Baritone.settings().considerPotionEffects.value ? potionAmplifier() : 1;
         if (Baritone.settings().considerPotionEffects.value) {
-            double amplifier = potionAmplifier();
             Function<Double, Double> amplify = x -> amplifier * x;
             backendCalculation = amplify.compose(this::getBestDestructionTime);
         } else {
             backendCalculation = this::getBestDestructionTime;
         }
+        for (int i = 0; i < 9; i++) {
+            addToKey(player.inventory.getStackInSlot(i));
+        }
+        key.add(Baritone.settings().autoTool.value ? -1 : player.inventory.currentItem);
+        key.add(amplifier);
+        key.add(Baritone.settings().useSwordToMine.value);
+        key.add(Baritone.settings().itemSaver.value);
+        key.add(Baritone.settings().itemSaverThreshold.value);
+        addAvoidanceToKey();
+    }
+
+    /**
+     * Just the one tool, for when there's no player to look at the hotbar of
+     *
+     * @param tool The tool, or {@link ItemStack#EMPTY} for bare hands
+     */
+    public ToolSet(ItemStack tool) {
+        breakStrengthCache = new HashMap<>();
+        this.player = null;
+        backendCalculation = block -> calculateSpeedVsBlock(tool, block.getDefaultState()) * avoidanceMultiplier(block);
+        addToKey(tool);
+        addAvoidanceToKey();
+    }
+
+    private void addToKey(ItemStack stack) {
+        key.add(stack.getItem());
+        key.add(stack.getItemDamage());
+        key.add(stack.getTagCompound() == null ? null : stack.getTagCompound().copy());
+    }
+
+    private void addAvoidanceToKey() {
+        key.add(new ArrayList<>(Baritone.settings().blocksToAvoidBreaking.value));
+        key.add(Baritone.settings().avoidBreakingMultiplier.value);
+    }
+
+    /**
+     * @param other Another tool set
+     * @return Whether the two will always come up with the same {@link #getStrVsBlock}, i.e. they were made for the
+     * same tools, potion effects and settings
+     */
+    public boolean sameAs(ToolSet other) {
+        return key.equals(other.key);
     }
 
     /**
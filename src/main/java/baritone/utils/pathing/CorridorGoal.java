@@ -0,0 +1,164 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.pathing;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalXZ;
+import baritone.api.utils.SettingsUtil;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Steers a search along a route that was planned a chunk at a time, see {@link baritone.pathing.calc.CorridorPlanner}
+ * <p>
+ * Inside the corridor (the chunks on the route plus one chunk either side), the heuristic is the distance to a
+ * waypoint a little further along plus the length of the rest of the route. Outside of it, the heuristic is as if we
+ * had to start the whole route over, so that the search only leaves the corridor when it really has to.
+ */
+public final class CorridorGoal implements Goal {
+
+    /**
+     * How many waypoints ahead to aim for, so that we aren't steering towards the middle of every chunk on the way
+     */
+    private static final int LOOKAHEAD = 2;
+
+    private final Goal goal;
+    private final int[] waypointX;
+    private final int[] waypointY;
+    private final int[] waypointZ;
+
+    /**
+     * The estimated cost from each waypoint to the goal, following the rest of the route
+     */
+    private final double[] remaining;
+
+    /**
+     * Chunk to the furthest waypoint index it's on or next to
+     */
+    private final Long2IntOpenHashMap chunkIndex;
+
+    /**
+     * Whether the route goes all the way to the chunk the goal is in, or it stops where the cache runs out
+     */
+    private final boolean reachesGoal;
+
+    public CorridorGoal(Goal goal, int[] waypointX, int[] waypointY, int[] waypointZ, boolean reachesGoal) {
+        if (waypointX.length == 0) {
+            throw new IllegalStateException();
+        }
+        this.goal = goal;
+        this.waypointX = waypointX;
+        this.waypointY = waypointY;
+        this.waypointZ = waypointZ;
+        this.reachesGoal = reachesGoal;
+        int last = waypointX.length - 1;
+        this.remaining = new double[waypointX.length];
+        remaining[last] = goal.heuristic(waypointX[last], waypointY[last], waypointZ[last]);
+        for (int i = last - 1; i >= 0; i--) {
+            remaining[i] = remaining[i + 1] + GoalXZ.calculate(waypointX[i + 1] - waypointX[i], waypointZ[i + 1] - waypointZ[i]);
+        }
+        this.chunkIndex = new Long2IntOpenHashMap();
+        chunkIndex.defaultReturnValue(-1);
+        for (int i = 0; i <= last; i++) {
+            int chunkX = waypointX[i] >> 4;
+            int chunkZ = waypointZ[i] >> 4;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    // later waypoints overwrite earlier ones, so where the route doubles back we keep the most progress
+                    chunkIndex.put(chunkKey(chunkX + dx, chunkZ + dz), i);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isInGoal(int x, int y, int z) {
+        return goal.isInGoal(x, y, z);
+    }
+
+    @Override
+    public double heuristic(int x, int y, int z) {
+        int index = chunkIndex.get(chunkKey(x >> 4, z >> 4));
+        if (index < 0) {
+            return GoalXZ.calculate(waypointX[0] - x, waypointZ[0] - z) + remaining[0];
+        }
+        int last = waypointX.length - 1;
+        if (reachesGoal && index == last) {
+            return goal.heuristic(x, y, z);
+        }
+        int target = Math.min(index + LOOKAHEAD, last);
+        return GoalXZ.calculate(waypointX[target] - x, waypointZ[target] - z) + remaining[target];
+    }
+
+    @Override
+    public double heuristic() {
+        return goal.heuristic();
+    }
+
+    /**
+     * @return Whether a search starting here can still use this corridor, rather than planning a new one
+     */
+    public boolean isStillUseful(int x, int z) {
+        int index = chunkIndex.get(chunkKey(x >> 4, z >> 4));
+        if (index < 0) {
+            return false;
+        }
+        return reachesGoal || index < waypointX.length - 1 - LOOKAHEAD;
+    }
+
+    public Goal getGoal() {
+        return goal;
+    }
+
+    public int length() {
+        return waypointX.length;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CorridorGoal other = (CorridorGoal) o;
+        return goal.equals(other.goal) && reachesGoal == other.reachesGoal && Arrays.equals(waypointX, other.waypointX) && Arrays.equals(waypointZ, other.waypointZ);
+    }
+
+    @Override
+    public int hashCode() {
+        return goal.hashCode() * 1259371219 + Arrays.hashCode(waypointX) * 31 + Arrays.hashCode(waypointZ);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "CorridorGoal{goal=%s,chunks=%s,to=%s}",
+                goal,
+                waypointX.length,
+                SettingsUtil.maybeCensor(waypointX[waypointX.length - 1]) + "," + SettingsUtil.maybeCensor(waypointZ[waypointZ.length - 1])
+        );
+    }
+}
@@ -37,9 +37,12 @@ public final class Favoring {
     }
 
     public Favoring(IPath previous, CalculationContext context) { // create one just from previous path, no mob avoidances
+        this(previous, context.backtrackCostFavoringCoefficient);
+    }
+
+    public Favoring(IPath previous, double coeff) {
         favorings = new Long2DoubleOpenHashMap();
         favorings.defaultReturnValue(1.0D);
-        double coeff = context.backtrackCostFavoringCoefficient;
         if (coeff != 1D && previous != null) {
             previous.positions().forEach(pos -> favorings.put(BetterBlockPos.longHash(pos), coeff));
         }
@@ -0,0 +1,124 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import net.minecraft.block.BlockLiquid;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CachedChunkTest {
+
+    @BeforeClass
+    public static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    @Test
+    public void flowingWaterNextToStillWater() {
+        Chunk chunk = chunk();
+        CachedChunk before = ChunkPacker.pack(chunk);
+        set(chunk, 6, 63, 6, Blocks.FLOWING_WATER.getDefaultState().withProperty(BlockLiquid.LEVEL, 1));
+        assertSameAsPacked(chunk, before, new BlockPos(6, 63, 6));
+    }
+
+    @Test
+    public void removedTopBlock() {
+        Chunk chunk = chunk();
+        CachedChunk before = ChunkPacker.pack(chunk);
+        set(chunk, 10, 70, 10, Blocks.AIR.getDefaultState());
+        assertSameAsPacked(chunk, before, new BlockPos(10, 70, 10));
+    }
+
+    @Test
+    public void specialBlocksAddedAndRemoved() {
+        Chunk chunk = chunk();
+        CachedChunk before = ChunkPacker.pack(chunk);
+        set(chunk, 2, 64, 2, Blocks.AIR.getDefaultState());
+        set(chunk, 12, 64, 3, Blocks.DIAMOND_BLOCK.getDefaultState());
+        set(chunk, 3, 64, 12, Blocks.FURNACE.getDefaultState());
+        assertSameAsPacked(chunk, before, new BlockPos(2, 64, 2), new BlockPos(12, 64, 3), new BlockPos(3, 64, 12));
+    }
+
+    private static void assertSameAsPacked(Chunk chunk, CachedChunk before, BlockPos... changed) {
+        CachedChunk actual = before.withChanges(chunk, Arrays.asList(changed));
+        CachedChunk expected = ChunkPacker.pack(chunk);
+        assertArrayEquals(expected.getData().toByteArray(), actual.getData().toByteArray());
+        assertArrayEquals(expected.getOverview(), actual.getOverview());
+        assertEquals(specialBlocks(expected), specialBlocks(actual));
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int y = 0; y < 256; y++) {
+                    // goes through the height map as well as the overview
+                    assertEquals(expected.getBlock(x, y, z, 0), actual.getBlock(x, y, z, 0));
+                }
+            }
+        }
+    }
+
+    private static Map<String, Set<BlockPos>> specialBlocks(CachedChunk chunk) {
+        Map<String, Set<BlockPos>> sets = new HashMap<>();
+        chunk.getRelativeBlocks().forEach((name, positions) -> sets.put(name, new HashSet<>(positions)));
+        return sets;
+    }
+
+    /**
+     * Stone up to y=63, with a pool of still water, a pillar and a chest on top
+     */
+    private static Chunk chunk() {
+        Chunk chunk = new Chunk(null, 3, -2) {
+            @Override
+            public IBlockState getBlockState(int x, int y, int z) {
+                // the default one checks the world type, and there's no world
+                ExtendedBlockStorage section = getBlockStorageArray()[y >> 4];
+                return section == null ? Blocks.AIR.getDefaultState() : section.get(x, y & 15, z);
+            }
+        };
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int y = 0; y < 64; y++) {
+                    boolean pool = y == 63 && x >= 4 && x <= 8 && z >= 4 && z <= 8;
+                    set(chunk, x, y, z, pool ? Blocks.WATER.getDefaultState() : Blocks.STONE.getDefaultState());
+                }
+            }
+        }
+        for (int y = 64; y <= 70; y++) {
+            set(chunk, 10, y, 10, Blocks.STONE.getDefaultState());
+        }
+        set(chunk, 2, 64, 2, Blocks.CHEST.getDefaultState());
+        return chunk;
+    }
+
+    private static void set(Chunk chunk, int x, int y, int z, IBlockState state) {
+        ExtendedBlockStorage[] sections = chunk.getBlockStorageArray();
+        if (sections[y >> 4] == null) {
+            sections[y >> 4] = new ExtendedBlockStorage(y >> 4 << 4, true);
+        }
+        sections[y >> 4].set(x, y & 15, z, state);
+    }
+}
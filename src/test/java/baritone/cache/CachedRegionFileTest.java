@@ -0,0 +1,235 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.api.utils.BlockUtils;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.math.BlockPos;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class CachedRegionFileTest {
+
+    private static final IBlockState[] SURFACE = {
+            Blocks.AIR.getDefaultState(),
+            Blocks.STONE.getDefaultState(),
+            Blocks.GRASS.getDefaultState(),
+            Blocks.DIAMOND_BLOCK.getDefaultState()
+    };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        CachedChunk[][] chunks = chunks(1, -1);
+        Path file = folder.getRoot().toPath().resolve("r.1.-1.bcr");
+        CachedRegionFile.write(file, chunks);
+        assertTrue(CachedRegionFile.isVersion2(file));
+
+        CachedRegionFile opened = CachedRegionFile.open(file);
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                assertEquals(chunks[x][z] != null, opened.isPresent(x, z));
+                if (chunks[x][z] != null) {
+                    assertEquals(chunks[x][z].cacheTimestamp, opened.getTimestamp(x, z));
+                    assertSameChunk(chunks[x][z], opened.readChunk(x, z, 1, -1));
+                } else {
+                    assertNull(opened.readChunk(x, z, 1, -1));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void saveAndPageIn() {
+        String directory = folder.getRoot().toString();
+        CachedChunk[][] chunks = chunks(-3, 2);
+        CachedRegion region = new CachedRegion(-3, 2, 0);
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                if (chunks[x][z] != null) {
+                    region.updateCachedChunk(x, z, chunks[x][z]);
+                }
+            }
+        }
+        region.save(directory);
+        // once more, over the file that the region now reads from
+        region.updateCachedChunk(0, 0, chunk(-96, 64, 7));
+        chunks[0][0] = region.getChunk(0, 0);
+        region.save(directory);
+
+        CachedRegion loaded = new CachedRegion(-3, 2, 0);
+        loaded.load(directory);
+        assertEquals("nothing should be read until it's asked for", 0, loaded.getMemoryUsage());
+        assertSameRegion(chunks, loaded);
+    }
+
+    @Test
+    public void convertVersion1() throws IOException {
+        String directory = folder.getRoot().toString();
+        CachedChunk[][] chunks = chunks(0, 5);
+        Path file = folder.getRoot().toPath().resolve("r.0.5.bcr");
+        writeVersion1(file, chunks);
+        assertFalse(CachedRegionFile.isVersion2(file));
+
+        CachedRegion region = new CachedRegion(0, 5, 0);
+        region.load(directory);
+        assertTrue("loading should have converted it", CachedRegionFile.isVersion2(file));
+        assertSameRegion(chunks, region);
+
+        CachedRegion converted = new CachedRegion(0, 5, 0);
+        converted.load(directory);
+        assertSameRegion(chunks, converted);
+    }
+
+    static void assertSameRegion(CachedChunk[][] expected, CachedRegion region) {
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                assertEquals(expected[x][z] != null, region.isCached(x << 4, z << 4));
+                if (expected[x][z] != null) {
+                    assertSameChunk(expected[x][z], region.getChunk(x, z));
+                } else {
+                    assertNull(region.getChunk(x, z));
+                }
+            }
+        }
+    }
+
+    static void assertSameChunk(CachedChunk expected, CachedChunk actual) {
+        assertNotNull(actual);
+        assertEquals(expected.x, actual.x);
+        assertEquals(expected.z, actual.z);
+        assertEquals(expected.cacheTimestamp, actual.cacheTimestamp);
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+        // the palette only keeps the block, so this relies on the fixture using default states
+        assertArrayEquals(expected.getOverview(), actual.getOverview());
+        assertEquals(expected.getRelativeBlocks(), actual.getRelativeBlocks());
+    }
+
+    /**
+     * A region with about a third of its chunks present
+     */
+    static CachedChunk[][] chunks(int regionX, int regionZ) {
+        Random random = new Random(31 * regionX + regionZ);
+        CachedChunk[][] chunks = new CachedChunk[32][32];
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                if (random.nextInt(3) == 0) {
+                    chunks[x][z] = chunk(x + 32 * regionX, z + 32 * regionZ, random.nextLong());
+                }
+            }
+        }
+        return chunks;
+    }
+
+    static CachedChunk chunk(int chunkX, int chunkZ, long seed) {
+        Random random = new Random(seed);
+        long[] words = new long[PackedChunkData.WORDS];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = random.nextLong();
+        }
+        IBlockState[] overview = new IBlockState[256];
+        for (int i = 0; i < 256; i++) {
+            overview[i] = SURFACE[random.nextInt(SURFACE.length)];
+        }
+        Map<String, List<BlockPos>> special = new HashMap<>();
+        for (IBlockState state : new IBlockState[]{Blocks.DIAMOND_BLOCK.getDefaultState(), Blocks.CHEST.getDefaultState()}) {
+            int count = random.nextInt(4);
+            if (count == 0) {
+                continue;
+            }
+            List<BlockPos> positions = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                positions.add(new BlockPos(random.nextInt(16), random.nextInt(256), random.nextInt(16)));
+            }
+            special.put(BlockUtils.blockToString(state.getBlock()), positions);
+        }
+        return new CachedChunk(chunkX, chunkZ, new PackedChunkData(words), overview, special, 1500000000000L + random.nextInt(1000000));
+    }
+
+    /**
+     * Writes the region the way the first version of the format did, which is only read now, never written
+     */
+    private static void writeVersion1(Path file, CachedChunk[][] chunks) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(456022910);
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (chunks[x][z] == null) {
+                        out.write(0);
+                    } else {
+                        out.write(1);
+                        // the first version didn't trim trailing zeros
+                        out.write(Arrays.copyOf(chunks[x][z].toByteArray(), CachedChunk.SIZE_IN_BYTES));
+                    }
+                }
+            }
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (chunks[x][z] != null) {
+                        for (IBlockState state : chunks[x][z].getOverview()) {
+                            out.writeUTF(BlockUtils.blockToString(state.getBlock()));
+                        }
+                    }
+                }
+            }
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (chunks[x][z] != null) {
+                        Map<String, List<BlockPos>> special = chunks[x][z].getRelativeBlocks();
+                        out.writeShort(special.size());
+                        for (Map.Entry<String, List<BlockPos>> entry : special.entrySet()) {
+                            out.writeUTF(entry.getKey());
+                            out.writeShort(entry.getValue().size());
+                            for (BlockPos pos : entry.getValue()) {
+                                out.writeByte((byte) (pos.getZ() << 4 | pos.getX()));
+                                out.writeByte((byte) pos.getY());
+                            }
+                        }
+                    }
+                }
+            }
+            for (int x = 0; x < 32; x++) {
+                for (int z = 0; z < 32; z++) {
+                    if (chunks[x][z] != null) {
+                        out.writeLong(chunks[x][z].cacheTimestamp);
+                    }
+                }
+            }
+        }
+    }
+}
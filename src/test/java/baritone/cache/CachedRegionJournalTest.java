@@ -0,0 +1,214 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import net.minecraft.init.Bootstrap;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static baritone.cache.CachedRegionFileTest.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CachedRegionJournalTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    @Test
+    public void latestCopyWins() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("r.0.0.bcj");
+        CachedChunk first = chunk(3, 4, 1);
+        CachedChunk other = chunk(5, 6, 2);
+        CachedChunk second = chunk(3, 4, 3);
+        int size = CachedRegionJournal.append(journal, Arrays.asList(first, other));
+        size += CachedRegionJournal.append(journal, Collections.singletonList(second));
+        assertEquals(size, Files.size(journal));
+
+        CachedChunk[][] recovered = CachedRegionJournal.recover(journal, 0, 0);
+        assertSameChunk(second, recovered[3][4]);
+        assertSameChunk(other, recovered[5][6]);
+        assertEquals(size, Files.size(journal));
+    }
+
+    @Test
+    public void tornRecordIsCutOff() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("r.0.0.bcj");
+        CachedChunk kept = chunk(-31, 7, 1);
+        int size = CachedRegionJournal.append(journal, Collections.singletonList(kept));
+        CachedRegionJournal.append(journal, Collections.singletonList(chunk(-30, 7, 2)));
+        // as if the game stopped in the middle of writing the second one
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        CachedChunk[][] recovered = CachedRegionJournal.recover(journal, -1, 0);
+        assertSameChunk(kept, recovered[1][7]);
+        assertNull(recovered[2][7]);
+        assertEquals(size, Files.size(journal));
+    }
+
+    @Test
+    public void crcMismatchIsCutOff() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("r.0.0.bcj");
+        CachedChunk kept = chunk(0, 0, 1);
+        int size = CachedRegionJournal.append(journal, Collections.singletonList(kept));
+        CachedRegionJournal.append(journal, Collections.singletonList(chunk(1, 0, 2)));
+        flipByte(journal, size + 11);
+
+        CachedChunk[][] recovered = CachedRegionJournal.recover(journal, 0, 0);
+        assertSameChunk(kept, recovered[0][0]);
+        assertNull(recovered[1][0]);
+        assertEquals(size, Files.size(journal));
+    }
+
+    @Test
+    public void emptyJournal() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("r.0.0.bcj");
+        Files.createFile(journal);
+        CachedChunk[][] recovered = CachedRegionJournal.recover(journal, 0, 0);
+        for (CachedChunk[] column : recovered) {
+            for (CachedChunk chunk : column) {
+                assertNull(chunk);
+            }
+        }
+        assertEquals(0, Files.size(journal));
+    }
+
+    @Test
+    public void recoveredOnLoad() {
+        String directory = folder.getRoot().toString();
+        CachedChunk[][] chunks = savedRegion(directory);
+        CachedRegion region = new CachedRegion(2, 2, 0);
+        region.load(directory);
+        CachedChunk newer = newer(chunks, 5, 6, 1);
+        region.updateCachedChunk(5, 6, newer);
+        region.journal(directory);
+        // and then the game stops without saving
+
+        chunks[5][6] = newer;
+        CachedRegion loaded = new CachedRegion(2, 2, 0);
+        loaded.load(directory);
+        assertSameRegion(chunks, loaded);
+    }
+
+    @Test
+    public void tornRecordOnLoad() throws IOException {
+        String directory = folder.getRoot().toString();
+        Path journal = CachedRegion.getJournalFile(folder.getRoot().toPath(), 2, 2);
+        CachedChunk[][] chunks = savedRegion(directory);
+        CachedRegion region = new CachedRegion(2, 2, 0);
+        region.load(directory);
+        CachedChunk newer = newer(chunks, 5, 6, 1);
+        region.updateCachedChunk(5, 6, newer);
+        long size = region.journal(directory);
+        // a record header claiming more than is there
+        Files.write(journal, new byte[]{0, 0, 16, 0, 1, 2, 3, 4, 5, 6}, StandardOpenOption.APPEND);
+
+        chunks[5][6] = newer;
+        CachedRegion loaded = new CachedRegion(2, 2, 0);
+        loaded.load(directory);
+        assertSameRegion(chunks, loaded);
+        assertEquals(size, Files.size(journal));
+    }
+
+    @Test
+    public void crcMismatchOnLoad() throws IOException {
+        String directory = folder.getRoot().toString();
+        Path journal = CachedRegion.getJournalFile(folder.getRoot().toPath(), 2, 2);
+        CachedChunk[][] chunks = savedRegion(directory);
+        CachedRegion region = new CachedRegion(2, 2, 0);
+        region.load(directory);
+        CachedChunk first = newer(chunks, 5, 6, 1);
+        region.updateCachedChunk(5, 6, first);
+        long size = region.journal(directory);
+        region.updateCachedChunk(7, 8, newer(chunks, 7, 8, 2));
+        region.journal(directory);
+        flipByte(journal, size + 11);
+
+        // only the first change survives, the second chunk is as it was saved
+        chunks[5][6] = first;
+        CachedRegion loaded = new CachedRegion(2, 2, 0);
+        loaded.load(directory);
+        assertSameRegion(chunks, loaded);
+        assertEquals(size, Files.size(journal));
+    }
+
+    @Test
+    public void emptyJournalOnLoad() throws IOException {
+        String directory = folder.getRoot().toString();
+        CachedChunk[][] chunks = savedRegion(directory);
+        Files.createFile(CachedRegion.getJournalFile(folder.getRoot().toPath(), 2, 2));
+
+        CachedRegion loaded = new CachedRegion(2, 2, 0);
+        loaded.load(directory);
+        assertSameRegion(chunks, loaded);
+    }
+
+    /**
+     * Saves a region at 2,2 to the directory, which leaves no journal behind
+     */
+    private static CachedChunk[][] savedRegion(String directory) {
+        CachedChunk[][] chunks = chunks(2, 2);
+        CachedRegion region = new CachedRegion(2, 2, 0);
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                if (chunks[x][z] != null) {
+                    region.updateCachedChunk(x, z, chunks[x][z]);
+                }
+            }
+        }
+        region.save(directory);
+        return chunks;
+    }
+
+    /**
+     * A different chunk in the given position, cached after whatever was there
+     */
+    private static CachedChunk newer(CachedChunk[][] chunks, int x, int z, long seed) {
+        CachedChunk source = chunk(x + 64, z + 64, seed);
+        long timestamp = chunks[x][z] == null ? source.cacheTimestamp : chunks[x][z].cacheTimestamp + 1;
+        return new CachedChunk(x + 64, z + 64, source.getData(), source.getOverview(), source.getRelativeBlocks(), timestamp);
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) ~buffer.get(0));
+            buffer.rewind();
+            channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.utils.pathing.PathingBlockType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PackedChunkDataTest {
+
+    private static final PathingBlockType[] TYPES = PathingBlockType.values();
+
+    @Test
+    public void sameAsBitSet() {
+        Random random = new Random(5021);
+        for (int trial = 0; trial < 20; trial++) {
+            PackedChunkData data = new PackedChunkData();
+            BitSet bitSet = new BitSet(CachedChunk.SIZE);
+            // leave the top of the chunk empty sometimes, so that the byte arrays have trailing zeros trimmed
+            int top = random.nextInt(257);
+            for (int y = 0; y < top; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        PathingBlockType type = TYPES[random.nextInt(4)];
+                        data.setType(PackedChunkData.position(x, y, z), type);
+                        int index = CachedChunk.getPositionIndex(x, y, z);
+                        bitSet.set(index, type.getBits()[0]);
+                        bitSet.set(index + 1, type.getBits()[1]);
+                    }
+                }
+            }
+            assertArrayEquals(bitSet.toByteArray(), data.toByteArray());
+            PackedChunkData read = PackedChunkData.fromByteArray(bitSet.toByteArray());
+            for (int position = 0; position < 65536; position++) {
+                int index = position << 1;
+                PathingBlockType expected = PathingBlockType.fromBits(bitSet.get(index), bitSet.get(index + 1));
+                assertEquals(expected, data.getType(position));
+                assertEquals(expected, read.getType(position));
+            }
+        }
+    }
+
+    @Test
+    public void heightMap() {
+        Random random = new Random(256);
+        PackedChunkData data = new PackedChunkData();
+        for (int column = 0; column < 256; column++) {
+            // some columns all air, some with gaps
+            int height = random.nextInt(300);
+            for (int y = 0; y <= Math.min(height, 255); y++) {
+                if (random.nextInt(4) != 0) {
+                    data.setType(y << 8 | column, TYPES[1 + random.nextInt(3)]);
+                }
+            }
+        }
+        int[] heightMap = new int[256];
+        Arrays.fill(heightMap, -1);
+        data.computeHeightMap(heightMap);
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int expected = 0;
+                for (int y = 255; y >= 0; y--) {
+                    if (!data.isAir(PackedChunkData.position(x, y, z))) {
+                        expected = y;
+                        break;
+                    }
+                }
+                assertEquals(expected, heightMap[z << 4 | x]);
+                assertEquals(expected, data.height(x, z));
+            }
+        }
+    }
+}
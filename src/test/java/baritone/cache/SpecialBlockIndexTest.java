@@ -0,0 +1,143 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SpecialBlockIndexTest {
+
+    @Test
+    public void nearestChunksHaveTheNearestBlocks() {
+        Random random = new Random(4096);
+        for (int trial = 0; trial < 50; trial++) {
+            SpecialBlockIndex index = new SpecialBlockIndex();
+            // chunk key to the x, z of each block in it
+            Map<Long, List<int[]>> blocks = new HashMap<>();
+            // sparse enough to go through every chunk, or dense enough to look in rings around the center
+            int count = trial % 2 == 0 ? 300 : 6000;
+            for (int i = 0; i < count; i++) {
+                int chunkX = random.nextInt(160) - 80;
+                int chunkZ = random.nextInt(160) - 80;
+                List<int[]> inChunk = new ArrayList<>();
+                for (int j = 1 + random.nextInt(4); j > 0; j--) {
+                    inChunk.add(new int[]{chunkX << 4 | random.nextInt(16), chunkZ << 4 | random.nextInt(16)});
+                }
+                blocks.put(SpecialBlockIndex.key(chunkX, chunkZ), inChunk);
+                index.update(chunkX, chunkZ, Collections.singletonMap("minecraft:chest", inChunk));
+            }
+            int centerX = random.nextInt(1024) - 512;
+            int centerZ = random.nextInt(1024) - 512;
+            int maximum = 1 + random.nextInt(30);
+
+            List<int[]> all = new ArrayList<>();
+            for (Map.Entry<Long, List<int[]>> entry : blocks.entrySet()) {
+                int regionX = ((int) (long) entry.getKey() >> 5) - (centerX >> 9);
+                int regionZ = ((int) (entry.getKey() >> 32) >> 5) - (centerZ >> 9);
+                if (regionX * regionX + regionZ * regionZ <= 2) {
+                    all.addAll(entry.getValue());
+                }
+            }
+            Comparator<int[]> byDistance = Comparator.comparingLong(b -> (long) (b[0] - centerX) * (b[0] - centerX) + (long) (b[1] - centerZ) * (b[1] - centerZ));
+            all.sort(byDistance);
+
+            List<int[]> found = new ArrayList<>();
+            for (long key : index.nearestChunks("minecraft:chest", maximum, centerX, centerZ, 2)) {
+                found.addAll(blocks.get(key));
+            }
+            found.sort(byDistance);
+            int expected = Math.min(maximum, all.size());
+            assertTrue(found.size() >= expected);
+            for (int i = 0; i < expected; i++) {
+                assertEquals(0, byDistance.compare(all.get(i), found.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void countByRegion() {
+        Random random = new Random(1024);
+        // sparse enough to go through every chunk, or dense enough to look up each chunk in the region
+        for (int count : new int[]{200, 5000}) {
+            SpecialBlockIndex index = new SpecialBlockIndex();
+            Map<Long, Integer> expected = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                int chunkX = random.nextInt(96) - 48;
+                int chunkZ = random.nextInt(96) - 48;
+                int inChunk = 1 + random.nextInt(4);
+                index.update(chunkX, chunkZ, Collections.singletonMap("minecraft:chest", Collections.nCopies(inChunk, 0)));
+                // replaces whatever was there before, same as the index
+                expected.put(SpecialBlockIndex.key(chunkX, chunkZ), inChunk);
+            }
+            for (int regionX = -3; regionX <= 2; regionX++) {
+                for (int regionZ = -3; regionZ <= 2; regionZ++) {
+                    int sum = 0;
+                    for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+                        if ((int) (long) entry.getKey() >> 5 == regionX && (int) (entry.getKey() >> 32) >> 5 == regionZ) {
+                            sum += entry.getValue();
+                        }
+                    }
+                    assertEquals(sum, index.count("minecraft:chest", regionX, regionZ));
+                }
+            }
+            assertEquals(0, index.count("minecraft:furnace", 0, 0));
+        }
+    }
+
+    @Test
+    public void updateReplacesChunk() {
+        SpecialBlockIndex index = new SpecialBlockIndex();
+        index.update(0, 0, Collections.singletonMap("minecraft:chest", Arrays.asList(1, 2)));
+        index.update(0, 0, Collections.singletonMap("minecraft:furnace", Collections.singletonList(1)));
+        assertEquals(0, index.nearestChunks("minecraft:chest", 10, 0, 0, 2).length);
+        assertArrayEquals(new long[]{SpecialBlockIndex.key(0, 0)}, index.nearestChunks("minecraft:furnace", 10, 0, 0, 2));
+        index.remove(0, 0);
+        assertEquals(0, index.nearestChunks("minecraft:furnace", 10, 0, 0, 2).length);
+    }
+
+    @Test
+    public void saveAndLoad() throws IOException {
+        Path directory = Files.createTempDirectory("special_blocks");
+        SpecialBlockIndex index = new SpecialBlockIndex();
+        index.update(-3, 70, Collections.singletonMap("minecraft:chest", Arrays.asList(1, 2, 3)));
+        index.update(5, 5, Collections.singletonMap("minecraft:chest", Collections.singletonList(1)));
+        index.markIndexed(-1, 2);
+        index.save(directory);
+
+        SpecialBlockIndex loaded = new SpecialBlockIndex();
+        loaded.load(directory);
+        assertTrue(loaded.isIndexed(-1, 2));
+        assertFalse(loaded.isIndexed(0, 0));
+        assertArrayEquals(index.nearestChunks("minecraft:chest", 10, 0, 1000, 100), loaded.nearestChunks("minecraft:chest", 10, 0, 1000, 100));
+        assertEquals(2, loaded.nearestChunks("minecraft:chest", 10, 0, 1000, 100).length);
+
+        // a region file written after the index was saved might have changed
+        Files.write(directory.resolve("r.-1.2.bcr"), new byte[0]);
+        Files.setLastModifiedTime(directory.resolve("r.-1.2.bcr"), FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        SpecialBlockIndex reloaded = new SpecialBlockIndex();
+        reloaded.load(directory);
+        assertFalse(reloaded.isIndexed(-1, 2));
+    }
+}
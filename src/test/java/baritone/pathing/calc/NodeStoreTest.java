@@ -0,0 +1,110 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.calc.openset.BucketOpenSet;
+import baritone.pathing.calc.openset.PairingHeapOpenSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NodeStoreTest {
+
+    // can't use a real goal because Minecraft isn't initted
+    private static final Goal GOAL = new Goal() {
+        @Override
+        public boolean isInGoal(int x, int y, int z) {
+            return false;
+        }
+
+        @Override
+        public double heuristic(int x, int y, int z) {
+            return x * 0.5;
+        }
+    };
+
+    @Test
+    public void storesAgree() {
+        List<Double> expected = run(new NodePool(16, 0.75f));
+        assertEquals(expected, run(objects(new BinaryHeapOpenSet())));
+        assertEquals(expected, run(objects(new PairingHeapOpenSet())));
+        assertEquals(expected, run(objects(new BucketOpenSet())));
+    }
+
+    private static PathNodeStore objects(baritone.pathing.calc.openset.IOpenSet openSet) {
+        PathNodeStore store = new PathNodeStore(new Long2ObjectOpenHashMap<>());
+        store.setOpenSet(openSet);
+        return store;
+    }
+
+    /**
+     * The same inserts and decrease-keys every time
+     *
+     * @return The combined costs of the nodes in the order they came out
+     */
+    private static List<Double> run(NodeStore store) {
+        Random random = new Random(5021);
+        int count = 2000;
+        int[] handles = new int[count];
+        for (int i = 0; i < count; i++) {
+            int node = store.getOrCreate(i, 64, -i, i, GOAL);
+            handles[i] = node;
+            assertEquals(i * 0.5, store.estimatedCostToGoal(node), 0);
+            assertEquals(node, store.get(i));
+            assertEquals(NodeStore.NONE, store.get(-1 - i));
+            assertEquals(NodeStore.NONE, store.previous(node));
+            assertFalse(store.isOpen(node));
+            store.setCost(node, random.nextInt(100000) / 8.0);
+            store.setCombinedCost(node, store.cost(node) + store.estimatedCostToGoal(node));
+            store.setPrevious(node, i == 0 ? NodeStore.NONE : handles[i - 1]);
+            store.insert(node);
+            assertTrue(store.isOpen(node));
+        }
+        assertEquals(count, store.size());
+        assertEquals(count, store.openSetSize());
+        List<Double> popped = new ArrayList<>();
+        while (!store.isOpenSetEmpty()) {
+            for (int j = 0; j < 3; j++) {
+                int i = random.nextInt(count);
+                int node = store.getOrCreate(i, 64, -i, i, GOAL);
+                assertEquals(handles[i], node);
+                if (store.isOpen(node)) {
+                    store.setCost(node, store.cost(node) / 2);
+                    store.setCombinedCost(node, store.cost(node) + store.estimatedCostToGoal(node));
+                    store.update(node);
+                }
+            }
+            int node = store.removeLowest();
+            assertFalse(store.isOpen(node));
+            popped.add(store.combinedCost(node));
+            int x = store.x(node);
+            assertEquals(x == 0 ? NodeStore.NONE : handles[x - 1], store.previous(node));
+        }
+        assertEquals(count, store.size());
+        return popped;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.pathing.calc.NodePool;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NodePoolBinaryHeapOpenSetTest {
+
+    @Test
+    public void testOrdering() {
+        // same deal as OpenSetsTest, can't use a real goal because Minecraft isn't initted
+        Goal goal = new Goal() {
+            @Override
+            public boolean isInGoal(int x, int y, int z) {
+                return false;
+            }
+
+            @Override
+            public double heuristic(int x, int y, int z) {
+                return 0;
+            }
+        };
+        Random random = new Random(5021);
+        for (int size : new int[]{1, 2, 3, 10, 100, 1000, 10000}) {
+            NodePool pool = new NodePool(16, 0.75f);
+            NodePoolBinaryHeapOpenSet set = new NodePoolBinaryHeapOpenSet(pool, 4);
+            assertTrue(set.isEmpty());
+            for (int i = 0; i < size; i++) {
+                int node = pool.getOrCreate(i, 0, 0, i, goal);
+                assertEquals(i, node);
+                assertFalse(pool.isOpen(node));
+                pool.setCombinedCost(node, random.nextDouble());
+                set.insert(node);
+                assertTrue(pool.isOpen(node));
+            }
+            assertEquals(size, pool.size());
+            assertEquals(0, pool.getOrCreate(0, 0, 0, 0, goal)); // already exists
+            for (int i = 0; i < size; i += 2) {
+                pool.setCombinedCost(i, pool.combinedCost(i) * random.nextDouble());
+                set.update(i);
+            }
+            double prev = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                int node = set.removeLowest();
+                assertFalse(pool.isOpen(node));
+                assertTrue(pool.combinedCost(node) >= prev);
+                prev = pool.combinedCost(node);
+            }
+            assertTrue(set.isEmpty());
+        }
+    }
+}
@@ -50,14 +50,14 @@ public class OpenSetsTest {
         return testSizes;
     }
 
-    private static void removeAndTest(int amount, IOpenSet[] test, Collection<PathNode> mustContain) {
+    private static void removeAndTest(int amount, IOpenSet[] test, List<Set<PathNode>> mustContain) {
         double[][] results = new double[test.length][amount];
         for (int i = 0; i < test.length; i++) {
             long before = System.nanoTime() / 1000000L;
             for (int j = 0; j < amount; j++) {
                 PathNode pn = test[i].removeLowest();
-                if (mustContain != null && !mustContain.contains(pn)) {
-                    throw new IllegalStateException(mustContain + " " + pn);
+                if (mustContain != null && !mustContain.get(i).contains(pn)) {
+                    throw new IllegalStateException(mustContain.get(i) + " " + pn);
                 }
                 results[i][j] = pn.combinedCost;
             }
@@ -73,41 +73,157 @@ public class OpenSetsTest {
         }
     }
 
+    private static PathNode node() {
+        // can't use an existing goal
+        // because they use Baritone.settings()
+        // and we can't do that because Minecraft itself isn't initted
+        return new PathNode(0, 0, 0, new Goal() {
+            @Override
+            public boolean isInGoal(int x, int y, int z) {
+                return false;
+            }
+
+            @Override
+            public double heuristic(int x, int y, int z) {
+                return 0;
+            }
+        });
+    }
+
+    private static final byte INSERT = 0;
+    private static final byte UPDATE = 1;
+    private static final byte REMOVE = 2;
+
+    /**
+     * Record the open set operations of an actual A* search, on a grid with random costs from one corner to the other
+     */
+    private static List<double[]> recordSearch(int side, long seed) {
+        Random random = new Random(seed);
+        double[] cellCost = new double[side * side];
+        for (int i = 0; i < cellCost.length; i++) {
+            cellCost[i] = 1 + random.nextDouble() * 9;
+        }
+        PathNode[] nodes = new PathNode[side * side];
+        double[] cost = new double[side * side];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        Map<PathNode, Integer> ids = new IdentityHashMap<>();
+        List<double[]> ops = new ArrayList<>();
+        BinaryHeapOpenSet openSet = new BinaryHeapOpenSet();
+        int goal = side * side - 1;
+        cost[0] = 0;
+        nodes[0] = node();
+        ids.put(nodes[0], 0);
+        nodes[0].combinedCost = 2 * (side - 1);
+        openSet.insert(nodes[0]);
+        ops.add(new double[]{INSERT, 0, nodes[0].combinedCost});
+        while (!openSet.isEmpty()) {
+            PathNode current = openSet.removeLowest();
+            int id = ids.get(current);
+            ops.add(new double[]{REMOVE, id, current.combinedCost});
+            if (id == goal) {
+                break;
+            }
+            int x = id % side;
+            int z = id / side;
+            for (int[] offset : new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}}) {
+                int nx = x + offset[0];
+                int nz = z + offset[1];
+                if (nx < 0 || nz < 0 || nx >= side || nz >= side) {
+                    continue;
+                }
+                int neighbor = nz * side + nx;
+                double tentative = cost[id] + cellCost[neighbor];
+                if (tentative >= cost[neighbor]) {
+                    continue;
+                }
+                cost[neighbor] = tentative;
+                double combined = tentative + (side - 1 - nx) + (side - 1 - nz);
+                if (nodes[neighbor] == null) {
+                    nodes[neighbor] = node();
+                    ids.put(nodes[neighbor], neighbor);
+                }
+                nodes[neighbor].combinedCost = combined;
+                if (nodes[neighbor].isOpen()) {
+                    openSet.update(nodes[neighbor]);
+                    ops.add(new double[]{UPDATE, neighbor, combined});
+                } else {
+                    openSet.insert(nodes[neighbor]);
+                    ops.add(new double[]{INSERT, neighbor, combined});
+                }
+            }
+        }
+        return ops;
+    }
+
+    @Test
+    public void testRecordedSearch() {
+        int side = 16 + (int) Math.sqrt(size) * 4;
+        List<double[]> ops = recordSearch(side, size);
+        IOpenSet[] test = new IOpenSet[]{new BinaryHeapOpenSet(), new PairingHeapOpenSet(), new BucketOpenSet()};
+        double[][] removed = new double[test.length][];
+        for (int i = 0; i < test.length; i++) {
+            IOpenSet set = test[i];
+            PathNode[] nodes = new PathNode[side * side];
+            Map<PathNode, Integer> ids = new IdentityHashMap<>();
+            double[] results = new double[ops.size()];
+            int numRemoved = 0;
+            long before = System.nanoTime();
+            for (double[] op : ops) {
+                int id = (int) op[1];
+                if (op[0] == REMOVE) {
+                    PathNode pn = set.removeLowest();
+                    assertEquals(id, (int) ids.get(pn)); // costs are random doubles, so no ties
+                    results[numRemoved++] = pn.combinedCost;
+                    continue;
+                }
+                if (nodes[id] == null) {
+                    nodes[id] = node();
+                    ids.put(nodes[id], id);
+                }
+                nodes[id].combinedCost = op[2];
+                if (op[0] == INSERT) {
+                    set.insert(nodes[id]);
+                } else {
+                    set.update(nodes[id]);
+                }
+            }
+            System.out.println(set.getClass() + " replayed " + ops.size() + " operations in " + (System.nanoTime() - before) / 1000 + "us");
+            removed[i] = Arrays.copyOf(results, numRemoved);
+        }
+        for (int i = 1; i < test.length; i++) {
+            assertArrayEquals(removed[0], removed[i], 0);
+        }
+    }
+
     @Test
     public void testSize() {
         System.out.println("Testing size " + size);
         // Include LinkedListOpenSet even though it's not performant because I absolutely trust that it behaves properly
         // I'm really testing the heap implementations against it as the ground truth
-        IOpenSet[] test = new IOpenSet[]{new BinaryHeapOpenSet(), new LinkedListOpenSet()};
+        IOpenSet[] test = new IOpenSet[]{new BinaryHeapOpenSet(), new LinkedListOpenSet(), new PairingHeapOpenSet(), new BucketOpenSet()};
         for (IOpenSet set : test) {
             assertTrue(set.isEmpty());
         }
 
         // generate the pathnodes that we'll be testing the sets on
-        PathNode[] toInsert = new PathNode[size];
+        // each set gets its own copy of each node, since the heaps keep track of where each node is in it on the node
+        PathNode[][] toInsert = new PathNode[test.length][size];
         for (int i = 0; i < size; i++) {
-            // can't use an existing goal
-            // because they use Baritone.settings()
-            // and we can't do that because Minecraft itself isn't initted
-            PathNode pn = new PathNode(0, 0, 0, new Goal() {
-                @Override
-                public boolean isInGoal(int x, int y, int z) {
-                    return false;
-                }
-
-                @Override
-                public double heuristic(int x, int y, int z) {
-                    return 0;
-                }
-            });
-            pn.combinedCost = Math.random();
-            toInsert[i] = pn;
+            double combinedCost = Math.random();
+            for (int j = 0; j < test.length; j++) {
+                PathNode pn = node();
+                pn.combinedCost = combinedCost;
+                toInsert[j][i] = pn;
+            }
         }
 
         // create a list of what the first removals should be
-        ArrayList<PathNode> copy = new ArrayList<>(Arrays.asList(toInsert));
-        copy.sort(Comparator.comparingDouble(pn -> pn.combinedCost));
-        Set<PathNode> lowestQuarter = new HashSet<>(copy.subList(0, size / 4));
+        List<Set<PathNode>> lowestQuarter = new ArrayList<>();
+        for (int j = 0; j < test.length; j++) {
+            ArrayList<PathNode> copy = new ArrayList<>(Arrays.asList(toInsert[j]));
+            copy.sort(Comparator.comparingDouble(pn -> pn.combinedCost));
+            lowestQuarter.add(new HashSet<>(copy.subList(0, size / 4)));
+        }
 
         // all opensets should be empty; nothing has been inserted yet
         for (IOpenSet set : test) {
@@ -115,10 +231,11 @@ public class OpenSetsTest {
         }
 
         System.out.println("Insertion");
-        for (IOpenSet set : test) {
+        for (int j = 0; j < test.length; j++) {
+            IOpenSet set = test[j];
             long before = System.nanoTime() / 1000000L;
             for (int i = 0; i < size; i++)
-                set.insert(toInsert[i]);
+                set.insert(toInsert[j][i]);
             System.out.println(set.getClass() + " " + (System.nanoTime() / 1000000L - before));
             //all three take either 0 or 1ms to insert up to 10,000 nodes
             //linkedlist takes 0ms most often (because there's no array resizing or allocation there, just pointer shuffling)
@@ -127,6 +244,7 @@ public class OpenSetsTest {
         // all opensets should now be full
         for (IOpenSet set : test) {
             assertFalse(set.isEmpty());
+            assertEquals(size, set.size());
         }
 
         System.out.println("Removal round 1");
@@ -139,16 +257,17 @@ public class OpenSetsTest {
         }
         int cnt = 0;
         for (int i = 0; cnt < size / 2 && i < size; i++) {
-            if (lowestQuarter.contains(toInsert[i])) { // these were already removed and can't be updated to test
+            if (lowestQuarter.get(0).contains(toInsert[0][i])) { // these were already removed and can't be updated to test
                 continue;
             }
-            toInsert[i].combinedCost *= Math.random();
+            double factor = Math.random();
             // multiplying it by a random number between 0 and 1 is guaranteed to decrease it
-            for (IOpenSet set : test) {
+            for (int j = 0; j < test.length; j++) {
                 // it's difficult to benchmark these individually because if you modify all at once then update then
                 // it breaks the internal consistency of the heaps.
                 // you have to call update every time you modify a node.
-                set.update(toInsert[i]);
+                toInsert[j][i].combinedCost *= factor;
+                test[j].update(toInsert[j][i]);
             }
             cnt++;
         }
@@ -0,0 +1,165 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.goals;
+
+import baritone.api.pathing.goals.*;
+import baritone.process.BuilderProcess;
+import baritone.process.MineProcess;
+import net.minecraft.util.math.BlockPos;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GoalCompositeTest {
+
+    /**
+     * Large composites are spatially indexed, make sure that gives the same answer as checking every goal
+     */
+    @Test
+    public void indexedIsInGoal() {
+        Random random = new Random(4273);
+        for (int size : new int[]{10, 100, 1000}) {
+            Goal[] goals = randomGoals(random, size);
+            GoalComposite composite = new GoalComposite(goals);
+            for (int x = -55; x <= 55; x++) {
+                for (int y = 0; y <= 50; y++) {
+                    for (int z = -55; z <= 55; z++) {
+                        boolean expected = false;
+                        for (Goal goal : goals) {
+                            if (goal.isInGoal(x, y, z)) {
+                                expected = true;
+                                break;
+                            }
+                        }
+                        assertEquals(x + "," + y + "," + z, expected, composite.isInGoal(x, y, z));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void indexedHeuristic() {
+        Random random = new Random(9157);
+        for (int size : new int[]{10, 100, 1000}) {
+            Goal[] goals = randomGoals(random, size);
+            GoalComposite composite = new GoalComposite(goals);
+            for (int i = 0; i < 20000; i++) {
+                // mostly near the goals, some a long way off
+                int spread = i % 10 == 0 ? 2000 : 120;
+                int x = random.nextInt(spread) - spread / 2;
+                int y = random.nextInt(256);
+                int z = random.nextInt(spread) - spread / 2;
+                double expected = Double.MAX_VALUE;
+                for (Goal goal : goals) {
+                    expected = Math.min(expected, goal.heuristic(x, y, z));
+                }
+                assertEquals(x + "," + y + "," + z, expected, composite.heuristic(x, y, z), 0);
+            }
+        }
+    }
+
+    /**
+     * Everything that opts in to being indexed has to actually keep to the rules, or the index will be wrong
+     */
+    @Test
+    public void boundedGoalsKeepToTheirBounds() {
+        Random random = new Random(6121);
+        for (Goal goal : randomGoals(random, 200)) {
+            if (!(goal instanceof IBoundedGoal)) {
+                continue;
+            }
+            IBoundedGoal bounded = (IBoundedGoal) goal;
+            BlockPos pos = bounded.getGoalPos();
+            for (int x = pos.getX() - 6; x <= pos.getX() + 6; x++) {
+                for (int y = pos.getY() - 6; y <= pos.getY() + 6; y++) {
+                    for (int z = pos.getZ() - 6; z <= pos.getZ() + 6; z++) {
+                        boolean inReach = Math.abs(x - pos.getX()) <= IBoundedGoal.REACH
+                                && Math.abs(y - pos.getY()) <= IBoundedGoal.REACH
+                                && Math.abs(z - pos.getZ()) <= IBoundedGoal.REACH;
+                        if (!inReach) {
+                            assertFalse(goal + " at " + x + "," + y + "," + z, goal.isInGoal(x, y, z));
+                        }
+                        assertTrue(goal + " at " + x + "," + y + "," + z, goal.heuristic(x, y, z) >= bounded.heuristicLowerBound(x, y, z));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The indexed kinds of goal, including the builder and mining ones that opt in, ones that aren't, and subclasses
+     * of the indexed kinds that don't keep to the index's assumptions, so have to be checked like any other goal
+     */
+    private static Goal[] randomGoals(Random random, int size) {
+        Goal[] goals = new Goal[size];
+        for (int i = 0; i < size; i++) {
+            BlockPos pos = new BlockPos(random.nextInt(100) - 50, random.nextInt(40) + 5, random.nextInt(100) - 50);
+            switch (random.nextInt(11)) {
+                case 0:
+                    goals[i] = new GoalBlock(pos);
+                    break;
+                case 1:
+                    goals[i] = new GoalTwoBlocks(pos);
+                    break;
+                case 2:
+                    goals[i] = new GoalGetToBlock(pos);
+                    break;
+                case 3:
+                    goals[i] = new GoalBlock(pos) {
+                        @Override
+                        public boolean isInGoal(int x, int y, int z) {
+                            return Math.abs(x - this.x) <= 4 && y == this.y && z == this.z;
+                        }
+
+                        @Override
+                        public double heuristic(int x, int y, int z) {
+                            return super.heuristic(x, y, z) / 2;
+                        }
+                    };
+                    break;
+                case 4:
+                    goals[i] = new GoalNear(pos, 3);
+                    break;
+                case 5:
+                    goals[i] = new BuilderProcess.GoalBreak(pos);
+                    break;
+                case 6:
+                    goals[i] = new BuilderProcess.GoalAdjacent(pos, new BlockPos(pos.getX() + 1, pos.getY(), pos.getZ()), random.nextBoolean());
+                    break;
+                case 7:
+                    goals[i] = new BuilderProcess.GoalPlace(pos);
+                    break;
+                case 8:
+                    goals[i] = new MineProcess.GoalThreeBlocks(pos);
+                    break;
+                case 9:
+                    goals[i] = new BuilderProcess.JankyGoalComposite(new BuilderProcess.GoalBreak(pos), new GoalGetToBlock(pos.up()));
+                    break;
+                default:
+                    goals[i] = new GoalXZ(pos.getX(), pos.getZ());
+                    break;
+            }
+        }
+        return goals;
+    }
+}
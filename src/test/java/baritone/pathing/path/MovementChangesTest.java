@@ -0,0 +1,131 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.path;
+
+import net.minecraft.util.math.BlockPos;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MovementChangesTest {
+
+    /**
+     * 40 movements in a straight line along x, each using the block at its x and the one under it
+     */
+    private static MovementChanges straightLine() {
+        MovementChanges changes = new MovementChanges(40);
+        for (int i = 0; i < 40; i++) {
+            changes.add(i, new BlockPos(i, 64, 0));
+            changes.add(i, new BlockPos(i, 63, 0));
+        }
+        return changes;
+    }
+
+    private static MovementChanges clean() {
+        MovementChanges changes = straightLine();
+        changes.clearDirty(0, 40);
+        assertEquals(-1, changes.nextDirty(0, 40));
+        assertEquals(-1, changes.nextCostDirty(0, 40));
+        return changes;
+    }
+
+    @Test
+    public void everythingStartsDirtyButNotCostDirty() {
+        MovementChanges changes = straightLine();
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i, changes.nextDirty(i, 40));
+        }
+        assertEquals(-1, changes.nextCostDirty(0, 40));
+    }
+
+    @Test
+    public void nextDirtyStaysInTheWindow() {
+        MovementChanges changes = straightLine();
+        changes.clearDirty(0, 10);
+        assertEquals(10, changes.nextDirty(0, 20));
+        assertEquals(-1, changes.nextDirty(0, 10));
+        changes.clearDirty(10, 20);
+        assertEquals(-1, changes.nextDirty(10, 20));
+        // the ones past the window are still waiting
+        assertEquals(20, changes.nextDirty(0, 40));
+    }
+
+    @Test
+    public void blockChangeMarksBothSets() {
+        MovementChanges changes = clean();
+        changes.blockChanged(25, 64, 0);
+        // the movement using it and the ones next to it, whose blocks are neighbors
+        for (int i = 24; i <= 26; i++) {
+            assertEquals(i, changes.nextDirty(i, 40));
+            assertEquals(i, changes.nextCostDirty(i, 40));
+        }
+        assertEquals(-1, changes.nextDirty(27, 40));
+        assertEquals(-1, changes.nextDirty(0, 24));
+    }
+
+    @Test
+    public void floorChangeMarks() {
+        MovementChanges changes = clean();
+        changes.blockChanged(5, 62, 0); // under the floor
+        assertEquals(5, changes.nextDirty(0, 40));
+        assertEquals(-1, changes.nextDirty(6, 40));
+    }
+
+    @Test
+    public void farBlockChangeDoesNothing() {
+        MovementChanges changes = clean();
+        changes.blockChanged(5, 64, 2);
+        changes.blockChanged(5, 66, 0);
+        changes.blockChanged(-2, 64, 0);
+        assertEquals(-1, changes.nextDirty(0, 40));
+        assertEquals(-1, changes.nextCostDirty(0, 40));
+    }
+
+    @Test
+    public void chunkChangeMarksEveryMovementInIt() {
+        MovementChanges changes = clean();
+        changes.chunkChanged(1, 0);
+        for (int i = 16; i < 32; i++) {
+            assertEquals(i, changes.nextDirty(i, 40));
+            assertEquals(i, changes.nextCostDirty(i, 40));
+        }
+        assertEquals(-1, changes.nextDirty(0, 16));
+        assertEquals(-1, changes.nextDirty(32, 40));
+        changes.chunkChanged(5, 5);
+        assertEquals(-1, changes.nextDirty(32, 40));
+    }
+
+    @Test
+    public void clearingOneSetLeavesTheOther() {
+        MovementChanges changes = clean();
+        changes.blockChanged(10, 64, 0);
+        changes.clearDirty(0, 40);
+        assertEquals(9, changes.nextCostDirty(0, 40));
+        changes.clearCostDirty(9, 10);
+        assertEquals(10, changes.nextCostDirty(0, 40));
+        changes.clearCostDirty(0, 40);
+        assertEquals(-1, changes.nextCostDirty(0, 40));
+        changes.setDirty(3);
+        assertEquals(3, changes.nextDirty(0, 40));
+        assertEquals(-1, changes.nextCostDirty(0, 40));
+        // empty ranges are fine
+        changes.clearDirty(5, 5);
+        changes.clearCostDirty(7, 2);
+        assertEquals(3, changes.nextDirty(0, 40));
+    }
+}
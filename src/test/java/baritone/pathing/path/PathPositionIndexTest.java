@@ -0,0 +1,111 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.path;
+
+import baritone.api.utils.BetterBlockPos;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PathPositionIndexTest {
+
+    /**
+     * A wandering path, some movements with more than one valid position, like a fall or a parkour jump
+     */
+    private static List<Set<BetterBlockPos>> randomPath(Random random, int length) {
+        List<Set<BetterBlockPos>> path = new ArrayList<>();
+        int x = 0;
+        int y = 64;
+        int z = 0;
+        for (int i = 0; i < length; i++) {
+            Set<BetterBlockPos> valid = new LinkedHashSet<>();
+            valid.add(new BetterBlockPos(x, y, z));
+            switch (random.nextInt(4)) {
+                case 0:
+                    x += random.nextBoolean() ? 1 : -1;
+                    break;
+                case 1:
+                    z += random.nextBoolean() ? 1 : -1;
+                    break;
+                case 2:
+                    y += random.nextInt(3) - 1;
+                    break;
+                default:
+                    // sometimes doubles back on itself, so positions are valid for more than one movement
+                    break;
+            }
+            valid.add(new BetterBlockPos(x, y, z));
+            path.add(valid);
+        }
+        return path;
+    }
+
+    @Test
+    public void firstMovementAt() {
+        Random random = new Random(22);
+        List<Set<BetterBlockPos>> path = randomPath(random, 500);
+        PathPositionIndex index = new PathPositionIndex(path);
+        for (int trial = 0; trial < 2000; trial++) {
+            BetterBlockPos pos = new BetterBlockPos(random.nextInt(40) - 20, 64 + random.nextInt(10) - 5, random.nextInt(40) - 20);
+            int from = random.nextInt(500);
+            int to = from + random.nextInt(500 - from + 1);
+            int expected = -1;
+            for (int i = from; i < to; i++) {
+                if (path.get(i).contains(pos)) {
+                    expected = i;
+                    break;
+                }
+            }
+            assertEquals(expected, index.firstMovementAt(pos, from, to));
+        }
+    }
+
+    @Test
+    public void closest() {
+        Random random = new Random(2022);
+        for (int length : new int[]{1, 7, 100, 3000}) {
+            List<Set<BetterBlockPos>> path = randomPath(random, length);
+            PathPositionIndex index = new PathPositionIndex(path);
+            for (int trial = 0; trial < 500; trial++) {
+                double x = random.nextDouble() * 80 - 40;
+                double y = 54 + random.nextDouble() * 20;
+                double z = random.nextDouble() * 80 - 40;
+                // the same as PathExecutor used to do, first of the closest in path order
+                BetterBlockPos expected = null;
+                double best = -1;
+                for (Set<BetterBlockPos> valid : path) {
+                    for (BetterBlockPos pos : valid) {
+                        double distance = Math.sqrt((pos.x + 0.5 - x) * (pos.x + 0.5 - x) + (pos.y + 0.5 - y) * (pos.y + 0.5 - y) + (pos.z + 0.5 - z) * (pos.z + 0.5 - z));
+                        if (distance < best || best == -1) {
+                            best = distance;
+                            expected = pos;
+                        }
+                    }
+                }
+                BetterBlockPos actual = index.closest(x, y, z);
+                assertEquals(expected.x, actual.x);
+                assertEquals(expected.y, actual.y);
+                assertEquals(expected.z, actual.z);
+            }
+        }
+        assertNull(new PathPositionIndex(Collections.emptyList()).closest(0, 0, 0));
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils;
+
+import baritone.utils.accessor.IBitArray;
+import baritone.utils.accessor.IBlockStateContainer;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.BitArray;
+import net.minecraft.world.chunk.BlockStateContainer;
+import net.minecraft.world.chunk.BlockStatePaletteHashMap;
+import net.minecraft.world.chunk.BlockStatePaletteLinear;
+import net.minecraft.world.chunk.BlockStatePaletteRegistry;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IBlockStatePalette;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ChunkSnapshotTest {
+
+    @BeforeClass
+    public static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    @Test
+    public void linearPalette() {
+        for (boolean accessible : new boolean[]{true, false}) {
+            Chunk chunk = chunk(accessible);
+            fill(chunk, 0, states(3), new Random(1));
+            assertPalette(chunk, 0, BlockStatePaletteLinear.class);
+            assertMatches(chunk, ChunkSnapshot.of(chunk));
+        }
+    }
+
+    @Test
+    public void hashMapPalette() {
+        for (boolean accessible : new boolean[]{true, false}) {
+            Chunk chunk = chunk(accessible);
+            fill(chunk, 5, states(40), new Random(2));
+            assertPalette(chunk, 5, BlockStatePaletteHashMap.class);
+            assertMatches(chunk, ChunkSnapshot.of(chunk));
+        }
+    }
+
+    @Test
+    public void globalPalette() {
+        for (boolean accessible : new boolean[]{true, false}) {
+            Chunk chunk = chunk(accessible);
+            fill(chunk, 15, states(400), new Random(3));
+            assertPalette(chunk, 15, BlockStatePaletteRegistry.class);
+            assertMatches(chunk, ChunkSnapshot.of(chunk));
+        }
+    }
+
+    @Test
+    public void refreshOnlyCopiesTheGivenSections() {
+        for (boolean accessible : new boolean[]{true, false}) {
+            Chunk chunk = chunk(accessible);
+            fill(chunk, 0, states(3), new Random(4));
+            fill(chunk, 1, states(40), new Random(5));
+            fill(chunk, 2, states(400), new Random(6));
+            ChunkSnapshot snapshot = ChunkSnapshot.of(chunk);
+            IBlockState before = snapshot.get(7, 40, 7);
+            set(chunk, 7, 40, 7, Blocks.EMERALD_BLOCK.getDefaultState());
+            set(chunk, 3, 20, 3, Blocks.DIAMOND_BLOCK.getDefaultState());
+            set(chunk, 9, 100, 9, Blocks.STONE.getDefaultState()); // a section that was empty
+            snapshot.refresh(chunk, 1 << 1 | 1 << 6);
+            assertEquals(before, snapshot.get(7, 40, 7));
+            assertEquals(Blocks.DIAMOND_BLOCK.getDefaultState(), snapshot.get(3, 20, 3));
+            assertEquals(Blocks.STONE.getDefaultState(), snapshot.get(9, 100, 9));
+            snapshot.refresh(chunk, 1 << 2);
+            assertMatches(chunk, snapshot);
+        }
+    }
+
+    @Test
+    public void unloadUntilRefreshed() {
+        Chunk chunk = chunk(true);
+        fill(chunk, 4, states(3), new Random(7));
+        ChunkSnapshot snapshot = ChunkSnapshot.of(chunk);
+        assertFalse(snapshot.isUnloaded());
+        snapshot.unload();
+        assertTrue(snapshot.isUnloaded());
+        snapshot.refresh(chunk, 0xFFFF);
+        assertFalse(snapshot.isUnloaded());
+        assertMatches(chunk, snapshot);
+    }
+
+    private static void assertMatches(Chunk chunk, ChunkSnapshot snapshot) {
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int y = 0; y < 256; y++) {
+                    assertEquals(chunk.getBlockState(x, y, z), snapshot.get(x, y, z));
+                }
+            }
+        }
+    }
+
+    private static void assertPalette(Chunk chunk, int section, Class<? extends IBlockStatePalette> type) {
+        BlockStateContainer data = chunk.getBlockStorageArray()[section].getData();
+        if (data instanceof IBlockStateContainer) {
+            assertEquals(type, ((IBlockStateContainer) data).getPalette().getClass());
+        }
+    }
+
+    /**
+     * The first {@code count} distinct block states by id
+     */
+    private static List<IBlockState> states(int count) {
+        Set<IBlockState> states = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<IBlockState> list = new ArrayList<>();
+        for (IBlockState state : Block.BLOCK_STATE_IDS) {
+            if (list.size() == count) {
+                break;
+            }
+            if (states.add(state)) {
+                list.add(state);
+            }
+        }
+        assertEquals(count, list.size());
+        return list;
+    }
+
+    /**
+     * Every state at least once, the rest of the section random
+     */
+    private static void fill(Chunk chunk, int section, List<IBlockState> states, Random random) {
+        for (int i = 0; i < 4096; i++) {
+            IBlockState state = i < states.size() ? states.get(i) : states.get(random.nextInt(states.size()));
+            set(chunk, i & 15, section << 4 | i >> 8, (i >> 4) & 15, state);
+        }
+    }
+
+    /**
+     * @param accessible Whether the sections can be read the way the mixins allow in game, or only a block at a time
+     */
+    private static Chunk chunk(boolean accessible) {
+        Chunk chunk = new Chunk(null, 3, -2) {
+            @Override
+            public IBlockState getBlockState(int x, int y, int z) {
+                // the default one checks the world type, and there's no world
+                ExtendedBlockStorage section = getBlockStorageArray()[y >> 4];
+                return section == null ? Blocks.AIR.getDefaultState() : section.get(x, y & 15, z);
+            }
+        };
+        if (accessible) {
+            ExtendedBlockStorage[] sections = chunk.getBlockStorageArray();
+            for (int i = 0; i < sections.length; i++) {
+                sections[i] = new AccessibleStorage(i << 4);
+            }
+        }
+        return chunk;
+    }
+
+    private static void set(Chunk chunk, int x, int y, int z, IBlockState state) {
+        ExtendedBlockStorage[] sections = chunk.getBlockStorageArray();
+        if (sections[y >> 4] == null) {
+            sections[y >> 4] = new ExtendedBlockStorage(y >> 4 << 4, true);
+        }
+        sections[y >> 4].set(x, y & 15, z, state);
+    }
+
+    /**
+     * A section whose blocks are also kept in a container that can be read like {@link BlockStateContainer} with the
+     * accessor mixin applied
+     */
+    private static final class AccessibleStorage extends ExtendedBlockStorage {
+
+        private final AccessibleContainer data = new AccessibleContainer();
+
+        AccessibleStorage(int y) {
+            super(y, true);
+        }
+
+        @Override
+        public void set(int x, int y, int z, IBlockState state) {
+            super.set(x, y, z, state);
+            data.set(x, y, z, state);
+        }
+
+        @Override
+        public BlockStateContainer getData() {
+            return data;
+        }
+    }
+
+    private static final class AccessibleContainer extends BlockStateContainer implements IBlockStateContainer {
+
+        @Override
+        public IBlockStatePalette getPalette() {
+            return palette;
+        }
+
+        @Override
+        public BitArray getStorage() {
+            int bitsPerEntry = storage.getBackingLongArray().length * 64 / 4096;
+            AccessibleBitArray copy = new AccessibleBitArray(bitsPerEntry);
+            System.arraycopy(storage.getBackingLongArray(), 0, copy.getBackingLongArray(), 0, copy.getBackingLongArray().length);
+            return copy;
+        }
+
+        @Override
+        public IBlockState getAtPalette(int index) {
+            return palette.getBlockState(index);
+        }
+
+        @Override
+        public int[] storageArray() {
+            return ((IBitArray) getStorage()).toArray();
+        }
+    }
+
+    private static final class AccessibleBitArray extends BitArray implements IBitArray {
+
+        private final int bitsPerEntry;
+
+        AccessibleBitArray(int bitsPerEntry) {
+            super(bitsPerEntry, 4096);
+            this.bitsPerEntry = bitsPerEntry;
+        }
+
+        @Override
+        public int[] toArray() {
+            int[] array = new int[4096];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = getAt(i);
+            }
+            return array;
+        }
+
+        @Override
+        public long getMaxEntryValue() {
+            return (1L << bitsPerEntry) - 1;
+        }
+
+        @Override
+        public int getBitsPerEntry() {
+            return bitsPerEntry;
+        }
+    }
+}